@@ -0,0 +1,94 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.gsma.mobileconnect.r2.discovery.DiscoveryResponse;
+import com.gsma.mobileconnect.r2.discovery.ProviderMetadata;
+import com.gsma.mobileconnect.r2.json.GsonJsonService;
+import com.gsma.mobileconnect.r2.json.IJsonService;
+import com.gsma.mobileconnect.r2.rest.RestResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.InputStream;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the hit path of a cache holding a discovery response with its provider metadata as
+ * json, deserialized on every hit, with one holding the instance itself.  Run with
+ * {@code -prof gc} to compare the allocation of each mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheModeBenchmark
+{
+    private static final String KEY = "901_01";
+
+    private final IJsonService jsonService = new GsonJsonService();
+
+    private ConcurrentCache serializedCache;
+    private ConcurrentCache objectCache;
+
+    @Setup
+    public void setUp() throws Exception
+    {
+        final DiscoveryResponse discoveryResponse = DiscoveryResponse.fromRestResponse(
+            new RestResponse.Builder()
+                .withStatusCode(200)
+                .withContent(read("/discovery-response.json"))
+                .build(),
+            this.jsonService);
+        discoveryResponse.setProviderMetadata(
+            this.jsonService.deserialize(read("/provider-metadata.json"), ProviderMetadata.class));
+
+        this.serializedCache = new DiscoveryCache.Builder()
+            .withJsonService(this.jsonService)
+            .build();
+        this.objectCache = new DiscoveryCache.Builder()
+            .withJsonService(this.jsonService)
+            .withCacheMode(CacheMode.OBJECT)
+            .build();
+
+        this.serializedCache.add(KEY, discoveryResponse);
+        this.objectCache.add(KEY, discoveryResponse);
+    }
+
+    @Benchmark
+    public DiscoveryResponse serialized() throws CacheAccessException
+    {
+        return this.serializedCache.get(KEY, DiscoveryResponse.class);
+    }
+
+    @Benchmark
+    public DiscoveryResponse object() throws CacheAccessException
+    {
+        return this.objectCache.get(KEY, DiscoveryResponse.class);
+    }
+
+    private static String read(final String resource)
+    {
+        final InputStream stream = CacheModeBenchmark.class.getResourceAsStream(resource);
+        try (Scanner scanner = new Scanner(stream, "UTF-8"))
+        {
+            return scanner.useDelimiter("\\A").next();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest.internal;
+
+import com.gsma.mobileconnect.r2.constants.Headers;
+import com.gsma.mobileconnect.r2.constants.Parameters;
+import com.gsma.mobileconnect.r2.encoding.DefaultEncodeDecoder;
+import com.gsma.mobileconnect.r2.encoding.IMobileConnectEncodeDecoder;
+import com.gsma.mobileconnect.r2.rest.RestAuthentication;
+import com.gsma.mobileconnect.r2.utils.HttpUtils;
+import com.gsma.mobileconnect.r2.utils.KeyValuePair;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.methods.RequestBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares building a discovery request from a {@link RequestTemplate} with building every part
+ * of it per call, as the request factory did before templates were introduced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestTemplateBenchmark
+{
+    private static final String CLIENT_ID = "66742a85-2282-4747-881d-ed5b7bd74d2d";
+    private static final String CLIENT_SECRET = "f15199f4-b658-4e58-8bb3-e40998873392";
+    private static final String SOURCE_IP = "10.0.0.1";
+    private static final String X_REDIRECT = "APP";
+    private static final String CLIENT_SIDE_VERSION = "2.4.7";
+    private static final String SERVER_SIDE_VERSION = "3.5.0";
+    private static final long TIMEOUT_MS = 30000L;
+
+    private final IMobileConnectEncodeDecoder encoder = new DefaultEncodeDecoder();
+    private final RestRequestFactory factory = new RestRequestFactory(TIMEOUT_MS, true);
+    private final RequestConfig requestConfig = RequestConfig
+        .custom()
+        .setConnectionRequestTimeout((int) TIMEOUT_MS)
+        .setConnectTimeout((int) TIMEOUT_MS)
+        .setSocketTimeout((int) TIMEOUT_MS)
+        .setRedirectsEnabled(true)
+        .build();
+
+    private URI uri;
+    private List<KeyValuePair> cookies;
+
+    @Setup
+    public void setUp() throws Exception
+    {
+        this.uri = RestRequestFactory.withQueryParams(
+            URI.create("https://discovery.example.com/v2/discovery"),
+            new KeyValuePair.ListBuilder()
+                .add("Identified-MCC", "901")
+                .add("Identified-MNC", "01")
+                .build());
+        this.cookies = new KeyValuePair.ListBuilder()
+            .add("Most-Recent-Selected-Operator-Hint", "901-01")
+            .build();
+    }
+
+    @Benchmark
+    public HttpUriRequest template()
+    {
+        final RestAuthentication authentication =
+            RestAuthentication.basic(CLIENT_ID, CLIENT_SECRET, this.encoder);
+
+        return this.factory
+            .createDiscoveryRequest(HttpUtils.HttpMethod.GET, this.uri, X_REDIRECT, authentication,
+                SOURCE_IP, CLIENT_SIDE_VERSION, SERVER_SIDE_VERSION, this.cookies)
+            .build();
+    }
+
+    @Benchmark
+    public HttpUriRequest perCall()
+    {
+        final byte[] credentials = String.format("%s:%s", CLIENT_ID, CLIENT_SECRET)
+            .getBytes(StandardCharsets.UTF_8);
+        final String encoded = this.encoder.encodeToBase64(credentials);
+
+        final RequestBuilder builder = RequestBuilder
+            .create(HttpUtils.HttpMethod.GET.name())
+            .setUri(this.uri)
+            .setConfig(this.requestConfig);
+
+        builder.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        builder.addHeader(Headers.VERSION_SDK, Parameters.SDK_VERSION);
+        builder.addHeader(Headers.CLIENT_SIDE_VERSION, CLIENT_SIDE_VERSION);
+        builder.addHeader(Headers.SERVER_SIDE_VERSION, SERVER_SIDE_VERSION);
+
+        final StringBuilder cookieBuilder = new StringBuilder();
+        for (final KeyValuePair cookie : this.cookies)
+        {
+            cookieBuilder
+                .append(cookie.getKey())
+                .append('=')
+                .append(cookie.getValue())
+                .append(';');
+        }
+        builder.addHeader(Headers.COOKIE, cookieBuilder.toString());
+        builder.addHeader(Headers.X_SOURCE_IP, SOURCE_IP);
+        builder.addHeader(HttpHeaders.AUTHORIZATION, "Basic " + encoded);
+        builder.addHeader(Parameters.X_REDIRECT, X_REDIRECT);
+
+        return builder.build();
+    }
+}
@@ -16,11 +16,11 @@ import com.gsma.mobileconnect.r2.discovery.OperatorUrls;
 import com.gsma.mobileconnect.r2.discovery.SessionData;
 import com.gsma.mobileconnect.r2.json.IJsonService;
 import com.gsma.mobileconnect.r2.json.GsonJsonService;
+import com.gsma.mobileconnect.r2.rest.ConnectionPoolOptions;
 import com.gsma.mobileconnect.r2.rest.RestClient;
 import com.gsma.mobileconnect.r2.utils.ObjectUtils;
 import com.gsma.mobileconnect.r2.utils.StringUtils;
 import com.gsma.mobileconnect.r2.web.MobileConnectWebResponse;
-import org.apache.http.impl.client.HttpClientBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
@@ -56,7 +56,7 @@ public class Controller {
 
     protected Controller() {
         this.jsonService = new GsonJsonService();
-        restClient = new RestClient.Builder().withJsonService(jsonService).withHttpClient(HttpClientBuilder.create().build()).build();
+        restClient = new RestClient.Builder().withJsonService(jsonService).withConnectionPool(new ConnectionPoolOptions.Builder().build()).build();
     }
 
 
@@ -107,7 +107,7 @@ public class Controller {
     protected void setSessionCache(MobileConnectStatus status, String msisdn, String mcc, String mnc, String sourceIp) {
         try {
             sessionCache.add(status.getState(), new SessionData(discoveryCache.get(StringUtils.formatKey(msisdn, mcc, mnc, sourceIp)),
-                    status.getNonce()));
+                    status.getState(), status.getNonce()));
         } catch (CacheAccessException e) {
             LOGGER.error("Unable to access cache");
         }
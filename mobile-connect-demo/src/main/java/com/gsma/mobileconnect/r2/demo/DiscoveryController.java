@@ -21,6 +21,7 @@ import com.gsma.mobileconnect.r2.MobileConnectConfig;
 import com.gsma.mobileconnect.r2.MobileConnectRequestOptions;
 import com.gsma.mobileconnect.r2.MobileConnectStatus;
 import com.gsma.mobileconnect.r2.authentication.AuthenticationOptions;
+import com.gsma.mobileconnect.r2.cache.CachePartition;
 import com.gsma.mobileconnect.r2.cache.DiscoveryCache;
 import com.gsma.mobileconnect.r2.cache.SessionCache;
 import com.gsma.mobileconnect.r2.constants.DefaultOptions;
@@ -38,6 +39,7 @@ import com.gsma.mobileconnect.r2.utils.HttpUtils;
 import com.gsma.mobileconnect.r2.utils.LogUtils;
 import com.gsma.mobileconnect.r2.utils.ObjectUtils;
 import com.gsma.mobileconnect.r2.utils.StringUtils;
+import com.gsma.mobileconnect.r2.validation.JWKeyset;
 import org.json.simple.JSONArray;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -353,6 +355,10 @@ public class DiscoveryController extends com.gsma.mobileconnect.r2.demo.Controll
         sessionCache = new SessionCache.Builder()
                 .withJsonService(this.jsonService)
                 .withMaxCacheSize(operatorParams.getMaxDiscoveryCacheSize())
+                .withPartition(new CachePartition.Builder()
+                        .withName("jwks")
+                        .withCachedClasses(JWKeyset.class)
+                        .build())
                 .build();
         clientName = operatorParams.getClientName();
 
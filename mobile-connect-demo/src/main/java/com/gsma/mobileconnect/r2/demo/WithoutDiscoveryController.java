@@ -6,6 +6,7 @@ import com.gsma.mobileconnect.r2.MobileConnectRequestOptions;
 import com.gsma.mobileconnect.r2.MobileConnectStatus;
 import com.gsma.mobileconnect.r2.authentication.AuthenticationOptions;
 import com.gsma.mobileconnect.r2.cache.CacheAccessException;
+import com.gsma.mobileconnect.r2.cache.CachePartition;
 import com.gsma.mobileconnect.r2.cache.DiscoveryCache;
 import com.gsma.mobileconnect.r2.cache.SessionCache;
 import com.gsma.mobileconnect.r2.constants.Parameters;
@@ -18,6 +19,7 @@ import com.gsma.mobileconnect.r2.encoding.DefaultEncodeDecoder;
 import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
 import com.gsma.mobileconnect.r2.utils.LogUtils;
 import com.gsma.mobileconnect.r2.utils.StringUtils;
+import com.gsma.mobileconnect.r2.validation.JWKeyset;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.event.Level;
@@ -147,7 +149,7 @@ public class WithoutDiscoveryController extends com.gsma.mobileconnect.r2.demo.C
 
     private void setSessionCache(MobileConnectStatus status, DiscoveryResponse discoveryResponse, String nonce) {
         try {
-            sessionCache.add(status.getState(), new SessionData(discoveryResponse, nonce));
+            sessionCache.add(status.getState(), new SessionData(discoveryResponse, status.getState(), nonce));
         } catch (CacheAccessException e) {
             LOGGER.error("Unable to access cache");
         }
@@ -168,6 +170,10 @@ public class WithoutDiscoveryController extends com.gsma.mobileconnect.r2.demo.C
         sessionCache = new SessionCache.Builder()
                 .withJsonService(this.jsonService)
                 .withMaxCacheSize(operatorParams.getMaxDiscoveryCacheSize())
+                .withPartition(new CachePartition.Builder()
+                        .withName("jwks")
+                        .withCachedClasses(JWKeyset.class)
+                        .build())
                 .build();
         clientName = operatorParams.getClientName();
         clientId = operatorParams.getClientID();
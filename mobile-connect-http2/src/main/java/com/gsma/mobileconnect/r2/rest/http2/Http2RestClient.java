@@ -0,0 +1,721 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest.http2;
+
+import com.gsma.mobileconnect.r2.constants.DefaultOptions;
+import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
+import com.gsma.mobileconnect.r2.json.IJsonService;
+import com.gsma.mobileconnect.r2.json.JsonSerializationException;
+import com.gsma.mobileconnect.r2.rest.Deadline;
+import com.gsma.mobileconnect.r2.rest.DeadlineExceededException;
+import com.gsma.mobileconnect.r2.rest.IRestClient;
+import com.gsma.mobileconnect.r2.rest.ResponseTooLargeException;
+import com.gsma.mobileconnect.r2.rest.RestAuthentication;
+import com.gsma.mobileconnect.r2.rest.RestClient;
+import com.gsma.mobileconnect.r2.rest.RestResponse;
+import com.gsma.mobileconnect.r2.rest.TransferStatistics;
+import com.gsma.mobileconnect.r2.rest.internal.HeadlessPoller;
+import com.gsma.mobileconnect.r2.rest.internal.RestRequestFactory;
+import com.gsma.mobileconnect.r2.rest.internal.RestResponseHandler;
+import com.gsma.mobileconnect.r2.rest.internal.RestSupport;
+import com.gsma.mobileconnect.r2.utils.*;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHeaders;
+import org.apache.http.NameValuePair;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Implementation of {@link IRestClient} backed by the {@link HttpClient} of the JDK, which
+ * multiplexes concurrent requests to an operator as streams over a single HTTP/2 connection
+ * rather than opening a connection, and performing a TLS handshake, per request.
+ * <p>
+ * HTTP/2 is negotiated per host: a host which answers with HTTP/1.1 is sent HTTP/1.1 requests
+ * from then on.  A host which fails the first exchange attempted with HTTP/2 without answering at
+ * all, once connected, is sent HTTP/1.1 requests for the fallback time only, after which HTTP/2
+ * is attempted again; an idempotent GET which fails in this way is reissued once with HTTP/1.1.
+ * <p>
+ * Requests carry the same headers, cookies and form content as those of {@link RestClient}, and
+ * responses are decoded in the same way.  Use it with {@code
+ * MobileConnect.Builder#withRestClient(IRestClient)}.
+ */
+public class Http2RestClient implements IRestClient
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(Http2RestClient.class);
+
+    /**
+     * Headers which are set by the http client itself and may not be set on a request.
+     */
+    private static final Set<String> RESTRICTED_HEADERS = new HashSet<String>(
+        Arrays.asList("connection", "content-length", "expect", "host", "upgrade"));
+
+    private final IJsonService jsonService;
+    private final HttpClient httpClient;
+    private final long timeout;
+    private final long maxBodySize;
+    private final Executor workerExecutor;
+    private final RestRequestFactory requestFactory;
+    private final HeadlessPoller headlessPoller;
+    private final long fallbackNanos;
+    private final ConcurrentMap<String, HttpClient.Version> protocolVersions =
+        new ConcurrentHashMap<String, HttpClient.Version>();
+    private final ConcurrentMap<String, Long> fallbacks = new ConcurrentHashMap<String, Long>();
+    private final TransferStatistics transferStatistics = new TransferStatistics();
+
+    private Http2RestClient(final Builder builder)
+    {
+        this.jsonService = builder.jsonService;
+        this.httpClient = builder.httpClient;
+        this.timeout = builder.timeout;
+        this.maxBodySize = builder.maxBodySize;
+        this.fallbackNanos = TimeUnit.MILLISECONDS.toNanos(builder.fallbackTime);
+        this.workerExecutor = builder.workerExecutor;
+        this.requestFactory = new RestRequestFactory(this.timeout, builder.compression);
+        this.headlessPoller = new HeadlessPoller(builder.scheduledExecutorService,
+            this.workerExecutor, builder.waitTime, builder.maxWaitTime,
+            DefaultOptions.HEADLESS_TIMEOUT_MS);
+
+        LOGGER.info("New instance of Http2RestClient created with timeout={} ms", this.timeout);
+    }
+
+    @Override
+    public RestResponse get(final URI uri, final RestAuthentication authentication,
+        final String xRedirect, final String sourceIp, final List<KeyValuePair> queryParams,
+        final Iterable<KeyValuePair> cookies) throws RequestFailedException
+    {
+        LOGGER.debug("Getting from uri={} for sourceIp={}",
+            LogUtils.maskUri(uri, LOGGER, Level.DEBUG), sourceIp);
+
+        try
+        {
+            return this.submitRequest(this.requestFactory
+                .createRequest(HttpUtils.HttpMethod.GET,
+                    RestRequestFactory.withQueryParams(uri, queryParams), xRedirect,
+                    authentication, sourceIp, cookies)
+                .build(), true);
+        }
+        catch (final URISyntaxException use)
+        {
+            LOGGER.warn("Failed to construct uri for GET request; baseUri={}",
+                LogUtils.maskUri(uri, LOGGER, Level.WARN), use);
+            throw new RequestFailedException(HttpUtils.HttpMethod.GET, uri, use);
+        }
+    }
+
+    @Override
+    public RestResponse getConditional(final URI uri, final String etag, final String lastModified)
+        throws RequestFailedException
+    {
+        LOGGER.debug("Revalidating uri={} with etag={}, lastModified={}",
+            LogUtils.maskUri(uri, LOGGER, Level.DEBUG), etag, lastModified);
+
+        final RequestBuilder builder = this.requestFactory
+            .createRequest(HttpUtils.HttpMethod.GET, uri, null, null, null);
+        if (etag != null)
+        {
+            builder.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        }
+        if (lastModified != null)
+        {
+            builder.addHeader(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+        }
+
+        return this.submitRequest(builder.build(), true);
+    }
+
+    @Override
+    public RestResponse getDiscovery(final URI uri, final RestAuthentication authentication,
+        final String xRedirect, final String sourceIp, final String clientSideVersion,
+        final String serverSideVersion, final List<KeyValuePair> queryParams,
+        final Iterable<KeyValuePair> cookies) throws RequestFailedException
+    {
+        LOGGER.debug("Getting from uri={} for sourceIp={}",
+            LogUtils.maskUri(uri, LOGGER, Level.DEBUG), sourceIp);
+
+        try
+        {
+            return this.submitRequest(this.requestFactory
+                .createDiscoveryRequest(HttpUtils.HttpMethod.GET,
+                    RestRequestFactory.withQueryParams(uri, queryParams), xRedirect,
+                    authentication, sourceIp, clientSideVersion, serverSideVersion, cookies)
+                .build(), true);
+        }
+        catch (final URISyntaxException use)
+        {
+            LOGGER.warn("Failed to construct uri for GET request; baseUri={}",
+                LogUtils.maskUri(uri, LOGGER, Level.WARN), use);
+            throw new RequestFailedException(HttpUtils.HttpMethod.GET, uri, use);
+        }
+    }
+
+    @Override
+    public RestResponse postDiscoveryFormData(final URI uri,
+        final RestAuthentication authentication, final String xRedirect,
+        final List<KeyValuePair> formData, final String sourceIp, final String clientSideVersion,
+        final String serverSideVersion, final Iterable<KeyValuePair> cookies)
+        throws RequestFailedException
+    {
+        LOGGER.debug("Posting form data to uri={} for sourceIp={}",
+            LogUtils.maskUri(uri, LOGGER, Level.DEBUG), sourceIp);
+
+        return this.submitRequest(this.requestFactory
+            .createDiscoveryRequest(HttpUtils.HttpMethod.POST, uri, xRedirect, authentication,
+                sourceIp, clientSideVersion, serverSideVersion, cookies)
+            .addParameters(
+                ObjectUtils.requireNonNull(formData, "formData").toArray(new NameValuePair[] {}))
+            .build(), true);
+    }
+
+    @Override
+    public RestResponse postFormData(final URI uri, final RestAuthentication authentication,
+        final String xRedirect, final List<KeyValuePair> formData, final String sourceIp,
+        final Iterable<KeyValuePair> cookies) throws RequestFailedException
+    {
+        LOGGER.debug("Posting form data to uri={} for sourceIp={}",
+            LogUtils.maskUri(uri, LOGGER, Level.DEBUG), sourceIp);
+
+        return this.submitRequest(this.requestFactory
+            .createRequest(HttpUtils.HttpMethod.POST, uri, xRedirect, authentication, sourceIp,
+                cookies)
+            .addParameters(
+                ObjectUtils.requireNonNull(formData, "formData").toArray(new NameValuePair[] {}))
+            .build(), true);
+    }
+
+    @Override
+    public RestResponse postJsonContent(final URI uri, final RestAuthentication authentication,
+        final Object content, final String sourceIp, final Iterable<KeyValuePair> cookies)
+        throws RequestFailedException
+    {
+        try
+        {
+            LOGGER.debug("Posting json content to uri={} for sourceIp={}",
+                LogUtils.maskUri(uri, LOGGER, Level.DEBUG), sourceIp);
+
+            final HttpEntity entity = new StringEntity(this.jsonService.serialize(content),
+                ContentType.APPLICATION_JSON.withCharset("UTF-8"));
+            return this.postContent(uri, authentication, entity, sourceIp, cookies);
+        }
+        catch (final JsonSerializationException jse)
+        {
+            LOGGER.warn("Failed to serialize content for post to uri={}",
+                LogUtils.maskUri(uri, LOGGER, Level.WARN), jse);
+
+            throw new RequestFailedException(HttpUtils.HttpMethod.POST, uri, jse);
+        }
+    }
+
+    @Override
+    public RestResponse postStringContent(final URI uri, final RestAuthentication authentication,
+        final String content, final ContentType contentType, final String sourceIp,
+        final Iterable<KeyValuePair> cookies) throws RequestFailedException
+    {
+        LOGGER.debug("Posting String content to uri={} with contentType={} for sourceIp={}",
+            LogUtils.maskUri(uri, LOGGER, Level.DEBUG), contentType, sourceIp);
+
+        return this.postContent(uri, authentication, new StringEntity(content, contentType),
+            sourceIp, cookies);
+    }
+
+    @Override
+    public RestResponse postContent(final URI uri, final RestAuthentication authentication,
+        final HttpEntity content, final String sourceIp, final Iterable<KeyValuePair> cookies)
+        throws RequestFailedException
+    {
+        LOGGER.debug("Posting content to uri={} for sourceIp={}",
+            LogUtils.maskUri(uri, LOGGER, Level.DEBUG), sourceIp);
+
+        return this.submitRequest(this.requestFactory
+            .createRequest(HttpUtils.HttpMethod.POST, uri, authentication, sourceIp, cookies)
+            .setEntity(ObjectUtils.requireNonNull(content, "content"))
+            .build(), true);
+    }
+
+    @Override
+    public URI getFinalRedirect(final URI authUrl, final URI targetUrl,
+        final RestAuthentication authentication) throws RequestFailedException
+    {
+        try
+        {
+            return this.getFinalRedirectAsync(authUrl, targetUrl, authentication).get();
+        }
+        catch (final InterruptedException ie)
+        {
+            Thread.currentThread().interrupt();
+            throw new RequestFailedException(HttpUtils.HttpMethod.GET, authUrl, ie);
+        }
+        catch (final ExecutionException ee)
+        {
+            if (ee.getCause() instanceof RequestFailedException)
+            {
+                throw (RequestFailedException) ee.getCause();
+            }
+            throw new RequestFailedException(HttpUtils.HttpMethod.GET, authUrl, ee.getCause());
+        }
+    }
+
+    @Override
+    public CompletableFuture<URI> getFinalRedirectAsync(final URI authUrl, final URI targetUrl,
+        final RestAuthentication authentication)
+    {
+        ObjectUtils.requireNonNull(authUrl, "authUrl");
+        ObjectUtils.requireNonNull(targetUrl, "targetUrl");
+
+        return this.headlessPoller.poll(authUrl, targetUrl, uri -> CompletableFuture.supplyAsync(
+            () -> {
+                try
+                {
+                    return Http2RestClient.this.submitRequest(Http2RestClient.this.requestFactory
+                        .createRequest(HttpUtils.HttpMethod.GET, uri, authentication, null, null)
+                        .build(), false);
+                }
+                catch (final RequestFailedException rfe)
+                {
+                    throw new CompletionException(rfe);
+                }
+            }, this.workerExecutor));
+    }
+
+    /**
+     * @return protocol version used with each host contacted so far, keyed by host and port.
+     */
+    public Map<String, HttpClient.Version> getProtocolVersions()
+    {
+        final Map<String, HttpClient.Version> versions =
+            new TreeMap<String, HttpClient.Version>(this.protocolVersions);
+        for (final String host : this.fallbacks.keySet())
+        {
+            if (this.isFallingBack(host))
+            {
+                versions.put(host, HttpClient.Version.HTTP_1_1);
+            }
+        }
+        return Collections.unmodifiableMap(versions);
+    }
+
+    /**
+     * @return true if the host is being sent HTTP/1.1 requests after failing an HTTP/2 exchange,
+     * removing the fallback once it has expired.
+     */
+    private boolean isFallingBack(final String host)
+    {
+        final Long until = this.fallbacks.get(host);
+        if (until == null)
+        {
+            return false;
+        }
+        if (until - System.nanoTime() > 0L)
+        {
+            return true;
+        }
+        this.fallbacks.remove(host, until);
+        return false;
+    }
+
+    /**
+     * Whether a failure may be caused by the host not speaking HTTP/2: the connection was made but
+     * the host has never answered, and the request neither timed out nor was rejected locally.
+     */
+    private boolean isNegotiationFailure(final String host, final RequestFailedException rfe)
+    {
+        final Throwable cause = rfe.getCause();
+        return this.protocolVersions.get(host) == null
+            && cause instanceof IOException
+            && !(cause instanceof ConnectException)
+            && !(cause instanceof UnknownHostException)
+            && !(cause instanceof NoRouteToHostException)
+            && !(cause instanceof ResponseTooLargeException);
+    }
+
+    /**
+     * @return counters of the response bytes received on the wire and after decoding.
+     */
+    public TransferStatistics getTransferStatistics()
+    {
+        return this.transferStatistics;
+    }
+
+    /**
+     * Submits a request with the protocol version the host answered with, defaulting to HTTP/2.
+     * If an exchange with a host which has never answered fails once connected, the host is sent
+     * HTTP/1.1 for the fallback time, and a GET is reissued once.
+     *
+     * @param request   to be run.
+     * @param addHeader true to add an Accept header for json.
+     * @return the RestResponse.
+     * @throws RequestFailedException if there is a failure issuing the request.
+     */
+    private RestResponse submitRequest(final HttpUriRequest request, final boolean addHeader)
+        throws RequestFailedException
+    {
+        if (addHeader && !request.containsHeader(HttpHeaders.ACCEPT))
+        {
+            request.addHeader(HttpHeaders.ACCEPT, ContentType.APPLICATION_JSON.getMimeType());
+        }
+
+        final String host = RestSupport.hostOf(request.getURI());
+        final HttpClient.Version answered = this.protocolVersions.get(host);
+        final HttpClient.Version version = this.isFallingBack(host)
+                                           ? HttpClient.Version.HTTP_1_1
+                                           : answered == null ? HttpClient.Version.HTTP_2 : answered;
+        try
+        {
+            return this.dispatchRequest(request, host, version);
+        }
+        catch (final RequestFailedException rfe)
+        {
+            if (version != HttpClient.Version.HTTP_2 || !this.isNegotiationFailure(host, rfe)
+                || this.fallbacks.putIfAbsent(host, System.nanoTime() + this.fallbackNanos) != null)
+            {
+                throw rfe;
+            }
+
+            LOGGER.info("Falling back to HTTP/1.1 for host={} for {} ms after failed HTTP/2 exchange",
+                host, TimeUnit.NANOSECONDS.toMillis(this.fallbackNanos));
+            if (!HttpUtils.HttpMethod.GET.name().equals(request.getMethod()))
+            {
+                throw rfe;
+            }
+            return this.dispatchRequest(request, host, HttpClient.Version.HTTP_1_1);
+        }
+    }
+
+    /**
+     * Issues the request on the http client, recording the protocol version the host answered
+     * with.  If a deadline is entered on the calling thread and less than the configured timeout
+     * remains, the remaining time is used as the timeout of the request instead.
+     *
+     * @param request to be run.
+     * @param host    key of the host of the request.
+     * @param version to request.
+     * @return the RestResponse.
+     * @throws RequestFailedException if there is a failure issuing the request.
+     */
+    private RestResponse dispatchRequest(final HttpUriRequest request, final String host,
+        final HttpClient.Version version) throws RequestFailedException
+    {
+        long timeout = this.timeout;
+        final Deadline deadline = Deadline.current();
+        if (deadline != null)
+        {
+            timeout = Math.min(timeout, deadline.remaining(TimeUnit.MILLISECONDS));
+            if (timeout <= 0L)
+            {
+                LOGGER.warn("Rejected httpMethod={} request to uri={}; deadline has passed",
+                    request.getMethod(), LogUtils.maskUri(request.getURI(), LOGGER, Level.WARN));
+
+                throw new RequestFailedException(request.getMethod(), request.getURI(),
+                    new DeadlineExceededException(request.getMethod(), request.getURI()));
+            }
+        }
+
+        LOGGER.debug("Issuing httpMethod={} request with version={} to uri={}",
+            request.getMethod(), version, LogUtils.maskUri(request.getURI(), LOGGER, Level.DEBUG));
+
+        try
+        {
+            final HttpResponse<InputStream> response = this.httpClient.send(
+                this.toHttpRequest(request, version, timeout),
+                HttpResponse.BodyHandlers.ofInputStream());
+
+            // only an answer to an HTTP/2 request shows which versions the host speaks
+            if (version == HttpClient.Version.HTTP_2
+                && this.protocolVersions.put(host, response.version()) != response.version())
+            {
+                LOGGER.info("Using version={} for host={}", response.version(), host);
+            }
+
+            try (InputStream body = response.body())
+            {
+                return new RestResponseHandler(request.getMethod(), request.getURI(),
+                    null, this.maxBodySize, this.transferStatistics)
+                    .handleResponse(toHttpResponse(response));
+            }
+        }
+        catch (final HttpTimeoutException hte)
+        {
+            LOGGER.warn("Failed to perform httpMethod={} to uri={}; timed out, timeout={} ms",
+                request.getMethod(), LogUtils.maskUri(request.getURI(), LOGGER, Level.WARN),
+                timeout, hte);
+
+            throw new RequestFailedException(request.getMethod(), request.getURI(),
+                new TimeoutException(String.format("HTTP %s request was aborted after %s ms",
+                    request.getMethod(), timeout)));
+        }
+        catch (final InterruptedException ie)
+        {
+            Thread.currentThread().interrupt();
+            throw new RequestFailedException(request.getMethod(), request.getURI(), ie);
+        }
+        catch (final Exception e)
+        {
+            LOGGER.warn("Failed to perform httpMethod={} to uri={}", request.getMethod(),
+                LogUtils.maskUri(request.getURI(), LOGGER, Level.WARN), e);
+            throw new RequestFailedException(request.getMethod(), request.getURI(), e);
+        }
+    }
+
+    /**
+     * Converts a request built by the request factory into a request of the http client.
+     */
+    private HttpRequest toHttpRequest(final HttpUriRequest request,
+        final HttpClient.Version version, final long timeout) throws IOException
+    {
+        final HttpRequest.Builder builder = HttpRequest
+            .newBuilder(request.getURI())
+            .version(version)
+            .timeout(Duration.ofMillis(timeout));
+
+        for (final Header header : request.getAllHeaders())
+        {
+            if (!RESTRICTED_HEADERS.contains(header.getName().toLowerCase(Locale.ROOT)))
+            {
+                builder.header(header.getName(), header.getValue());
+            }
+        }
+
+        HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.noBody();
+        if (request instanceof HttpEntityEnclosingRequest)
+        {
+            final HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+            if (entity != null)
+            {
+                if (entity.getContentType() != null && !request.containsHeader(
+                    HttpHeaders.CONTENT_TYPE))
+                {
+                    builder.header(HttpHeaders.CONTENT_TYPE, entity.getContentType().getValue());
+                }
+                body = HttpRequest.BodyPublishers.ofByteArray(EntityUtils.toByteArray(entity));
+            }
+        }
+
+        return builder.method(request.getMethod(), body).build();
+    }
+
+    /**
+     * Adapts a response of the http client so that it can be decoded by the response handler of
+     * {@link RestClient}; the body is streamed rather than buffered.
+     */
+    private static org.apache.http.HttpResponse toHttpResponse(
+        final HttpResponse<InputStream> response)
+    {
+        final org.apache.http.HttpResponse httpResponse = new BasicHttpResponse(
+            new ProtocolVersion("HTTP", response.version() == HttpClient.Version.HTTP_2 ? 2 : 1,
+                response.version() == HttpClient.Version.HTTP_2 ? 0 : 1),
+            response.statusCode(), null);
+
+        for (final Map.Entry<String, List<String>> header : response.headers().map().entrySet())
+        {
+            if (!header.getKey().startsWith(":"))
+            {
+                for (final String value : header.getValue())
+                {
+                    httpResponse.addHeader(header.getKey(), value);
+                }
+            }
+        }
+
+        final String contentType = response.headers().firstValue(HttpHeaders.CONTENT_TYPE)
+            .orElse(null);
+        final InputStreamEntity entity = new InputStreamEntity(response.body(),
+            response.headers().firstValueAsLong(HttpHeaders.CONTENT_LENGTH).orElse(-1L),
+            contentType == null ? null : ContentType.parse(contentType));
+        httpResponse.setEntity(entity);
+        return httpResponse;
+    }
+
+    public static final class Builder implements IBuilder<Http2RestClient>
+    {
+        private IJsonService jsonService;
+        private HttpClient httpClient;
+        private long timeout = DefaultOptions.TIMEOUT_MS;
+        private long waitTime = DefaultOptions.WAIT_TIME;
+        private Long maxWaitTime;
+        private Executor workerExecutor;
+        private long maxBodySize = DefaultOptions.MAX_RESPONSE_BODY_BYTES;
+        private long fallbackTime = DefaultOptions.HTTP2_FALLBACK_MS;
+        private boolean compression = true;
+        private ScheduledExecutorService scheduledExecutorService;
+
+        public Builder withJsonService(final IJsonService val)
+        {
+            this.jsonService = val;
+            return this;
+        }
+
+        /**
+         * Specify the http client to issue requests through.  If not specified a client preferring
+         * HTTP/2 and following redirects is created.
+         *
+         * @param val http client to be used.
+         * @return builder to continue further configuration.
+         */
+        public Builder withHttpClient(final HttpClient val)
+        {
+            this.httpClient = val;
+            return this;
+        }
+
+        public Builder withTimeout(final long duration, final TimeUnit unit)
+        {
+            this.timeout = unit.toMillis(duration);
+            return this;
+        }
+
+        public Builder withWaitTime(final long waitTime)
+        {
+            this.waitTime = waitTime;
+            return this;
+        }
+
+        /**
+         * Specify the longest wait between polls of a headless authentication which is making no
+         * progress.  Defaults to {@link DefaultOptions#HEADLESS_MAX_BACKOFF_FACTOR} times the wait
+         * time.
+         *
+         * @param val maximum wait in milliseconds.
+         * @return builder to continue further configuration.
+         */
+        public Builder withMaxWaitTime(final long val)
+        {
+            this.maxWaitTime = val;
+            return this;
+        }
+
+        /**
+         * Specify the executor which runs the polls of headless authentications.  If not specified
+         * the pool of daemon threads shared by all rest clients is used.
+         *
+         * @param val executor to be used.
+         * @return builder to continue further configuration.
+         */
+        public Builder withWorkerExecutor(final Executor val)
+        {
+            this.workerExecutor = val;
+            return this;
+        }
+
+        /**
+         * Specify whether to request gzip compressed responses with Accept-Encoding; compressed
+         * responses are inflated by the rest client.  Enabled by default.
+         *
+         * @param val true to request compressed responses.
+         * @return builder to continue further configuration.
+         */
+        public Builder withCompression(final boolean val)
+        {
+            this.compression = val;
+            return this;
+        }
+
+        /**
+         * Specify the maximum size of a response body; a larger response fails with a {@link
+         * ResponseTooLargeException}.  Defaults to {@link DefaultOptions#MAX_RESPONSE_BODY_BYTES}.
+         *
+         * @param val maximum number of bytes.
+         * @return builder to continue further configuration.
+         */
+        public Builder withMaxResponseBodySize(final long val)
+        {
+            this.maxBodySize = val;
+            return this;
+        }
+
+        /**
+         * Specify how long a host which failed an HTTP/2 exchange without answering is sent
+         * HTTP/1.1 requests before HTTP/2 is attempted again.  Defaults to {@link
+         * DefaultOptions#HTTP2_FALLBACK_MS}.
+         *
+         * @param duration of the fallback.
+         * @param unit     of the duration.
+         * @return builder to continue further configuration.
+         */
+        public Builder withFallbackTime(final long duration, final TimeUnit unit)
+        {
+            this.fallbackTime = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Specify the scheduler used to time the polls of headless authentications.  If not
+         * specified the daemon thread shared by all rest clients is used.
+         *
+         * @param val scheduler to be used.
+         * @return builder to continue further configuration.
+         */
+        public Builder withScheduledExecutorService(final ScheduledExecutorService val)
+        {
+            this.scheduledExecutorService = val;
+            return this;
+        }
+
+        @Override
+        public Http2RestClient build()
+        {
+            ObjectUtils.requireNonNull(this.jsonService, "jsonService");
+            if (this.httpClient == null)
+            {
+                this.httpClient = HttpClient
+                    .newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .followRedirects(HttpClient.Redirect.NORMAL)
+                    .connectTimeout(Duration.ofMillis(this.timeout))
+                    .build();
+            }
+            if (this.scheduledExecutorService == null)
+            {
+                this.scheduledExecutorService = RestSupport.defaultTimeoutScheduler();
+            }
+            if (this.workerExecutor == null)
+            {
+                this.workerExecutor = RestSupport.defaultWorkerExecutor();
+            }
+            if (this.maxWaitTime == null)
+            {
+                this.maxWaitTime = this.waitTime * DefaultOptions.HEADLESS_MAX_BACKOFF_FACTOR;
+            }
+
+            return new Http2RestClient(this);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest.http2;
+
+import com.gsma.mobileconnect.r2.encoding.DefaultEncodeDecoder;
+import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
+import com.gsma.mobileconnect.r2.json.GsonJsonService;
+import com.gsma.mobileconnect.r2.rest.RestAuthentication;
+import com.gsma.mobileconnect.r2.rest.RestResponse;
+import com.gsma.mobileconnect.r2.utils.KeyValuePair;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests {@link Http2RestClient}
+ */
+public class Http2RestClientTest
+{
+    private static final RestAuthentication AUTHENTICATION =
+        RestAuthentication.basic("test-key", "test-secret", new DefaultEncodeDecoder());
+
+    private final AtomicReference<HttpExchange> lastExchange = new AtomicReference<HttpExchange>();
+    private final AtomicReference<String> lastBody = new AtomicReference<String>();
+
+    private HttpServer server;
+    private URI baseUri;
+    private Http2RestClient restClient;
+
+    @BeforeClass
+    public void startServer() throws IOException
+    {
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.createContext("/json", exchange -> this.respond(exchange,
+            "{\"key\":\"value\"}".getBytes(StandardCharsets.UTF_8), false));
+        this.server.createContext("/gzip", exchange -> this.respond(exchange,
+            gzip("{\"compressed\":true}"), true));
+        this.server.start();
+
+        this.baseUri = URI.create("http://localhost:" + this.server.getAddress().getPort());
+        this.restClient = new Http2RestClient.Builder()
+            .withJsonService(new GsonJsonService())
+            .build();
+    }
+
+    @AfterClass
+    public void stopServer()
+    {
+        this.server.stop(0);
+    }
+
+    @Test
+    public void getShouldReturnContentAndRecordProtocolOfHost() throws Exception
+    {
+        final RestResponse response = this.restClient.get(this.baseUri.resolve("/json"),
+            AUTHENTICATION, null, "1.1.1.1", null,
+            new KeyValuePair.ListBuilder().add("cookie", "value").build());
+
+        assertEquals(response.getStatusCode(), 200);
+        assertEquals(response.getContent(), "{\"key\":\"value\"}");
+        assertEquals(response.getHeader("Content-Type"), "application/json");
+        assertEquals(this.lastExchange.get().getRequestHeaders().getFirst("Authorization"),
+            "Basic " + AUTHENTICATION.getParameter());
+        assertEquals(this.lastExchange.get().getRequestHeaders().getFirst("Cookie"),
+            "cookie=value;");
+        assertEquals(this.lastExchange.get().getRequestHeaders().getFirst("Accept"),
+            "application/json");
+
+        // the test server only speaks HTTP/1.1, so the client falls back for this host
+        assertEquals(this.restClient.getProtocolVersions()
+                .get("localhost:" + this.baseUri.getPort()), HttpClient.Version.HTTP_1_1);
+    }
+
+    @Test
+    public void postFormDataShouldSendEncodedForm() throws Exception
+    {
+        final RestResponse response = this.restClient.postFormData(this.baseUri.resolve("/json"),
+            AUTHENTICATION, null, new KeyValuePair.ListBuilder()
+                .add("grant_type", "authorization_code")
+                .add("code", "a b")
+                .build(), null, null);
+
+        assertEquals(response.getStatusCode(), 200);
+        assertEquals(this.lastExchange.get().getRequestMethod(), "POST");
+        assertTrue(this.lastExchange.get().getRequestHeaders().getFirst("Content-Type")
+            .startsWith("application/x-www-form-urlencoded"));
+        assertEquals(this.lastBody.get(), "grant_type=authorization_code&code=a+b");
+    }
+
+    @Test
+    public void getShouldInflateCompressedContent() throws Exception
+    {
+        final RestResponse response = this.restClient.get(this.baseUri.resolve("/gzip"), null,
+            null, null, null, null);
+
+        assertEquals(response.getContent(), "{\"compressed\":true}");
+        assertTrue(this.restClient.getTransferStatistics().getResponseCount() > 0);
+    }
+
+    @Test
+    public void fallbackToHttp11ShouldExpire() throws Exception
+    {
+        // accepts connections and closes them without answering
+        final ServerSocket silent = new ServerSocket(0, 50, InetAddress.getByName("localhost"));
+        final Thread acceptor = new Thread(() -> {
+            while (!silent.isClosed())
+            {
+                try (Socket socket = silent.accept())
+                {
+                    socket.getInputStream().read();
+                }
+                catch (final IOException ignored)
+                {
+                    // closed
+                }
+            }
+        });
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        final Http2RestClient client = new Http2RestClient.Builder()
+            .withJsonService(new GsonJsonService())
+            .withTimeout(2L, TimeUnit.SECONDS)
+            .withFallbackTime(200L, TimeUnit.MILLISECONDS)
+            .build();
+        final String host = "localhost:" + silent.getLocalPort();
+        try
+        {
+            try
+            {
+                client.get(URI.create("http://" + host + "/json"), null, null, null, null, null);
+                fail("expected request to fail");
+            }
+            catch (final RequestFailedException rfe)
+            {
+                assertTrue(rfe.getCause() instanceof IOException);
+            }
+            assertEquals(client.getProtocolVersions().get(host), HttpClient.Version.HTTP_1_1);
+
+            Thread.sleep(300L);
+            assertNull(client.getProtocolVersions().get(host));
+        }
+        finally
+        {
+            silent.close();
+        }
+    }
+
+    private void respond(final HttpExchange exchange, final byte[] body, final boolean gzipped)
+        throws IOException
+    {
+        final ByteArrayOutputStream requestBody = new ByteArrayOutputStream();
+        exchange.getRequestBody().transferTo(requestBody);
+        this.lastBody.set(requestBody.toString(StandardCharsets.UTF_8));
+        this.lastExchange.set(exchange);
+
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        if (gzipped)
+        {
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody())
+        {
+            out.write(body);
+        }
+    }
+
+    private static byte[] gzip(final String content) throws IOException
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out))
+        {
+            gzip.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+}
@@ -18,31 +18,55 @@ package com.gsma.mobileconnect.r2;
 
 import com.gsma.mobileconnect.r2.authentication.AuthenticationService;
 import com.gsma.mobileconnect.r2.authentication.IAuthenticationService;
-import com.gsma.mobileconnect.r2.cache.DiscoveryCache;
 import com.gsma.mobileconnect.r2.validation.IJWKeysetService;
 import com.gsma.mobileconnect.r2.validation.JWKeysetService;
 import com.gsma.mobileconnect.r2.cache.ConcurrentCache;
 import com.gsma.mobileconnect.r2.cache.ICache;
+import com.gsma.mobileconnect.r2.cache.RemoteCache;
+import com.gsma.mobileconnect.r2.cache.SessionCache;
 import com.gsma.mobileconnect.r2.constants.DefaultOptions;
+import com.gsma.mobileconnect.r2.discovery.DiscoveryOptions;
+import com.gsma.mobileconnect.r2.discovery.DiscoveryResponse;
 import com.gsma.mobileconnect.r2.discovery.DiscoveryService;
 import com.gsma.mobileconnect.r2.discovery.IDiscoveryService;
+import com.gsma.mobileconnect.r2.discovery.OperatorUrls;
+import com.gsma.mobileconnect.r2.discovery.RefreshOptions;
 import com.gsma.mobileconnect.r2.encoding.DefaultEncodeDecoder;
 import com.gsma.mobileconnect.r2.encoding.IMobileConnectEncodeDecoder;
 import com.gsma.mobileconnect.r2.identity.IIdentityService;
 import com.gsma.mobileconnect.r2.identity.IdentityService;
 import com.gsma.mobileconnect.r2.json.IJsonService;
 import com.gsma.mobileconnect.r2.json.GsonJsonService;
+import com.gsma.mobileconnect.r2.rest.CircuitBreaker;
+import com.gsma.mobileconnect.r2.rest.CircuitBreakerOptions;
+import com.gsma.mobileconnect.r2.rest.ConcurrencyLimitOptions;
+import com.gsma.mobileconnect.r2.rest.ConcurrencyLimiter;
+import com.gsma.mobileconnect.r2.rest.ConnectionPoolOptions;
+import com.gsma.mobileconnect.r2.rest.ConnectionPoolStatistics;
+import com.gsma.mobileconnect.r2.rest.HedgingOptions;
 import com.gsma.mobileconnect.r2.rest.IRestClient;
 import com.gsma.mobileconnect.r2.rest.RestClient;
+import com.gsma.mobileconnect.r2.rest.RetryBudget;
+import com.gsma.mobileconnect.r2.rest.RetryPolicy;
+import com.gsma.mobileconnect.r2.rest.TransferStatistics;
+import com.gsma.mobileconnect.r2.rest.WarmUpReport;
+import com.gsma.mobileconnect.r2.utils.HttpUtils;
 import com.gsma.mobileconnect.r2.utils.IBuilder;
+import com.gsma.mobileconnect.r2.utils.KeyValuePair;
 import com.gsma.mobileconnect.r2.utils.ObjectUtils;
+import com.gsma.mobileconnect.r2.utils.StringUtils;
+import com.gsma.mobileconnect.r2.web.SessionTokenSealer;
 import org.apache.http.client.HttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.LaxRedirectStrategy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.Executors;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
@@ -72,16 +96,21 @@ public final class MobileConnect
     private final MobileConnectInterface mobileConnectInterface;
     private final MobileConnectWebInterface mobileConnectWebInterface;
     private final IMobileConnectEncodeDecoder iMobileConnectEncoderDecoder;
+    private final IRestClient restClient;
+    private final MobileConnectConfig config;
 
     private MobileConnect(final Builder builder)
     {
+        this.config = builder.config;
         this.iMobileConnectEncoderDecoder = builder.iMobileConnectEncodeDecoder;
+        this.restClient = builder.restClient;
 
         this.discoveryService = new DiscoveryService.Builder()
             .withCache(builder.discoveryCache)
             .withJsonService(builder.jsonService)
             .withRestClient(builder.restClient)
             .withIMobileConnectEncodeDecoder(this.iMobileConnectEncoderDecoder)
+            .withRefreshOptions(builder.refreshOptions)
             .build();
 
         this.authnService = new AuthenticationService.Builder()
@@ -117,6 +146,8 @@ public final class MobileConnect
             .withJwKeysetService(this.jwKeysetService)
             .withJsonService(builder.jsonService)
             .withConfig(builder.config)
+            .withSessionCache(builder.cache)
+            .withSessionTokenSealer(builder.sessionTokenSealer)
             .build();
 
         LOGGER.info("Construction of new MobileConnect instance complete");
@@ -232,6 +263,169 @@ public final class MobileConnect
         return this.mobileConnectWebInterface;
     }
 
+    /**
+     * The configured rest client used for all calls to the discovery service and operators.
+     *
+     * @return rest client instance.
+     */
+    public IRestClient getRestClient()
+    {
+        return this.restClient;
+    }
+
+    /**
+     * Snapshot of the HTTP connection pool usage per operator host.
+     *
+     * @return pool statistics, or null if the rest client is not running in pooling mode.
+     */
+    public ConnectionPoolStatistics getConnectionPoolStatistics()
+    {
+        return this.restClient instanceof RestClient
+               ? ((RestClient) this.restClient).getConnectionPoolStatistics()
+               : null;
+    }
+
+    /**
+     * Counters of the response bytes received on the wire and after decoding, reporting the saving
+     * from compressed responses.
+     *
+     * @return transfer statistics, or null if the rest client is not a {@link RestClient}.
+     */
+    public TransferStatistics getTransferStatistics()
+    {
+        return this.restClient instanceof RestClient
+               ? ((RestClient) this.restClient).getTransferStatistics()
+               : null;
+    }
+
+    /**
+     * Current state of the circuit breaker of every operator host requests have been issued to.
+     *
+     * @return circuit states keyed by host and port, or null if the rest client is not a {@link
+     * RestClient}.
+     */
+    public Map<String, CircuitBreaker.State> getCircuitBreakerStates()
+    {
+        return this.restClient instanceof RestClient
+               ? ((RestClient) this.restClient).getCircuitBreakerStates()
+               : null;
+    }
+
+    /**
+     * Current concurrency limit and number of requests in flight of every operator host requests
+     * have been issued to.
+     *
+     * @return concurrency limiters keyed by host and port, or null if the rest client is not a
+     * {@link RestClient}.
+     */
+    public Map<String, ConcurrencyLimiter> getConcurrencyLimiters()
+    {
+        return this.restClient instanceof RestClient
+               ? ((RestClient) this.restClient).getConcurrencyLimiters()
+               : null;
+    }
+
+    /**
+     * Opens pooled connections to the authorization, token, userinfo, premium info, JWKS and other
+     * endpoints of the operators, so that the first user of each operator does not pay for
+     * connection setup.
+     *
+     * @param operatorUrls of the operators to warm up.
+     * @return report of the hosts warmed up and of those that failed.
+     * @throws IllegalStateException if the rest client is not a {@link RestClient} running in
+     *                               pooling mode.
+     * @see Builder#withConnectionPool(ConnectionPoolOptions)
+     */
+    public WarmUpReport warmUp(final Collection<OperatorUrls> operatorUrls)
+    {
+        ObjectUtils.requireNonNull(operatorUrls, "operatorUrls");
+
+        final List<URI> endpoints = new ArrayList<URI>();
+        for (final OperatorUrls urls : operatorUrls)
+        {
+            addEndpoints(endpoints, urls);
+        }
+        return this.warmUpEndpoints(endpoints);
+    }
+
+    /**
+     * Opens pooled connections to the discovery endpoint and to the endpoints of the operators of
+     * the networks, as {@link #warmUp(Collection)}.  The operator of each network is discovered,
+     * or taken from the discovery cache; a network whose operator cannot be discovered is logged
+     * and skipped.
+     *
+     * @param networks to warm up, each the mobile country code as key and the mobile network code
+     *                 as value.
+     * @return report of the hosts warmed up and of those that failed.
+     * @throws IllegalStateException if the rest client is not a {@link RestClient} running in
+     *                               pooling mode.
+     */
+    public WarmUpReport warmUpNetworks(final List<KeyValuePair> networks)
+    {
+        ObjectUtils.requireNonNull(networks, "networks");
+
+        final List<URI> endpoints = new ArrayList<URI>();
+        endpoints.add(this.config.getDiscoveryUrl());
+        for (final KeyValuePair network : networks)
+        {
+            try
+            {
+                final DiscoveryResponse response = this.discoveryService
+                    .startAutomatedOperatorDiscovery(this.config, this.config.getRedirectUrl(),
+                        new DiscoveryOptions.Builder()
+                            .withIdentifiedMcc(network.getKey())
+                            .withIdentifiedMnc(network.getValue())
+                            .withRedirectUrl(this.config.getRedirectUrl())
+                            .withXRedirect(this.config.getXRedirect())
+                            .build(), null);
+
+                if (response.getOperatorUrls() != null)
+                {
+                    addEndpoints(endpoints, response.getOperatorUrls());
+                }
+                else
+                {
+                    LOGGER.warn("No operator discovered for mcc={}, mnc={}; not warmed up",
+                        network.getKey(), network.getValue());
+                }
+            }
+            catch (final Exception e)
+            {
+                LOGGER.warn("Failed to discover operator for mcc={}, mnc={}; not warmed up",
+                    network.getKey(), network.getValue(), e);
+            }
+        }
+        return this.warmUpEndpoints(endpoints);
+    }
+
+    private WarmUpReport warmUpEndpoints(final List<URI> endpoints)
+    {
+        if (!(this.restClient instanceof RestClient))
+        {
+            throw new IllegalStateException("Warming up connections requires a RestClient");
+        }
+        return ((RestClient) this.restClient)
+            .warmUp(endpoints, DefaultOptions.WARM_UP_CONNECTIONS);
+    }
+
+    private static void addEndpoints(final List<URI> endpoints, final OperatorUrls operatorUrls)
+    {
+        for (final String url : operatorUrls.getOperatorsUrls())
+        {
+            if (!StringUtils.isNullOrEmpty(url))
+            {
+                try
+                {
+                    endpoints.add(URI.create(url));
+                }
+                catch (final IllegalArgumentException iae)
+                {
+                    LOGGER.warn("Ignoring invalid operator url={}", url, iae);
+                }
+            }
+        }
+    }
+
     /**
      * Builds a configured instance of MobileConnect.
      */
@@ -248,17 +442,26 @@ public final class MobileConnect
         private TimeUnit timeoutTimeUnit = TimeUnit.MILLISECONDS;
         private Long timeoutDuration = DefaultOptions.TIMEOUT_MS;
         private IRestClient restClient = null;
+        private ConnectionPoolOptions connectionPoolOptions = null;
+        private CircuitBreakerOptions circuitBreakerOptions = null;
+        private ConcurrencyLimitOptions concurrencyLimitOptions = null;
+        private HedgingOptions hedgingOptions = null;
+        private boolean requestCoalescing = false;
+        private RetryPolicy getRetryPolicy = null;
+        private RetryBudget retryBudget = null;
+        private RefreshOptions refreshOptions = null;
+        private SessionTokenSealer sessionTokenSealer = null;
 
         /**
          * Start the builder, specifying the required configuration.  The defaults applied by this
-         * builder are as follows: <ul> <li>scheduledExecutorService will use {@link
-         * Executors#newScheduledThreadPool(int)} with core size of {@link
-         * DefaultOptions#THREAD_POOL_SIZE}</li> <li>httpClient will use default result of {@link
+         * builder are as follows: <ul> <li>scheduledExecutorService will use the request timeout
+         * scheduler shared by all instances of {@link RestClient}</li> <li>httpClient will use default result of {@link
          * HttpClientBuilder}</li> <li>http timeout will be set to {@link
          * DefaultOptions#TIMEOUT_MS}</li><li>restClient will use {@link RestClient}, with timeout
-         * and http client above</li><li>cache will use {@link ConcurrentCache}</li></ul><p>Note
-         * that specifying a rest client instance will overrule any setting of http client, or
-         * timeout duration.</p>
+         * and http client above</li><li>cache will use {@link SessionCache}</li></ul><p>Note
+         * that specifying a rest client instance will overrule any setting of http client, connection
+         * pool or timeout duration, and specifying a http client will overrule any connection pool
+         * setting.</p>
          *
          * @param config for Mobile Connect.
          */
@@ -274,7 +477,7 @@ public final class MobileConnect
         }
 
         /**
-         * Specify a configured executor service to use.
+         * Specify a configured executor service to use for enforcing HTTP request timeouts.
          *
          * @param val executor service to be used.
          * @return builder to continue further configuration.
@@ -311,6 +514,125 @@ public final class MobileConnect
             return this;
         }
 
+        /**
+         * Issue HTTP requests over a connection pool with the specified settings, instead of the
+         * default http client.
+         *
+         * @param val connection pool settings.
+         * @return builder to continue further configuration.
+         */
+        public Builder withConnectionPool(final ConnectionPoolOptions val)
+        {
+            this.connectionPoolOptions = val;
+            return this;
+        }
+
+        /**
+         * Guard the requests to each operator host with a circuit breaker with the specified
+         * settings, so that an unhealthy operator is failed fast rather than waited on.
+         *
+         * @param val circuit breaker settings.
+         * @return builder to continue further configuration.
+         */
+        public Builder withCircuitBreaker(final CircuitBreakerOptions val)
+        {
+            this.circuitBreakerOptions = val;
+            return this;
+        }
+
+        /**
+         * Limit the concurrent requests to each operator host, adapting the limit to the latency
+         * observed, so that a slow operator does not accumulate an unbounded queue of requests.
+         *
+         * @param val concurrency limit settings.
+         * @return builder to continue further configuration.
+         */
+        public Builder withConcurrencyLimit(final ConcurrencyLimitOptions val)
+        {
+            this.concurrencyLimitOptions = val;
+            return this;
+        }
+
+        /**
+         * Hedge discovery requests, sending a duplicate of a discovery request which is slower
+         * than a percentile of recent latency and using whichever response arrives first.
+         *
+         * @param val hedging settings.
+         * @return builder to continue further configuration.
+         */
+        public Builder withDiscoveryHedging(final HedgingOptions val)
+        {
+            this.hedgingOptions = val;
+            return this;
+        }
+
+        /**
+         * Coalesce identical GET requests made concurrently, such as for the provider metadata or
+         * JWKS of an operator when their cache entry expires, so that they share a single request.
+         *
+         * @param val true to coalesce requests.
+         * @return builder to continue further configuration.
+         */
+        public Builder withRequestCoalescing(final boolean val)
+        {
+            this.requestCoalescing = val;
+            return this;
+        }
+
+        /**
+         * Retry failed GET requests, which are all idempotent, according to the specified policy.
+         * POST requests are never retried.
+         *
+         * @param val retry settings.
+         * @return builder to continue further configuration.
+         */
+        public Builder withRetryPolicy(final RetryPolicy val)
+        {
+            this.getRetryPolicy = val;
+            return this;
+        }
+
+        /**
+         * Specify the budget capping retries to a percentage of requests.
+         *
+         * @param val retry budget.
+         * @return builder to continue further configuration.
+         */
+        public Builder withRetryBudget(final RetryBudget val)
+        {
+            this.retryBudget = val;
+            return this;
+        }
+
+        /**
+         * Refresh cached discovery responses and provider metadata in the background before they
+         * expire, and keep returning them for a while after they expire or when the operator is
+         * unavailable.  Values are only kept past their expiry if the discovery cache is built with
+         * a matching {@link ConcurrentCache.Builder#withStaleRetention(long, TimeUnit)}.
+         *
+         * @param val refresh settings.
+         * @return builder to continue further configuration.
+         */
+        public Builder withCacheRefresh(final RefreshOptions val)
+        {
+            this.refreshOptions = val;
+            return this;
+        }
+
+        /**
+         * Seal sessions into the state of authorizations rather than holding them in the session
+         * cache, so that redirects can be handled by any instance, see
+         * {@link MobileConnectWebInterface.Builder#withSessionTokenSealer(SessionTokenSealer)}.
+         *
+         * @param val sealer of sessions.
+         * @return builder to continue further configuration.
+         */
+        public Builder withSessionTokenSealer(final SessionTokenSealer val)
+        {
+            this.sessionTokenSealer = val;
+            return this;
+        }
+
         /**
          * Specify the timeout for HTTP connections.
          *
@@ -326,7 +648,8 @@ public final class MobileConnect
         }
 
         /**
-         * Specify a configured cache to use.
+         * Specify a configured cache to use for sessions and keysets, apart from the discovery
+         * cache.  A {@link SessionCache} bounds the lifetime and number of sessions.
          *
          * @param val cache to be used.
          * @return builder to continue further configuration.
@@ -337,9 +660,24 @@ public final class MobileConnect
             return this;
         }
 
+        /**
+         * Specify a configured cache to use for discovery responses and provider metadata, such as
+         * a {@link RemoteCache} shared between instances.
+         *
+         * @param val cache to be used.
+         * @return builder to continue further configuration.
+         */
+        public Builder withDiscoveryCache(final ICache val)
+        {
+            this.discoveryCache = val;
+            return this;
+        }
+
         /**
          * Specify a configured rest client to use.  Note that setting this will result in any
-         * configuration of http client or timeout to be ignored.
+         * configuration of http client or timeout to be ignored.  Operator traffic may be sent
+         * over HTTP/2 by specifying the {@code com.gsma.mobileconnect.r2.rest.http2.Http2RestClient}
+         * of the mobile-connect-http2 module, which requires Java 11.
          *
          * @param val rest client to be used.
          * @return builder to continue further configuration.
@@ -359,20 +697,15 @@ public final class MobileConnect
         @Override
         public MobileConnect build()
         {
-            if (this.scheduledExecutorService == null)
-            {
-                LOGGER.info("Using Executors#newScheduledThreadPool with corePoolSize={}",
-                    DefaultOptions.THREAD_POOL_SIZE);
-                this.scheduledExecutorService =
-                    Executors.newScheduledThreadPool(DefaultOptions.THREAD_POOL_SIZE);
-            }
-
             if (this.restClient == null)
             {
-                if (this.httpClient == null)
+                if (this.httpClient == null && this.connectionPoolOptions == null)
                 {
                     LOGGER.info("Building default instance of HttpClient");
-                    this.httpClient = HttpClientBuilder.create().setRedirectStrategy(new LaxRedirectStrategy()).build();
+                    this.httpClient = HttpClientBuilder.create()
+                        .setRedirectStrategy(new LaxRedirectStrategy())
+                        .disableContentCompression()
+                        .build();
                 }
 
                 LOGGER.info("Building RestClient with timeout of duration={}, unit={}",
@@ -381,14 +714,22 @@ public final class MobileConnect
                     .withHttpClient(this.httpClient)
                     .withJsonService(this.jsonService)
                     .withTimeout(this.timeoutDuration, this.timeoutTimeUnit)
+                    .withScheduledExecutorService(this.scheduledExecutorService)
+                    .withConnectionPool(this.connectionPoolOptions)
+                    .withCircuitBreaker(this.circuitBreakerOptions)
+                    .withConcurrencyLimit(this.concurrencyLimitOptions)
+                    .withDiscoveryHedging(this.hedgingOptions)
+                    .withRequestCoalescing(this.requestCoalescing)
+                    .withRetryPolicy(HttpUtils.HttpMethod.GET, this.getRetryPolicy)
+                    .withRetryBudget(this.retryBudget)
                     .build();
             }
 
             if (this.cache == null)
             {
-                LOGGER.info("Building default instance of ConcurrentCache");
+                LOGGER.info("Building default instance of SessionCache");
                 this.cache =
-                    new DiscoveryCache.Builder().withJsonService(this.jsonService).build();
+                    new SessionCache.Builder().withJsonService(this.jsonService).build();
             }
 
             return new MobileConnect(this);
@@ -118,7 +118,7 @@ public class MobileConnectInterface
             LogUtils.mask(msisdn, LOGGER, Level.DEBUG), mcc, mnc);
 
         return MobileConnectInterfaceHelper.attemptDiscovery(this.discoveryService, msisdn, mcc,
-            mnc, null, this.config, options.getDiscoveryOptionsBuilder());
+            mnc, null, this.config, options.getDiscoveryOptionsBuilder(), options.getDeadline());
     }
 
     /**
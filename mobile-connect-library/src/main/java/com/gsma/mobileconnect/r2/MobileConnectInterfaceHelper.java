@@ -32,6 +32,7 @@ import com.gsma.mobileconnect.r2.exceptions.InvalidArgumentException;
 import com.gsma.mobileconnect.r2.identity.IIdentityService;
 import com.gsma.mobileconnect.r2.identity.IdentityResponse;
 import com.gsma.mobileconnect.r2.json.IJsonService;
+import com.gsma.mobileconnect.r2.rest.Deadline;
 import com.gsma.mobileconnect.r2.utils.*;
 import com.gsma.mobileconnect.r2.validation.IJWKeysetService;
 import com.gsma.mobileconnect.r2.validation.JWKeyset;
@@ -65,9 +66,9 @@ class MobileConnectInterfaceHelper
     static MobileConnectStatus attemptDiscovery(final IDiscoveryService discoveryService,
         final String msisdn, final String mcc, final String mnc,
         final Iterable<KeyValuePair> cookies, final MobileConnectConfig config,
-        final DiscoveryOptions.Builder discoveryOptionsBuilder)
+        final DiscoveryOptions.Builder discoveryOptionsBuilder, final Deadline deadline)
     {
-        try
+        try (final Deadline.Scope ignored = Deadline.enter(deadline))
         {
             discoveryOptionsBuilder
                 .withMsisdn(msisdn)
@@ -202,7 +203,7 @@ class MobileConnectInterfaceHelper
         final AuthenticationOptions.Builder builder = options != null
                                                       ? options.getAuthenticationOptionsBuilder()
                                                       : new AuthenticationOptions.Builder();
-        try
+        try (final Deadline.Scope ignored = Deadline.enter(extractDeadline(options)))
         {
             final long maxAge = extractMaxAge(options);
 
@@ -331,7 +332,7 @@ class MobileConnectInterfaceHelper
             final String requestTokenUrl = discoveryResponse.getOperatorUrls().getRequestTokenUrl();
             final String issuer = discoveryResponse.getProviderMetadata().getIssuer();
 
-            try
+            try (final Deadline.Scope ignored = Deadline.enter(extractDeadline(options)))
             {
                 final Future<RequestTokenResponse> requestTokenResponseFuture =
                     authnService.requestTokenAsync(clientId, clientSecret, correlationId,
@@ -367,6 +368,11 @@ class MobileConnectInterfaceHelper
         return maxAge;
     }
 
+    private static Deadline extractDeadline(final MobileConnectRequestOptions options)
+    {
+        return options == null ? null : options.getDeadline();
+    }
+
     private static MobileConnectStatus processRequestTokenResponse( //NOSONAR
         final RequestTokenResponse requestTokenResponse, final String expectedState,
         final String expectedNonce, final URI redirectedUrl,
@@ -20,6 +20,7 @@ import com.gsma.mobileconnect.r2.authentication.DiscoveryResponseGenerateOptions
 import com.gsma.mobileconnect.r2.authentication.AuthenticationOptions;
 import com.gsma.mobileconnect.r2.validation.TokenValidationOptions;
 import com.gsma.mobileconnect.r2.discovery.DiscoveryOptions;
+import com.gsma.mobileconnect.r2.rest.Deadline;
 import com.gsma.mobileconnect.r2.utils.IBuilder;
 
 /**
@@ -35,7 +36,7 @@ public class MobileConnectRequestOptions
     private final DiscoveryResponseGenerateOptions discoveryResponseGenerateOptions;
     private final boolean autoRetrieveIdentitySet;
     private final boolean correlationId;
-
+    private final Deadline deadline;
 
     private MobileConnectRequestOptions(final Builder builder)
     {
@@ -45,6 +46,7 @@ public class MobileConnectRequestOptions
         this.autoRetrieveIdentitySet = builder.autoRetrieveIdentitySet;
         this.validationOptions = builder.validationOptions;
         this.correlationId = builder.correlationId;
+        this.deadline = builder.deadline;
     }
 
     public DiscoveryResponseGenerateOptions getDiscoveryResponseGenerateOptions() {
@@ -78,6 +80,16 @@ public class MobileConnectRequestOptions
     public boolean isCorrelationId () {
         return correlationId;
     }
+
+    /**
+     * @return deadline by which every request made on behalf of this request must complete, or
+     * null if each request only applies the timeout of the rest client.
+     */
+    public Deadline getDeadline()
+    {
+        return this.deadline;
+    }
+
     AuthenticationOptions.Builder getAuthenticationOptionsBuilder()
     {
         return new AuthenticationOptions.Builder(this.authenticationOptions);
@@ -101,6 +113,8 @@ public class MobileConnectRequestOptions
         private boolean autoRetrieveIdentitySet = false;
         private TokenValidationOptions validationOptions;
         private boolean correlationId;
+        private Deadline deadline;
+
         public Builder withDiscoveryOptions(final DiscoveryOptions val)
         {
             this.discoveryOptions = val;
@@ -137,6 +151,20 @@ public class MobileConnectRequestOptions
             return this;
         }
 
+        /**
+         * Specify an end-to-end deadline for the request.  Every call made to the operator on its
+         * behalf, such as discovery, provider metadata, token, JWKS and user info, is given the
+         * time remaining as its timeout, and no further call is made once the deadline has passed.
+         *
+         * @param val deadline, for example {@code Deadline.after(10, TimeUnit.SECONDS)}.
+         * @return builder to continue further configuration.
+         */
+        public Builder withDeadline(final Deadline val)
+        {
+            this.deadline = val;
+            return this;
+        }
+
         @Override
         public MobileConnectRequestOptions build()
         {
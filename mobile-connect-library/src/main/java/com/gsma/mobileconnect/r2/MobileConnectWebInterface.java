@@ -20,21 +20,27 @@ import com.gsma.mobileconnect.r2.authentication.AuthenticationOptions;
 import com.gsma.mobileconnect.r2.authentication.IAuthenticationService;
 import com.gsma.mobileconnect.r2.cache.CacheAccessException;
 import com.gsma.mobileconnect.r2.cache.ICache;
+import com.gsma.mobileconnect.r2.cache.SessionCache;
+import com.gsma.mobileconnect.r2.constants.Parameters;
 import com.gsma.mobileconnect.r2.discovery.*;
 import com.gsma.mobileconnect.r2.encoding.DefaultEncodeDecoder;
 import com.gsma.mobileconnect.r2.encoding.IMobileConnectEncodeDecoder;
+import com.gsma.mobileconnect.r2.exceptions.InvalidResponseException;
 import com.gsma.mobileconnect.r2.exceptions.InvalidScopeException;
+import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
 import com.gsma.mobileconnect.r2.identity.IIdentityService;
 import com.gsma.mobileconnect.r2.json.IJsonService;
 import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
 import com.gsma.mobileconnect.r2.utils.*;
 import com.gsma.mobileconnect.r2.validation.IJWKeysetService;
+import com.gsma.mobileconnect.r2.web.SessionTokenSealer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.event.Level;
 
 import javax.servlet.http.HttpServletRequest;
 import java.net.URI;
+import java.security.GeneralSecurityException;
 import java.util.UUID;
 
 /**
@@ -62,6 +68,8 @@ public class MobileConnectWebInterface
     private final IJsonService jsonService;
     private final MobileConnectConfig config;
     private final IMobileConnectEncodeDecoder iMobileConnectEncodeDecoder;
+    private final ICache sessionCache;
+    private final SessionTokenSealer sessionTokenSealer;
 
     private MobileConnectWebInterface(Builder builder)
     {
@@ -72,6 +80,10 @@ public class MobileConnectWebInterface
         this.jsonService = builder.jsonService;
         this.config = builder.config;
         this.iMobileConnectEncodeDecoder = builder.iMobileConnectEncodeDecoder;
+        this.sessionCache = builder.sessionCache == null
+                            ? builder.discoveryService.getCache()
+                            : builder.sessionCache;
+        this.sessionTokenSealer = builder.sessionTokenSealer;
 
         LOGGER.info("Created new instance of MobileConnectWebInterface");
     }
@@ -113,7 +125,7 @@ public class MobileConnectWebInterface
 
         final MobileConnectStatus status =
             MobileConnectInterfaceHelper.attemptDiscovery(this.discoveryService, msisdn, mcc, mnc,
-                cookies, this.config, builder);
+                cookies, this.config, builder, options == null ? null : options.getDeadline());
 
         return this.cacheIfRequired(status);
     }
@@ -182,10 +194,10 @@ public class MobileConnectWebInterface
                                                       ? options.getAuthenticationOptionsBuilder()
                                                       : new AuthenticationOptions.Builder();
 
-        final String rState =
-            StringUtils.isNullOrEmpty(state) ? UUID.randomUUID().toString() : state;
         final String rNonce =
             StringUtils.isNullOrEmpty(nonce) ? UUID.randomUUID().toString() : nonce;
+        final String rState =
+            StringUtils.isNullOrEmpty(state) ? this.newState(request, discoveryResponse, rNonce) : state;
 
         LOGGER.debug(
             "Running startAuthentication for encryptedMsisdn={}, state={}, nonce={}, clientIp={}",
@@ -609,6 +621,17 @@ public class MobileConnectWebInterface
             sdkSession, LogUtils.maskUri(redirectedUrl, LOGGER, Level.DEBUG), expectedState,
             LogUtils.mask(expectedNonce, LOGGER, Level.DEBUG), HttpUtils.extractClientIp(request));
 
+        final String sealedState = this.sessionTokenSealer == null || redirectedUrl == null
+                                   || !StringUtils.isNullOrEmpty(sdkSession)
+                                   || !StringUtils.isNullOrEmpty(expectedState)
+                                   ? null
+                                   : HttpUtils.extractQueryValue(redirectedUrl, Parameters.STATE);
+        if (sealedState != null)
+        {
+            return this.handleSealedRedirect(request, redirectedUrl, sealedState, options,
+                currentVersion, isBasicAuth);
+        }
+
         return this.withCachedValue(sdkSession, false, new CacheCallback()
         {
             @Override public MobileConnectStatus apply(final DiscoveryResponse cached)
@@ -631,6 +654,119 @@ public class MobileConnectWebInterface
         });
     }
 
+    /**
+     * Handles the redirect of an authorization whose session was sealed into its state, taking the
+     * expected nonce from the state and the discovery response from the shared discovery response
+     * of the operator, so that it is not required to be handled by the same instance.  An instance
+     * which does not hold the shared discovery response discovers the network sealed into the state
+     * again.
+     */
+    private MobileConnectStatus handleSealedRedirect(final HttpServletRequest request,
+        final URI redirectedUrl, final String state, final MobileConnectRequestOptions options,
+        final String currentVersion, final boolean isBasicAuth)
+    {
+        // the state is taken from the redirect, it is the binding of the token to the user agent
+        // which protects the redirect against forgery
+        final SessionData session = this.sessionTokenSealer.open(state,
+            this.sessionTokenSealer.bindingOf(request, false));
+        SessionData resolved;
+        try
+        {
+            resolved = session == null ? null : session.resolve(this.sessionCache);
+        }
+        catch (final CacheAccessException cae)
+        {
+            LOGGER.warn("Failed to fetch shared discovery response of sealed session", cae);
+            return this.cacheError(cae);
+        }
+        if (resolved == null && session != null)
+        {
+            resolved = session.resolve(this.rediscover(session));
+        }
+        if (resolved == null)
+        {
+            LOGGER.info("Failed to open sealed session or find its discovery response");
+            return this.cacheError(null);
+        }
+        return this.handleUrlRedirect(request, redirectedUrl, resolved.getDiscoveryResponse(),
+            state, resolved.getNonce(), options, currentVersion, isBasicAuth);
+    }
+
+    /**
+     * The discovery response of the network a sealed session was discovered for, from the discovery
+     * cache or discovered again, or null if the network is unknown or discovery fails.
+     */
+    private DiscoveryResponse rediscover(final SessionData session)
+    {
+        final String mcc = session.getMcc();
+        final String mnc = session.getMnc();
+        if (StringUtils.isNullOrEmpty(mcc) || StringUtils.isNullOrEmpty(mnc))
+        {
+            return null;
+        }
+
+        DiscoveryResponse discoveryResponse = null;
+        try
+        {
+            discoveryResponse = this.discoveryService.getCachedDiscoveryResponse(mcc, mnc);
+        }
+        catch (final CacheAccessException cae)
+        {
+            LOGGER.warn("Failed to fetch cached discovery response of sealed session", cae);
+        }
+        if (discoveryResponse == null)
+        {
+            LOGGER.debug("Discovering mcc={}, mnc={} again for sealed session", mcc, mnc);
+            try
+            {
+                discoveryResponse = this.discoveryService.completeSelectedOperatorDiscovery(
+                    this.config, this.config.getRedirectUrl(), mcc, mnc);
+            }
+            catch (final RequestFailedException rfe)
+            {
+                LOGGER.warn("Failed to discover network of sealed session", rfe);
+            }
+            catch (final InvalidResponseException ire)
+            {
+                LOGGER.warn("Failed to discover network of sealed session", ire);
+            }
+        }
+        return discoveryResponse;
+    }
+
+    /**
+     * A new state for an authorization, into which the session is sealed if a
+     * {@link SessionTokenSealer} is specified and the user agent presents a binding, holding the
+     * discovery response of the operator in the session cache to be shared by the sessions.
+     */
+    private String newState(final HttpServletRequest request,
+        final DiscoveryResponse discoveryResponse, final String nonce)
+    {
+        final String sharedKey = SessionData.sharedKeyOf(discoveryResponse);
+        final String binding = this.sessionTokenSealer == null || sharedKey == null
+                               ? null
+                               : this.sessionTokenSealer.bindingOf(request, true);
+        if (binding != null)
+        {
+            try
+            {
+                this.sessionCache.add(sharedKey, SessionData.sharedCopyOf(discoveryResponse));
+                return this.sessionTokenSealer.seal(
+                    new SessionData(discoveryResponse, nonce).referencing(sharedKey), binding);
+            }
+            catch (final CacheAccessException cae)
+            {
+                LOGGER.warn("Failed to store shared discovery response, state will not be sealed",
+                    cae);
+            }
+            catch (final GeneralSecurityException gse)
+            {
+                LOGGER.warn("Failed to seal session into state", gse);
+            }
+        }
+        return UUID.randomUUID().toString();
+    }
+
     private boolean validateParameters(final String sdkSession, final String expectedState,
         final String expectedNonce)
     {
@@ -753,7 +889,8 @@ public class MobileConnectWebInterface
             try
             {
                 LOGGER.debug("Storing discovery response with sdkSession={}", sessionId);
-                this.discoveryService.getCache().add(sessionId, status.getDiscoveryResponse());
+                this.sessionCache.add(sessionId, new SessionData(status.getDiscoveryResponse(),
+                    status.getState(), status.getNonce()));
                 return status.withSdkSession(sessionId);
             }
             catch (final CacheAccessException cae)
@@ -777,8 +914,22 @@ public class MobileConnectWebInterface
         {
             try
             {
-                final DiscoveryResponse response =
-                    this.discoveryService.getCache().get(sdkSession, DiscoveryResponse.class);
+                final SessionData session = this.sessionCache.get(sdkSession, SessionData.class);
+                final SessionData resolved =
+                    session == null ? null : session.resolve(this.sessionCache);
+                DiscoveryResponse response = resolved == null
+                                             ? null
+                                             : resolved.getDiscoveryResponse();
+                if (session == null)
+                {
+                    response = this.sessionCache.get(sdkSession, DiscoveryResponse.class);
+                }
+                final ICache discoveryCache = this.discoveryService.getCache();
+                if (response == null && discoveryCache != this.sessionCache)
+                {
+                    // an sdk session may also be the key of a cached discovery response
+                    response = discoveryCache.get(sdkSession, DiscoveryResponse.class);
+                }
                 if (response == null && required)
                 {
                     LOGGER.info("Failed to find cached session sdkSession={}", sdkSession);
@@ -819,6 +970,8 @@ public class MobileConnectWebInterface
         private MobileConnectConfig config;
         private IMobileConnectEncodeDecoder iMobileConnectEncodeDecoder =
             new DefaultEncodeDecoder();
+        private ICache sessionCache;
+        private SessionTokenSealer sessionTokenSealer;
 
         public Builder withAuthnService(final IAuthenticationService val)
         {
@@ -862,6 +1015,36 @@ public class MobileConnectWebInterface
             return this;
         }
 
+        /**
+         * Specify the cache holding the discovery responses of sdk sessions, apart from the
+         * discovery cache so that sessions of abandoned logins cannot evict discovery responses.
+         * Defaults to the cache of the discovery service.
+         *
+         * @param val cache for sdk sessions, such as a {@link SessionCache}.
+         * @return builder to continue further configuration.
+         */
+        public Builder withSessionCache(final ICache val)
+        {
+            this.sessionCache = val;
+            return this;
+        }
+
+        /**
+         * Seal the session into the state of authorizations started without a state, so that the
+         * redirect can be handled without an sdk session or expected state and nonce, by any
+         * instance.  An instance which does not hold the shared discovery response of the operator
+         * in its session cache discovers the network sealed into the state again.  The state is
+         * bound to the user agent and opened once only, see {@link SessionTokenSealer}.
+         *
+         * @param val sealer of sessions.
+         * @return builder to continue further configuration.
+         */
+        public Builder withSessionTokenSealer(final SessionTokenSealer val)
+        {
+            this.sessionTokenSealer = val;
+            return this;
+        }
+
         @Override
         public MobileConnectWebInterface build()
         {
@@ -29,6 +29,7 @@ import com.gsma.mobileconnect.r2.exceptions.InvalidArgumentException;
 import com.gsma.mobileconnect.r2.exceptions.InvalidResponseException;
 import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
 import com.gsma.mobileconnect.r2.json.*;
+import com.gsma.mobileconnect.r2.rest.Deadline;
 import com.gsma.mobileconnect.r2.rest.IRestClient;
 import com.gsma.mobileconnect.r2.rest.RestAuthentication;
 import com.gsma.mobileconnect.r2.rest.RestResponse;
@@ -43,6 +44,8 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -285,6 +288,70 @@ public class AuthenticationService implements IAuthenticationService
                                                                       final AuthenticationOptions options, final String currentVersion,
                                                                       final boolean isBasicAuth)
             throws RequestFailedException
+    {
+        final URI authUrl = this.startHeadlessAuthentication(clientId, correlationId,
+                authorizationUrl, redirectUrl, state, nonce, encryptedMsisdn, options, currentVersion);
+        URI finalRedirectUrl;
+        if (isBasicAuth) {
+            final RestAuthentication authentication =
+                    RestAuthentication.basic(clientId, clientSecret, iMobileConnectEncodeDecoder);
+            finalRedirectUrl = restClient.getFinalRedirect(authUrl, redirectUrl, authentication);
+        } else {
+            finalRedirectUrl = restClient.getFinalRedirect(authUrl, redirectUrl, null);
+        }
+
+        final String code = HttpUtils.extractQueryValue(finalRedirectUrl, "code");
+        ExecutorService executorService = Executors.newSingleThreadExecutor(Deadline.propagatingThreadFactory());
+        Future<RequestTokenResponse> requestTokenResponseFuture = executorService.submit(new Callable<RequestTokenResponse>()
+        {
+            @Override
+            public RequestTokenResponse call() throws Exception
+            {
+                return AuthenticationService.this.requestToken(clientId, clientSecret, correlationId,
+                        requestTokenUrl, redirectUrl, code, isBasicAuth);
+            }
+        });
+        executorService.shutdownNow();
+        return requestTokenResponseFuture;
+    }
+
+    @Override
+    public CompletableFuture<RequestTokenResponse> requestHeadlessAuthenticationAsync(
+            final String clientId, final String clientSecret, final String correlationId,
+            final URI authorizationUrl, final URI requestTokenUrl, final URI redirectUrl,
+            final String state, final String nonce, final String encryptedMsisdn,
+            final AuthenticationOptions options, final String currentVersion,
+            final boolean isBasicAuth)
+    {
+        final URI authUrl = this.startHeadlessAuthentication(clientId, correlationId,
+                authorizationUrl, redirectUrl, state, nonce, encryptedMsisdn, options, currentVersion);
+        final RestAuthentication authentication = isBasicAuth
+                ? RestAuthentication.basic(clientId, clientSecret, iMobileConnectEncodeDecoder)
+                : null;
+
+        return this.restClient.getFinalRedirectAsync(authUrl, redirectUrl, authentication)
+                .thenApply(finalRedirectUrl -> {
+                    final String code = HttpUtils.extractQueryValue(finalRedirectUrl, "code");
+                    try
+                    {
+                        return AuthenticationService.this.requestToken(clientId, clientSecret,
+                                correlationId, requestTokenUrl, redirectUrl, code, isBasicAuth);
+                    }
+                    catch (final RequestFailedException | InvalidResponseException e)
+                    {
+                        throw new CompletionException(e);
+                    }
+                });
+    }
+
+    /**
+     * Builds the authorization url of a headless authentication, which always prompts for login
+     * where authorization is used.
+     */
+    private URI startHeadlessAuthentication(final String clientId, final String correlationId,
+            final URI authorizationUrl, final URI redirectUrl, final String state,
+            final String nonce, final String encryptedMsisdn, final AuthenticationOptions options,
+            final String currentVersion)
     {
         final String scope;
         final String context;
@@ -310,29 +377,7 @@ public class AuthenticationService implements IAuthenticationService
         StartAuthenticationResponse startAuthenticationResponse =
                 startAuthentication(clientId, correlationId, authorizationUrl, redirectUrl, state, nonce,
                         encryptedMsisdn, optionsBuilder.build(), currentVersion);
-        URI authUrl = startAuthenticationResponse.getUrl();
-        URI finalRedirectUrl;
-        if (isBasicAuth) {
-            final RestAuthentication authentication =
-                    RestAuthentication.basic(clientId, clientSecret, iMobileConnectEncodeDecoder);
-            finalRedirectUrl = restClient.getFinalRedirect(authUrl, redirectUrl, authentication);
-        } else {
-            finalRedirectUrl = restClient.getFinalRedirect(authUrl, redirectUrl, null);
-        }
-
-        final String code = HttpUtils.extractQueryValue(finalRedirectUrl, "code");
-        ExecutorService executorService = Executors.newSingleThreadExecutor();
-        Future<RequestTokenResponse> requestTokenResponseFuture = executorService.submit(new Callable<RequestTokenResponse>()
-        {
-            @Override
-            public RequestTokenResponse call() throws Exception
-            {
-                return AuthenticationService.this.requestToken(clientId, clientSecret, correlationId,
-                        requestTokenUrl, redirectUrl, code, isBasicAuth);
-            }
-        });
-        executorService.shutdownNow();
-        return requestTokenResponseFuture;
+        return startAuthenticationResponse.getUrl();
     }
 
     @Override
@@ -425,7 +470,7 @@ public class AuthenticationService implements IAuthenticationService
                                                           final URI requestTokenUrl, final URI redirectUrl,
                                                           final String code, final boolean isBasicAuth)
     {
-        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        ExecutorService executorService = Executors.newSingleThreadExecutor(Deadline.propagatingThreadFactory());
         Future<RequestTokenResponse> requestTokenResponseFuture = executorService.submit(new Callable<RequestTokenResponse>()
         {
             @Override
@@ -486,12 +531,15 @@ public class AuthenticationService implements IAuthenticationService
         ObjectUtils.requireNonNull(name, "appName");
         ObjectUtils.requireNonNull(operatorUrls, "operatorUrls");
 
-        discoveryCache = new DiscoveryCache.Builder().withJsonService(jsonService).build();
-        discoveryService = new DiscoveryService.Builder()
-                .withJsonService(jsonService)
-                .withCache(discoveryCache)
-                .withRestClient(restClient)
-                .build();
+        if (discoveryService == null)
+        {
+            discoveryCache = new DiscoveryCache.Builder().withJsonService(jsonService).build();
+            discoveryService = new DiscoveryService.Builder()
+                    .withJsonService(jsonService)
+                    .withCache(discoveryCache)
+                    .withRestClient(restClient)
+                    .build();
+        }
         ProviderMetadata providerMetadata = new ProviderMetadata.Builder().build();
         DiscoveryResponseGenerateOptions discoveryResponseGenerateOptions = new DiscoveryResponseGenerateOptions.BuilderResponse()
                 .withClientKey(clientKey)
@@ -23,9 +23,14 @@ import com.gsma.mobileconnect.r2.exceptions.HeadlessOperationFailedException;
 import com.gsma.mobileconnect.r2.exceptions.InvalidResponseException;
 import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
 import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
+import com.gsma.mobileconnect.r2.rest.Deadline;
 
 import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 /**
  * Interface for the Mobile Connect Requests
@@ -117,6 +122,64 @@ public interface IAuthenticationService
                                                                final AuthenticationOptions options, final String currentVersion, final boolean isBasicAuth)
         throws RequestFailedException, HeadlessOperationFailedException;
 
+    /**
+     * Initiates headless authentication without blocking the calling thread while waiting for the
+     * user to respond on their authentication device.  The authorization url is polled on a shared
+     * timer, honouring any Retry-After requested by the operator, and the token is requested once
+     * the redirect url is reached.
+     *
+     * @param clientId         The application ClientId returned by the discovery process
+     *                         (Required)
+     * @param clientSecret     The ClientSecret returned by the discovery response (Required)
+     * @param authorizationUrl The authorization url returned by the discovery process (Required)
+     * @param requestTokenUrl  The token url returned by the discovery process (Required)
+     * @param redirectUrl      On completion or error where the result information is sent using a
+     *                         HTTP 302 redirect (Required)
+     * @param state            Application specified unique state value (Required)
+     * @param nonce            Application specified nonce value. (Required)
+     * @param encryptedMsisdn  Encrypted MSISDN for user if returned from discovery service
+     * @param options          Optional parameters
+     * @return future completed with the token if headless authentication is successful;
+     * cancelling it stops the polling.
+     */
+    default CompletableFuture<RequestTokenResponse> requestHeadlessAuthenticationAsync( //NOSONAR
+        final String clientId, final String clientSecret, final String correlationId,
+        final URI authorizationUrl, final URI requestTokenUrl, final URI redirectUrl,
+        final String state, final String nonce, final String encryptedMsisdn,
+        final AuthenticationOptions options, final String currentVersion, final boolean isBasicAuth)
+    {
+        // By default the blocking variant runs on the common pool, within the deadline entered on
+        // the calling thread; a pool thread is held while polling and cancelling does not stop it
+        final Deadline deadline = Deadline.current();
+        return CompletableFuture.supplyAsync(new Supplier<RequestTokenResponse>()
+        {
+            @Override
+            public RequestTokenResponse get()
+            {
+                try (final Deadline.Scope ignored = Deadline.enter(deadline))
+                {
+                    return IAuthenticationService.this.requestHeadlessAuthentication(clientId,
+                        clientSecret, correlationId, authorizationUrl, requestTokenUrl,
+                        redirectUrl, state, nonce, encryptedMsisdn, options, currentVersion,
+                        isBasicAuth).get();
+                }
+                catch (final ExecutionException e)
+                {
+                    throw new CompletionException(e.getCause());
+                }
+                catch (final InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new CompletionException(e);
+                }
+                catch (final RequestFailedException | HeadlessOperationFailedException e)
+                {
+                    throw new CompletionException(e);
+                }
+            }
+        });
+    }
+
     /**
      * Allows an application to use the refresh token obtained from request token response and
      * request for a token refresh. <p> This function requires either a valid refresh token to be
@@ -77,12 +77,12 @@ public class RequestTokenResponse
             if (HttpUtils.isHttpErrorCode(restResponse.getStatusCode()))
             {
                 builder.withErrorResponse(
-                    jsonService.deserialize(restResponse.getContent(), ErrorResponse.class));
+                    jsonService.deserialize(restResponse.getContentReader(), ErrorResponse.class));
             }
             else
             {
                 final RequestTokenResponseData data =
-                    jsonService.deserialize(restResponse.getContent(),
+                    jsonService.deserialize(restResponse.getContentReader(),
                         RequestTokenResponseData.class);
 
                 builder
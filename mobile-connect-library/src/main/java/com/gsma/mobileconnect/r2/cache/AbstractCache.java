@@ -31,6 +31,7 @@ import org.slf4j.LoggerFactory;
 import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * Base class for Discovery Caches that implements basic cache control mechanisms and type casting
@@ -54,6 +55,7 @@ public abstract class AbstractCache implements ICache
             .add(ProviderMetadata.class, DefaultOptions.PROVIDER_METADATA_TTL_MS)
             .build();
     private final Map<Class<? extends AbstractCacheable>, Tuple<Long, Long>> cacheExpiryLimits;
+    private final CacheMode cacheMode;
 
     protected final IJsonService jsonService;
 
@@ -66,9 +68,24 @@ public abstract class AbstractCache implements ICache
      */
     protected AbstractCache(final IJsonService jsonService,
         final Map<Class<? extends AbstractCacheable>, Tuple<Long, Long>> cacheExpiryLimits)
+    {
+        this(jsonService, cacheExpiryLimits, CacheMode.SERIALIZED);
+    }
+
+    /**
+     * Construct an instance of this discovery cache holding values as specified by the mode.
+     *
+     * @param jsonService       used to serialise and deserilise cached values.
+     * @param cacheExpiryLimits map defining limits for which types may be cached.
+     * @param cacheMode         how values are held.
+     */
+    protected AbstractCache(final IJsonService jsonService,
+        final Map<Class<? extends AbstractCacheable>, Tuple<Long, Long>> cacheExpiryLimits,
+        final CacheMode cacheMode)
     {
         this.jsonService = jsonService;
         this.cacheExpiryLimits = cacheExpiryLimits;
+        this.cacheMode = cacheMode;
     }
 
     @Override
@@ -80,18 +97,36 @@ public abstract class AbstractCache implements ICache
 
         if (key != null)
         {
-            try
-            {
-                final String json = this.jsonService.serialize(value);
-                this.internalAdd(key, new CacheEntry(json, value.getClass()));
-            }
-            catch (final JsonSerializationException jse)
-            {
-                LOGGER.warn("Failed to serialize instance of class={} to add to cache with key={}",
-                    value.getClass(), key, jse);
-                throw new CacheAccessException(CacheAccessException.Operation.ADD, key,
-                    value.getClass(), jse);
-            }
+            this.internalAdd(key, this.entryOf(key, value));
+        }
+    }
+
+    /**
+     * Creates the entry holding a value being added.
+     *
+     * @param key   of the entry.
+     * @param value to hold.
+     * @return entry holding the value.
+     * @throws CacheAccessException if the value could not be serialized.
+     */
+    private CacheEntry entryOf(final String key, final AbstractCacheable value)
+        throws CacheAccessException
+    {
+        try
+        {
+            final String json = this.jsonService.serialize(value);
+            final long timeToLive = this.timeToLiveOf(value);
+            final long retention = this.getStaleRetention();
+            return this.cacheMode == CacheMode.OBJECT
+                   ? new CacheEntry(value.copy(), json.length(), timeToLive, retention)
+                   : new CacheEntry(json, value.getClass(), timeToLive, retention);
+        }
+        catch (final JsonSerializationException jse)
+        {
+            LOGGER.warn("Failed to serialize instance of class={} to add to cache with key={}",
+                value.getClass(), key, jse);
+            throw new CacheAccessException(CacheAccessException.Operation.ADD, key,
+                value.getClass(), jse);
         }
     }
 
@@ -112,22 +147,13 @@ public abstract class AbstractCache implements ICache
 
         if (key != null)
         {
-            final CacheEntry value = this.internalGet(key);
+            final CacheEntry value = this.internalGet(key, clazz);
             if (value != null)
             {
-                try
-                {
-                    result = this.jsonService.deserialize(value.getValue(), clazz);
-                }
-                catch (final JsonDeserializationException jde)
-                {
-                    this.internalRemove(key, value.getValue());
-                    LOGGER.warn(
-                        "Failed to deserialize cached instance of class={} with key={}; the value has been expelled from the cache",
-                        clazz, key, jde);
-                    throw new CacheAccessException(CacheAccessException.Operation.GET, key, clazz,
-                        jde);
-                }
+                result = this.read(key, value, clazz);
+            }
+            if (result != null)
+            {
                 this.checkAndSetExpiry(value);
                 result.setCacheInfo(value);
 
@@ -135,7 +161,7 @@ public abstract class AbstractCache implements ICache
                 {
                     LOGGER.debug("Removing expired cached entry class={} with key={}", clazz, key);
                     result = null;
-                    this.internalRemove(key, value.getValue());
+                    this.internalRemove(key, value);
                 }
             }
         }
@@ -143,9 +169,170 @@ public abstract class AbstractCache implements ICache
         return result;
     }
 
+    @Override
+    public <T extends AbstractCacheable> T getAndRemove(final String key, final Class<T> clazz)
+        throws CacheAccessException
+    {
+        ObjectUtils.requireNonNull(clazz, "clazz");
+
+        if (key == null)
+        {
+            return null;
+        }
+
+        CacheEntry value;
+        do
+        {
+            value = this.internalGet(key, clazz);
+            if (value == null || !clazz.isAssignableFrom(value.getCachedClass()))
+            {
+                return null;
+            }
+            this.checkAndSetExpiry(value);
+        }
+        while (!this.internalRemove(key, value));
+
+        if (value.isExpired())
+        {
+            LOGGER.debug("Removed expired cached entry class={} with key={}", clazz, key);
+            return null;
+        }
+
+        final T result = this.read(key, value, clazz);
+        result.setCacheInfo(value);
+        return result;
+    }
+
+    @Override
+    public <T extends AbstractCacheable> T computeIfPresent(final String key, final Class<T> clazz,
+        final Function<? super T, ? extends T> function) throws CacheAccessException
+    {
+        ObjectUtils.requireNonNull(clazz, "clazz");
+        ObjectUtils.requireNonNull(function, "function");
+
+        if (key == null)
+        {
+            return null;
+        }
+
+        while (true)
+        {
+            final CacheEntry value = this.internalGet(key, clazz);
+            final T current = value == null ? null : this.read(key, value, clazz);
+            if (current == null)
+            {
+                return null;
+            }
+
+            if (this.checkAndSetExpiry(value))
+            {
+                LOGGER.debug("Removing expired cached entry class={} with key={}", clazz, key);
+                this.internalRemove(key, value);
+                return null;
+            }
+            current.setCacheInfo(value);
+
+            final T computed = function.apply(current);
+            if (computed == null
+                ? this.internalRemove(key, value)
+                : this.internalReplace(key, value, this.entryOf(key, computed)))
+            {
+                return computed;
+            }
+            LOGGER.debug("Cached entry class={} with key={} changed while computing, retrying",
+                clazz, key);
+        }
+    }
+
+    /**
+     * Reads the value held by an entry, returning a shallow copy of the instance held or
+     * deserializing the json held, so that the cache info set on the value read is not shared.
+     *
+     * @param key   of the entry.
+     * @param entry holding the value.
+     * @param clazz expected type of the value.
+     * @return the value, or null if a value of another type is held.
+     * @throws CacheAccessException if the json held could not be deserialized.
+     */
+    private <T extends AbstractCacheable> T read(final String key, final CacheEntry entry,
+        final Class<T> clazz) throws CacheAccessException
+    {
+        final AbstractCacheable object = entry.getObject();
+        if (object != null)
+        {
+            if (clazz.isInstance(object))
+            {
+                return clazz.cast(object.copy());
+            }
+            LOGGER.debug("Cached instance with key={} is of class={} not class={}", key,
+                object.getClass(), clazz);
+            return null;
+        }
+        if (!clazz.isAssignableFrom(entry.getCachedClass()))
+        {
+            LOGGER.debug("Cached value with key={} is of class={} not class={}", key,
+                entry.getCachedClass(), clazz);
+            return null;
+        }
+
+        try
+        {
+            return this.jsonService.deserialize(entry.getValue(), clazz);
+        }
+        catch (final JsonDeserializationException jde)
+        {
+            this.internalRemove(key, entry);
+            LOGGER.warn(
+                "Failed to deserialize cached instance of class={} with key={}; the value has been expelled from the cache",
+                clazz, key, jde);
+            throw new CacheAccessException(CacheAccessException.Operation.GET, key, clazz, jde);
+        }
+    }
+
+    /**
+     * Works out how long a value being added lives, from the earlier of its own expiry time and the
+     * cache expiry time set for its type.
+     *
+     * @param value being added.
+     * @return time to live in milliseconds, or Long.MAX_VALUE if it does not expire.
+     */
+    private long timeToLiveOf(final AbstractCacheable value)
+    {
+        final Long expiryTime = value.getExpiryTime();
+        long timeToLive = expiryTime == null
+                          ? Long.MAX_VALUE
+                          : expiryTime - System.currentTimeMillis();
+
+        final Long timeToExpire = this.getCacheExpiryTime(value.getClass());
+        if (timeToExpire != null)
+        {
+            timeToLive = Math.min(timeToLive, timeToExpire);
+        }
+        return timeToLive;
+    }
+
+    /**
+     * @param clazz type of the cached values.
+     * @return time in milliseconds after which cached values of the type expire, or null if they
+     * do not expire.
+     */
+    protected Long getCacheExpiryTime(final Class<?> clazz)
+    {
+        return this.cacheExpiryTimes.get(clazz);
+    }
+
+    /**
+     * @return time in milliseconds that values are held after they expire, during which they may
+     * still be read without removing them if expired.
+     */
+    protected long getStaleRetention()
+    {
+        return 0L;
+    }
+
     /**
-     * Checks if a object has been cached past the defined caching time or if internally the object
-     * has been marked as expired.
+     * Checks if a object has been cached past the defined caching time or its own expiry time, or
+     * if internally the object has been marked as expired.
      *
      * @param cacheEntry to check.
      * @return expiry status on completion.
@@ -156,15 +343,14 @@ public abstract class AbstractCache implements ICache
 
         if (!cacheEntry.isExpired())
         {
-            final Long timeToExpire = this.cacheExpiryTimes.get(cacheEntry.getCachedClass());
-            if (timeToExpire != null)
+            final long now = CacheEntry.now();
+            final Long timeToExpire = this.getCacheExpiryTime(cacheEntry.getCachedClass());
+
+            expired = cacheEntry.isExpired(now) || timeToExpire != null
+                && cacheEntry.getAge(now) > TimeUnit.MILLISECONDS.toNanos(timeToExpire);
+            if (expired)
             {
-                expired = cacheEntry.getCachedTime().getTime() + timeToExpire
-                    < System.currentTimeMillis();
-                if (expired)
-                {
-                    cacheEntry.expire();
-                }
+                cacheEntry.expire();
             }
         }
 
@@ -213,6 +399,21 @@ public abstract class AbstractCache implements ICache
      */
     protected abstract CacheEntry internalGet(final String key) throws CacheAccessException;
 
+    /**
+     * Get value of the given type from internal cache with given key.  By default the type is not
+     * used to look up the value.
+     *
+     * @param key   key
+     * @param clazz type of the value.
+     * @return value
+     * @throws CacheAccessException if there was an issue fetching the value.
+     */
+    protected CacheEntry internalGet(final String key, final Class<?> clazz)
+        throws CacheAccessException
+    {
+        return this.internalGet(key);
+    }
+
     /**
      * Remove value from the internal cache where key and value match.
      *
@@ -222,4 +423,41 @@ public abstract class AbstractCache implements ICache
      */
     protected abstract void internalRemove(final String key, final String value)
         throws CacheAccessException;
+
+    /**
+     * Remove entry from the internal cache if it is still held with the key.  By default the
+     * entry is matched by its serialized value.
+     *
+     * @param key   key
+     * @param entry entry
+     * @return true if the entry was removed.
+     * @throws CacheAccessException if there was a problem removing the entry from the cache.
+     */
+    protected boolean internalRemove(final String key, final CacheEntry entry)
+        throws CacheAccessException
+    {
+        this.internalRemove(key, entry.getValue());
+        return true;
+    }
+
+    /**
+     * Replace entry in the internal cache if it is still held with the key.  By default the entry
+     * is removed and the replacement added, which is not atomic.
+     *
+     * @param key      key
+     * @param expected entry expected to be held.
+     * @param entry    replacement.
+     * @return true if the entry was replaced.
+     * @throws CacheAccessException if there was a problem replacing the entry.
+     */
+    protected boolean internalReplace(final String key, final CacheEntry expected,
+        final CacheEntry entry) throws CacheAccessException
+    {
+        if (this.internalRemove(key, expected))
+        {
+            this.internalAdd(key, entry);
+            return true;
+        }
+        return false;
+    }
 }
@@ -16,20 +16,49 @@
  */
 package com.gsma.mobileconnect.r2.cache;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Defines core functionality of cacheable items.
  *
  * @since 2.0
  */
-public abstract class AbstractCacheable implements ICacheable
+public abstract class AbstractCacheable implements ICacheable, Cloneable
 {
     private boolean cached = false;
     private boolean expired = false;
+    private String etag;
+    private String lastModified;
+    private Long contentLength;
+    private transient long cachedAge;
+    private transient long cachedTimeToLive = Long.MAX_VALUE;
+
+    /**
+     * Creates a shallow copy of this item, so that a cache holding the instance itself can hand out
+     * and record cache info on copies without modifying the instance it shares.
+     *
+     * @return copy of this item.
+     */
+    AbstractCacheable copy()
+    {
+        try
+        {
+            return (AbstractCacheable) super.clone();
+        }
+        catch (final CloneNotSupportedException cnse)
+        {
+            throw new AssertionError(cnse);
+        }
+    }
 
     void setCacheInfo(final CacheEntry cacheEntry)
     {
         this.cached = true;
         this.expired = cacheEntry.isExpired();
+        this.cachedAge = TimeUnit.NANOSECONDS.toMillis(cacheEntry.getAge(CacheEntry.now()));
+        this.cachedTimeToLive = cacheEntry.expires()
+                                ? TimeUnit.NANOSECONDS.toMillis(cacheEntry.getTimeToLive())
+                                : Long.MAX_VALUE;
 
         this.cached();
     }
@@ -46,6 +75,83 @@ public abstract class AbstractCacheable implements ICacheable
         return this.expired;
     }
 
+    /**
+     * @return time in milliseconds this item had been held in the cache when it was last read from
+     * it, or 0 if it was not read from a cache.
+     */
+    public long getCachedAge()
+    {
+        return this.cachedAge;
+    }
+
+    /**
+     * @return time in milliseconds this item lives in the cache before it expires, or
+     * Long.MAX_VALUE if it does not expire by itself.
+     */
+    public long getCachedTimeToLive()
+    {
+        return this.cachedTimeToLive;
+    }
+
+    /**
+     * Record the validators returned with the response this item was read from, allowing it to be
+     * revalidated with a conditional request once it has expired.
+     *
+     * @param etag          value of the ETag header, may be null.
+     * @param lastModified  value of the Last-Modified header, may be null.
+     * @param contentLength size in bytes of the response body.
+     */
+    public void setValidators(final String etag, final String lastModified,
+        final long contentLength)
+    {
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.contentLength = contentLength;
+    }
+
+    /**
+     * @return true if an ETag or Last-Modified value was recorded for this item.
+     */
+    public boolean hasValidators()
+    {
+        return this.etag != null || this.lastModified != null;
+    }
+
+    /**
+     * @return value of the ETag header returned with this item, or null.
+     */
+    public String getEtag()
+    {
+        return this.etag;
+    }
+
+    /**
+     * @return value of the Last-Modified header returned with this item, or null.
+     */
+    public String getLastModified()
+    {
+        return this.lastModified;
+    }
+
+    /**
+     * @return size in bytes of the response body this item was read from, or 0 if unknown.
+     */
+    public long getContentLength()
+    {
+        return this.contentLength == null ? 0L : this.contentLength;
+    }
+
+    /**
+     * Time at which this item expires by itself, used by a bounded cache to prefer evicting the
+     * items that will expire soonest.
+     *
+     * @return expiry time in milliseconds since the epoch, or null if the item does not carry one.
+     */
+    protected Long getExpiryTime()
+    {
+        return null;
+    }
+
     /**
      * Mark this object as cached.  This is called as the item exits the cache and is marked as
      * cached, implementations may wish to modify their data when this called.
@@ -0,0 +1,280 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.gsma.mobileconnect.r2.constants.DefaultOptions;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Store that bounds the total weight of the entries it holds, evicting least recently used entries
+ * to make room for new ones.  The victim is chosen from a small sample at the least recently used
+ * end: an expired entry is evicted first, then the entry that expires soonest to the second, and
+ * otherwise the least recently used entry.  Every operation is O(1).
+ * <p>
+ * Reads do not take the lock: the entries are read from a concurrent map and the keys read are
+ * recorded in a {@link ReadBuffer}, which is applied to the least recently used order under the
+ * lock by the next write, or by a read that fills the buffer if the lock is free.
+ * <p>
+ * The weight of an entry is the length of its serialized value, computed once when the entry is
+ * created.  An entry heavier than the whole budget is not admitted.
+ */
+final class BoundedCacheStore implements CacheStore
+{
+    private static final long EXPIRY_GRANULARITY = TimeUnit.SECONDS.toNanos(1L);
+
+    private final long maxWeight;
+    private final CacheStatistics statistics;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ConcurrentHashMap<String, CacheEntry> entries =
+        new ConcurrentHashMap<String, CacheEntry>();
+    private final LinkedHashMap<String, CacheEntry> order =
+        new LinkedHashMap<String, CacheEntry>(16, 0.75f, true);
+    private final ReadBuffer reads = new ReadBuffer();
+    private long weight;
+
+    BoundedCacheStore(final long maxWeight, final CacheStatistics statistics)
+    {
+        this.maxWeight = maxWeight;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public CacheEntry get(final String key)
+    {
+        final CacheEntry entry = this.entries.get(key);
+        if (entry != null && this.reads.record(key) && this.lock.tryLock())
+        {
+            try
+            {
+                this.reads.drainTo(this.order);
+            }
+            finally
+            {
+                this.lock.unlock();
+            }
+        }
+        return entry;
+    }
+
+    @Override
+    public boolean put(final String key, final CacheEntry entry)
+    {
+        if (entry.getWeight() > this.maxWeight)
+        {
+            this.statistics.recordRejection();
+            return false;
+        }
+
+        this.lock.lock();
+        try
+        {
+            this.reads.drainTo(this.order);
+            this.removed(this.store(key, entry));
+            this.weight += entry.getWeight();
+
+            final long now = CacheEntry.now();
+            while (this.weight > this.maxWeight)
+            {
+                this.evict(key, now);
+            }
+            this.updateStatistics();
+            return true;
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public void remove(final String key)
+    {
+        this.lock.lock();
+        try
+        {
+            this.removed(this.discard(key));
+            this.updateStatistics();
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(final String key, final CacheEntry entry)
+    {
+        this.lock.lock();
+        try
+        {
+            if (this.entries.get(key) != entry)
+            {
+                return false;
+            }
+            this.removed(this.discard(key));
+            this.updateStatistics();
+            return true;
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean replace(final String key, final CacheEntry expected, final CacheEntry entry)
+    {
+        this.lock.lock();
+        try
+        {
+            if (this.entries.get(key) != expected)
+            {
+                return false;
+            }
+            if (entry.getWeight() > this.maxWeight)
+            {
+                this.statistics.recordRejection();
+                this.removed(this.discard(key));
+            }
+            else
+            {
+                this.reads.drainTo(this.order);
+                this.removed(this.store(key, entry));
+                this.weight += entry.getWeight();
+
+                final long now = CacheEntry.now();
+                while (this.weight > this.maxWeight)
+                {
+                    this.evict(key, now);
+                }
+            }
+            this.updateStatistics();
+            return true;
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear()
+    {
+        this.lock.lock();
+        try
+        {
+            this.entries.clear();
+            this.order.clear();
+            this.weight = 0L;
+            this.updateStatistics();
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public CacheStatistics getStatistics()
+    {
+        return this.statistics;
+    }
+
+    @Override
+    public int size()
+    {
+        return this.entries.size();
+    }
+
+    /**
+     * Evicts one entry, other than the one just added, sampled from the least recently used end.
+     *
+     * @param added key of the entry just added.
+     * @param now   current time of the {@link CacheEntry#now()} clock.
+     */
+    private void evict(final String added, final long now)
+    {
+        Map.Entry<String, CacheEntry> victim = null;
+        int sampled = 0;
+
+        final Iterator<Map.Entry<String, CacheEntry>> iterator = this.order.entrySet().iterator();
+        while (iterator.hasNext() && sampled < DefaultOptions.CACHE_EVICTION_SAMPLE_SIZE)
+        {
+            final Map.Entry<String, CacheEntry> candidate = iterator.next();
+            if (candidate.getKey().equals(added))
+            {
+                continue;
+            }
+            sampled++;
+
+            if (candidate.getValue().isExpired(now))
+            {
+                victim = candidate;
+                break;
+            }
+            if (victim == null
+                || expiryOf(candidate.getValue(), now) < expiryOf(victim.getValue(), now))
+            {
+                victim = candidate;
+            }
+        }
+
+        final CacheEntry evicted = this.discard(victim.getKey());
+        this.removed(evicted);
+        this.statistics.recordEviction(evicted.isExpired(now));
+    }
+
+    /**
+     * Entries expiring within the same second are treated alike, so that of the entries of one type
+     * added together the least recently used is evicted first.
+     */
+    private static long expiryOf(final CacheEntry entry, final long now)
+    {
+        return entry.getTimeToExpire(now) / EXPIRY_GRANULARITY;
+    }
+
+    private CacheEntry store(final String key, final CacheEntry entry)
+    {
+        this.order.put(key, entry);
+        return this.entries.put(key, entry);
+    }
+
+    private CacheEntry discard(final String key)
+    {
+        this.order.remove(key);
+        return this.entries.remove(key);
+    }
+
+    private void removed(final CacheEntry entry)
+    {
+        if (entry != null)
+        {
+            this.weight -= entry.getWeight();
+        }
+    }
+
+    private void updateStatistics()
+    {
+        this.statistics.setWeight(this.weight, this.entries.size());
+    }
+}
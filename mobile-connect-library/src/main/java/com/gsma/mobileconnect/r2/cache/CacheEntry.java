@@ -16,20 +16,25 @@
  */
 package com.gsma.mobileconnect.r2.cache;
 
-import java.util.Date;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * Wrapper for items stored in the cache.
+ * Wrapper for items stored in the cache.  Times are read from the monotonic {@link #now()} clock,
+ * so the age and expiry of an item are not affected by changes to the system time.
  *
  * @since 2.0
  */
 class CacheEntry
 {
     private final String value;
-    private final Date cachedTime;
+    private final AbstractCacheable object;
+    private final long cachedAt;
     private final Class<? extends AbstractCacheable> clazz;
     private final AtomicBoolean expired;
+    private final long timeToLive;
+    private final long retention;
+    private final long weight;
 
     /**
      * Wrap specified value for storage in the cache.
@@ -37,15 +42,80 @@ class CacheEntry
      * @param value to wrap.
      */
     CacheEntry(final String value, final Class<? extends AbstractCacheable> clazz)
+    {
+        this(value, clazz, Long.MAX_VALUE);
+    }
+
+    /**
+     * Wrap specified value for storage in the cache.
+     *
+     * @param value      to wrap.
+     * @param clazz      of the value.
+     * @param timeToLive time in milliseconds after which the value expires, or Long.MAX_VALUE if
+     *                   it does not expire by itself.
+     */
+    CacheEntry(final String value, final Class<? extends AbstractCacheable> clazz,
+        final long timeToLive)
+    {
+        this(value, clazz, timeToLive, 0L);
+    }
+
+    /**
+     * Wrap specified value for storage in the cache.
+     *
+     * @param value      to wrap.
+     * @param clazz      of the value.
+     * @param timeToLive time in milliseconds after which the value expires, or Long.MAX_VALUE if
+     *                   it does not expire by itself.
+     * @param retention  time in milliseconds the value is held after it expires.
+     */
+    CacheEntry(final String value, final Class<? extends AbstractCacheable> clazz,
+        final long timeToLive, final long retention)
+    {
+        this(value, null, clazz, timeToLive, retention, value == null ? 0L : value.length());
+    }
+
+    /**
+     * Hold specified instance in the cache without serializing it.
+     *
+     * @param object     to hold.
+     * @param weight     of the instance, the length of its serialized value.
+     * @param timeToLive time in milliseconds after which the instance expires, or Long.MAX_VALUE
+     *                   if it does not expire by itself.
+     * @param retention  time in milliseconds the instance is held after it expires.
+     */
+    CacheEntry(final AbstractCacheable object, final long weight, final long timeToLive,
+        final long retention)
+    {
+        this(null, object, object.getClass(), timeToLive, retention, weight);
+    }
+
+    private CacheEntry(final String value, final AbstractCacheable object,
+        final Class<? extends AbstractCacheable> clazz, final long timeToLive,
+        final long retention, final long weight)
     {
         this.value = value;
+        this.object = object;
         this.clazz = clazz;
-        this.cachedTime = new Date();
+        this.cachedAt = now();
         this.expired = new AtomicBoolean(false);
+        this.timeToLive = timeToLive == Long.MAX_VALUE
+                          ? Long.MAX_VALUE
+                          : TimeUnit.MILLISECONDS.toNanos(timeToLive);
+        this.retention = TimeUnit.MILLISECONDS.toNanos(retention);
+        this.weight = weight;
     }
 
     /**
-     * @return the value held.
+     * @return current time of the monotonic clock used by cache entries, in nanoseconds.
+     */
+    static long now()
+    {
+        return System.nanoTime();
+    }
+
+    /**
+     * @return the serialized value held, or null if the entry holds an instance.
      */
     String getValue()
     {
@@ -53,11 +123,20 @@ class CacheEntry
     }
 
     /**
-     * @return the time the item was cached.
+     * @return the instance held, or null if the entry holds a serialized value.
+     */
+    AbstractCacheable getObject()
+    {
+        return this.object;
+    }
+
+    /**
+     * @param now current time of the {@link #now()} clock.
+     * @return time in nanoseconds since the item was cached.
      */
-    Date getCachedTime()
+    long getAge(final long now)
     {
-        return this.cachedTime;
+        return now - this.cachedAt;
     }
 
     /**
@@ -76,6 +155,68 @@ class CacheEntry
         return this.expired.get();
     }
 
+    /**
+     * @param now current time of the {@link #now()} clock.
+     * @return true if this item has been marked as expired or its time to live has passed.
+     */
+    boolean isExpired(final long now)
+    {
+        return this.isExpired() || this.getAge(now) >= this.timeToLive;
+    }
+
+    /**
+     * @return true if this item expires by itself once its time to live has passed.
+     */
+    boolean expires()
+    {
+        return this.timeToLive != Long.MAX_VALUE;
+    }
+
+    /**
+     * @return time in nanoseconds after which this item expires, or Long.MAX_VALUE if it does not
+     * expire by itself.
+     */
+    long getTimeToLive()
+    {
+        return this.timeToLive;
+    }
+
+    /**
+     * @return time of the {@link #now()} clock at which this item is removed, once it has expired
+     * and been retained, only meaningful if it {@link #expires()}.
+     */
+    long getRemoveAt()
+    {
+        return this.cachedAt + this.timeToLive + this.retention;
+    }
+
+    /**
+     * @param now current time of the {@link #now()} clock.
+     * @return true if this item has expired and been retained for as long as required.
+     */
+    boolean isRemovable(final long now)
+    {
+        return this.expires() && this.getAge(now) - this.retention >= this.timeToLive;
+    }
+
+    /**
+     * @param now current time of the {@link #now()} clock.
+     * @return time in nanoseconds until this item expires, negative once it has expired, or
+     * Long.MAX_VALUE if it does not expire by itself.
+     */
+    long getTimeToExpire(final long now)
+    {
+        return this.expires() ? this.timeToLive - this.getAge(now) : Long.MAX_VALUE;
+    }
+
+    /**
+     * @return weight of this item, the length of its serialized value.
+     */
+    long getWeight()
+    {
+        return this.weight;
+    }
+
     /**
      * mark this item as expired.
      */
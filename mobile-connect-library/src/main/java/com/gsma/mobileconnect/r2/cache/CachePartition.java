@@ -0,0 +1,180 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.gsma.mobileconnect.r2.utils.IBuilder;
+import com.gsma.mobileconnect.r2.utils.ListUtils;
+import com.gsma.mobileconnect.r2.utils.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Named partition of a {@link ConcurrentCache} holding the values of the specified types apart from
+ * the rest of the cache, with its own capacity, expiry time and statistics.  Values added to a
+ * partition only compete for room with each other, so for example session churn cannot evict
+ * discovery responses or keysets held in other partitions.
+ */
+public class CachePartition
+{
+    private final String name;
+    private final List<Class<? extends AbstractCacheable>> cachedClasses;
+    private final long maxCacheSize;
+    private final int maxEntries;
+    private final Long expiryTime;
+
+    private CachePartition(final Builder builder)
+    {
+        this.name = builder.name;
+        this.cachedClasses = ListUtils.immutableList(builder.cachedClasses);
+        this.maxCacheSize = builder.maxCacheSize;
+        this.maxEntries = builder.maxEntries;
+        this.expiryTime = builder.expiryTime;
+    }
+
+    /**
+     * @return name of the partition.
+     */
+    public String getName()
+    {
+        return this.name;
+    }
+
+    /**
+     * @return types of the values held in the partition.
+     */
+    public List<Class<? extends AbstractCacheable>> getCachedClasses()
+    {
+        return this.cachedClasses;
+    }
+
+    /**
+     * @return maximum total weight of the partition, or 0 if it is unbounded.
+     */
+    public long getMaxCacheSize()
+    {
+        return this.maxCacheSize;
+    }
+
+    /**
+     * @return maximum number of entries held in the partition, or 0 if it is not bounded by number.
+     */
+    public int getMaxEntries()
+    {
+        return this.maxEntries;
+    }
+
+    /**
+     * @return time in milliseconds after which values held in the partition expire, or null if
+     * they are only expired by the cache expiry times of their types.
+     */
+    public Long getExpiryTime()
+    {
+        return this.expiryTime;
+    }
+
+    public static final class Builder implements IBuilder<CachePartition>
+    {
+        private final List<Class<? extends AbstractCacheable>> cachedClasses =
+            new ArrayList<Class<? extends AbstractCacheable>>();
+        private String name;
+        private long maxCacheSize;
+        private int maxEntries;
+        private Long expiryTime;
+
+        public Builder withName(final String val)
+        {
+            this.name = val;
+            return this;
+        }
+
+        /**
+         * Specify the types of the values to hold in the partition.  A type may only be held in one
+         * partition of a cache.
+         *
+         * @param val types of the values.
+         * @return builder to continue further configuration.
+         */
+        @SafeVarargs
+        public final Builder withCachedClasses(final Class<? extends AbstractCacheable>... val)
+        {
+            this.cachedClasses.addAll(Arrays.asList(val));
+            return this;
+        }
+
+        /**
+         * Bound the partition to a maximum total weight, the length of the serialized values it
+         * holds.
+         *
+         * @param val maximum weight, or 0 for an unbounded partition.
+         * @return builder to continue further configuration.
+         */
+        public Builder withMaxCacheSize(final long val)
+        {
+            this.maxCacheSize = val;
+            return this;
+        }
+
+        /**
+         * Bound the partition to a maximum number of entries, evicting the oldest entry to make
+         * room for a new one whether or not it has been read since.  Suited to values such as
+         * sessions that are read once or not at all.  May not be combined with a maximum cache
+         * size.
+         *
+         * @param val maximum number of entries, or 0 for a partition not bounded by number.
+         * @return builder to continue further configuration.
+         */
+        public Builder withMaxEntries(final int val)
+        {
+            this.maxEntries = val;
+            return this;
+        }
+
+        /**
+         * Expire values held in the partition after the specified time, or earlier if the cache
+         * expiry time of their type is shorter.
+         *
+         * @param duration of the expiry time.
+         * @param unit     of the duration.
+         * @return builder to continue further configuration.
+         */
+        public Builder withExpiryTime(final long duration, final TimeUnit unit)
+        {
+            this.expiryTime = unit.toMillis(duration);
+            return this;
+        }
+
+        @Override
+        public CachePartition build()
+        {
+            StringUtils.requireNonEmpty(this.name, "name");
+            if (this.cachedClasses.isEmpty())
+            {
+                throw new IllegalArgumentException(
+                    "Partition " + this.name + " must hold at least one cached class");
+            }
+            if (this.maxEntries < 0 || this.maxEntries > 0 && this.maxCacheSize > 0)
+            {
+                throw new IllegalArgumentException("Partition " + this.name
+                    + " may be bounded by either maxCacheSize or a positive maxEntries");
+            }
+            return new CachePartition(this);
+        }
+    }
+}
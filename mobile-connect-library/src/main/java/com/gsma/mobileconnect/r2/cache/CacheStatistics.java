@@ -0,0 +1,145 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the weight held by a cache partition, of the entries evicted to keep it within its
+ * maximum weight or number of entries, and of the entries removed once expired.
+ */
+public class CacheStatistics
+{
+    private final long maxWeight;
+    private final int maxEntries;
+    private final AtomicLong weight = new AtomicLong();
+    private final AtomicLong entries = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expiredEvictions = new AtomicLong();
+    private final AtomicLong rejections = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    CacheStatistics(final long maxWeight)
+    {
+        this(maxWeight, 0);
+    }
+
+    CacheStatistics(final long maxWeight, final int maxEntries)
+    {
+        this.maxWeight = maxWeight;
+        this.maxEntries = maxEntries;
+    }
+
+    void setWeight(final long weight, final long entries)
+    {
+        this.weight.set(weight);
+        this.entries.set(entries);
+    }
+
+    void recordEviction(final boolean expired)
+    {
+        this.evictions.incrementAndGet();
+        if (expired)
+        {
+            this.expiredEvictions.incrementAndGet();
+        }
+    }
+
+    void recordRejection()
+    {
+        this.rejections.incrementAndGet();
+    }
+
+    void recordExpiry()
+    {
+        this.expirations.incrementAndGet();
+    }
+
+    /**
+     * @return maximum weight the cache may hold, or 0 if it is unbounded.
+     */
+    public long getMaxWeight()
+    {
+        return this.maxWeight;
+    }
+
+    /**
+     * @return maximum number of entries the cache may hold, or 0 if it is not bounded by number.
+     */
+    public int getMaxEntries()
+    {
+        return this.maxEntries;
+    }
+
+    /**
+     * @return total weight of the entries held, in serialized characters.
+     */
+    public long getWeight()
+    {
+        return this.weight.get();
+    }
+
+    /**
+     * @return number of entries held.
+     */
+    public long getEntryCount()
+    {
+        return this.entries.get();
+    }
+
+    /**
+     * @return number of entries evicted to make room for new ones.
+     */
+    public long getEvictionCount()
+    {
+        return this.evictions.get();
+    }
+
+    /**
+     * @return number of evicted entries that had already expired.
+     */
+    public long getExpiredEvictionCount()
+    {
+        return this.expiredEvictions.get();
+    }
+
+    /**
+     * @return number of entries not admitted because they alone exceed the maximum weight.
+     */
+    public long getRejectionCount()
+    {
+        return this.rejections.get();
+    }
+
+    /**
+     * @return number of entries removed once expired, when read or swept.
+     */
+    public long getExpiredCount()
+    {
+        return this.expirations.get();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CacheStatistics{weight=" + this.getWeight() + ", maxWeight=" + this.maxWeight
+            + ", entries=" + this.getEntryCount() + ", maxEntries=" + this.maxEntries
+            + ", evictions=" + this.getEvictionCount() + ", expiredEvictions="
+            + this.getExpiredEvictionCount() + ", rejections=" + this.getRejectionCount()
+            + ", expired=" + this.getExpiredCount() + "}";
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+/**
+ * Storage behind a {@link ConcurrentCache}, holding the cache entries by key.
+ */
+interface CacheStore
+{
+    /**
+     * @param key of the entry.
+     * @return the entry, or null if none is held.
+     */
+    CacheEntry get(String key);
+
+    /**
+     * Store an entry, replacing any entry held with the same key.
+     *
+     * @param key   of the entry.
+     * @param entry to store.
+     * @return false if the entry was not admitted.
+     */
+    boolean put(String key, CacheEntry entry);
+
+    /**
+     * Remove the entry held with the key.
+     *
+     * @param key of the entry.
+     */
+    void remove(String key);
+
+    /**
+     * Remove the entry held with the key only if it is the given entry.
+     *
+     * @param key   of the entry.
+     * @param entry expected to be held.
+     * @return true if the entry was removed.
+     */
+    boolean remove(String key, CacheEntry entry);
+
+    /**
+     * Replace the entry held with the key only if it is the given entry.
+     *
+     * @param key      of the entry.
+     * @param expected entry expected to be held.
+     * @param entry    replacement.
+     * @return false if another entry is held.  If the replacement is not admitted the expected
+     * entry is removed.
+     */
+    boolean replace(String key, CacheEntry expected, CacheEntry entry);
+
+    /**
+     * Remove every entry.
+     */
+    void clear();
+
+    /**
+     * @return number of entries held.
+     */
+    int size();
+
+    /**
+     * @return counters of the entries held.
+     */
+    CacheStatistics getStatistics();
+}
@@ -16,47 +16,137 @@
  */
 package com.gsma.mobileconnect.r2.cache;
 
-import com.gsma.mobileconnect.r2.discovery.DiscoveryResponse;
+import com.gsma.mobileconnect.r2.constants.DefaultOptions;
 import com.gsma.mobileconnect.r2.json.IJsonService;
 import com.gsma.mobileconnect.r2.utils.IBuilder;
 import com.gsma.mobileconnect.r2.utils.ObjectUtils;
 import com.gsma.mobileconnect.r2.utils.StringUtils;
 import com.gsma.mobileconnect.r2.utils.Tuple;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import org.json.simple.parser.ParseException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Concrete implementation of {@link ICache} using a ConcurrentHashMap as the internal
  * caching mechanism.
+ * <p>
+ * Each instance holds its own entries.  If a maximum cache size is specified the cache is bounded:
+ * it evicts entries to keep their total weight, the length of their serialized values, within the
+ * maximum.  Otherwise entries are held until they are removed.  Values of particular types may be
+ * held apart in named {@link CachePartition}s, each with its own capacity, expiry time and
+ * statistics.  Values are held serialized unless the cache is built in {@link CacheMode#OBJECT}.
+ * Values that expire by themselves are removed in the background by an {@link ExpirySweeper}
+ * once they have expired, even if they are never read again.
  *
  * @since 2.0
  */
 public abstract class ConcurrentCache extends AbstractCache
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(ConcurrentCache.class);
-    private static final ConcurrentHashMap<String, CacheEntry> internalCache = new ConcurrentHashMap<>();
-    private long maxCacheSize = -1;
-    private long cacheSize = internalCache.size();
+    private static final String DEFAULT_PARTITION = "default";
+
+    private final Partition defaultPartition;
+    private final Map<String, Partition> partitions = new LinkedHashMap<String, Partition>();
+    private final Map<Class<?>, Partition> partitionsByClass = new HashMap<Class<?>, Partition>();
+    private final ExpirySweeper sweeper;
+    private final long staleRetention;
 
     protected ConcurrentCache(final Builder builder)
     {
-        super(builder.jsonService, builder.cacheExpiryLimits);
-        maxCacheSize = builder.maxCacheSize;
-        LOGGER.info("New instance of ConcurrentCache created");
+        this(builder, Collections.<CachePartition>emptyList());
+    }
+
+    /**
+     * @param builder    configuration of the cache.
+     * @param partitions held by the cache in addition to the partitions added to the builder.
+     */
+    protected ConcurrentCache(final Builder builder, final List<CachePartition> partitions)
+    {
+        super(builder.jsonService, builder.cacheExpiryLimits, builder.cacheMode);
+
+        this.defaultPartition = new Partition(DEFAULT_PARTITION, builder.maxCacheSize, 0, null);
+        this.partitions.put(DEFAULT_PARTITION, this.defaultPartition);
+
+        final List<CachePartition> cachePartitions =
+            new ArrayList<CachePartition>(builder.partitions);
+        cachePartitions.addAll(partitions);
+        for (final CachePartition cachePartition : cachePartitions)
+        {
+            final Partition partition = new Partition(cachePartition.getName(),
+                cachePartition.getMaxCacheSize(), cachePartition.getMaxEntries(),
+                cachePartition.getExpiryTime());
+            if (this.partitions.put(partition.name, partition) != null)
+            {
+                throw new IllegalArgumentException("Duplicate cache partition " + partition.name);
+            }
+            for (final Class<?> clazz : cachePartition.getCachedClasses())
+            {
+                if (this.partitionsByClass.put(clazz, partition) != null)
+                {
+                    throw new IllegalArgumentException(
+                        "Class " + clazz.getName() + " is held in more than one cache partition");
+                }
+            }
+        }
+        this.staleRetention = builder.staleRetention;
+
+        if (builder.sweepInterval > 0)
+        {
+            this.sweeper = new ExpirySweeper(builder.sweepInterval, TimeUnit.MILLISECONDS);
+            ExpirySweeper.start(this.sweeper);
+        }
+        else
+        {
+            this.sweeper = null;
+        }
+        LOGGER.info("New instance of ConcurrentCache created with cacheMode={}, maxCacheSize={}, partitions={}, sweepInterval={}",
+            builder.cacheMode, builder.maxCacheSize, this.partitions.keySet(),
+            builder.sweepInterval);
+    }
+
+    /**
+     * @return weight, eviction and expiry counters of the values held outside any named partition.
+     */
+    public CacheStatistics getStatistics()
+    {
+        return this.defaultPartition.statistics;
+    }
+
+    /**
+     * @param partition name of the partition.
+     * @return weight, eviction and expiry counters of the partition, or null if there is no such
+     * partition.
+     */
+    public CacheStatistics getStatistics(final String partition)
+    {
+        final Partition found = this.partitions.get(partition);
+        return found == null ? null : found.statistics;
+    }
+
+    /**
+     * @return counters of the background sweeps removing expired entries, or null if the cache is
+     * not swept.
+     */
+    public SweepStatistics getSweepStatistics()
+    {
+        return this.sweeper == null ? null : this.sweeper.getStatistics();
     }
 
     @Override
     public boolean isEmpty()
     {
-        final boolean empty = internalCache.isEmpty();
+        boolean empty = true;
+        for (final Partition partition : this.partitions.values())
+        {
+            empty &= partition.store.size() == 0;
+        }
 
         LOGGER.debug("Cache isEmpty={}", empty);
 
@@ -68,7 +158,10 @@ public abstract class ConcurrentCache extends AbstractCache
     {
         LOGGER.debug("Clearing entire internalCache");
 
-        internalCache.clear();
+        for (final Partition partition : this.partitions.values())
+        {
+            partition.store.clear();
+        }
     }
 
     @Override
@@ -78,8 +171,30 @@ public abstract class ConcurrentCache extends AbstractCache
         {
             LOGGER.debug("Removing key={} from internalCache", key);
 
-            internalCache.remove(key);
+            for (final Partition partition : this.partitions.values())
+            {
+                partition.store.remove(key);
+            }
+        }
+    }
+
+    @Override
+    protected long getStaleRetention()
+    {
+        return this.staleRetention;
+    }
+
+    @Override
+    protected Long getCacheExpiryTime(final Class<?> clazz)
+    {
+        final Long cacheExpiryTime = super.getCacheExpiryTime(clazz);
+        final Long partitionExpiryTime = this.partitionFor(clazz).expiryTime;
+
+        if (cacheExpiryTime == null || partitionExpiryTime == null)
+        {
+            return cacheExpiryTime == null ? partitionExpiryTime : cacheExpiryTime;
         }
+        return Math.min(cacheExpiryTime, partitionExpiryTime);
     }
 
     @Override
@@ -88,21 +203,23 @@ public abstract class ConcurrentCache extends AbstractCache
         StringUtils.requireNonEmpty(key, "key");
         ObjectUtils.requireNonNull(value, "value");
 
-        LOGGER.debug("Adding key={}, class={} to internalCache", key, value.getCachedClass());
-        long valueSize = 0;
-        try {
-            valueSize = ((JSONObject) new JSONParser().parse(value.getValue())).toJSONString().getBytes().length;
-        } catch (ParseException e) {
-            LOGGER.warn(e.getMessage());
-        }
-        if (maxCacheSize > -1 && internalCache.isEmpty() && cacheSize + valueSize >= maxCacheSize)
+        final Partition partition = this.partitionFor(value.getCachedClass());
+
+        LOGGER.debug("Adding key={}, class={} to internalCache partition={}", key,
+            value.getCachedClass(), partition.name);
+
+        if (partition.store.put(key, value))
         {
-            cleanCache();
+            if (this.sweeper != null && value.expires())
+            {
+                this.sweeper.schedule(partition.store, key, value);
+            }
         }
-        if (maxCacheSize != -1 || internalCache.isEmpty() && cacheSize + valueSize < maxCacheSize)
+        else
         {
-            internalCache.put(key, value);
-            cacheSize = internalCache.size();
+            LOGGER.warn("Item with key={}, class={}, weight={} was not added to internalCache partition={} as it exceeds maxCacheSize={}",
+                key, value.getCachedClass(), value.getWeight(), partition.name,
+                partition.statistics.getMaxWeight());
         }
     }
 
@@ -111,8 +228,28 @@ public abstract class ConcurrentCache extends AbstractCache
     {
         StringUtils.requireNonEmpty(key, "key");
 
-        final CacheEntry cacheEntry = internalCache.get(key);
+        CacheEntry cacheEntry = null;
+        for (final Partition partition : this.partitions.values())
+        {
+            cacheEntry = partition.store.get(key);
+            if (cacheEntry != null)
+            {
+                break;
+            }
+        }
+        return this.fetched(key, cacheEntry);
+    }
+
+    @Override
+    protected CacheEntry internalGet(final String key, final Class<?> clazz)
+    {
+        StringUtils.requireNonEmpty(key, "key");
 
+        return this.fetched(key, this.partitionFor(clazz).store.get(key));
+    }
+
+    private CacheEntry fetched(final String key, final CacheEntry cacheEntry)
+    {
         if (cacheEntry != null)
         {
             LOGGER.debug("Fetched key={}, class={} from internalCache", key, cacheEntry.getCachedClass());
@@ -131,30 +268,102 @@ public abstract class ConcurrentCache extends AbstractCache
         StringUtils.requireNonEmpty(key, "key");
         ObjectUtils.requireNonNull(value, "value");
 
-        final CacheEntry cacheEntry = this.internalGet(key);
-        if (value.equals(cacheEntry.getValue()))
+        for (final Partition partition : this.partitions.values())
         {
-            LOGGER.debug("Removed key={}, class={} from internalCache", key, cacheEntry.getCachedClass());
-            internalCache.remove(key, cacheEntry);
+            final CacheEntry cacheEntry = partition.store.get(key);
+            if (cacheEntry != null && value.equals(cacheEntry.getValue()))
+            {
+                LOGGER.debug("Removed key={}, class={} from internalCache", key, cacheEntry.getCachedClass());
+                partition.store.remove(key, cacheEntry);
+                return;
+            }
         }
-        else
+        LOGGER.info("Item with was not removed from internalCache as value did not match");
+    }
+
+    @Override
+    protected boolean internalRemove(final String key, final CacheEntry entry)
+    {
+        StringUtils.requireNonEmpty(key, "key");
+        ObjectUtils.requireNonNull(entry, "entry");
+
+        final Partition partition = this.partitionFor(entry.getCachedClass());
+        if (partition.store.remove(key, entry))
         {
-            LOGGER.info("Item with was not removed from internalCache as value did not match");
+            LOGGER.debug("Removed key={}, class={} from internalCache", key, entry.getCachedClass());
+            if (entry.isExpired())
+            {
+                partition.statistics.recordExpiry();
+            }
+            return true;
         }
+        LOGGER.info("Item with key={} was not removed from internalCache as it was replaced", key);
+        return false;
     }
 
-    private void cleanCache() {
+    @Override
+    protected boolean internalReplace(final String key, final CacheEntry expected,
+        final CacheEntry entry) throws CacheAccessException
+    {
+        StringUtils.requireNonEmpty(key, "key");
+        ObjectUtils.requireNonNull(entry, "entry");
+
+        final Partition partition = this.partitionFor(expected.getCachedClass());
+        if (partition != this.partitionFor(entry.getCachedClass()))
+        {
+            return super.internalReplace(key, expected, entry);
+        }
+        if (!partition.store.replace(key, expected, entry))
+        {
+            return false;
+        }
 
-        internalCache.forEach((key, cacheEntry) -> {
-            try {
-                if (get(key, DiscoveryResponse.class).hasExpired())
-                {
-                    internalRemove(key, cacheEntry.getValue());
-                }
-            } catch (CacheAccessException e) {
-                LOGGER.warn(e.getMessage());
+        LOGGER.debug("Replaced key={}, class={} in internalCache partition={}", key,
+            entry.getCachedClass(), partition.name);
+        if (this.sweeper != null && entry.expires())
+        {
+            this.sweeper.schedule(partition.store, key, entry);
+        }
+        return true;
+    }
+
+    private Partition partitionFor(final Class<?> clazz)
+    {
+        final Partition partition = this.partitionsByClass.get(clazz);
+        return partition == null ? this.defaultPartition : partition;
+    }
+
+    /**
+     * Storage and statistics of a partition of the cache.
+     */
+    private static final class Partition
+    {
+        private final String name;
+        private final Long expiryTime;
+        private final CacheStatistics statistics;
+        private final CacheStore store;
+
+        Partition(final String name, final long maxCacheSize, final int maxEntries,
+            final Long expiryTime)
+        {
+            this.name = name;
+            this.expiryTime = expiryTime;
+            if (maxEntries > 0)
+            {
+                this.statistics = new CacheStatistics(0L, maxEntries);
+                this.store = new OldestFirstCacheStore(maxEntries, this.statistics);
             }
-        });
+            else if (maxCacheSize > 0)
+            {
+                this.statistics = new CacheStatistics(maxCacheSize);
+                this.store = new BoundedCacheStore(maxCacheSize, this.statistics);
+            }
+            else
+            {
+                this.statistics = new CacheStatistics(0L);
+                this.store = new UnboundedCacheStore(this.statistics);
+            }
+        }
     }
 
     public abstract static class Builder implements IBuilder<ICache>
@@ -163,6 +372,10 @@ public abstract class ConcurrentCache extends AbstractCache
         private Map<Class<? extends AbstractCacheable>, Tuple<Long, Long>> cacheExpiryLimits =
             DEFAULT_CACHE_EXPIRY_LIMITS;
         private long maxCacheSize;
+        private CacheMode cacheMode = CacheMode.SERIALIZED;
+        private long sweepInterval = DefaultOptions.CACHE_SWEEP_INTERVAL_MS;
+        private long staleRetention;
+        private final List<CachePartition> partitions = new ArrayList<CachePartition>();
 
         public Builder withJsonService(final IJsonService val)
         {
@@ -180,12 +393,78 @@ public abstract class ConcurrentCache extends AbstractCache
             return this;
         }
 
+        /**
+         * Bound the cache to a maximum total weight, the length of the serialized values it holds.
+         * Once the maximum is reached, expired, soon to expire and least recently used entries are
+         * evicted to make room for new ones.  Values held in a named partition are bounded by the
+         * partition instead.
+         *
+         * @param maxCacheSize maximum weight, or 0 for an unbounded cache.
+         * @return builder to continue further configuration.
+         */
         public Builder withMaxCacheSize(long maxCacheSize)
         {
             this.maxCacheSize = maxCacheSize;
             return this;
         }
 
+        /**
+         * Hold the values of the types specified by the partition apart from the rest of the
+         * cache.
+         *
+         * @param val partition to add.
+         * @return builder to continue further configuration.
+         */
+        public Builder withPartition(final CachePartition val)
+        {
+            ObjectUtils.requireNonNull(val, "val");
+
+            this.partitions.add(val);
+            return this;
+        }
+
+        /**
+         * Specify how values are held.  Caches built in {@link CacheMode#OBJECT} return shallow
+         * copies of the instances added, avoiding json deserialization on every hit.
+         *
+         * @param val mode, {@link CacheMode#SERIALIZED} by default.
+         * @return builder to continue further configuration.
+         */
+        public Builder withCacheMode(final CacheMode val)
+        {
+            ObjectUtils.requireNonNull(val, "val");
+
+            this.cacheMode = val;
+            return this;
+        }
+
+        /**
+         * Specify how often expired entries are removed in the background.
+         *
+         * @param duration between sweeps, or 0 to only remove expired entries when they are read.
+         * @param unit     of the duration.
+         * @return builder to continue further configuration.
+         */
+        public Builder withSweepInterval(final long duration, final TimeUnit unit)
+        {
+            this.sweepInterval = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Keep values for the specified time after they expire, so that they may still be read as
+         * expired values, for example to be served while they are refreshed or if they cannot be.
+         *
+         * @param duration to keep expired values, 0 by default.
+         * @param unit     of the duration.
+         * @return builder to continue further configuration.
+         */
+        public Builder withStaleRetention(final long duration, final TimeUnit unit)
+        {
+            this.staleRetention = unit.toMillis(duration);
+            return this;
+        }
+
         public abstract ConcurrentCache build();
     }
 
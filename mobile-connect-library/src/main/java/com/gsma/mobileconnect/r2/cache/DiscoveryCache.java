@@ -12,31 +12,22 @@ public class DiscoveryCache extends ConcurrentCache {
     private static final Logger LOGGER = LoggerFactory.getLogger(DiscoveryCache.class);
 
     public DiscoveryResponse get(String key) {
-        DiscoveryResponse discoveryResp = null;
-        if (!hasKey(key)) {
+        if (key == null) {
             return null;
         }
         try {
-            discoveryResp = this.get(key, DiscoveryResponse.class);
+            // expired responses are removed by the lookup itself
+            return this.get(key, DiscoveryResponse.class);
         } catch (CacheAccessException e) {
             LOGGER.warn(e.getMessage());
-        }
-
-        if (discoveryResp != null && discoveryResp.hasExpired()) {
-            this.remove(key);
             return null;
         }
-        return discoveryResp;
     }
 
     @Override
     protected boolean hasKey(String key) {
-        try {
-            return this.get(key, DiscoveryResponse.class) != null;
-        } catch (CacheAccessException e) {
-            LOGGER.warn(e.getMessage());
-            return false;
-        }
+        final CacheEntry entry = key == null ? null : this.internalGet(key, DiscoveryResponse.class);
+        return entry != null && !this.checkAndSetExpiry(entry);
     }
 
     public static final class Builder extends ConcurrentCache.Builder {
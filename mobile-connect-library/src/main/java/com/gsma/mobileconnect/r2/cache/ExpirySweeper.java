@@ -0,0 +1,253 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Removes expired entries from a cache in the background, so entries that are never read again do
+ * not stay in the heap.  Entries that expire by themselves are indexed by the time bucket, one
+ * sweep interval wide, in which they are due to be removed.  Each sweep takes only the buckets that are due, so
+ * its cost is proportional to the number of entries that have expired rather than to the size of
+ * the cache.
+ * <p>
+ * The sweeps of every cache are run by a single daemon thread.  A cache that is no longer
+ * referenced stops being swept.
+ */
+final class ExpirySweeper
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExpirySweeper.class);
+
+    private final long resolution;
+    private final ConcurrentSkipListMap<Long, Bucket> buckets =
+        new ConcurrentSkipListMap<Long, Bucket>();
+    private final SweepStatistics statistics = new SweepStatistics();
+
+    /**
+     * @param interval between sweeps, also the width of the time buckets.
+     * @param unit     of the interval.
+     */
+    ExpirySweeper(final long interval, final TimeUnit unit)
+    {
+        this.resolution = Math.max(1L, unit.toNanos(interval));
+    }
+
+    /**
+     * Run the sweeps of the sweeper on the shared daemon thread until it is no longer referenced.
+     *
+     * @param sweeper to run.
+     */
+    static void start(final ExpirySweeper sweeper)
+    {
+        final SweepTask task = new SweepTask(sweeper);
+        task.future = Scheduler.INSTANCE.scheduleWithFixedDelay(task, sweeper.resolution,
+            sweeper.resolution, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return counters of the sweeps run.
+     */
+    SweepStatistics getStatistics()
+    {
+        return this.statistics;
+    }
+
+    /**
+     * Index an entry that expires by itself so it is removed from the store once it has expired and
+     * been retained for as long as required.
+     *
+     * @param store holding the entry.
+     * @param key   of the entry.
+     * @param entry to remove once expired.
+     */
+    void schedule(final CacheStore store, final String key, final CacheEntry entry)
+    {
+        // deadlines in (n - 1, n] * resolution fall in bucket n, which is due once they have passed
+        final long index = Math.floorDiv(entry.getRemoveAt() - 1, this.resolution) + 1;
+        final Expiry expiry = new Expiry(store, key, entry);
+
+        while (true)
+        {
+            Bucket bucket = this.buckets.get(index);
+            if (bucket == null)
+            {
+                final Bucket created = new Bucket();
+                bucket = this.buckets.putIfAbsent(index, created);
+                if (bucket == null)
+                {
+                    bucket = created;
+                }
+            }
+            if (bucket.add(expiry))
+            {
+                this.statistics.recordScheduled();
+                return;
+            }
+            // the bucket was swept concurrently
+            this.buckets.remove(index, bucket);
+        }
+    }
+
+    /**
+     * Remove the entries indexed in the buckets that are due.
+     *
+     * @param now current time of the {@link CacheEntry#now()} clock.
+     * @return number of expired entries removed.
+     */
+    int sweep(final long now)
+    {
+        final long due = Math.floorDiv(now, this.resolution);
+        int expired = 0;
+        int stale = 0;
+
+        Map.Entry<Long, Bucket> first;
+        while ((first = this.buckets.firstEntry()) != null && first.getKey() <= due)
+        {
+            this.buckets.remove(first.getKey(), first.getValue());
+            for (final Expiry expiry : first.getValue().close())
+            {
+                if (expiry.entry.isRemovable(now) && expiry.store.remove(expiry.key, expiry.entry))
+                {
+                    expiry.store.getStatistics().recordExpiry();
+                    expired++;
+                }
+                else
+                {
+                    stale++;
+                }
+            }
+        }
+
+        this.statistics.recordSweep(expired, stale, CacheEntry.now() - now);
+        if (expired > 0)
+        {
+            LOGGER.debug("Swept {} expired entries from cache", expired);
+        }
+        return expired;
+    }
+
+    /**
+     * Entry indexed for removal once it has expired.
+     */
+    private static final class Expiry
+    {
+        private final CacheStore store;
+        private final String key;
+        private final CacheEntry entry;
+
+        Expiry(final CacheStore store, final String key, final CacheEntry entry)
+        {
+            this.store = store;
+            this.key = key;
+            this.entry = entry;
+        }
+    }
+
+    /**
+     * Entries expiring within one time bucket, closed to further entries once it is swept.
+     */
+    private static final class Bucket
+    {
+        private List<Expiry> expiries = new ArrayList<Expiry>();
+
+        synchronized boolean add(final Expiry expiry)
+        {
+            if (this.expiries == null)
+            {
+                return false;
+            }
+            this.expiries.add(expiry);
+            return true;
+        }
+
+        synchronized List<Expiry> close()
+        {
+            final List<Expiry> closed = this.expiries;
+            this.expiries = null;
+            return closed == null ? Collections.<Expiry>emptyList() : closed;
+        }
+    }
+
+    /**
+     * Periodic sweep holding only a weak reference to its sweeper, cancelled once the sweeper and
+     * the cache owning it have been collected.
+     */
+    private static final class SweepTask implements Runnable
+    {
+        private final WeakReference<ExpirySweeper> sweeper;
+        private volatile ScheduledFuture<?> future;
+
+        SweepTask(final ExpirySweeper sweeper)
+        {
+            this.sweeper = new WeakReference<ExpirySweeper>(sweeper);
+        }
+
+        @Override
+        public void run()
+        {
+            final ExpirySweeper expirySweeper = this.sweeper.get();
+            if (expirySweeper == null)
+            {
+                if (this.future != null)
+                {
+                    this.future.cancel(false);
+                }
+                return;
+            }
+            try
+            {
+                expirySweeper.sweep(CacheEntry.now());
+            }
+            catch (final RuntimeException e)
+            {
+                LOGGER.warn("Failed to sweep expired entries from cache", e);
+            }
+        }
+    }
+
+    private static final class Scheduler
+    {
+        private static final ScheduledExecutorService INSTANCE =
+            Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+            {
+                @Override
+                public Thread newThread(final Runnable runnable)
+                {
+                    final Thread thread = new Thread(runnable, "mobileconnect-cache-sweeper");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+        private Scheduler()
+        {
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package com.gsma.mobileconnect.r2.cache;
 
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * Interface for the cache used during the discovery process, cache is mainly used to cache
@@ -75,6 +76,69 @@ public interface ICache
     <T extends AbstractCacheable> T get(final String key, final Class<T> clazz,
                                         final boolean removeIfExpired) throws CacheAccessException;
 
+    /**
+     * Remove the value held with the key and return it, in a single lookup.  Of concurrent calls
+     * for the same entry only one returns it.  A value of another type is left in the cache.
+     * <p>
+     * The default implementation is a get followed by a remove, which is not atomic; caches able
+     * to remove conditionally should override it.
+     *
+     * @param key   to match (required).
+     * @param clazz the type of object to return.
+     * @param <T>   the type to be returned from the cache.
+     * @return the removed value if present and not expired, null otherwise.
+     * @throws CacheAccessException on failure to fetch.
+     */
+    default <T extends AbstractCacheable> T getAndRemove(final String key, final Class<T> clazz)
+        throws CacheAccessException
+    {
+        // Not atomic: concurrent calls may both return the value before it is removed
+        final T value = this.get(key, clazz);
+        if (value != null)
+        {
+            this.remove(key);
+        }
+        return value;
+    }
+
+    /**
+     * Replace the value held with the key by the result of the function, which is removed from the
+     * cache if the function returns null.  The value is only replaced if it has not been changed
+     * since it was read, otherwise the function is applied again to the new value.  Expired values
+     * are removed without applying the function.
+     * <p>
+     * The default implementation is a get followed by an add or remove, which is not atomic;
+     * caches able to replace conditionally should override it.
+     *
+     * @param key      to match (required).
+     * @param clazz    the type of the value.
+     * @param function computing the new value from the value held (required).
+     * @param <T>      the type of the value.
+     * @return the new value, or null if there is none.
+     * @throws CacheAccessException on failure to fetch or store.
+     */
+    default <T extends AbstractCacheable> T computeIfPresent(final String key,
+        final Class<T> clazz, final Function<? super T, ? extends T> function)
+        throws CacheAccessException
+    {
+        // Not atomic: a value stored concurrently between the get and the add is overwritten
+        final T value = this.get(key, clazz);
+        if (value == null)
+        {
+            return null;
+        }
+        final T computed = function.apply(value);
+        if (computed == null)
+        {
+            this.remove(key);
+        }
+        else
+        {
+            this.add(key, computed);
+        }
+        return computed;
+    }
+
     /**
      * Remove an entry from the cache that matches the key.
      *
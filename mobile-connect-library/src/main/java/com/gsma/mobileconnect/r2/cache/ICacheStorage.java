@@ -0,0 +1,115 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import java.io.IOException;
+
+/**
+ * Storage behind a {@link RemoteCache}, such as a key value store shared by all instances.  Values
+ * are opaque strings written with the time at which the storage may drop them, and writes are
+ * announced to the other instances by invalidation messages so that they can drop the copies held
+ * in their near caches.
+ */
+public interface ICacheStorage
+{
+    /**
+     * @param key of the value.
+     * @return the value stored with the key, or null if there is none or it has expired.
+     * @throws IOException on failure to reach the storage.
+     */
+    String get(final String key) throws IOException;
+
+    /**
+     * Store a value with the key, replacing any value stored.
+     *
+     * @param key       of the value.
+     * @param value     to store.
+     * @param expiresAt time in milliseconds since the epoch at which the value may be dropped, or 0
+     *                  if it does not expire.
+     * @throws IOException on failure to reach the storage.
+     */
+    void put(final String key, final String value, final long expiresAt) throws IOException;
+
+    /**
+     * Replace the value stored with the key if it is still the expected value.
+     *
+     * @param key       of the value.
+     * @param expected  value expected to be stored.
+     * @param value     replacement.
+     * @param expiresAt time in milliseconds since the epoch at which the replacement may be
+     *                  dropped, or 0 if it does not expire.
+     * @return true if the value was replaced.
+     * @throws IOException on failure to reach the storage.
+     */
+    boolean replace(final String key, final String expected, final String value,
+        final long expiresAt) throws IOException;
+
+    /**
+     * @param key of the value to remove.
+     * @throws IOException on failure to reach the storage.
+     */
+    void remove(final String key) throws IOException;
+
+    /**
+     * Remove the value stored with the key if it is still the expected value.
+     *
+     * @param key      of the value.
+     * @param expected value expected to be stored.
+     * @return true if the value was removed.
+     * @throws IOException on failure to reach the storage.
+     */
+    boolean remove(final String key, final String expected) throws IOException;
+
+    /**
+     * Remove all values.
+     *
+     * @throws IOException on failure to reach the storage.
+     */
+    void clear() throws IOException;
+
+    /**
+     * @return true if no values are stored.
+     * @throws IOException on failure to reach the storage.
+     */
+    boolean isEmpty() throws IOException;
+
+    /**
+     * Announce to all subscribers that the value stored with a key has changed.
+     *
+     * @param origin identifying the instance that changed the value.
+     * @param key    of the value, or null if all values were removed.
+     * @throws IOException on failure to reach the storage.
+     */
+    void publish(final String origin, final String key) throws IOException;
+
+    /**
+     * @param listener notified of the changes announced by any instance, including this one.
+     */
+    void subscribe(final InvalidationListener listener);
+
+    /**
+     * Receives the invalidation messages published through the storage.
+     */
+    interface InvalidationListener
+    {
+        /**
+         * @param origin identifying the instance that changed the value.
+         * @param key    of the value, or null if all values were removed.
+         */
+        void invalidated(final String origin, final String key);
+    }
+}
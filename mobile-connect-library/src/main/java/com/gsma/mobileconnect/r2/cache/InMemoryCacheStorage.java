@@ -0,0 +1,122 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Storage held in memory, which stands in for a shared key value store when the instances of a
+ * {@link RemoteCache} run in the same process, such as in tests.  Invalidation messages are
+ * delivered to the subscribers on the publishing thread.
+ */
+public class InMemoryCacheStorage implements ICacheStorage
+{
+    private final ConcurrentMap<String, Stored> values = new ConcurrentHashMap<String, Stored>();
+    private final List<InvalidationListener> listeners =
+        new CopyOnWriteArrayList<InvalidationListener>();
+
+    @Override
+    public String get(final String key)
+    {
+        final Stored stored = this.values.get(key);
+        if (stored == null)
+        {
+            return null;
+        }
+        if (stored.isExpired(System.currentTimeMillis()))
+        {
+            this.values.remove(key, stored);
+            return null;
+        }
+        return stored.value;
+    }
+
+    @Override
+    public void put(final String key, final String value, final long expiresAt)
+    {
+        this.values.put(key, new Stored(value, expiresAt));
+    }
+
+    @Override
+    public boolean replace(final String key, final String expected, final String value,
+        final long expiresAt)
+    {
+        final Stored stored = this.values.get(key);
+        return stored != null && stored.value.equals(expected)
+            && this.values.replace(key, stored, new Stored(value, expiresAt));
+    }
+
+    @Override
+    public void remove(final String key)
+    {
+        this.values.remove(key);
+    }
+
+    @Override
+    public boolean remove(final String key, final String expected)
+    {
+        final Stored stored = this.values.get(key);
+        return stored != null && stored.value.equals(expected) && this.values.remove(key, stored);
+    }
+
+    @Override
+    public void clear()
+    {
+        this.values.clear();
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return this.values.isEmpty();
+    }
+
+    @Override
+    public void publish(final String origin, final String key)
+    {
+        for (final InvalidationListener listener : this.listeners)
+        {
+            listener.invalidated(origin, key);
+        }
+    }
+
+    @Override
+    public void subscribe(final InvalidationListener listener)
+    {
+        this.listeners.add(listener);
+    }
+
+    private static final class Stored
+    {
+        private final String value;
+        private final long expiresAt;
+
+        Stored(final String value, final long expiresAt)
+        {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(final long now)
+        {
+            return this.expiresAt != 0L && this.expiresAt <= now;
+        }
+    }
+}
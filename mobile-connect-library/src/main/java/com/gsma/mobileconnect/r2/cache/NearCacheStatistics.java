@@ -0,0 +1,79 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the near cache held by a {@link RemoteCache} in front of its storage.
+ */
+public class NearCacheStatistics
+{
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    NearCacheStatistics()
+    {
+    }
+
+    void recordHit()
+    {
+        this.hits.incrementAndGet();
+    }
+
+    void recordMiss()
+    {
+        this.misses.incrementAndGet();
+    }
+
+    void recordInvalidation()
+    {
+        this.invalidations.incrementAndGet();
+    }
+
+    /**
+     * @return number of reads served by the near cache.
+     */
+    public long getHitCount()
+    {
+        return this.hits.get();
+    }
+
+    /**
+     * @return number of reads sent to the storage.
+     */
+    public long getMissCount()
+    {
+        return this.misses.get();
+    }
+
+    /**
+     * @return number of invalidation messages received from other instances.
+     */
+    public long getInvalidationCount()
+    {
+        return this.invalidations.get();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "NearCacheStatistics{hits=" + this.getHitCount() + ", misses="
+            + this.getMissCount() + ", invalidations=" + this.getInvalidationCount() + "}";
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Store that holds at most a fixed number of entries, evicting the oldest to make room for new
+ * ones.  Reading an entry does not keep it any longer, so entries that are never read again, such
+ * as the sessions of abandoned logins, are evicted in the order they were added.  Every operation
+ * is O(1).
+ */
+final class OldestFirstCacheStore implements CacheStore
+{
+    private final int maxEntries;
+    private final CacheStatistics statistics;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, CacheEntry> entries = new LinkedHashMap<String, CacheEntry>();
+    private long weight;
+
+    OldestFirstCacheStore(final int maxEntries, final CacheStatistics statistics)
+    {
+        this.maxEntries = maxEntries;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public CacheEntry get(final String key)
+    {
+        this.lock.lock();
+        try
+        {
+            return this.entries.get(key);
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean put(final String key, final CacheEntry entry)
+    {
+        this.lock.lock();
+        try
+        {
+            // an entry added again with the same key is the newest
+            this.removed(this.entries.remove(key));
+            this.entries.put(key, entry);
+            this.weight += entry.getWeight();
+
+            if (this.entries.size() > this.maxEntries)
+            {
+                this.evictOldest(CacheEntry.now());
+            }
+            this.updateStatistics();
+            return true;
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public void remove(final String key)
+    {
+        this.lock.lock();
+        try
+        {
+            this.removed(this.entries.remove(key));
+            this.updateStatistics();
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(final String key, final CacheEntry entry)
+    {
+        this.lock.lock();
+        try
+        {
+            if (this.entries.get(key) != entry)
+            {
+                return false;
+            }
+            this.removed(this.entries.remove(key));
+            this.updateStatistics();
+            return true;
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean replace(final String key, final CacheEntry expected, final CacheEntry entry)
+    {
+        this.lock.lock();
+        try
+        {
+            if (this.entries.get(key) != expected)
+            {
+                return false;
+            }
+            // a replaced entry keeps its place, so updating a session does not extend its stay
+            this.removed(this.entries.put(key, entry));
+            this.weight += entry.getWeight();
+            this.updateStatistics();
+            return true;
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear()
+    {
+        this.lock.lock();
+        try
+        {
+            this.entries.clear();
+            this.weight = 0L;
+            this.updateStatistics();
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public CacheStatistics getStatistics()
+    {
+        return this.statistics;
+    }
+
+    @Override
+    public int size()
+    {
+        this.lock.lock();
+        try
+        {
+            return this.entries.size();
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    private void evictOldest(final long now)
+    {
+        final Iterator<Map.Entry<String, CacheEntry>> iterator = this.entries.entrySet().iterator();
+        final CacheEntry evicted = iterator.next().getValue();
+        iterator.remove();
+
+        this.removed(evicted);
+        this.statistics.recordEviction(evicted.isExpired(now));
+    }
+
+    private void removed(final CacheEntry entry)
+    {
+        if (entry != null)
+        {
+            this.weight -= entry.getWeight();
+        }
+    }
+
+    private void updateStatistics()
+    {
+        this.statistics.setWeight(this.weight, this.entries.size());
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.gsma.mobileconnect.r2.constants.DefaultOptions;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records the keys read from a store without taking its lock, so that the access order of the
+ * store can be updated later by the thread holding the lock.  Once the buffer is full further
+ * reads are not recorded until it is drained, so the access order is approximate.
+ */
+final class ReadBuffer
+{
+    private final Queue<String> keys = new ConcurrentLinkedQueue<String>();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /**
+     * Record a read of the key.
+     *
+     * @param key read.
+     * @return true if the buffer is full and should be drained.
+     */
+    boolean record(final String key)
+    {
+        final int count = this.pending.incrementAndGet();
+        if (count > DefaultOptions.CACHE_READ_BUFFER_SIZE)
+        {
+            this.pending.decrementAndGet();
+            return true;
+        }
+        this.keys.offer(key);
+        return count == DefaultOptions.CACHE_READ_BUFFER_SIZE;
+    }
+
+    /**
+     * Replay the recorded reads against an access ordered map, moving the keys read to its most
+     * recently used end.  Must be called holding the lock guarding the map.
+     *
+     * @param order access ordered map of the store.
+     */
+    void drainTo(final Map<String, ?> order)
+    {
+        String key;
+        while ((key = this.keys.poll()) != null)
+        {
+            this.pending.decrementAndGet();
+            order.get(key);
+        }
+    }
+}
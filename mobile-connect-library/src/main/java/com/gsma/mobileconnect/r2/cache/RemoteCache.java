@@ -0,0 +1,581 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.gsma.mobileconnect.r2.constants.DefaultOptions;
+import com.gsma.mobileconnect.r2.json.IJsonService;
+import com.gsma.mobileconnect.r2.utils.IBuilder;
+import com.gsma.mobileconnect.r2.utils.ObjectUtils;
+import com.gsma.mobileconnect.r2.utils.Tuple;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache holding its values in a {@link ICacheStorage} which may be shared by several instances, so
+ * that discovery responses, provider metadata and keysets fetched by one instance are reused by the
+ * others.  Values read or written are kept in a near cache in front of the storage for a limited
+ * time, and dropped from the near caches of the other instances when they are changed or removed.
+ * <p>
+ * Values are held in the storage serialized, with their type and expiry, so the cache is always in
+ * {@link CacheMode#SERIALIZED} mode.
+ * </p>
+ */
+public class RemoteCache extends AbstractCache
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(RemoteCache.class);
+    private static final char SEPARATOR = ';';
+
+    private final ICacheStorage storage;
+    private final String origin = UUID.randomUUID().toString();
+    private final NearCache near;
+    private final ConcurrentMap<String, Class<? extends AbstractCacheable>> classes =
+        new ConcurrentHashMap<String, Class<? extends AbstractCacheable>>();
+    private final long nearTimeToLive;
+    private final int maxNearEntries;
+    private final NearCacheStatistics statistics = new NearCacheStatistics();
+
+    protected RemoteCache(final Builder builder)
+    {
+        super(builder.jsonService, builder.cacheExpiryLimits);
+
+        this.storage = builder.storage;
+        this.nearTimeToLive = TimeUnit.MILLISECONDS.toNanos(builder.nearTimeToLive);
+        this.maxNearEntries = builder.maxNearEntries;
+        this.near = new NearCache(builder.maxNearEntries);
+        this.storage.subscribe(new ICacheStorage.InvalidationListener()
+        {
+            @Override
+            public void invalidated(final String origin, final String key)
+            {
+                RemoteCache.this.invalidated(origin, key);
+            }
+        });
+
+        LOGGER.info("New instance of RemoteCache created with origin={}, nearTimeToLive={}, maxNearEntries={}",
+            this.origin, builder.nearTimeToLive, builder.maxNearEntries);
+    }
+
+    /**
+     * @return counters of the near cache in front of the storage.
+     */
+    public NearCacheStatistics getNearCacheStatistics()
+    {
+        return this.statistics;
+    }
+
+    @Override
+    public boolean isEmpty() throws CacheAccessException
+    {
+        try
+        {
+            return this.storage.isEmpty();
+        }
+        catch (final IOException ioe)
+        {
+            throw new CacheAccessException(CacheAccessException.Operation.GET, null,
+                AbstractCacheable.class, ioe);
+        }
+    }
+
+    @Override
+    public void clear() throws CacheAccessException
+    {
+        LOGGER.debug("Clearing entire storage");
+
+        this.near.clear();
+        try
+        {
+            this.storage.clear();
+        }
+        catch (final IOException ioe)
+        {
+            throw new CacheAccessException(CacheAccessException.Operation.REMOVE, null,
+                AbstractCacheable.class, ioe);
+        }
+        this.publish(null);
+    }
+
+    @Override
+    public void remove(final String key) throws CacheAccessException
+    {
+        if (key != null)
+        {
+            LOGGER.debug("Removing key={} from storage", key);
+
+            this.near.remove(key);
+            try
+            {
+                this.storage.remove(key);
+            }
+            catch (final IOException ioe)
+            {
+                throw new CacheAccessException(CacheAccessException.Operation.REMOVE, key,
+                    AbstractCacheable.class, ioe);
+            }
+            this.publish(key);
+        }
+    }
+
+    @Override
+    protected void internalAdd(final String key, final CacheEntry value)
+        throws CacheAccessException
+    {
+        final RemoteEntry entry = RemoteEntry.of(value);
+        try
+        {
+            this.storage.put(key, entry.record, entry.expiresAt);
+        }
+        catch (final IOException ioe)
+        {
+            throw new CacheAccessException(CacheAccessException.Operation.ADD, key,
+                value.getCachedClass(), ioe);
+        }
+        this.hold(key, entry);
+        this.publish(key);
+    }
+
+    @Override
+    protected CacheEntry internalGet(final String key) throws CacheAccessException
+    {
+        final Near held = this.near.get(key);
+        if (held != null && held.isFresh(CacheEntry.now(), this.nearTimeToLive))
+        {
+            this.statistics.recordHit();
+            return held.entry;
+        }
+        this.statistics.recordMiss();
+
+        final String record;
+        try
+        {
+            record = this.storage.get(key);
+        }
+        catch (final IOException ioe)
+        {
+            throw new CacheAccessException(CacheAccessException.Operation.GET, key,
+                AbstractCacheable.class, ioe);
+        }
+
+        final RemoteEntry entry = record == null ? null : this.read(key, record);
+        if (entry == null)
+        {
+            this.near.remove(key);
+        }
+        else
+        {
+            this.hold(key, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Removes the value with the key, whatever value is stored.
+     */
+    @Override
+    protected void internalRemove(final String key, final String value)
+        throws CacheAccessException
+    {
+        this.remove(key);
+    }
+
+    @Override
+    protected boolean internalRemove(final String key, final CacheEntry entry)
+        throws CacheAccessException
+    {
+        if (!(entry instanceof RemoteEntry))
+        {
+            return super.internalRemove(key, entry);
+        }
+
+        // dropped even if the value has changed, so that it is read again from the storage
+        this.near.remove(key);
+        final boolean removed;
+        try
+        {
+            removed = this.storage.remove(key, ((RemoteEntry) entry).record);
+        }
+        catch (final IOException ioe)
+        {
+            throw new CacheAccessException(CacheAccessException.Operation.REMOVE, key,
+                entry.getCachedClass(), ioe);
+        }
+        if (removed)
+        {
+            this.publish(key);
+        }
+        return removed;
+    }
+
+    @Override
+    protected boolean internalReplace(final String key, final CacheEntry expected,
+        final CacheEntry entry) throws CacheAccessException
+    {
+        if (!(expected instanceof RemoteEntry))
+        {
+            return super.internalReplace(key, expected, entry);
+        }
+
+        this.near.remove(key);
+        final RemoteEntry replacement = RemoteEntry.of(entry);
+        final boolean replaced;
+        try
+        {
+            replaced = this.storage.replace(key, ((RemoteEntry) expected).record,
+                replacement.record, replacement.expiresAt);
+        }
+        catch (final IOException ioe)
+        {
+            throw new CacheAccessException(CacheAccessException.Operation.ADD, key,
+                entry.getCachedClass(), ioe);
+        }
+        if (replaced)
+        {
+            this.hold(key, replacement);
+            this.publish(key);
+        }
+        return replaced;
+    }
+
+    /**
+     * Keeps an entry in the near cache, dropping the least recently read entry if the near cache is
+     * full.
+     */
+    private void hold(final String key, final RemoteEntry entry)
+    {
+        if (this.maxNearEntries == 0 || this.nearTimeToLive == 0L)
+        {
+            return;
+        }
+        this.near.put(key, new Near(entry));
+    }
+
+    private void publish(final String key)
+    {
+        try
+        {
+            this.storage.publish(this.origin, key);
+        }
+        catch (final IOException ioe)
+        {
+            LOGGER.warn("Failed to publish invalidation of key={}, other instances may hold it until their near cache expires",
+                key, ioe);
+        }
+    }
+
+    private void invalidated(final String origin, final String key)
+    {
+        if (!this.origin.equals(origin))
+        {
+            LOGGER.debug("Invalidating key={} changed by origin={}", key, origin);
+
+            this.statistics.recordInvalidation();
+            if (key == null)
+            {
+                this.near.clear();
+            }
+            else
+            {
+                this.near.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Reads an entry from a record of the storage, holding the expiry, type and serialized value.
+     *
+     * @return the entry, or null if the record cannot be read.
+     */
+    private RemoteEntry read(final String key, final String record)
+    {
+        final int first = record.indexOf(SEPARATOR);
+        final int second = first < 0 ? -1 : record.indexOf(SEPARATOR, first + 1);
+        if (second < 0)
+        {
+            LOGGER.warn("Ignoring malformed record with key={}", key);
+            return null;
+        }
+
+        final long expiresAt;
+        try
+        {
+            expiresAt = Long.parseLong(record.substring(0, first));
+        }
+        catch (final NumberFormatException nfe)
+        {
+            LOGGER.warn("Ignoring record with key={} with malformed expiry", key, nfe);
+            return null;
+        }
+
+        final Class<? extends AbstractCacheable> clazz =
+            this.classOf(record.substring(first + 1, second));
+        if (clazz == null)
+        {
+            LOGGER.warn("Ignoring record with key={} of unknown class", key);
+            return null;
+        }
+        return new RemoteEntry(record, record.substring(second + 1), clazz, expiresAt);
+    }
+
+    /**
+     * Resolves the type named by a record against the class loader of the library, without
+     * initializing it, so that a record naming a type which is not cacheable runs none of its code.
+     */
+    private Class<? extends AbstractCacheable> classOf(final String name)
+    {
+        Class<? extends AbstractCacheable> clazz = this.classes.get(name);
+        if (clazz == null)
+        {
+            try
+            {
+                final Class<?> found =
+                    Class.forName(name, false, AbstractCacheable.class.getClassLoader());
+                if (!AbstractCacheable.class.isAssignableFrom(found))
+                {
+                    return null;
+                }
+                clazz = found.asSubclass(AbstractCacheable.class);
+                this.classes.put(name, clazz);
+            }
+            catch (final ClassNotFoundException cnfe)
+            {
+                return null;
+            }
+        }
+        return clazz;
+    }
+
+    /**
+     * Near cache holding at most a fixed number of entries, evicting the least recently read entry
+     * to make room for a new one, so that values read often stay held.  Every operation is O(1).
+     * Reads do not take the lock, they are recorded in a {@link ReadBuffer} and applied to the
+     * least recently read order by the next write.
+     */
+    private static final class NearCache
+    {
+        private final int maxEntries;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ConcurrentHashMap<String, Near> entries = new ConcurrentHashMap<String, Near>();
+        private final LinkedHashMap<String, Near> order =
+            new LinkedHashMap<String, Near>(16, 0.75f, true);
+        private final ReadBuffer reads = new ReadBuffer();
+
+        NearCache(final int maxEntries)
+        {
+            this.maxEntries = maxEntries;
+        }
+
+        Near get(final String key)
+        {
+            final Near held = this.entries.get(key);
+            if (held != null && this.reads.record(key) && this.lock.tryLock())
+            {
+                try
+                {
+                    this.reads.drainTo(this.order);
+                }
+                finally
+                {
+                    this.lock.unlock();
+                }
+            }
+            return held;
+        }
+
+        void put(final String key, final Near held)
+        {
+            this.lock.lock();
+            try
+            {
+                this.reads.drainTo(this.order);
+                this.order.put(key, held);
+                this.entries.put(key, held);
+
+                final Iterator<String> eldest = this.order.keySet().iterator();
+                while (this.order.size() > this.maxEntries)
+                {
+                    this.entries.remove(eldest.next());
+                    eldest.remove();
+                }
+            }
+            finally
+            {
+                this.lock.unlock();
+            }
+        }
+
+        void remove(final String key)
+        {
+            this.lock.lock();
+            try
+            {
+                this.order.remove(key);
+                this.entries.remove(key);
+            }
+            finally
+            {
+                this.lock.unlock();
+            }
+        }
+
+        void clear()
+        {
+            this.lock.lock();
+            try
+            {
+                this.order.clear();
+                this.entries.clear();
+            }
+            finally
+            {
+                this.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Entry held in the near cache, until it has been held for the near cache time to live.
+     */
+    private static final class Near
+    {
+        private final RemoteEntry entry;
+        private final long heldAt = CacheEntry.now();
+
+        Near(final RemoteEntry entry)
+        {
+            this.entry = entry;
+        }
+
+        boolean isFresh(final long now, final long timeToLive)
+        {
+            return now - this.heldAt < timeToLive;
+        }
+    }
+
+    /**
+     * Entry read from or written to the storage, keeping the record stored so that it can be
+     * removed or replaced only if it has not been changed since.
+     */
+    private static final class RemoteEntry extends CacheEntry
+    {
+        private final String record;
+        private final long expiresAt;
+
+        RemoteEntry(final String record, final String value,
+            final Class<? extends AbstractCacheable> clazz, final long expiresAt)
+        {
+            super(value, clazz, expiresAt == 0L
+                                ? Long.MAX_VALUE
+                                : Math.max(0L, expiresAt - System.currentTimeMillis()));
+            this.record = record;
+            this.expiresAt = expiresAt;
+        }
+
+        static RemoteEntry of(final CacheEntry entry)
+        {
+            final long expiresAt = entry.expires()
+                                   ? System.currentTimeMillis()
+                                     + TimeUnit.NANOSECONDS.toMillis(entry.getTimeToLive())
+                                   : 0L;
+            final String record = String.valueOf(expiresAt) + SEPARATOR
+                + entry.getCachedClass().getName() + SEPARATOR + entry.getValue();
+            return new RemoteEntry(record, entry.getValue(), entry.getCachedClass(), expiresAt);
+        }
+    }
+
+    public static final class Builder implements IBuilder<RemoteCache>
+    {
+        private IJsonService jsonService;
+        private ICacheStorage storage;
+        private Map<Class<? extends AbstractCacheable>, Tuple<Long, Long>> cacheExpiryLimits =
+            DEFAULT_CACHE_EXPIRY_LIMITS;
+        private long nearTimeToLive = DefaultOptions.NEAR_CACHE_TTL_MS;
+        private int maxNearEntries = DefaultOptions.NEAR_CACHE_MAX_ENTRIES;
+
+        public Builder withJsonService(final IJsonService val)
+        {
+            this.jsonService = val;
+            return this;
+        }
+
+        /**
+         * Specify the storage holding the values, such as a key value store shared by all
+         * instances.
+         *
+         * @param val storage of the values.
+         * @return builder to continue further configuration.
+         */
+        public Builder withStorage(final ICacheStorage val)
+        {
+            this.storage = val;
+            return this;
+        }
+
+        public Builder withCacheExpiryLimits(
+            final Map<Class<? extends AbstractCacheable>, Tuple<Long, Long>> val)
+        {
+            ObjectUtils.requireNonNull(val, "val");
+
+            this.cacheExpiryLimits = Collections.unmodifiableMap(
+                new HashMap<Class<? extends AbstractCacheable>, Tuple<Long, Long>>(val));
+            return this;
+        }
+
+        /**
+         * Bound how long and how many values are held in the near cache in front of the storage.
+         * Values are dropped from the near cache when another instance changes them, and the time
+         * to live bounds how long a value changed elsewhere may still be read should the
+         * invalidation message be lost.  Defaults to {@link DefaultOptions#NEAR_CACHE_TTL_MS} and
+         * {@link DefaultOptions#NEAR_CACHE_MAX_ENTRIES}.
+         *
+         * @param duration   values are held for, or 0 to read every value from the storage.
+         * @param unit       of the duration.
+         * @param maxEntries maximum number of values held, or 0 to disable the near cache.
+         * @return builder to continue further configuration.
+         */
+        public Builder withNearCache(final long duration, final TimeUnit unit,
+            final int maxEntries)
+        {
+            this.nearTimeToLive = unit.toMillis(duration);
+            this.maxNearEntries = maxEntries;
+            return this;
+        }
+
+        @Override
+        public RemoteCache build()
+        {
+            ObjectUtils.requireNonNull(this.jsonService, "jsonService");
+            ObjectUtils.requireNonNull(this.storage, "storage");
+            if (this.nearTimeToLive < 0L || this.maxNearEntries < 0)
+            {
+                throw new IllegalArgumentException("near cache limits must not be negative");
+            }
+            return new RemoteCache(this);
+        }
+    }
+}
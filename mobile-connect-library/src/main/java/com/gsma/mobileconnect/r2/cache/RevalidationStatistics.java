@@ -0,0 +1,81 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the conditional requests issued to revalidate expired cache entries.
+ */
+public class RevalidationStatistics
+{
+    private final AtomicLong revalidations = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    /**
+     * Record a revalidation answered with 304 Not Modified.
+     *
+     * @param savedBytes size of the body that did not have to be transferred.
+     */
+    public void recordNotModified(final long savedBytes)
+    {
+        this.revalidations.incrementAndGet();
+        this.notModified.incrementAndGet();
+        this.bytesSaved.addAndGet(savedBytes);
+    }
+
+    /**
+     * Record a revalidation answered with a new representation.
+     */
+    public void recordModified()
+    {
+        this.revalidations.incrementAndGet();
+    }
+
+    /**
+     * @return number of conditional requests issued.
+     */
+    public long getRevalidationCount()
+    {
+        return this.revalidations.get();
+    }
+
+    /**
+     * @return number of conditional requests answered with 304 Not Modified.
+     */
+    public long getNotModifiedCount()
+    {
+        return this.notModified.get();
+    }
+
+    /**
+     * @return number of conditional requests answered with a new representation.
+     */
+    public long getModifiedCount()
+    {
+        return this.revalidations.get() - this.notModified.get();
+    }
+
+    /**
+     * @return number of body bytes not transferred because an entry was still valid.
+     */
+    public long getBytesSaved()
+    {
+        return this.bytesSaved.get();
+    }
+}
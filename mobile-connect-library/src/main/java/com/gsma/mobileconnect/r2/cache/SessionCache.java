@@ -1,47 +1,150 @@
 package com.gsma.mobileconnect.r2.cache;
 
+import com.gsma.mobileconnect.r2.constants.DefaultOptions;
+import com.gsma.mobileconnect.r2.discovery.DiscoveryResponse;
 import com.gsma.mobileconnect.r2.discovery.SessionData;
 import com.gsma.mobileconnect.r2.utils.ObjectUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 public class SessionCache extends ConcurrentCache {
     protected SessionCache(Builder builder) {
-        super(builder);
+        super(builder, builder.sessionPartitions());
     }
     private static final Logger LOGGER = LoggerFactory.getLogger(SessionCache.class);
 
+    /**
+     * Name of the partition holding the sessions, see {@link #getStatistics(String)}.
+     */
+    public static final String SESSION_PARTITION = "sessions";
+
+    /**
+     * Name of the partition holding the discovery responses shared between sessions.
+     */
+    public static final String SHARED_DISCOVERY_PARTITION = "shared-discovery";
+
+    /**
+     * Session data holding a discovery response is stored as a compact session referring to the
+     * discovery response shared by the sessions of the same operator, which is stored again so
+     * that it is held as long as the latest session referring to it.
+     */
+    @Override
+    public <T extends AbstractCacheable> void add(final String key, final T value)
+        throws CacheAccessException {
+        if (value instanceof SessionData) {
+            final DiscoveryResponse response = ((SessionData) value).getDiscoveryResponse();
+            final String sharedKey = SessionData.sharedKeyOf(response);
+            if (sharedKey != null) {
+                super.add(sharedKey, SessionData.sharedCopyOf(response));
+                super.add(key, ((SessionData) value).referencing(sharedKey));
+                return;
+            }
+        }
+        super.add(key, value);
+    }
+
+    /**
+     * Takes the session data stored with the key, so that it can only be used once, with the
+     * discovery response rebuilt from the shared discovery response.
+     */
     public SessionData get(String key) {
-        SessionData sessionData = null;
-        if (!hasKey(key)) {
+        if (key == null) {
             return null;
         }
         try {
-            sessionData = this.get(key, SessionData.class);
+            final SessionData session = this.getAndRemove(key, SessionData.class);
+            final SessionData resolved = session == null ? null : session.resolve(this);
+            if (session != null && resolved == null) {
+                LOGGER.warn("Shared discovery response of session with key={} is no longer held",
+                    key);
+            }
+            return resolved;
         } catch (CacheAccessException e) {
             LOGGER.warn(e.getMessage());
+            return null;
         }
-        this.remove(key);
-
-        return sessionData;
     }
 
     @Override
     protected boolean hasKey(String key) {
-        try {
-            return this.get(key, SessionData.class) != null;
-        } catch (CacheAccessException e) {
-            LOGGER.warn(e.getMessage());
-            return false;
-        }
+        final CacheEntry entry = key == null ? null : this.internalGet(key, SessionData.class);
+        return entry != null && !this.checkAndSetExpiry(entry);
     }
 
+    /**
+     * Builds a session cache holding session data in the {@link #SESSION_PARTITION} partition,
+     * apart from any other values, so that sessions of abandoned logins expire after a fixed time
+     * and cannot grow without bound or evict other values.  The discovery responses shared between
+     * sessions are held in the {@link #SHARED_DISCOVERY_PARTITION} partition for as long as the
+     * sessions.
+     */
     public static final class Builder extends ConcurrentCache.Builder {
+        private long sessionTimeToLive = DefaultOptions.SESSION_TTL_MS;
+        private int maxSessions = DefaultOptions.SESSION_MAX_ENTRIES;
+
+        /**
+         * Specify how long sessions are held and how many, the oldest session being evicted to make
+         * room for a new one.  Sessions are not held any longer for being read.
+         *
+         * @param duration   sessions are held for, which should match the authorization window.
+         * @param unit       of the duration.
+         * @param maxEntries maximum number of sessions held.
+         * @return builder to continue further configuration.
+         */
+        public Builder withSessionLimits(final long duration, final TimeUnit unit,
+            final int maxEntries) {
+            this.sessionTimeToLive = unit.toMillis(duration);
+            this.maxSessions = maxEntries;
+            return this;
+        }
+
+        /**
+         * Sessions and the discovery responses they share are always held in the
+         * {@link #SESSION_PARTITION} and {@link #SHARED_DISCOVERY_PARTITION} partitions, which
+         * are configured by {@link #withSessionLimits(long, TimeUnit, int)}.
+         *
+         * @throws IllegalArgumentException if the partition holds {@link SessionData} or
+         *                                  {@link DiscoveryResponse}.
+         */
+        @Override
+        public Builder withPartition(final CachePartition val) {
+            ObjectUtils.requireNonNull(val, "val");
+            if (val.getCachedClasses().contains(SessionData.class)
+                || val.getCachedClasses().contains(DiscoveryResponse.class)) {
+                throw new IllegalArgumentException("Partition " + val.getName()
+                    + " must not hold SessionData or DiscoveryResponse, the session cache holds them"
+                    + " in its own partitions configured by withSessionLimits");
+            }
+            super.withPartition(val);
+            return this;
+        }
 
         @Override
         public ConcurrentCache build() {
             ObjectUtils.requireNonNull(this.jsonService, "jsonService");
+            if (this.maxSessions <= 0) {
+                throw new IllegalArgumentException("maxEntries must be positive");
+            }
             return new SessionCache(this);
         }
+
+        private List<CachePartition> sessionPartitions() {
+            return Arrays.asList(
+                new CachePartition.Builder()
+                    .withName(SESSION_PARTITION)
+                    .withCachedClasses(SessionData.class)
+                    .withMaxEntries(this.maxSessions)
+                    .withExpiryTime(this.sessionTimeToLive, TimeUnit.MILLISECONDS)
+                    .build(),
+                new CachePartition.Builder()
+                    .withName(SHARED_DISCOVERY_PARTITION)
+                    .withCachedClasses(DiscoveryResponse.class)
+                    .withExpiryTime(this.sessionTimeToLive, TimeUnit.MILLISECONDS)
+                    .build());
+        }
     }
 }
@@ -0,0 +1,100 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the sweeps run in the background to remove expired entries from a cache.
+ */
+public class SweepStatistics
+{
+    private final AtomicLong sweeps = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong stale = new AtomicLong();
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong lastSweepDuration = new AtomicLong();
+
+    SweepStatistics()
+    {
+    }
+
+    void recordScheduled()
+    {
+        this.pending.incrementAndGet();
+    }
+
+    void recordSweep(final long expired, final long stale, final long duration)
+    {
+        this.sweeps.incrementAndGet();
+        this.expired.addAndGet(expired);
+        this.stale.addAndGet(stale);
+        this.pending.addAndGet(-(expired + stale));
+        this.lastSweepDuration.set(duration);
+    }
+
+    /**
+     * @return number of sweeps run.
+     */
+    public long getSweepCount()
+    {
+        return this.sweeps.get();
+    }
+
+    /**
+     * @return number of expired entries removed by the sweeps.
+     */
+    public long getExpiredCount()
+    {
+        return this.expired.get();
+    }
+
+    /**
+     * @return number of entries found by the sweeps to have already been removed or replaced.
+     */
+    public long getStaleCount()
+    {
+        return this.stale.get();
+    }
+
+    /**
+     * @return number of entries waiting to be swept once they expire.
+     */
+    public long getPendingCount()
+    {
+        return this.pending.get();
+    }
+
+    /**
+     * @param unit of the duration.
+     * @return time taken by the last sweep.
+     */
+    public long getLastSweepDuration(final TimeUnit unit)
+    {
+        return unit.convert(this.lastSweepDuration.get(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "SweepStatistics{sweeps=" + this.getSweepCount() + ", expired="
+            + this.getExpiredCount() + ", stale=" + this.getStaleCount() + ", pending="
+            + this.getPendingCount() + ", lastSweepDurationNanos=" + this.lastSweepDuration.get()
+            + "}";
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Store that holds every entry added to it until it is removed.
+ */
+final class UnboundedCacheStore implements CacheStore
+{
+    private final ConcurrentMap<String, CacheEntry> entries = new ConcurrentHashMap<String, CacheEntry>();
+    private final AtomicLong weight = new AtomicLong();
+    private final CacheStatistics statistics;
+
+    UnboundedCacheStore(final CacheStatistics statistics)
+    {
+        this.statistics = statistics;
+    }
+
+    @Override
+    public CacheEntry get(final String key)
+    {
+        return this.entries.get(key);
+    }
+
+    @Override
+    public boolean put(final String key, final CacheEntry entry)
+    {
+        this.weight.addAndGet(entry.getWeight());
+        this.removed(this.entries.put(key, entry));
+        return true;
+    }
+
+    @Override
+    public void remove(final String key)
+    {
+        this.removed(this.entries.remove(key));
+    }
+
+    @Override
+    public boolean remove(final String key, final CacheEntry entry)
+    {
+        if (this.entries.remove(key, entry))
+        {
+            this.removed(entry);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean replace(final String key, final CacheEntry expected, final CacheEntry entry)
+    {
+        if (this.entries.replace(key, expected, entry))
+        {
+            this.weight.addAndGet(entry.getWeight());
+            this.removed(expected);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void clear()
+    {
+        for (final String key : this.entries.keySet())
+        {
+            this.remove(key);
+        }
+    }
+
+    @Override
+    public CacheStatistics getStatistics()
+    {
+        return this.statistics;
+    }
+
+    @Override
+    public int size()
+    {
+        return this.entries.size();
+    }
+
+    private void removed(final CacheEntry entry)
+    {
+        if (entry != null)
+        {
+            this.weight.addAndGet(-entry.getWeight());
+        }
+        this.statistics.setWeight(this.weight.get(), this.entries.size());
+    }
+}
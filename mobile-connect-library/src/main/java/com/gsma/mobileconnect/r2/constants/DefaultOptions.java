@@ -51,6 +51,53 @@ public final class DefaultOptions
     public static final String VERSION_MOBILECONNECTIDENTITY = MC_V1_2;
     public static final int THREAD_POOL_SIZE = 100;
 
+    public static final int POOL_MAX_TOTAL = 200;
+    public static final int POOL_MAX_PER_ROUTE = 20;
+    public static final long POOL_KEEP_ALIVE_MS = TimeUnit.SECONDS.toMillis(30L);
+    public static final long POOL_MAX_IDLE_MS = TimeUnit.SECONDS.toMillis(60L);
+    public static final long POOL_CONNECTION_TTL_MS = TimeUnit.MINUTES.toMillis(10L);
+    public static final int POOL_VALIDATE_AFTER_INACTIVITY_MS = 2000;
+    public static final int POOL_TLS_SESSION_CACHE_SIZE = 1000;
+    public static final long POOL_TLS_SESSION_TIMEOUT_MS = TimeUnit.HOURS.toMillis(24L);
+    public static final int WARM_UP_CONNECTIONS = 1;
+    public static final int REQUEST_TEMPLATE_CACHE_SIZE = 1000;
+    public static final long HTTP2_FALLBACK_MS = TimeUnit.MINUTES.toMillis(10L);
+    public static final int CACHE_EVICTION_SAMPLE_SIZE = 8;
+    public static final int CACHE_READ_BUFFER_SIZE = 128;
+    public static final long CACHE_SWEEP_INTERVAL_MS = TimeUnit.SECONDS.toMillis(1L);
+    public static final long SESSION_TTL_MS = TimeUnit.MINUTES.toMillis(10L);
+    public static final int SESSION_MAX_ENTRIES = 100000;
+    public static final long NEAR_CACHE_TTL_MS = TimeUnit.SECONDS.toMillis(30L);
+    public static final int NEAR_CACHE_MAX_ENTRIES = 10000;
+    public static final int REFRESH_AHEAD_PERCENTAGE = 80;
+    public static final int REFRESH_JITTER_PERCENTAGE = 10;
+    public static final long STALE_WHILE_REVALIDATE_MS = TimeUnit.MINUTES.toMillis(1L);
+    public static final long STALE_IF_ERROR_MS = TimeUnit.HOURS.toMillis(1L);
+    public static final long MAX_RESPONSE_BODY_BYTES = 1024L * 1024L;
+    public static final int CIRCUIT_FAILURE_RATE_THRESHOLD = 50;
+    public static final int CIRCUIT_MINIMUM_CALLS = 10;
+    public static final long CIRCUIT_WINDOW_MS = TimeUnit.SECONDS.toMillis(60L);
+    public static final long CIRCUIT_OPEN_MS = TimeUnit.SECONDS.toMillis(30L);
+    public static final int CIRCUIT_HALF_OPEN_CALLS = 3;
+    public static final int RETRY_MAX_ATTEMPTS = 3;
+    public static final long RETRY_INITIAL_BACKOFF_MS = 100L;
+    public static final long RETRY_MAX_BACKOFF_MS = TimeUnit.SECONDS.toMillis(2L);
+    public static final double RETRY_BACKOFF_MULTIPLIER = 2.0;
+    public static final long RETRY_DEADLINE_MS = TimeUnit.SECONDS.toMillis(10L);
+    public static final int RETRY_BUDGET_PERCENTAGE = 10;
+    public static final int RETRY_BUDGET_CAPACITY = 10;
+    public static final int CONCURRENCY_INITIAL_LIMIT = 20;
+    public static final int CONCURRENCY_MIN_LIMIT = 1;
+    public static final int CONCURRENCY_MAX_LIMIT = 200;
+    public static final long CONCURRENCY_LATENCY_THRESHOLD_MS = TimeUnit.SECONDS.toMillis(2L);
+    public static final double CONCURRENCY_BACKOFF_RATIO = 0.9;
+    public static final long CONCURRENCY_MAX_WAIT_MS = 500L;
+    public static final int HEDGE_PERCENTILE = 95;
+    public static final int HEDGE_MAX_PERCENTAGE = 10;
+    public static final int HEDGE_SAMPLE_SIZE = 100;
+    public static final long HEDGE_MIN_DELAY_MS = 50L;
+    public static final long HEDGE_INITIAL_DELAY_MS = TimeUnit.SECONDS.toMillis(1L);
+
     public static final String LOGIN = "login";
     public static final String NONE = "none";
     public static final String CONSENT = "consent";
@@ -61,6 +108,9 @@ public final class DefaultOptions
     // Since the wait time is 5 seconds & the maximum timeout = 2 mins
     public static final long MAX_REDIRECTS = 24;
     public static final long WAIT_TIME = 5000L; // 5 seconds
+    public static final long HEADLESS_TIMEOUT_MS = MAX_REDIRECTS * WAIT_TIME;
+    public static final double HEADLESS_BACKOFF_MULTIPLIER = 1.5;
+    public static final long HEADLESS_MAX_BACKOFF_FACTOR = 4L;
 
     private DefaultOptions()
     {
@@ -55,6 +55,8 @@ public final class Parameters
     //Discovery
     public static final String CLIENT_SECRET = "client_secret";
     public static final String TTL = "ttl";
+    public static final String MCC = "mcc";
+    public static final String MNC = "mnc";
 
     // Required params for authentication
     public static final String CLIENT_ID = "client_id";
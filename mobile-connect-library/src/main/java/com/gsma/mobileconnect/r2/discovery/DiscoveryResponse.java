@@ -51,11 +51,15 @@ public class DiscoveryResponse extends AbstractCacheable
     @SerializedName(Parameters.RESPONSE_DATA)
     private final DiscoveryResponseData responseData;
     @SerializedName(Parameters.OPERATOR_URLS)
-    private final OperatorUrls operatorUrls;
+    private OperatorUrls operatorUrls;
     @SerializedName(Parameters.CLIENT_NAME)
     private final String clientName;
     @SerializedName(Parameters.PROVIDER_METADATA)
     private ProviderMetadata providerMetadata;
+    @SerializedName(Parameters.MCC)
+    private final String mcc;
+    @SerializedName(Parameters.MNC)
+    private final String mnc;
 
 
     private DiscoveryResponse(Builder builder)
@@ -68,6 +72,8 @@ public class DiscoveryResponse extends AbstractCacheable
         this.providerMetadata = builder.providerMetadata;
         this.operatorUrls = builder.operatorUrls;
         this.clientName = builder.clientName;
+        this.mcc = builder.mcc;
+        this.mnc = builder.mnc;
 
         if (this.operatorUrls != null && this.providerMetadata != null)
         {
@@ -84,17 +90,36 @@ public class DiscoveryResponse extends AbstractCacheable
      */
     public static DiscoveryResponse fromRestResponse(final RestResponse restResponse,
         final IJsonService jsonService) throws JsonDeserializationException
+    {
+        return fromRestResponse(restResponse, jsonService, null, null);
+    }
+
+    /**
+     * Convenience method that builds a {@link DiscoveryResponse} from a {@link RestResponse}
+     * returned by discovery for a network.
+     *
+     * @param restResponse containing json.
+     * @param mcc          Mobile Country Code the discovery was for, may be null.
+     * @param mnc          Mobile Network Code the discovery was for, may be null.
+     * @return DiscoveryResponse instance.
+     * @throws JsonDeserializationException if the json is invalid.
+     */
+    public static DiscoveryResponse fromRestResponse(final RestResponse restResponse,
+        final IJsonService jsonService, final String mcc, final String mnc)
+        throws JsonDeserializationException
     {
         ObjectUtils.requireNonNull(restResponse, "restResponse");
         ObjectUtils.requireNonNull(jsonService, "jsonService");
 
-        final DiscoveryResponseData responseData = new DiscoveryResponseData.Builder(jsonService.deserialize(restResponse.getContent(), DiscoveryResponseData.class)).build();
+        final DiscoveryResponseData responseData = new DiscoveryResponseData.Builder(jsonService.deserialize(restResponse.getContentReader(), DiscoveryResponseData.class)).build();
 
         return new Builder()
             .withResponseCode(restResponse.getStatusCode())
             .withHeaders(restResponse.getHeaders())
             .withTtl(calculateTtl(responseData.getTtl()))
             .withResponseData(responseData)
+            .withMcc(mcc)
+            .withMnc(mnc)
             .build();
     }
 
@@ -160,10 +185,19 @@ public class DiscoveryResponse extends AbstractCacheable
         return this.providerMetadata;
     }
 
+    /**
+     * Set the provider metadata, overriding a copy of the operator urls with its endpoints so that
+     * the operator urls of other copies of this response are left untouched.
+     *
+     * @param providerMetadata to set.
+     */
     public void setProviderMetadata(ProviderMetadata providerMetadata)
     {
         this.providerMetadata = providerMetadata;
-        this.operatorUrls.override(providerMetadata);
+        if (this.operatorUrls != null)
+        {
+            this.operatorUrls = this.operatorUrls.overriddenWith(providerMetadata);
+        }
     }
 
     public String getClientName()
@@ -171,6 +205,22 @@ public class DiscoveryResponse extends AbstractCacheable
         return this.clientName;
     }
 
+    /**
+     * @return Mobile Country Code the discovery was for, or null if it was not known.
+     */
+    public String getMcc()
+    {
+        return this.mcc;
+    }
+
+    /**
+     * @return Mobile Network Code the discovery was for, or null if it was not known.
+     */
+    public String getMnc()
+    {
+        return this.mnc;
+    }
+
     /**
      * Create a copy of this DiscoveryResponse with the subscriberId set to this provided value.
      *
@@ -239,6 +289,12 @@ public class DiscoveryResponse extends AbstractCacheable
         return retval;
     }
 
+    @Override
+    protected Long getExpiryTime()
+    {
+        return this.ttl == null ? null : this.ttl.getTime();
+    }
+
     @Override
     protected void cached()
     {
@@ -255,6 +311,8 @@ public class DiscoveryResponse extends AbstractCacheable
         private ProviderMetadata providerMetadata = null;
         private OperatorUrls operatorUrls = null;
         private String clientName = null;
+        private String mcc = null;
+        private String mnc = null;
 
         public Builder()
         {
@@ -273,6 +331,8 @@ public class DiscoveryResponse extends AbstractCacheable
                 this.providerMetadata = response.providerMetadata;
                 this.operatorUrls = response.operatorUrls;
                 this.clientName = response.clientName;
+                this.mcc = response.mcc;
+                this.mnc = response.mnc;
             }
         }
 
@@ -312,6 +372,18 @@ public class DiscoveryResponse extends AbstractCacheable
             return this;
         }
 
+        public Builder withMcc(final String val)
+        {
+            this.mcc = val;
+            return this;
+        }
+
+        public Builder withMnc(final String val)
+        {
+            this.mnc = val;
+            return this;
+        }
+
         @Override
         public DiscoveryResponse build()
         {
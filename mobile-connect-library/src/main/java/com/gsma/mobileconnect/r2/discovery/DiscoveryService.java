@@ -16,8 +16,10 @@
  */
 package com.gsma.mobileconnect.r2.discovery;
 
+import com.gsma.mobileconnect.r2.cache.AbstractCacheable;
 import com.gsma.mobileconnect.r2.cache.CacheAccessException;
 import com.gsma.mobileconnect.r2.cache.ICache;
+import com.gsma.mobileconnect.r2.cache.RevalidationStatistics;
 import com.gsma.mobileconnect.r2.constants.LinkRels;
 import com.gsma.mobileconnect.r2.constants.Parameters;
 import com.gsma.mobileconnect.r2.encoding.DefaultEncodeDecoder;
@@ -27,21 +29,31 @@ import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
 import com.gsma.mobileconnect.r2.json.IJsonService;
 import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
 import com.gsma.mobileconnect.r2.json.Link;
+import com.gsma.mobileconnect.r2.rest.Deadline;
 import com.gsma.mobileconnect.r2.rest.IRestClient;
 import com.gsma.mobileconnect.r2.rest.RestAuthentication;
 import com.gsma.mobileconnect.r2.rest.RestResponse;
 import com.gsma.mobileconnect.r2.utils.*;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.URI;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Concrete implementation of {@link IDiscoveryService}
@@ -61,6 +73,11 @@ public class DiscoveryService implements IDiscoveryService
     private final IJsonService jsonService;
     private final IRestClient restClient;
     private final IMobileConnectEncodeDecoder iMobileConnectEncodeDecoder;
+    private final RevalidationStatistics revalidationStatistics = new RevalidationStatistics();
+    private final RefreshOptions refreshOptions;
+    private final Executor refreshExecutor;
+    private final Set<String> refreshing =
+            Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
     private DiscoveryService(final Builder builder)
     {
@@ -68,6 +85,8 @@ public class DiscoveryService implements IDiscoveryService
         this.jsonService = builder.jsonService;
         this.restClient = builder.restClient;
         this.iMobileConnectEncodeDecoder = builder.iMobileConnectEncodeDecoder;
+        this.refreshOptions = builder.refreshOptions;
+        this.refreshExecutor = builder.refreshExecutor;
 
         LOGGER.info("New instance of DiscoveryService created");
     }
@@ -97,6 +116,14 @@ public class DiscoveryService implements IDiscoveryService
         return this.cache;
     }
 
+    /**
+     * @return counters of the conditional requests issued to revalidate cached provider metadata.
+     */
+    public RevalidationStatistics getRevalidationStatistics()
+    {
+        return this.revalidationStatistics;
+    }
+
     @Override
     public DiscoveryResponse startAutomatedOperatorDiscovery(final String clientId,
                                                              final String clientSecret, final URI discoveryUrl, final URI redirectUrl,
@@ -128,7 +155,7 @@ public class DiscoveryService implements IDiscoveryService
                                                                           final String clientSecret, final URI discoveryUrl, final URI redirectUrl,
                                                                           final DiscoveryOptions options, final Iterable<KeyValuePair> currentCookies)
     {
-        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        ExecutorService executorService = Executors.newSingleThreadExecutor(Deadline.propagatingThreadFactory());
         Future<DiscoveryResponse> discoveryResponseFuture = executorService.submit(new Callable<DiscoveryResponse>()
         {
             @Override
@@ -167,45 +194,48 @@ public class DiscoveryService implements IDiscoveryService
 
         DiscoveryResponse cachedDiscoveryResponse = fetchCachedDiscoveryResponse(options, useCache);
 
-        DiscoveryResponse discoveryResponse;
+        DiscoveryResponse discoveryResponse = null;
         final String correlationId = UUID.randomUUID().toString();
 
-        if (cachedDiscoveryResponse != null && !cachedDiscoveryResponse.hasExpired())
+        // a discovery keyed on the msisdn can only be fetched again with the user's msisdn, so it is
+        // never served stale nor refreshed ahead of expiry in the background
+        final boolean refreshable = StringUtils.isNullOrEmpty(options.getMsisdn());
+
+        if (cachedDiscoveryResponse != null && (refreshable
+                ? this.isServable(cachedDiscoveryResponse) : !cachedDiscoveryResponse.hasExpired()))
         {
             discoveryResponse = cachedDiscoveryResponse;
+            if (refreshable && this.isRefreshDue(cachedDiscoveryResponse))
+            {
+                this.refreshDiscoveryResponse(clientId, clientSecret, discoveryUrl, options);
+            }
         }
         else
         {
-            final Iterable<KeyValuePair> cookies =
-                    HttpUtils.proxyRequired(REQUIRED_COOKIES, currentCookies);
-            final RestAuthentication authentication =
-                    RestAuthentication.basic(clientId, clientSecret, iMobileConnectEncodeDecoder);
-            final List<KeyValuePair> queryParams = this.extractQueryParams(options);
-            if (options.getUsingCorrelationId()) {
-                queryParams.add(new KeyValuePair(Parameters.CORRELATION_ID, correlationId));
-            }
-
             RestResponse restResponse = null;
 
             try
             {
-                restResponse = StringUtils.isNullOrEmpty(options.getMsisdn())
-                        ? this.restClient.getDiscovery(discoveryUrl, authentication, options.getXRedirect(),
-                        options.getClientIp(), options.getClientSideVersion(), options.getServerSideVersion(), queryParams, cookies)
-                        : this.restClient.postDiscoveryFormData(discoveryUrl, authentication, options.getXRedirect(),
-                        queryParams, options.getClientIp(), options.getClientSideVersion(), options.getServerSideVersion(), cookies);
+                restResponse = this.requestDiscoveryResponse(clientId, clientSecret, discoveryUrl,
+                        options, currentCookies, correlationId);
             }
             catch (final RequestFailedException e)
             {
                 LOGGER.warn("Failed to perform fetch of discovery response", e);
-                if (cachedDiscoveryResponse == null)
+                if (!this.isStaleIfError(cachedDiscoveryResponse))
                 {
                     throw e;
                 }
             }
-            discoveryResponse = convertFromRestResponse(restResponse, cachedDiscoveryResponse);
-
-            this.addCachedDiscoveryResponse(options, discoveryResponse);
+            if (restResponse != null)
+            {
+                discoveryResponse =
+                        convertFromRestResponse(restResponse, cachedDiscoveryResponse, options);
+            }
+            if (discoveryResponse != null)
+            {
+                this.addCachedDiscoveryResponse(options, discoveryResponse);
+            }
         }
 
         if (discoveryResponse == null && cachedDiscoveryResponse != null)
@@ -245,14 +275,146 @@ public class DiscoveryService implements IDiscoveryService
         return discoveryResponse;
     }
 
+    private RestResponse requestDiscoveryResponse(final String clientId,
+                                                  final String clientSecret, final URI discoveryUrl, final DiscoveryOptions options,
+                                                  final Iterable<KeyValuePair> currentCookies, final String correlationId)
+            throws RequestFailedException
+    {
+        final Iterable<KeyValuePair> cookies =
+                HttpUtils.proxyRequired(REQUIRED_COOKIES, currentCookies);
+        final RestAuthentication authentication =
+                RestAuthentication.basic(clientId, clientSecret, iMobileConnectEncodeDecoder);
+        final List<KeyValuePair> queryParams = this.extractQueryParams(options);
+        if (options.getUsingCorrelationId()) {
+            queryParams.add(new KeyValuePair(Parameters.CORRELATION_ID, correlationId));
+        }
+
+        return StringUtils.isNullOrEmpty(options.getMsisdn())
+                ? this.restClient.getDiscovery(discoveryUrl, authentication, options.getXRedirect(),
+                options.getClientIp(), options.getClientSideVersion(), options.getServerSideVersion(), queryParams, cookies)
+                : this.restClient.postDiscoveryFormData(discoveryUrl, authentication, options.getXRedirect(),
+                queryParams, options.getClientIp(), options.getClientSideVersion(), options.getServerSideVersion(), cookies);
+    }
+
+    /**
+     * Fetches the discovery response again in the background and replaces the cached response with
+     * it, leaving the cached response in place if the fetch fails.
+     * <p>
+     * The cached response is shared by every user of the network, so the refresh is made with the
+     * network level options only and never with the msisdn, client ip or cookies of the user whose
+     * request happened to trigger it.
+     */
+    private void refreshDiscoveryResponse(final String clientId, final String clientSecret,
+                                          final URI discoveryUrl, final DiscoveryOptions options)
+    {
+        final DiscoveryOptions networkOptions = new DiscoveryOptions.Builder()
+                .withRedirectUrl(options.getRedirectUrl())
+                .withIdentifiedMcc(options.getIdentifiedMcc())
+                .withIdentifiedMnc(options.getIdentifiedMnc())
+                .withSelectedMcc(options.getSelectedMcc())
+                .withSelectedMnc(options.getSelectedMnc())
+                .withXRedirect(options.getXRedirect())
+                .withClientSideVersion(options.getClientSideVersion())
+                .withServerSideVersion(options.getServerSideVersion())
+                .build();
+
+        this.refreshInBackground("discovery:" + cacheKey(networkOptions), new Callable<Void>()
+        {
+            @Override
+            public Void call() throws Exception
+            {
+                final RestResponse restResponse = DiscoveryService.this.requestDiscoveryResponse(
+                        clientId, clientSecret, discoveryUrl, networkOptions, null,
+                        UUID.randomUUID().toString());
+                final DiscoveryResponse discoveryResponse = DiscoveryResponse.fromRestResponse(
+                        restResponse, DiscoveryService.this.jsonService, mccOf(networkOptions),
+                        mncOf(networkOptions));
+                DiscoveryService.this.addCachedDiscoveryResponse(networkOptions, discoveryResponse);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Runs a refresh on the refresh executor unless a refresh with the same key is already running.
+     */
+    private void refreshInBackground(final String key, final Callable<Void> refresh)
+    {
+        if (!this.refreshing.add(key))
+        {
+            return;
+        }
+
+        LOGGER.debug("Refreshing cached entry with key={} in the background", key);
+        try
+        {
+            this.refreshExecutor.execute(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        refresh.call();
+                    }
+                    catch (final Exception e)
+                    {
+                        LOGGER.warn("Failed to refresh cached entry with key={}", key, e);
+                    }
+                    finally
+                    {
+                        DiscoveryService.this.refreshing.remove(key);
+                    }
+                }
+            });
+        }
+        catch (final RejectedExecutionException ree)
+        {
+            this.refreshing.remove(key);
+            LOGGER.warn("Failed to schedule refresh of cached entry with key={}", key, ree);
+        }
+    }
+
+    /**
+     * @return true if the cached value has not expired, or may still be returned while it is
+     * refreshed.
+     */
+    private boolean isServable(final AbstractCacheable cached)
+    {
+        return !cached.hasExpired() || this.refreshOptions != null
+                && this.refreshOptions.isStaleWhileRevalidate(cached.getCachedAge(),
+                cached.getCachedTimeToLive());
+    }
+
+    /**
+     * @return true if the cached value is being returned but should be refreshed in the background.
+     */
+    private boolean isRefreshDue(final AbstractCacheable cached)
+    {
+        return this.refreshOptions != null && (cached.hasExpired()
+                || this.refreshOptions.isRefreshDue(cached.getCachedAge(),
+                cached.getCachedTimeToLive()));
+    }
+
+    /**
+     * @return true if the cached value may be returned when it cannot be refreshed.
+     */
+    private boolean isStaleIfError(final AbstractCacheable cached)
+    {
+        return cached != null && (this.refreshOptions == null
+                || this.refreshOptions.isStaleIfError(cached.getCachedAge(),
+                cached.getCachedTimeToLive()));
+    }
+
     private DiscoveryResponse convertFromRestResponse(RestResponse restResponse,
-                                                      DiscoveryResponse cachedDiscoveryResponse) throws InvalidResponseException
+                                                      DiscoveryResponse cachedDiscoveryResponse,
+                                                      DiscoveryOptions options) throws InvalidResponseException
     {
         DiscoveryResponse discoveryResponse = null;
         try
         {
-            discoveryResponse =
-                    DiscoveryResponse.fromRestResponse(restResponse, this.jsonService);
+            discoveryResponse = DiscoveryResponse.fromRestResponse(restResponse, this.jsonService,
+                    mccOf(options), mncOf(options));
         }
         catch (final JsonDeserializationException jde)
         {
@@ -296,24 +458,32 @@ public class DiscoveryService implements IDiscoveryService
     private DiscoveryResponse getCachedDiscoveryResponse(final DiscoveryOptions options)
             throws CacheAccessException
     {
-        final String mcc =
-                ObjectUtils.defaultIfNull(options.getIdentifiedMcc(), options.getSelectedMcc());
-        final String mnc =
-                ObjectUtils.defaultIfNull(options.getIdentifiedMnc(), options.getSelectedMnc());
+        // expired responses are kept to be returned while they are refreshed
         return this.cache != null
-                ? this.cache.get(concatKey(mcc, mnc), DiscoveryResponse.class)
+                ? this.cache.get(cacheKey(options), DiscoveryResponse.class,
+                this.refreshOptions == null)
                 : null;
     }
 
+    private static String cacheKey(final DiscoveryOptions options)
+    {
+        return concatKey(mccOf(options), mncOf(options));
+    }
+
+    private static String mccOf(final DiscoveryOptions options)
+    {
+        return ObjectUtils.defaultIfNull(options.getIdentifiedMcc(), options.getSelectedMcc());
+    }
+
+    private static String mncOf(final DiscoveryOptions options)
+    {
+        return ObjectUtils.defaultIfNull(options.getIdentifiedMnc(), options.getSelectedMnc());
+    }
+
     public void addCachedDiscoveryResponse(final DiscoveryOptions options,
                                            final DiscoveryResponse response)
     {
-        final String mcc =
-                ObjectUtils.defaultIfNull(options.getIdentifiedMcc(), options.getSelectedMcc());
-        final String mnc =
-                ObjectUtils.defaultIfNull(options.getIdentifiedMnc(), options.getSelectedMnc());
-
-        final String key = concatKey(mcc, mnc);
+        final String key = cacheKey(options);
 
         if (response.getErrorResponse() == null && key != null)
         {
@@ -377,7 +547,7 @@ public class DiscoveryService implements IDiscoveryService
         StringUtils.requireNonEmpty(clientSecret, "clientSecret");
         ObjectUtils.requireNonNull(discoveryUrl, "discoveryUrl");
         ObjectUtils.requireNonNull(redirectUrl, "redirectUrl");
-        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        ExecutorService executorService = Executors.newSingleThreadExecutor(Deadline.propagatingThreadFactory());
         Future<DiscoveryResponse> discoveryResponseFuture = executorService.submit(new Callable<DiscoveryResponse>()
         {
             @Override
@@ -467,7 +637,7 @@ public class DiscoveryService implements IDiscoveryService
                                                                             final String clientSecret, final URI discoveryUrl, final URI redirectUrl,
                                                                             final String selectedMCC, final String selectedMNC)
     {
-        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        ExecutorService executorService = Executors.newSingleThreadExecutor(Deadline.propagatingThreadFactory());
         Future<DiscoveryResponse> discoveryResponseFuture = executorService.submit(new Callable<DiscoveryResponse>()
         {
             @Override
@@ -486,7 +656,7 @@ public class DiscoveryService implements IDiscoveryService
             final IPreferences preferences, final URI redirectUrl, final String selectedMCC,
             final String selectedMNC)
     {
-        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        ExecutorService executorService = Executors.newSingleThreadExecutor(Deadline.propagatingThreadFactory());
         Future<DiscoveryResponse> discoveryResponseFuture = executorService.submit(new Callable<DiscoveryResponse>()
         {
             @Override
@@ -566,7 +736,7 @@ public class DiscoveryService implements IDiscoveryService
                                                         final boolean forceCacheBypass)
     {
         final URI providerMetadataUrl = this.extractProviderMetadataUrl(response);
-        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        ExecutorService executorService = Executors.newSingleThreadExecutor(Deadline.propagatingThreadFactory());
         Future<ProviderMetadata> providerMetadataFuture = executorService.submit(new Callable<ProviderMetadata>()
         {
             @Override
@@ -604,7 +774,7 @@ public class DiscoveryService implements IDiscoveryService
             {
                 try
                 {
-                    cached = this.cache.get(url.toString(), ProviderMetadata.class);
+                    cached = this.cache.get(url.toString(), ProviderMetadata.class, false);
                 }
                 catch (final CacheAccessException cae)
                 {
@@ -612,28 +782,34 @@ public class DiscoveryService implements IDiscoveryService
                 }
             }
 
-            if (cached == null || cached.hasExpired())
+            if (cached != null && this.isServable(cached))
             {
-                try
+                providerMetadata = cached;
+                if (this.isRefreshDue(cached))
                 {
-                    final RestResponse restResponse =
-                            this.restClient.get(url, null, null, null,null, null);
-
-                    providerMetadata = processRestResponse(restResponse, url);
+                    final ProviderMetadata stale = cached;
+                    this.refreshInBackground(url.toString(), new Callable<Void>()
+                    {
+                        @Override
+                        public Void call()
+                        {
+                            DiscoveryService.this.fetchProviderMetadata(url, stale);
+                            return null;
+                        }
+                    });
                 }
+            }
+            else
+            {
+                providerMetadata = this.fetchProviderMetadata(url, cached);
 
-                catch (final RequestFailedException ehe)
+                if (providerMetadata == null && this.isStaleIfError(cached))
                 {
-                    LOGGER.warn("Failed to perform fetch of provider metadata from provider", ehe);
+                    LOGGER.warn(
+                            "Falling back to expired cached provider metadata due to previous error");
+                    providerMetadata = cached;
                 }
             }
-
-            if (providerMetadata == null && cached != null)
-            {
-                LOGGER.warn(
-                        "Falling back to expired cached provider metadata due to previous error");
-                providerMetadata = cached;
-            }
         }
         else
         {
@@ -649,15 +825,79 @@ public class DiscoveryService implements IDiscoveryService
         return providerMetadata;
     }
 
-    private ProviderMetadata processRestResponse(final RestResponse restResponse, final URI url)
+    /**
+     * Fetches the provider metadata, revalidating the cached instance if it carries validators, and
+     * caches the result.
+     *
+     * @return the provider metadata, or null if it could not be fetched.
+     */
+    private ProviderMetadata fetchProviderMetadata(final URI url, final ProviderMetadata cached)
+    {
+        try
+        {
+            if (cached != null && cached.hasValidators())
+            {
+                final RestResponse restResponse = this.restClient.getConditional(url,
+                        cached.getEtag(), cached.getLastModified());
+
+                return restResponse.getStatusCode() == HttpStatus.SC_NOT_MODIFIED
+                        ? revalidated(cached, url)
+                        : processRestResponse(restResponse, url, true);
+            }
+            else
+            {
+                final RestResponse restResponse =
+                        this.restClient.get(url, null, null, null,null, null);
+
+                return processRestResponse(restResponse, url, false);
+            }
+        }
+        catch (final RequestFailedException ehe)
+        {
+            LOGGER.warn("Failed to perform fetch of provider metadata from provider", ehe);
+            return null;
+        }
+    }
+
+    /**
+     * The operator confirmed the cached provider metadata is unchanged; it is added to the cache
+     * again to extend its time to live.
+     */
+    private ProviderMetadata revalidated(final ProviderMetadata cached, final URI url)
+    {
+        LOGGER.debug("Provider metadata from {} not modified, extending cached entry", url);
+        this.revalidationStatistics.recordNotModified(cached.getContentLength());
+        try
+        {
+            this.cache.add(url.toString(), cached);
+        }
+        catch (final CacheAccessException cae)
+        {
+            LOGGER.warn("Failed to store provider metadata in cache", cae);
+        }
+        return cached;
+    }
+
+    private ProviderMetadata processRestResponse(final RestResponse restResponse, final URI url,
+                                                 final boolean revalidation)
     {
         ProviderMetadata providerMetadata = null;
         try
         {
+            if (revalidation)
+            {
+                this.revalidationStatistics.recordModified();
+            }
             if (!HttpUtils.isHttpErrorCode(restResponse.getStatusCode()))
             {
                 providerMetadata =
-                        this.jsonService.deserialize(restResponse.getContent(), ProviderMetadata.class);
+                        this.jsonService.deserialize(restResponse.getContentReader(), ProviderMetadata.class);
+                if (providerMetadata != null)
+                {
+                    providerMetadata.setValidators(restResponse.getHeader(HttpHeaders.ETAG),
+                            restResponse.getHeader(HttpHeaders.LAST_MODIFIED),
+                            restResponse.getContentLength());
+                }
 
                 this.cache.add(url.toString(), providerMetadata);
             }
@@ -680,12 +920,35 @@ public class DiscoveryService implements IDiscoveryService
     }
 
 
+    /**
+     * Lazily creates the shared executor so it is only started when a service refreshes in the
+     * background.
+     */
+    private static final class RefreshExecutorHolder
+    {
+        private static final Executor EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory()
+        {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(final Runnable runnable)
+            {
+                final Thread thread = new Thread(runnable,
+                        "mobileconnect-cache-refresh-" + this.count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
     public static final class Builder implements IBuilder<DiscoveryService>
     {
         private ICache cache;
         private IJsonService jsonService;
         private IRestClient restClient;
         private IMobileConnectEncodeDecoder iMobileConnectEncodeDecoder;
+        private RefreshOptions refreshOptions;
+        private Executor refreshExecutor;
 
         public Builder withCache(ICache val)
         {
@@ -711,6 +974,33 @@ public class DiscoveryService implements IDiscoveryService
             return this;
         }
 
+        /**
+         * Refresh cached discovery responses and provider metadata ahead of expiry, and return
+         * stale values while they are refreshed or when they cannot be refreshed.  When not set,
+         * expired values are always fetched again on the calling thread.
+         *
+         * @param val options controlling when cached values are refreshed.
+         * @return builder to continue further configuration.
+         */
+        public Builder withRefreshOptions(RefreshOptions val)
+        {
+            this.refreshOptions = val;
+            return this;
+        }
+
+        /**
+         * Executor on which cached values are refreshed in the background, defaults to a shared
+         * pool of daemon threads.
+         *
+         * @param val executor to run refreshes on.
+         * @return builder to continue further configuration.
+         */
+        public Builder withRefreshExecutor(Executor val)
+        {
+            this.refreshExecutor = val;
+            return this;
+        }
+
         @Override
         public DiscoveryService build()
         {
@@ -721,6 +1011,10 @@ public class DiscoveryService implements IDiscoveryService
             {
                 iMobileConnectEncodeDecoder = new DefaultEncodeDecoder();
             }
+            if (this.refreshExecutor == null)
+            {
+                this.refreshExecutor = RefreshExecutorHolder.EXECUTOR;
+            }
 
             return new DiscoveryService(this);
         }
@@ -231,6 +231,27 @@ public class OperatorUrls
      *
      * @param metadata metatdata to get overriding urls from.
      */
+    /**
+     * @param metadata to override the urls with, may be null.
+     * @return copy of these urls overridden with the endpoints of the provider metadata.
+     */
+    OperatorUrls overriddenWith(final ProviderMetadata metadata)
+    {
+        final OperatorUrls copy = new Builder()
+                .withAuthorizationUrl(this.authorizationUrl)
+                .withRequestTokenUrl(this.requestTokenUrl)
+                .withUserInfoUrl(this.userInfoUrl)
+                .withPremiumInfoUri(this.premiumInfoUri)
+                .withJwksUri(this.jwksUri)
+                .withRevokeTokenUrl(this.revokeTokenUrl)
+                .withRefershTokenUrl(this.refreshTokenUrl)
+                .withScopeUri(this.scopeUrl)
+                .withProviderMetadataUri(this.providerMetadataUri)
+                .build();
+        copy.override(metadata);
+        return copy;
+    }
+
     protected void override(final ProviderMetadata metadata)
     {
         if (metadata != null)
@@ -0,0 +1,180 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.discovery;
+
+import com.gsma.mobileconnect.r2.constants.DefaultOptions;
+import com.gsma.mobileconnect.r2.utils.IBuilder;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Settings for refreshing cached discovery responses and provider metadata in {@link
+ * DiscoveryService} before and after they expire.
+ * <p>
+ * Once an entry has lived for the refresh-ahead percentage of its time to live it is refreshed in
+ * the background, while callers keep receiving the cached value.  The point at which this happens
+ * is drawn at random, down to the jitter percentage earlier, on every read so that entries cached
+ * together are not all refreshed in the same second.  An expired entry is still returned, and
+ * refreshed in the background, for the stale-while-revalidate window; after that it is refreshed
+ * before it is returned, falling back to the expired entry if the refresh fails within the
+ * stale-if-error window.
+ * <p>
+ * Expired entries can only be returned while the cache still holds them, so the cache should be
+ * built to retain them for as long as the longer of the two windows.
+ *
+ * @see com.gsma.mobileconnect.r2.cache.ConcurrentCache.Builder#withStaleRetention(long, TimeUnit)
+ */
+public class RefreshOptions
+{
+    private final int refreshAheadPercentage;
+    private final int jitterPercentage;
+    private final long staleWhileRevalidateMs;
+    private final long staleIfErrorMs;
+
+    private RefreshOptions(final Builder builder)
+    {
+        this.refreshAheadPercentage = builder.refreshAheadPercentage;
+        this.jitterPercentage = builder.jitterPercentage;
+        this.staleWhileRevalidateMs = builder.staleWhileRevalidateMs;
+        this.staleIfErrorMs = builder.staleIfErrorMs;
+    }
+
+    /**
+     * @return percentage of its time to live after which an entry is refreshed in the background.
+     */
+    public int getRefreshAheadPercentage()
+    {
+        return this.refreshAheadPercentage;
+    }
+
+    /**
+     * @return percentage of its time to live by which the refresh of an entry may be brought
+     * forward at random.
+     */
+    public int getJitterPercentage()
+    {
+        return this.jitterPercentage;
+    }
+
+    /**
+     * @return time after expiry during which an entry is returned while it is refreshed in the
+     * background.
+     */
+    public long getStaleWhileRevalidateMs()
+    {
+        return this.staleWhileRevalidateMs;
+    }
+
+    /**
+     * @return time after expiry during which an entry is returned if it cannot be refreshed.
+     */
+    public long getStaleIfErrorMs()
+    {
+        return this.staleIfErrorMs;
+    }
+
+    /**
+     * @param age        of the entry in milliseconds.
+     * @param timeToLive of the entry in milliseconds.
+     * @return true if the entry has not expired but should be refreshed in the background.
+     */
+    boolean isRefreshDue(final long age, final long timeToLive)
+    {
+        return this.isRefreshDue(age, timeToLive, ThreadLocalRandom.current());
+    }
+
+    boolean isRefreshDue(final long age, final long timeToLive, final Random random)
+    {
+        if (timeToLive == Long.MAX_VALUE || age >= timeToLive)
+        {
+            return false;
+        }
+        final double percentage = this.refreshAheadPercentage
+            - this.jitterPercentage * random.nextDouble();
+        return age >= timeToLive * percentage / 100d;
+    }
+
+    /**
+     * @param age        of the entry in milliseconds.
+     * @param timeToLive of the entry in milliseconds.
+     * @return true if the expired entry may be returned while it is refreshed in the background.
+     */
+    boolean isStaleWhileRevalidate(final long age, final long timeToLive)
+    {
+        return timeToLive != Long.MAX_VALUE && age - timeToLive < this.staleWhileRevalidateMs;
+    }
+
+    /**
+     * @param age        of the entry in milliseconds.
+     * @param timeToLive of the entry in milliseconds.
+     * @return true if the expired entry may be returned when it cannot be refreshed.
+     */
+    boolean isStaleIfError(final long age, final long timeToLive)
+    {
+        return timeToLive == Long.MAX_VALUE || age - timeToLive < this.staleIfErrorMs;
+    }
+
+    public static final class Builder implements IBuilder<RefreshOptions>
+    {
+        private int refreshAheadPercentage = DefaultOptions.REFRESH_AHEAD_PERCENTAGE;
+        private int jitterPercentage = DefaultOptions.REFRESH_JITTER_PERCENTAGE;
+        private long staleWhileRevalidateMs = DefaultOptions.STALE_WHILE_REVALIDATE_MS;
+        private long staleIfErrorMs = DefaultOptions.STALE_IF_ERROR_MS;
+
+        public Builder withRefreshAheadPercentage(final int val)
+        {
+            this.refreshAheadPercentage = val;
+            return this;
+        }
+
+        public Builder withJitterPercentage(final int val)
+        {
+            this.jitterPercentage = val;
+            return this;
+        }
+
+        public Builder withStaleWhileRevalidate(final long duration, final TimeUnit unit)
+        {
+            this.staleWhileRevalidateMs = unit.toMillis(duration);
+            return this;
+        }
+
+        public Builder withStaleIfError(final long duration, final TimeUnit unit)
+        {
+            this.staleIfErrorMs = unit.toMillis(duration);
+            return this;
+        }
+
+        @Override
+        public RefreshOptions build()
+        {
+            if (this.refreshAheadPercentage <= 0 || this.refreshAheadPercentage > 100
+                || this.jitterPercentage < 0 || this.jitterPercentage >= this.refreshAheadPercentage)
+            {
+                throw new IllegalArgumentException(
+                    "refreshAheadPercentage must be between 1 and 100 and jitterPercentage not negative and below it");
+            }
+            if (this.staleWhileRevalidateMs < 0 || this.staleIfErrorMs < 0)
+            {
+                throw new IllegalArgumentException("stale windows must not be negative");
+            }
+            return new RefreshOptions(this);
+        }
+    }
+}
@@ -1,9 +1,28 @@
 package com.gsma.mobileconnect.r2.discovery;
 
 import com.gsma.mobileconnect.r2.cache.AbstractCacheable;
+import com.gsma.mobileconnect.r2.cache.CacheAccessException;
+import com.gsma.mobileconnect.r2.cache.ICache;
+import com.gsma.mobileconnect.r2.json.DiscoveryResponseData;
+import com.gsma.mobileconnect.r2.utils.StringUtils;
 
+/**
+ * Data held for a login between starting the authorization and handling the redirect.  The session
+ * either holds the discovery response itself or, once stored by reference, only the per-user
+ * fields and the key of the discovery response shared by all sessions of the same operator, from
+ * which the full discovery response is rebuilt on read with {@link #resolve(ICache)}, or from the
+ * discovery response found again for its network with {@link #resolve(DiscoveryResponse)}.
+ */
 public class SessionData extends AbstractCacheable {
+    private static final String SHARED_KEY_PREFIX = "discovery:";
+
     private String nonce;
+    private String state;
+    private String discoveryKey;
+    private String mcc;
+    private String mnc;
+    private String subscriberId;
+    private String subscriberIdToken;
     private DiscoveryResponse discoveryResponse;
 
     public SessionData() {
@@ -11,8 +30,44 @@ public class SessionData extends AbstractCacheable {
     }
 
     public SessionData(DiscoveryResponse discoveryResponse, String nonce) {
+        this(discoveryResponse, null, nonce);
+    }
+
+    public SessionData(DiscoveryResponse discoveryResponse, String state, String nonce) {
         this.nonce = nonce;
+        this.state = state;
         this.discoveryResponse = discoveryResponse;
+        if (discoveryResponse != null) {
+            this.mcc = discoveryResponse.getMcc();
+            this.mnc = discoveryResponse.getMnc();
+        }
+        if (discoveryResponse != null && discoveryResponse.getResponseData() != null) {
+            this.subscriberId = discoveryResponse.getResponseData().getSubscriberId();
+            this.subscriberIdToken = discoveryResponse.getResponseData().getSubscriberIdToken();
+        }
+    }
+
+    /**
+     * Creates a session referring to the shared discovery response stored with the key.
+     */
+    public SessionData(String discoveryKey, String subscriberId, String subscriberIdToken,
+        String state, String nonce) {
+        this(discoveryKey, null, null, subscriberId, subscriberIdToken, state, nonce);
+    }
+
+    /**
+     * Creates a session referring to the shared discovery response stored with the key, which was
+     * discovered for the network of the mcc and mnc.
+     */
+    public SessionData(String discoveryKey, String mcc, String mnc, String subscriberId,
+        String subscriberIdToken, String state, String nonce) {
+        this.discoveryKey = discoveryKey;
+        this.mcc = mcc;
+        this.mnc = mnc;
+        this.subscriberId = subscriberId;
+        this.subscriberIdToken = subscriberIdToken;
+        this.state = state;
+        this.nonce = nonce;
     }
 
     public String getNonce() {
@@ -23,6 +78,44 @@ public class SessionData extends AbstractCacheable {
         this.nonce = nonce;
     }
 
+    public String getState() {
+        return state;
+    }
+
+    /**
+     * @return key of the shared discovery response the session refers to, or null if the session
+     * holds the discovery response itself.
+     */
+    public String getDiscoveryKey() {
+        return discoveryKey;
+    }
+
+    /**
+     * @return Mobile Country Code the discovery response was discovered for, or null if unknown.
+     */
+    public String getMcc() {
+        return mcc;
+    }
+
+    /**
+     * @return Mobile Network Code the discovery response was discovered for, or null if unknown.
+     */
+    public String getMnc() {
+        return mnc;
+    }
+
+    public String getSubscriberId() {
+        return subscriberId;
+    }
+
+    public String getSubscriberIdToken() {
+        return subscriberIdToken;
+    }
+
+    /**
+     * @return the discovery response of the session, which is null for a session stored by
+     * reference until it is resolved.
+     */
     public DiscoveryResponse getDiscoveryResponse() {
         return discoveryResponse;
     }
@@ -30,4 +123,100 @@ public class SessionData extends AbstractCacheable {
     public void setDiscoveryResponse(DiscoveryResponse discoveryResponse) {
         this.discoveryResponse = discoveryResponse;
     }
+
+    /**
+     * The key under which the discovery response is shared between the sessions of the same
+     * operator and application, or null if it cannot be shared.
+     *
+     * @param discoveryResponse to share.
+     * @return key of the shared discovery response.
+     */
+    public static String sharedKeyOf(final DiscoveryResponse discoveryResponse) {
+        if (discoveryResponse == null || discoveryResponse.getOperatorUrls() == null
+            || discoveryResponse.getResponseData() == null
+            || discoveryResponse.getResponseData().getResponse() == null) {
+            return null;
+        }
+        final String authorizationUrl = discoveryResponse.getOperatorUrls().getAuthorizationUrl();
+        final String clientId = discoveryResponse.getResponseData().getResponse().getClientId();
+        if (StringUtils.isNullOrEmpty(authorizationUrl) || StringUtils.isNullOrEmpty(clientId)) {
+            return null;
+        }
+        return String.format("%s%s_%s", SHARED_KEY_PREFIX, clientId, authorizationUrl);
+    }
+
+    /**
+     * The discovery response to share between sessions, without the per-user fields and without a
+     * ttl of its own, so that it is held as long as the sessions referring to it.
+     *
+     * @param discoveryResponse to share.
+     * @return copy of the discovery response without per-user fields.
+     */
+    public static DiscoveryResponse sharedCopyOf(final DiscoveryResponse discoveryResponse) {
+        return new DiscoveryResponse.Builder(discoveryResponse)
+            .withTtl(null)
+            .withResponseData(new DiscoveryResponseData.Builder(discoveryResponse.getResponseData())
+                .withSubscriberId(null)
+                .withSubscriberIdToken(null)
+                .build())
+            .build();
+    }
+
+    /**
+     * @param discoveryKey of the shared discovery response.
+     * @return copy of this session holding only the per-user fields and the reference to the
+     * shared discovery response.
+     */
+    public SessionData referencing(final String discoveryKey) {
+        return new SessionData(discoveryKey, this.mcc, this.mnc, this.subscriberId,
+            this.subscriberIdToken, this.state, this.nonce);
+    }
+
+    /**
+     * Rebuild the full discovery response of a session stored by reference from the shared
+     * discovery response held in the cache.
+     *
+     * @param cache holding the shared discovery response.
+     * @return this session if it holds the discovery response itself, a copy holding the rebuilt
+     * discovery response, or null if the shared discovery response is no longer held.
+     * @throws CacheAccessException if the shared discovery response cannot be read.
+     */
+    public SessionData resolve(final ICache cache) throws CacheAccessException {
+        if (this.discoveryKey == null || this.discoveryResponse != null) {
+            return this;
+        }
+        final DiscoveryResponse shared = cache.get(this.discoveryKey, DiscoveryResponse.class);
+        return shared == null ? null : this.rebuiltWith(shared);
+    }
+
+    /**
+     * Rebuild the full discovery response of a session stored by reference from a discovery
+     * response of its operator found by another means, such as discovering its network again on an
+     * instance which does not hold the shared discovery response.
+     *
+     * @param discoveryResponse of the operator, may be null.
+     * @return this session if it holds the discovery response itself, a copy holding the rebuilt
+     * discovery response, or null if the discovery response is null or is not shared under the key
+     * the session refers to.
+     */
+    public SessionData resolve(final DiscoveryResponse discoveryResponse) {
+        if (this.discoveryKey == null || this.discoveryResponse != null) {
+            return this;
+        }
+        if (!this.discoveryKey.equals(sharedKeyOf(discoveryResponse))) {
+            return null;
+        }
+        return this.rebuiltWith(discoveryResponse);
+    }
+
+    private SessionData rebuiltWith(final DiscoveryResponse shared) {
+        final SessionData session = this.referencing(this.discoveryKey);
+        session.discoveryResponse = new DiscoveryResponse.Builder(shared)
+            .withResponseData(new DiscoveryResponseData.Builder(shared.getResponseData())
+                .withSubscriberId(this.subscriberId)
+                .withSubscriberIdToken(this.subscriberIdToken)
+                .build())
+            .build();
+        return session;
+    }
 }
@@ -18,6 +18,7 @@ package com.gsma.mobileconnect.r2.identity;
 
 import com.gsma.mobileconnect.r2.encoding.IMobileConnectEncodeDecoder;
 import com.gsma.mobileconnect.r2.json.IJsonService;
+import com.gsma.mobileconnect.r2.rest.Deadline;
 import com.gsma.mobileconnect.r2.rest.IRestClient;
 import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
 import com.gsma.mobileconnect.r2.rest.RestAuthentication;
@@ -75,7 +76,7 @@ public class IdentityService implements IIdentityService
     public Future<IdentityResponse> requestInfoAsync(final URI infoUrl, final String accessToken,
         final IMobileConnectEncodeDecoder iMobileConnectEncodeDecoder)
     {
-        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        ExecutorService executorService = Executors.newSingleThreadExecutor(Deadline.propagatingThreadFactory());
         Future<IdentityResponse> identityServiceFuture = executorService.submit(new Callable<IdentityResponse>()
         {
             @Override
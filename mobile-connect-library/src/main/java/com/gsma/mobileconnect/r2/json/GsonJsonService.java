@@ -22,6 +22,8 @@ import com.gsma.mobileconnect.r2.utils.ObjectUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Reader;
+
 /**
  * Implementation of the {@link IJsonService} that uses to perform json serialisation and
  * deserialisation.
@@ -48,6 +50,19 @@ public class GsonJsonService implements IJsonService
         return deserializedObject;
     }
 
+    @Override
+    public <T> T deserialize(final Reader json, final Class<T> clazz)
+        throws JsonDeserializationException
+    {
+        ObjectUtils.requireNonNull(clazz, "clazz");
+
+        if (json == null)
+        {
+            return null;
+        }
+        return gson.fromJson(json, clazz);
+    }
+
     @Override
     //TODO: check class
     public String serialize(final Object object) throws JsonSerializationException
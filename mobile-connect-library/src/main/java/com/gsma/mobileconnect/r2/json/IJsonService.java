@@ -16,6 +16,12 @@
  */
 package com.gsma.mobileconnect.r2.json;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
 /**
  * Defines service that is capable of serialising and deserialising com.gsma.mobileconnect.r2.demo.objects to or from json.
  *
@@ -34,6 +40,58 @@ public interface IJsonService
      */
     <T> T deserialize(final String json, final Class<T> clazz) throws JsonDeserializationException;
 
+    /**
+     * Convert a stream of UTF-8 encoded json to an instance of clazz.  The stream is not closed.
+     *
+     * @param json  to convert.
+     * @param clazz to instantiate.
+     * @param <T>   type of clazz.
+     * @return instance of clazz.
+     * @throws JsonDeserializationException on failure to deserialise.
+     */
+    default <T> T deserialize(final InputStream json, final Class<T> clazz)
+        throws JsonDeserializationException
+    {
+        return this.deserialize(
+            json == null ? null : new InputStreamReader(json, StandardCharsets.UTF_8), clazz);
+    }
+
+    /**
+     * Convert json read from a reader, which has already decoded the content with its charset, to
+     * an instance of clazz.  The reader is not closed.
+     * <p>
+     * By default the reader is read into a String which is then deserialised; implementations
+     * able to parse directly from the reader should override this.
+     *
+     * @param json  to convert.
+     * @param clazz to instantiate.
+     * @param <T>   type of clazz.
+     * @return instance of clazz.
+     * @throws JsonDeserializationException on failure to deserialise.
+     */
+    default <T> T deserialize(final Reader json, final Class<T> clazz)
+        throws JsonDeserializationException
+    {
+        if (json == null)
+        {
+            return null;
+        }
+        final StringBuilder content = new StringBuilder();
+        final char[] buffer = new char[4096];
+        try
+        {
+            for (int read = json.read(buffer); read != -1; read = json.read(buffer))
+            {
+                content.append(buffer, 0, read);
+            }
+        }
+        catch (final IOException e)
+        {
+            throw new JsonDeserializationException(clazz, null, e);
+        }
+        return this.deserialize(content.toString(), clazz);
+    }
+
     /**
      * Convert an object to a representation in Json.
      *
@@ -0,0 +1,503 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import com.gsma.mobileconnect.r2.constants.DefaultOptions;
+import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
+import com.gsma.mobileconnect.r2.json.IJsonService;
+import com.gsma.mobileconnect.r2.json.JsonSerializationException;
+import com.gsma.mobileconnect.r2.rest.internal.RestRequestFactory;
+import com.gsma.mobileconnect.r2.rest.internal.RestResponseHandler;
+import com.gsma.mobileconnect.r2.rest.internal.RestSupport;
+import com.gsma.mobileconnect.r2.utils.*;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.LaxRedirectStrategy;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.nio.client.methods.HttpAsyncMethods;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Concrete implementation of {@link IAsyncRestClient} backed by the Apache HttpAsyncClient NIO
+ * event loop.  A request occupies no thread while it is in flight, so a large number of
+ * concurrent operator calls is served by the handful of I/O dispatcher threads of the client.
+ * <p>
+ * Returned futures are completed on an I/O dispatcher thread; dependent stages that block should
+ * be attached with the {@code *Async} variants of {@link CompletableFuture} and an executor of
+ * their own.
+ */
+public class AsyncRestClient implements IAsyncRestClient, Closeable
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncRestClient.class);
+
+    private final IJsonService jsonService;
+    private final CloseableHttpAsyncClient httpAsyncClient;
+    private final boolean ownsHttpAsyncClient;
+    private final long timeout;
+    private final long maxBodySize;
+    private final ScheduledExecutorService timeoutScheduler;
+    private final RestRequestFactory requestFactory;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final TransferStatistics transferStatistics = new TransferStatistics();
+
+    private AsyncRestClient(final Builder builder)
+    {
+        this.jsonService = builder.jsonService;
+        this.httpAsyncClient = builder.httpAsyncClient;
+        this.ownsHttpAsyncClient = builder.ownsHttpAsyncClient;
+        this.timeout = builder.timeout;
+        this.maxBodySize = builder.maxBodySize;
+        this.timeoutScheduler = builder.scheduledExecutorService;
+        this.requestFactory = new RestRequestFactory(this.timeout, builder.compression);
+
+        if (!this.httpAsyncClient.isRunning())
+        {
+            this.httpAsyncClient.start();
+        }
+
+        LOGGER.info("New instance of AsyncRestClient created with timeout={} ms", this.timeout);
+    }
+
+    @Override
+    public CompletableFuture<RestResponse> get(final URI uri, final RestAuthentication authentication,
+        final String xRedirect, final String sourceIp, final List<KeyValuePair> queryParams,
+        final Iterable<KeyValuePair> cookies)
+    {
+        LOGGER.debug("Getting from uri={} for sourceIp={}",
+            LogUtils.maskUri(uri, LOGGER, Level.DEBUG), sourceIp);
+
+        try
+        {
+            return this.execute(this.requestFactory
+                .createRequest(HttpUtils.HttpMethod.GET,
+                    RestRequestFactory.withQueryParams(uri, queryParams), xRedirect,
+                    authentication, sourceIp, cookies)
+                .build());
+        }
+        catch (final URISyntaxException use)
+        {
+            LOGGER.warn("Failed to construct uri for GET request; baseUri={}",
+                LogUtils.maskUri(uri, LOGGER, Level.WARN), use);
+            return failed(new RequestFailedException(HttpUtils.HttpMethod.GET, uri, use));
+        }
+    }
+
+    @Override
+    public CompletableFuture<RestResponse> getDiscovery(final URI uri,
+        final RestAuthentication authentication, final String xRedirect, final String sourceIp,
+        final String clientSideVersion, final String serverSideVersion,
+        final List<KeyValuePair> queryParams, final Iterable<KeyValuePair> cookies)
+    {
+        LOGGER.debug("Getting from uri={} for sourceIp={}",
+            LogUtils.maskUri(uri, LOGGER, Level.DEBUG), sourceIp);
+
+        try
+        {
+            return this.execute(this.requestFactory
+                .createDiscoveryRequest(HttpUtils.HttpMethod.GET,
+                    RestRequestFactory.withQueryParams(uri, queryParams), xRedirect,
+                    authentication, sourceIp, clientSideVersion, serverSideVersion, cookies)
+                .build());
+        }
+        catch (final URISyntaxException use)
+        {
+            LOGGER.warn("Failed to construct uri for GET request; baseUri={}",
+                LogUtils.maskUri(uri, LOGGER, Level.WARN), use);
+            return failed(new RequestFailedException(HttpUtils.HttpMethod.GET, uri, use));
+        }
+    }
+
+    @Override
+    public CompletableFuture<RestResponse> postDiscoveryFormData(final URI uri,
+        final RestAuthentication authentication, final String xRedirect,
+        final List<KeyValuePair> formData, final String sourceIp, final String clientSideVersion,
+        final String serverSideVersion, final Iterable<KeyValuePair> cookies)
+    {
+        LOGGER.debug("Posting form data to uri={} for sourceIp={}",
+            LogUtils.maskUri(uri, LOGGER, Level.DEBUG), sourceIp);
+
+        return this.execute(this.requestFactory
+            .createDiscoveryRequest(HttpUtils.HttpMethod.POST, uri, xRedirect, authentication,
+                sourceIp, clientSideVersion, serverSideVersion, cookies)
+            .addParameters(
+                ObjectUtils.requireNonNull(formData, "formData").toArray(new NameValuePair[] {}))
+            .build());
+    }
+
+    @Override
+    public CompletableFuture<RestResponse> postFormData(final URI uri,
+        final RestAuthentication authentication, final String xRedirect,
+        final List<KeyValuePair> formData, final String sourceIp,
+        final Iterable<KeyValuePair> cookies)
+    {
+        LOGGER.debug("Posting form data to uri={} for sourceIp={}",
+            LogUtils.maskUri(uri, LOGGER, Level.DEBUG), sourceIp);
+
+        return this.execute(this.requestFactory
+            .createRequest(HttpUtils.HttpMethod.POST, uri, xRedirect, authentication, sourceIp,
+                cookies)
+            .addParameters(
+                ObjectUtils.requireNonNull(formData, "formData").toArray(new NameValuePair[] {}))
+            .build());
+    }
+
+    @Override
+    public CompletableFuture<RestResponse> postJsonContent(final URI uri,
+        final RestAuthentication authentication, final Object content, final String sourceIp,
+        final Iterable<KeyValuePair> cookies)
+    {
+        LOGGER.debug("Posting json content to uri={} for sourceIp={}",
+            LogUtils.maskUri(uri, LOGGER, Level.DEBUG), sourceIp);
+
+        try
+        {
+            return this.execute(this.requestFactory
+                .createRequest(HttpUtils.HttpMethod.POST, uri, authentication, sourceIp, cookies)
+                .setEntity(new StringEntity(this.jsonService.serialize(content),
+                    ContentType.APPLICATION_JSON.withCharset("UTF-8")))
+                .build());
+        }
+        catch (final JsonSerializationException jse)
+        {
+            LOGGER.warn("Failed to serialize content for post to uri={}",
+                LogUtils.maskUri(uri, LOGGER, Level.WARN), jse);
+            return failed(new RequestFailedException(HttpUtils.HttpMethod.POST, uri, jse));
+        }
+    }
+
+    /**
+     * Issues a request on the event loop.  A task is scheduled on the timeout scheduler which
+     * cancels the exchange once the configured timeout has elapsed, completing the returned future
+     * with a {@link RequestFailedException} caused by a {@link TimeoutException}.  Cancelling the
+     * returned future cancels the exchange.
+     *
+     * @param request to be run.
+     * @return future RestResponse.
+     */
+    public CompletableFuture<RestResponse> execute(final HttpUriRequest request)
+    {
+        ObjectUtils.requireNonNull(request, "request");
+
+        if (!request.containsHeader(HttpHeaders.ACCEPT))
+        {
+            request.addHeader(HttpHeaders.ACCEPT, ContentType.APPLICATION_JSON.getMimeType());
+        }
+        LOGGER.debug("Issuing httpMethod={} request to uri={}", request.getMethod(),
+            LogUtils.maskUri(request.getURI(), LOGGER, Level.DEBUG));
+
+        final CompletableFuture<RestResponse> result = new CompletableFuture<RestResponse>();
+        final AtomicBoolean expired = new AtomicBoolean();
+        this.inFlight.incrementAndGet();
+
+        final Future<HttpResponse> exchange = this.httpAsyncClient.execute(
+            HttpAsyncMethods.create(request),
+            new BoundedResponseConsumer(request.getMethod(), request.getURI(), this.maxBodySize),
+            new ExchangeCallback(request, result, expired));
+
+        final Future<?> timeoutFuture = this.timeoutScheduler.schedule(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                expired.set(true);
+                exchange.cancel(true);
+            }
+        }, this.timeout, TimeUnit.MILLISECONDS);
+
+        result.whenComplete(new ExchangeCompletion(exchange, timeoutFuture));
+        return result;
+    }
+
+    /**
+     * @return number of requests currently in flight.
+     */
+    public int getInFlightCount()
+    {
+        return this.inFlight.get();
+    }
+
+    /**
+     * @return number of requests cancelled because they timed out.
+     */
+    public long getTimedOutCount()
+    {
+        return this.timedOut.get();
+    }
+
+    /**
+     * @return counters of the response bytes received on the wire and after decoding.
+     */
+    public TransferStatistics getTransferStatistics()
+    {
+        return this.transferStatistics;
+    }
+
+    /**
+     * Shuts down the event loop if it was created by this client.  An async http client supplied
+     * to the builder is left running.
+     *
+     * @throws IOException if the event loop fails to shut down.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if (this.ownsHttpAsyncClient)
+        {
+            this.httpAsyncClient.close();
+        }
+    }
+
+    private static CompletableFuture<RestResponse> failed(final RequestFailedException rfe)
+    {
+        final CompletableFuture<RestResponse> future = new CompletableFuture<RestResponse>();
+        future.completeExceptionally(rfe);
+        return future;
+    }
+
+    /**
+     * Converts the outcome of an exchange into the completion of the future returned to the
+     * caller.
+     */
+    private final class ExchangeCallback implements FutureCallback<HttpResponse>
+    {
+        private final HttpUriRequest request;
+        private final CompletableFuture<RestResponse> result;
+        private final AtomicBoolean expired;
+
+        ExchangeCallback(final HttpUriRequest request, final CompletableFuture<RestResponse> result,
+            final AtomicBoolean expired)
+        {
+            this.request = request;
+            this.result = result;
+            this.expired = expired;
+        }
+
+        @Override
+        public void completed(final HttpResponse httpResponse)
+        {
+            try
+            {
+                this.result.complete(
+                    new RestResponseHandler(this.request.getMethod(),
+                        this.request.getURI(), null, AsyncRestClient.this.maxBodySize,
+                        AsyncRestClient.this.transferStatistics).handleResponse(httpResponse));
+            }
+            catch (final Exception e)
+            {
+                this.failed(e);
+            }
+        }
+
+        @Override
+        public void failed(final Exception e)
+        {
+            LOGGER.warn("Failed to perform httpMethod={} to uri={}", this.request.getMethod(),
+                LogUtils.maskUri(this.request.getURI(), LOGGER, Level.WARN), e);
+
+            this.result.completeExceptionally(
+                new RequestFailedException(this.request.getMethod(), this.request.getURI(), e));
+        }
+
+        @Override
+        public void cancelled()
+        {
+            if (this.expired.get())
+            {
+                LOGGER.warn("Failed to perform httpMethod={} to uri={}; timed out, timeout={} ms",
+                    this.request.getMethod(),
+                    LogUtils.maskUri(this.request.getURI(), LOGGER, Level.WARN),
+                    AsyncRestClient.this.timeout);
+
+                AsyncRestClient.this.timedOut.incrementAndGet();
+                this.result.completeExceptionally(
+                    new RequestFailedException(this.request.getMethod(), this.request.getURI(),
+                        new TimeoutException(String.format("HTTP %s request was aborted after %s ms",
+                            this.request.getMethod(), AsyncRestClient.this.timeout))));
+            }
+            else
+            {
+                this.result.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Releases the timeout task once the future returned to the caller completes, and propagates
+     * cancellation by the caller to the exchange.
+     */
+    private final class ExchangeCompletion implements BiConsumer<RestResponse, Throwable>
+    {
+        private final Future<HttpResponse> exchange;
+        private final Future<?> timeoutFuture;
+
+        ExchangeCompletion(final Future<HttpResponse> exchange, final Future<?> timeoutFuture)
+        {
+            this.exchange = exchange;
+            this.timeoutFuture = timeoutFuture;
+        }
+
+        @Override
+        public void accept(final RestResponse response, final Throwable throwable)
+        {
+            AsyncRestClient.this.inFlight.decrementAndGet();
+            this.timeoutFuture.cancel(false);
+            if (throwable instanceof CancellationException)
+            {
+                this.exchange.cancel(true);
+            }
+        }
+    }
+
+    public static final class Builder implements IBuilder<AsyncRestClient>
+    {
+        private IJsonService jsonService;
+        private CloseableHttpAsyncClient httpAsyncClient;
+        private boolean ownsHttpAsyncClient;
+        private long timeout = DefaultOptions.TIMEOUT_MS;
+        private long maxBodySize = DefaultOptions.MAX_RESPONSE_BODY_BYTES;
+        private boolean compression = true;
+        private ScheduledExecutorService scheduledExecutorService;
+        private ConnectionPoolOptions connectionPoolOptions;
+
+        public Builder withJsonService(final IJsonService val)
+        {
+            this.jsonService = val;
+            return this;
+        }
+
+        /**
+         * Specify the async http client to issue requests through.  If it has not been started it
+         * is started when the rest client is built.  If not specified an async http client is
+         * created from the connection pool options.
+         *
+         * @param val async http client to be used.
+         * @return builder to continue further configuration.
+         */
+        public Builder withHttpAsyncClient(final CloseableHttpAsyncClient val)
+        {
+            this.httpAsyncClient = val;
+            return this;
+        }
+
+        public Builder withTimeout(final long duration, final TimeUnit unit)
+        {
+            this.timeout = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Specify whether to request gzip compressed responses with Accept-Encoding; compressed
+         * responses are inflated by the rest client.  Enabled by default.
+         *
+         * @param val true to request compressed responses.
+         * @return builder to continue further configuration.
+         */
+        public Builder withCompression(final boolean val)
+        {
+            this.compression = val;
+            return this;
+        }
+
+        /**
+         * Specify the maximum size of a response body; a larger response fails with a {@link
+         * ResponseTooLargeException}.  Defaults to {@link DefaultOptions#MAX_RESPONSE_BODY_BYTES}.
+         *
+         * @param val maximum number of bytes.
+         * @return builder to continue further configuration.
+         */
+        public Builder withMaxResponseBodySize(final long val)
+        {
+            this.maxBodySize = val;
+            return this;
+        }
+
+        /**
+         * Specify the scheduler used to enforce request timeouts.  If not specified the daemon
+         * thread shared by all rest clients is used.
+         *
+         * @param val scheduler to be used.
+         * @return builder to continue further configuration.
+         */
+        public Builder withScheduledExecutorService(final ScheduledExecutorService val)
+        {
+            this.scheduledExecutorService = val;
+            return this;
+        }
+
+        /**
+         * Specify the connection limits and keep-alive of the async http client created by the
+         * builder.  Ignored if an async http client is specified.
+         *
+         * @param val pool settings.
+         * @return builder to continue further configuration.
+         */
+        public Builder withConnectionPool(final ConnectionPoolOptions val)
+        {
+            this.connectionPoolOptions = val;
+            return this;
+        }
+
+        @Override
+        public AsyncRestClient build()
+        {
+            ObjectUtils.requireNonNull(this.jsonService, "jsonService");
+            if (this.httpAsyncClient == null)
+            {
+                final ConnectionPoolOptions options = this.connectionPoolOptions == null
+                    ? new ConnectionPoolOptions.Builder().build()
+                    : this.connectionPoolOptions;
+
+                this.httpAsyncClient = HttpAsyncClients
+                    .custom()
+                    .setMaxConnTotal(options.getMaxTotal())
+                    .setMaxConnPerRoute(options.getMaxPerRoute())
+                    .setKeepAliveStrategy(
+                        new ConnectionPool.BoundedKeepAliveStrategy(options.getKeepAliveMs()))
+                    .setRedirectStrategy(new LaxRedirectStrategy())
+                    .build();
+                this.ownsHttpAsyncClient = true;
+            }
+            if (this.scheduledExecutorService == null)
+            {
+                this.scheduledExecutorService = RestSupport.defaultTimeoutScheduler();
+            }
+
+            return new AsyncRestClient(this);
+        }
+    }
+}
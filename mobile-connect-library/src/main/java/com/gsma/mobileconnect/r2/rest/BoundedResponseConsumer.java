@@ -0,0 +1,100 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.entity.ContentBufferEntity;
+import org.apache.http.nio.protocol.AbstractAsyncResponseConsumer;
+import org.apache.http.nio.util.HeapByteBufferAllocator;
+import org.apache.http.nio.util.SimpleInputBuffer;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * Buffers a response body received on the event loop, failing the exchange as soon as more than
+ * the maximum body size has been received.
+ */
+class BoundedResponseConsumer extends AbstractAsyncResponseConsumer<HttpResponse>
+{
+    private static final int DEFAULT_BUFFER_SIZE = 4096;
+
+    private final String method;
+    private final URI uri;
+    private final long maxBodySize;
+
+    private volatile HttpResponse response;
+    private volatile SimpleInputBuffer buffer;
+
+    BoundedResponseConsumer(final String method, final URI uri, final long maxBodySize)
+    {
+        this.method = method;
+        this.uri = uri;
+        this.maxBodySize = maxBodySize;
+    }
+
+    @Override
+    protected void onResponseReceived(final HttpResponse response)
+    {
+        this.response = response;
+    }
+
+    @Override
+    protected void onEntityEnclosed(final HttpEntity entity, final ContentType contentType)
+        throws IOException
+    {
+        final long contentLength = entity.getContentLength();
+        if (contentLength > this.maxBodySize)
+        {
+            throw new ResponseTooLargeException(this.method, this.uri, this.maxBodySize);
+        }
+
+        this.buffer = new SimpleInputBuffer(
+            contentLength < 0 ? DEFAULT_BUFFER_SIZE : (int) contentLength,
+            new HeapByteBufferAllocator());
+        this.response.setEntity(new ContentBufferEntity(entity, this.buffer));
+    }
+
+    @Override
+    protected void onContentReceived(final ContentDecoder decoder, final IOControl ioControl)
+        throws IOException
+    {
+        this.buffer.consumeContent(decoder);
+        if (this.buffer.length() > this.maxBodySize)
+        {
+            throw new ResponseTooLargeException(this.method, this.uri, this.maxBodySize);
+        }
+    }
+
+    @Override
+    protected HttpResponse buildResult(final HttpContext context)
+    {
+        return this.response;
+    }
+
+    @Override
+    protected void releaseResources()
+    {
+        this.response = null;
+        this.buffer = null;
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker guarding the calls to a single operator host.
+ * <p>
+ * While CLOSED every call is let through and its outcome recorded in a rolling window of
+ * {@value #BUCKETS} buckets.  Once the window holds at least the minimum number of calls and the
+ * failure rate reaches the threshold the circuit OPENS and calls are rejected without touching the
+ * network.  After the open duration the circuit becomes HALF_OPEN and lets a limited number of
+ * trial calls through; if all succeed it closes, if any fails it opens again.
+ */
+public class CircuitBreaker
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreaker.class);
+    private static final int BUCKETS = 10;
+
+    /**
+     * State of a circuit breaker.
+     */
+    public enum State
+    {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String host;
+    private final CircuitBreakerOptions options;
+    private final long bucketMs;
+    private final long[] bucketEpochs = new long[BUCKETS];
+    private final int[] bucketSuccesses = new int[BUCKETS];
+    private final int[] bucketFailures = new int[BUCKETS];
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int trialsPermitted;
+    private int trialsSucceeded;
+    private long rejected;
+
+    CircuitBreaker(final String host, final CircuitBreakerOptions options)
+    {
+        this.host = host;
+        this.options = options;
+        this.bucketMs = Math.max(1L, options.getWindowMs() / BUCKETS);
+        this.resetWindow();
+    }
+
+    private static long now()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    /**
+     * Request permission to issue a call.
+     *
+     * @return true if the call may proceed, false if it must be rejected.
+     */
+    synchronized boolean tryAcquire()
+    {
+        if (this.state == State.OPEN && now() - this.openedAt >= this.options.getOpenMs())
+        {
+            LOGGER.info("Circuit for host={} is half-open, letting trial calls through", this.host);
+            this.state = State.HALF_OPEN;
+            this.trialsPermitted = 0;
+            this.trialsSucceeded = 0;
+        }
+
+        switch (this.state)
+        {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                if (this.trialsPermitted < this.options.getHalfOpenCalls())
+                {
+                    this.trialsPermitted++;
+                    return true;
+                }
+                this.rejected++;
+                return false;
+            default:
+                this.rejected++;
+                return false;
+        }
+    }
+
+    /**
+     * Record a successful call.
+     */
+    synchronized void onSuccess()
+    {
+        if (this.state == State.HALF_OPEN)
+        {
+            if (++this.trialsSucceeded >= this.options.getHalfOpenCalls())
+            {
+                LOGGER.info("Circuit for host={} closed after successful trial calls", this.host);
+                this.state = State.CLOSED;
+                this.resetWindow();
+            }
+        }
+        else if (this.state == State.CLOSED)
+        {
+            this.bucketSuccesses[this.currentBucket()]++;
+        }
+    }
+
+    /**
+     * Record a failed call.
+     */
+    synchronized void onFailure()
+    {
+        if (this.state == State.HALF_OPEN)
+        {
+            this.open();
+        }
+        else if (this.state == State.CLOSED)
+        {
+            this.bucketFailures[this.currentBucket()]++;
+
+            final int[] counts = this.windowCounts();
+            final int calls = counts[0] + counts[1];
+            if (calls >= this.options.getMinimumCalls()
+                && counts[1] * 100 >= this.options.getFailureRateThreshold() * calls)
+            {
+                this.open();
+            }
+        }
+    }
+
+    /**
+     * Record a call which was permitted but cancelled before its outcome was known, returning its
+     * trial permit if half-open.
+     */
+    synchronized void onIgnored()
+    {
+        if (this.state == State.HALF_OPEN && this.trialsPermitted > this.trialsSucceeded)
+        {
+            this.trialsPermitted--;
+        }
+    }
+
+    private void open()
+    {
+        LOGGER.warn("Circuit for host={} opened, rejecting calls for {} ms", this.host,
+            this.options.getOpenMs());
+        this.state = State.OPEN;
+        this.openedAt = now();
+        this.resetWindow();
+    }
+
+    private int currentBucket()
+    {
+        // nanoTime, and so the epoch, may be negative
+        final long epoch = Math.floorDiv(now(), this.bucketMs);
+        final int index = (int) Math.floorMod(epoch, (long) BUCKETS);
+        if (this.bucketEpochs[index] != epoch)
+        {
+            this.bucketEpochs[index] = epoch;
+            this.bucketSuccesses[index] = 0;
+            this.bucketFailures[index] = 0;
+        }
+        return index;
+    }
+
+    /**
+     * @return number of successful and failed calls within the window.
+     */
+    private int[] windowCounts()
+    {
+        final long oldest = Math.floorDiv(now(), this.bucketMs) - BUCKETS;
+        final int[] counts = new int[2];
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            if (this.bucketEpochs[i] > oldest)
+            {
+                counts[0] += this.bucketSuccesses[i];
+                counts[1] += this.bucketFailures[i];
+            }
+        }
+        return counts;
+    }
+
+    private void resetWindow()
+    {
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            this.bucketEpochs[i] = Long.MIN_VALUE;
+            this.bucketSuccesses[i] = 0;
+            this.bucketFailures[i] = 0;
+        }
+    }
+
+    /**
+     * @return the operator host guarded by this circuit.
+     */
+    public String getHost()
+    {
+        return this.host;
+    }
+
+    /**
+     * @return the current state; an open circuit whose open duration has elapsed is reported as
+     * open until the next call is attempted.
+     */
+    public synchronized State getState()
+    {
+        return this.state;
+    }
+
+    /**
+     * @return percentage of failed calls within the current window, 0 if there were none.
+     */
+    public synchronized int getFailureRate()
+    {
+        final int[] counts = this.windowCounts();
+        final int calls = counts[0] + counts[1];
+        return calls == 0 ? 0 : counts[1] * 100 / calls;
+    }
+
+    /**
+     * @return number of calls rejected without being issued.
+     */
+    public synchronized long getRejectedCount()
+    {
+        return this.rejected;
+    }
+
+    /**
+     * @return milliseconds until an open circuit lets trial calls through, 0 if not open.
+     */
+    public synchronized long getRemainingOpenMs()
+    {
+        return this.state == State.OPEN
+               ? Math.max(0L, this.openedAt + this.options.getOpenMs() - now())
+               : 0L;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import com.gsma.mobileconnect.r2.constants.DefaultOptions;
+import com.gsma.mobileconnect.r2.utils.IBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Settings for the per operator host circuit breakers of {@link RestClient}.
+ *
+ * @see CircuitBreaker
+ */
+public class CircuitBreakerOptions
+{
+    private final int failureRateThreshold;
+    private final int minimumCalls;
+    private final long windowMs;
+    private final long openMs;
+    private final int halfOpenCalls;
+
+    private CircuitBreakerOptions(final Builder builder)
+    {
+        this.failureRateThreshold = builder.failureRateThreshold;
+        this.minimumCalls = builder.minimumCalls;
+        this.windowMs = builder.windowMs;
+        this.openMs = builder.openMs;
+        this.halfOpenCalls = builder.halfOpenCalls;
+    }
+
+    /**
+     * @return percentage of failed calls within the window at which a circuit opens.
+     */
+    public int getFailureRateThreshold()
+    {
+        return this.failureRateThreshold;
+    }
+
+    /**
+     * @return number of calls required within the window before the failure rate is evaluated.
+     */
+    public int getMinimumCalls()
+    {
+        return this.minimumCalls;
+    }
+
+    /**
+     * @return length of the rolling window over which the failure rate is calculated.
+     */
+    public long getWindowMs()
+    {
+        return this.windowMs;
+    }
+
+    /**
+     * @return time an open circuit rejects calls before letting trial calls through.
+     */
+    public long getOpenMs()
+    {
+        return this.openMs;
+    }
+
+    /**
+     * @return number of trial calls that must succeed while half-open for the circuit to close.
+     */
+    public int getHalfOpenCalls()
+    {
+        return this.halfOpenCalls;
+    }
+
+    public static final class Builder implements IBuilder<CircuitBreakerOptions>
+    {
+        private int failureRateThreshold = DefaultOptions.CIRCUIT_FAILURE_RATE_THRESHOLD;
+        private int minimumCalls = DefaultOptions.CIRCUIT_MINIMUM_CALLS;
+        private long windowMs = DefaultOptions.CIRCUIT_WINDOW_MS;
+        private long openMs = DefaultOptions.CIRCUIT_OPEN_MS;
+        private int halfOpenCalls = DefaultOptions.CIRCUIT_HALF_OPEN_CALLS;
+
+        public Builder withFailureRateThreshold(final int percentage)
+        {
+            this.failureRateThreshold = percentage;
+            return this;
+        }
+
+        public Builder withMinimumCalls(final int val)
+        {
+            this.minimumCalls = val;
+            return this;
+        }
+
+        public Builder withWindow(final long duration, final TimeUnit unit)
+        {
+            this.windowMs = unit.toMillis(duration);
+            return this;
+        }
+
+        public Builder withOpenDuration(final long duration, final TimeUnit unit)
+        {
+            this.openMs = unit.toMillis(duration);
+            return this;
+        }
+
+        public Builder withHalfOpenCalls(final int val)
+        {
+            this.halfOpenCalls = val;
+            return this;
+        }
+
+        @Override
+        public CircuitBreakerOptions build()
+        {
+            if (this.failureRateThreshold <= 0 || this.failureRateThreshold > 100)
+            {
+                throw new IllegalArgumentException("failureRateThreshold must be between 1 and 100");
+            }
+            if (this.minimumCalls <= 0 || this.halfOpenCalls <= 0 || this.windowMs <= 0
+                || this.openMs <= 0)
+            {
+                throw new IllegalArgumentException(
+                    "minimumCalls, halfOpenCalls, window and open duration must be positive");
+            }
+            return new CircuitBreakerOptions(this);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import java.net.URI;
+
+/**
+ * Exception given as the cause of a {@link com.gsma.mobileconnect.r2.exceptions.RequestFailedException}
+ * when a request is rejected without being issued because the circuit for the operator host is
+ * open.
+ */
+public class CircuitOpenException extends Exception
+{
+    private final String host;
+    private final CircuitBreaker.State state;
+    private final long remainingOpenMs;
+
+    /**
+     * Create a new circuit open exception.
+     *
+     * @param uri             of the rejected request.
+     * @param circuitBreaker  that rejected the request.
+     */
+    public CircuitOpenException(final URI uri, final CircuitBreaker circuitBreaker)
+    {
+        super(String.format("Circuit for host %s is %s, request to %s was not issued",
+            circuitBreaker.getHost(), circuitBreaker.getState(), uri));
+        this.host = circuitBreaker.getHost();
+        this.state = circuitBreaker.getState();
+        this.remainingOpenMs = circuitBreaker.getRemainingOpenMs();
+    }
+
+    /**
+     * @return the operator host whose circuit is open.
+     */
+    public String getHost()
+    {
+        return this.host;
+    }
+
+    /**
+     * @return state of the circuit when the request was rejected.
+     */
+    public CircuitBreaker.State getState()
+    {
+        return this.state;
+    }
+
+    /**
+     * @return milliseconds until the circuit lets trial calls through.
+     */
+    public long getRemainingOpenMs()
+    {
+        return this.remainingOpenMs;
+    }
+}
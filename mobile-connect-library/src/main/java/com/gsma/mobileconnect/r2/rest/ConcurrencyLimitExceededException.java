@@ -0,0 +1,60 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import java.net.URI;
+
+/**
+ * Exception given as the cause of a {@link com.gsma.mobileconnect.r2.exceptions.RequestFailedException}
+ * when a request is rejected without being issued because the concurrency limit for the operator
+ * host was reached and no permit became available in time.
+ */
+public class ConcurrencyLimitExceededException extends Exception
+{
+    private final String host;
+    private final int limit;
+
+    /**
+     * Create a new concurrency limit exceeded exception.
+     *
+     * @param uri     of the rejected request.
+     * @param limiter that rejected the request.
+     */
+    public ConcurrencyLimitExceededException(final URI uri, final ConcurrencyLimiter limiter)
+    {
+        super(String.format("Concurrency limit %d for host %s reached, request to %s was not issued",
+            limiter.getLimit(), limiter.getHost(), uri));
+        this.host = limiter.getHost();
+        this.limit = limiter.getLimit();
+    }
+
+    /**
+     * @return the operator host whose limit was reached.
+     */
+    public String getHost()
+    {
+        return this.host;
+    }
+
+    /**
+     * @return the limit when the request was rejected.
+     */
+    public int getLimit()
+    {
+        return this.limit;
+    }
+}
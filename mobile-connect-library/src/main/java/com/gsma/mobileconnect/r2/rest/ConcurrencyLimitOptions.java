@@ -0,0 +1,167 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import com.gsma.mobileconnect.r2.constants.DefaultOptions;
+import com.gsma.mobileconnect.r2.utils.IBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Settings for the per operator host concurrency limiters of {@link RestClient}.
+ *
+ * @see ConcurrencyLimiter
+ */
+public class ConcurrencyLimitOptions
+{
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdMs;
+    private final double backoffRatio;
+    private final long maxWaitMs;
+
+    private ConcurrencyLimitOptions(final Builder builder)
+    {
+        this.initialLimit = builder.initialLimit;
+        this.minLimit = builder.minLimit;
+        this.maxLimit = builder.maxLimit;
+        this.latencyThresholdMs = builder.latencyThresholdMs;
+        this.backoffRatio = builder.backoffRatio;
+        this.maxWaitMs = builder.maxWaitMs;
+    }
+
+    /**
+     * @return number of concurrent requests permitted to a host before any have completed.
+     */
+    public int getInitialLimit()
+    {
+        return this.initialLimit;
+    }
+
+    /**
+     * @return lowest the limit can be decreased to.
+     */
+    public int getMinLimit()
+    {
+        return this.minLimit;
+    }
+
+    /**
+     * @return highest the limit can be increased to.
+     */
+    public int getMaxLimit()
+    {
+        return this.maxLimit;
+    }
+
+    /**
+     * @return latency above which a request is taken as a sign of overload.
+     */
+    public long getLatencyThresholdMs()
+    {
+        return this.latencyThresholdMs;
+    }
+
+    /**
+     * @return factor the limit is multiplied by on overload.
+     */
+    public double getBackoffRatio()
+    {
+        return this.backoffRatio;
+    }
+
+    /**
+     * @return longest a request waits for a permit before being rejected.
+     */
+    public long getMaxWaitMs()
+    {
+        return this.maxWaitMs;
+    }
+
+    public static final class Builder implements IBuilder<ConcurrencyLimitOptions>
+    {
+        private int initialLimit = DefaultOptions.CONCURRENCY_INITIAL_LIMIT;
+        private int minLimit = DefaultOptions.CONCURRENCY_MIN_LIMIT;
+        private int maxLimit = DefaultOptions.CONCURRENCY_MAX_LIMIT;
+        private long latencyThresholdMs = DefaultOptions.CONCURRENCY_LATENCY_THRESHOLD_MS;
+        private double backoffRatio = DefaultOptions.CONCURRENCY_BACKOFF_RATIO;
+        private long maxWaitMs = DefaultOptions.CONCURRENCY_MAX_WAIT_MS;
+
+        public Builder withInitialLimit(final int val)
+        {
+            this.initialLimit = val;
+            return this;
+        }
+
+        public Builder withMinLimit(final int val)
+        {
+            this.minLimit = val;
+            return this;
+        }
+
+        public Builder withMaxLimit(final int val)
+        {
+            this.maxLimit = val;
+            return this;
+        }
+
+        public Builder withLatencyThreshold(final long duration, final TimeUnit unit)
+        {
+            this.latencyThresholdMs = unit.toMillis(duration);
+            return this;
+        }
+
+        public Builder withBackoffRatio(final double val)
+        {
+            this.backoffRatio = val;
+            return this;
+        }
+
+        /**
+         * Specify how long a request waits for a permit when the limit is reached; zero rejects
+         * excess requests immediately.
+         *
+         * @param duration the number of units.
+         * @param unit     the unit of the duration.
+         * @return builder to continue further configuration.
+         */
+        public Builder withMaxWait(final long duration, final TimeUnit unit)
+        {
+            this.maxWaitMs = unit.toMillis(duration);
+            return this;
+        }
+
+        @Override
+        public ConcurrencyLimitOptions build()
+        {
+            if (this.minLimit <= 0 || this.minLimit > this.maxLimit
+                || this.initialLimit < this.minLimit || this.initialLimit > this.maxLimit)
+            {
+                throw new IllegalArgumentException(
+                    "limits must be positive with minLimit <= initialLimit <= maxLimit");
+            }
+            if (this.backoffRatio <= 0.0 || this.backoffRatio >= 1.0 || this.latencyThresholdMs <= 0
+                || this.maxWaitMs < 0)
+            {
+                throw new IllegalArgumentException(
+                    "backoffRatio must be between 0 and 1, latency threshold positive and max wait not negative");
+            }
+            return new ConcurrencyLimitOptions(this);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the number of concurrent requests to a single operator host, adapting the limit to the
+ * latency observed by additive increase, multiplicative decrease (AIMD).
+ * <p>
+ * Every request completing within the latency threshold while the limit is in use raises the limit
+ * by one over the current limit, so that it grows by about one for each limit's worth of requests.
+ * A request exceeding the threshold, or failing, multiplies the limit by the backoff ratio.
+ * Requests over the limit wait up to the maximum wait for a permit and are then rejected.
+ */
+public class ConcurrencyLimiter
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConcurrencyLimiter.class);
+
+    private final String host;
+    private final ConcurrencyLimitOptions options;
+
+    private double limit;
+    private int inFlight;
+    private long rejected;
+
+    ConcurrencyLimiter(final String host, final ConcurrencyLimitOptions options)
+    {
+        this.host = host;
+        this.options = options;
+        this.limit = options.getInitialLimit();
+    }
+
+    /**
+     * Acquire a permit, waiting up to the maximum wait for one to become available.
+     *
+     * @return true if a permit was acquired, false if the request must be rejected.
+     */
+    synchronized boolean acquire()
+    {
+        final long deadline = System.nanoTime()
+            + TimeUnit.MILLISECONDS.toNanos(this.options.getMaxWaitMs());
+        try
+        {
+            long remaining;
+            while (this.inFlight >= this.getLimit()
+                && (remaining = deadline - System.nanoTime()) > 0)
+            {
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+        }
+        catch (final InterruptedException ie)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        if (this.inFlight >= this.getLimit())
+        {
+            this.rejected++;
+            return false;
+        }
+        this.inFlight++;
+        return true;
+    }
+
+    /**
+     * Release a permit, adapting the limit to the outcome of the request.
+     *
+     * @param latencyMs time taken by the request.
+     * @param dropped   true if the request failed in a way that indicates overload.
+     */
+    synchronized void release(final long latencyMs, final boolean dropped)
+    {
+        final boolean limited = this.inFlight >= this.getLimit();
+        this.inFlight--;
+
+        if (dropped || latencyMs > this.options.getLatencyThresholdMs())
+        {
+            final int previous = this.getLimit();
+            this.limit = Math.max(this.options.getMinLimit(),
+                this.limit * this.options.getBackoffRatio());
+            if (this.getLimit() < previous)
+            {
+                LOGGER.debug("Decreased concurrency limit for host={} to limit={}, latency={} ms",
+                    this.host, this.getLimit(), latencyMs);
+            }
+        }
+        else if (limited || this.inFlight * 2 >= this.getLimit())
+        {
+            this.limit = Math.min(this.options.getMaxLimit(), this.limit + 1.0 / this.limit);
+        }
+        this.notifyAll();
+    }
+
+    /**
+     * Release a permit without adapting the limit, where the request was never issued.
+     */
+    synchronized void release()
+    {
+        this.inFlight--;
+        this.notifyAll();
+    }
+
+    /**
+     * @return the operator host this limiter applies to.
+     */
+    public String getHost()
+    {
+        return this.host;
+    }
+
+    /**
+     * @return current number of concurrent requests permitted.
+     */
+    public synchronized int getLimit()
+    {
+        return (int) this.limit;
+    }
+
+    /**
+     * @return number of requests currently in flight.
+     */
+    public synchronized int getInFlight()
+    {
+        return this.inFlight;
+    }
+
+    /**
+     * @return number of requests rejected because no permit became available in time.
+     */
+    public synchronized long getRejectedCount()
+    {
+        return this.rejected;
+    }
+}
@@ -0,0 +1,301 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import com.gsma.mobileconnect.r2.utils.ObjectUtils;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.LaxRedirectStrategy;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.ssl.SSLContexts;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+
+/**
+ * Pooled HTTP connections to operator endpoints, shared by all requests issued through the
+ * {@link RestClient} that owns it.
+ */
+public class ConnectionPool implements Closeable
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionPool.class);
+
+    private final ConnectionPoolOptions options;
+    private final SSLContext sslContext;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+
+    /**
+     * Creates the connection manager and the http client using it.  All TLS connections of the
+     * pool share one TLS context, so that a reconnection to an operator host resumes a cached
+     * session.
+     *
+     * @param options pool settings.
+     */
+    public ConnectionPool(final ConnectionPoolOptions options)
+    {
+        this.options = ObjectUtils.requireNonNull(options, "options");
+
+        this.sslContext = SSLContexts.createDefault();
+        final SSLSessionContext sessionContext = this.sslContext.getClientSessionContext();
+        sessionContext.setSessionCacheSize(options.getTlsSessionCacheSize());
+        sessionContext.setSessionTimeout(
+            (int) TimeUnit.MILLISECONDS.toSeconds(options.getTlsSessionTimeoutMs()));
+
+        final Registry<ConnectionSocketFactory> socketFactories = RegistryBuilder
+            .<ConnectionSocketFactory>create()
+            .register("http", PlainConnectionSocketFactory.getSocketFactory())
+            .register("https", new SSLConnectionSocketFactory(this.sslContext,
+                SSLConnectionSocketFactory.getDefaultHostnameVerifier()))
+            .build();
+
+        this.connectionManager =
+            new PoolingHttpClientConnectionManager(socketFactories, null, null, null,
+                options.getConnectionTtlMs(), TimeUnit.MILLISECONDS);
+        this.connectionManager.setMaxTotal(options.getMaxTotal());
+        this.connectionManager.setDefaultMaxPerRoute(options.getMaxPerRoute());
+        this.connectionManager.setValidateAfterInactivity(options.getValidateAfterInactivityMs());
+
+        for (final Map.Entry<URI, Integer> override : options.getMaxPerRouteOverrides().entrySet())
+        {
+            this.connectionManager.setMaxPerRoute(routeFor(override.getKey()), override.getValue());
+        }
+
+        final HttpClientBuilder builder = HttpClientBuilder
+            .create()
+            .setConnectionManager(this.connectionManager)
+            .setKeepAliveStrategy(new BoundedKeepAliveStrategy(options.getKeepAliveMs()))
+            .setRedirectStrategy(new LaxRedirectStrategy())
+            // gzip is negotiated and inflated by the rest client so it can count the wire bytes
+            .disableContentCompression();
+
+        if (options.getMaxIdleMs() >= 0)
+        {
+            builder.evictIdleConnections(options.getMaxIdleMs(), TimeUnit.MILLISECONDS);
+        }
+        if (options.isEvictExpiredConnections())
+        {
+            builder.evictExpiredConnections();
+        }
+
+        this.httpClient = builder.build();
+
+        LOGGER.info("New instance of ConnectionPool created with maxTotal={}, maxPerRoute={}",
+            options.getMaxTotal(), options.getMaxPerRoute());
+    }
+
+    /**
+     * Resolves the pool route used for requests to the endpoint, filling in the default port for
+     * the scheme as the route planner does.
+     *
+     * @param endpoint any uri on the target host.
+     * @return the route to the host.
+     */
+    static HttpRoute routeFor(final URI endpoint)
+    {
+        ObjectUtils.requireNonNull(endpoint, "endpoint");
+
+        final String scheme = endpoint.getScheme() == null ? "http" : endpoint.getScheme();
+        final boolean secure = "https".equalsIgnoreCase(scheme);
+        final int port = endpoint.getPort() > 0 ? endpoint.getPort() : secure ? 443 : 80;
+
+        return new HttpRoute(new HttpHost(endpoint.getHost(), port, scheme), null, secure);
+    }
+
+    /**
+     * @return the http client issuing requests over this pool.
+     */
+    public CloseableHttpClient getHttpClient()
+    {
+        return this.httpClient;
+    }
+
+    /**
+     * @return the options the pool was created with.
+     */
+    public ConnectionPoolOptions getOptions()
+    {
+        return this.options;
+    }
+
+    /**
+     * Change the maximum number of connections for a single operator endpoint.
+     *
+     * @param endpoint any uri on the operator host.
+     * @param max      maximum number of connections to the host.
+     */
+    public void setMaxPerRoute(final URI endpoint, final int max)
+    {
+        this.connectionManager.setMaxPerRoute(routeFor(endpoint), max);
+    }
+
+    /**
+     * Opens connections to an operator host ahead of the first request, so that DNS resolution,
+     * the TCP connect and the TLS handshake are not paid for by the first user.  Open connections
+     * already pooled for the host count towards the number requested and have their keep-alive
+     * renewed; the connections are returned to the pool, where they are subject to the keep-alive
+     * and idle eviction.
+     *
+     * @param endpoint    any uri on the operator host.
+     * @param connections number of connections to hold open, at most the maximum for the host.
+     * @param timeoutMs   time to wait for each connection to be leased and established.
+     * @throws IOException if a connection cannot be established.
+     */
+    public void warmUp(final URI endpoint, final int connections, final long timeoutMs)
+        throws IOException
+    {
+        final HttpRoute route = routeFor(endpoint);
+        final int count = Math.min(connections, this.connectionManager.getMaxPerRoute(route));
+        final List<HttpClientConnection> leased = new ArrayList<HttpClientConnection>(count);
+
+        try
+        {
+            for (int i = 0; i < count; i++)
+            {
+                final ConnectionRequest request = this.connectionManager.requestConnection(route,
+                    null);
+                final HttpClientConnection connection =
+                    request.get(timeoutMs, TimeUnit.MILLISECONDS);
+                leased.add(connection);
+
+                if (!connection.isOpen())
+                {
+                    final HttpClientContext context = HttpClientContext.create();
+                    this.connectionManager.connect(connection, route, (int) timeoutMs, context);
+                    this.connectionManager.routeComplete(connection, route, context);
+                }
+            }
+        }
+        catch (final InterruptedException ie)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted warming up connections to " + route);
+        }
+        catch (final ExecutionException ee)
+        {
+            throw new IOException("Failed to lease connection to " + route, ee.getCause());
+        }
+        finally
+        {
+            for (final HttpClientConnection connection : leased)
+            {
+                this.connectionManager.releaseConnection(connection, null,
+                    this.options.getKeepAliveMs(), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        LOGGER.debug("Warmed up connections={} to route={}", count, route);
+    }
+
+    /**
+     * @return number of TLS sessions currently cached for resumption.
+     */
+    public int getTlsSessionCount()
+    {
+        return Collections.list(this.sslContext.getClientSessionContext().getIds()).size();
+    }
+
+    /**
+     * Take a snapshot of the pool usage, in total and for every route that has a pool or a
+     * configured override.
+     *
+     * @return the current pool statistics.
+     */
+    public ConnectionPoolStatistics getStatistics()
+    {
+        final Set<HttpRoute> routes = new LinkedHashSet<HttpRoute>(this.connectionManager.getRoutes());
+        for (final URI endpoint : this.options.getMaxPerRouteOverrides().keySet())
+        {
+            routes.add(routeFor(endpoint));
+        }
+
+        final Map<String, ConnectionPoolStatistics.RouteStatistics> routeStatistics =
+            new LinkedHashMap<String, ConnectionPoolStatistics.RouteStatistics>();
+        for (final HttpRoute route : routes)
+        {
+            routeStatistics.put(route.getTargetHost().toURI(),
+                toRouteStatistics(this.connectionManager.getStats(route)));
+        }
+
+        return new ConnectionPoolStatistics(
+            toRouteStatistics(this.connectionManager.getTotalStats()), routeStatistics);
+    }
+
+    private static ConnectionPoolStatistics.RouteStatistics toRouteStatistics(final PoolStats stats)
+    {
+        return new ConnectionPoolStatistics.RouteStatistics(stats.getLeased(), stats.getPending(),
+            stats.getAvailable(), stats.getMax());
+    }
+
+    /**
+     * Close all pooled connections and stop the eviction thread.
+     *
+     * @throws IOException on failure to close the http client.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        this.httpClient.close();
+    }
+
+    /**
+     * Honours the keep-alive timeout returned by the operator, bounded by the configured keep-alive
+     * which is also used when the operator does not return one.
+     */
+    static final class BoundedKeepAliveStrategy implements ConnectionKeepAliveStrategy
+    {
+        private final long keepAliveMs;
+
+        BoundedKeepAliveStrategy(final long keepAliveMs)
+        {
+            this.keepAliveMs = keepAliveMs;
+        }
+
+        @Override
+        public long getKeepAliveDuration(final HttpResponse response, final HttpContext context)
+        {
+            final long duration =
+                DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+
+            return duration > 0 ? Math.min(duration, this.keepAliveMs) : this.keepAliveMs;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import com.gsma.mobileconnect.r2.constants.DefaultOptions;
+import com.gsma.mobileconnect.r2.utils.IBuilder;
+import com.gsma.mobileconnect.r2.utils.ObjectUtils;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Settings for the pooled connection manager used by {@link RestClient} when running in pooling
+ * mode.
+ *
+ * @see ConnectionPool
+ */
+public class ConnectionPoolOptions
+{
+    private final int maxTotal;
+    private final int maxPerRoute;
+    private final Map<URI, Integer> maxPerRouteOverrides;
+    private final long keepAliveMs;
+    private final long maxIdleMs;
+    private final long connectionTtlMs;
+    private final boolean evictExpiredConnections;
+    private final int validateAfterInactivityMs;
+    private final int tlsSessionCacheSize;
+    private final long tlsSessionTimeoutMs;
+
+    private ConnectionPoolOptions(final Builder builder)
+    {
+        this.maxTotal = builder.maxTotal;
+        this.maxPerRoute = builder.maxPerRoute;
+        this.maxPerRouteOverrides = Collections.unmodifiableMap(
+            new LinkedHashMap<URI, Integer>(builder.maxPerRouteOverrides));
+        this.keepAliveMs = builder.keepAliveMs;
+        this.maxIdleMs = builder.maxIdleMs;
+        this.connectionTtlMs = builder.connectionTtlMs;
+        this.evictExpiredConnections = builder.evictExpiredConnections;
+        this.validateAfterInactivityMs = builder.validateAfterInactivityMs;
+        this.tlsSessionCacheSize = builder.tlsSessionCacheSize;
+        this.tlsSessionTimeoutMs = builder.tlsSessionTimeoutMs;
+    }
+
+    /**
+     * @return maximum number of connections held by the pool across all routes.
+     */
+    public int getMaxTotal()
+    {
+        return this.maxTotal;
+    }
+
+    /**
+     * @return maximum number of connections per route unless overridden.
+     */
+    public int getMaxPerRoute()
+    {
+        return this.maxPerRoute;
+    }
+
+    /**
+     * @return maximum number of connections for specific operator endpoints, keyed by an uri
+     * identifying the scheme, host and port of the endpoint.
+     */
+    public Map<URI, Integer> getMaxPerRouteOverrides()
+    {
+        return this.maxPerRouteOverrides;
+    }
+
+    /**
+     * @return time in milliseconds a connection is kept alive when the server does not specify a
+     * keep-alive timeout, also used as the upper bound for server supplied timeouts.
+     */
+    public long getKeepAliveMs()
+    {
+        return this.keepAliveMs;
+    }
+
+    /**
+     * @return time in milliseconds after which idle connections are evicted, or a negative value
+     * to disable idle eviction.
+     */
+    public long getMaxIdleMs()
+    {
+        return this.maxIdleMs;
+    }
+
+    /**
+     * @return total time to live of a pooled connection in milliseconds, or a negative value for
+     * no limit.
+     */
+    public long getConnectionTtlMs()
+    {
+        return this.connectionTtlMs;
+    }
+
+    /**
+     * @return true if connections whose keep-alive or time to live has expired are evicted in the
+     * background.
+     */
+    public boolean isEvictExpiredConnections()
+    {
+        return this.evictExpiredConnections;
+    }
+
+    /**
+     * @return period of inactivity in milliseconds after which a pooled connection is validated
+     * before being leased, or a negative value to disable validation.
+     */
+    public int getValidateAfterInactivityMs()
+    {
+        return this.validateAfterInactivityMs;
+    }
+
+    /**
+     * @return maximum number of TLS sessions cached for resumption when reconnecting, or 0 for no
+     * limit.
+     */
+    public int getTlsSessionCacheSize()
+    {
+        return this.tlsSessionCacheSize;
+    }
+
+    /**
+     * @return time in milliseconds a cached TLS session may be resumed for.
+     */
+    public long getTlsSessionTimeoutMs()
+    {
+        return this.tlsSessionTimeoutMs;
+    }
+
+    public static final class Builder implements IBuilder<ConnectionPoolOptions>
+    {
+        private int maxTotal = DefaultOptions.POOL_MAX_TOTAL;
+        private int maxPerRoute = DefaultOptions.POOL_MAX_PER_ROUTE;
+        private final Map<URI, Integer> maxPerRouteOverrides = new LinkedHashMap<URI, Integer>();
+        private long keepAliveMs = DefaultOptions.POOL_KEEP_ALIVE_MS;
+        private long maxIdleMs = DefaultOptions.POOL_MAX_IDLE_MS;
+        private long connectionTtlMs = DefaultOptions.POOL_CONNECTION_TTL_MS;
+        private boolean evictExpiredConnections = true;
+        private int validateAfterInactivityMs = DefaultOptions.POOL_VALIDATE_AFTER_INACTIVITY_MS;
+        private int tlsSessionCacheSize = DefaultOptions.POOL_TLS_SESSION_CACHE_SIZE;
+        private long tlsSessionTimeoutMs = DefaultOptions.POOL_TLS_SESSION_TIMEOUT_MS;
+
+        public Builder withMaxTotal(final int val)
+        {
+            this.maxTotal = val;
+            return this;
+        }
+
+        public Builder withMaxPerRoute(final int val)
+        {
+            this.maxPerRoute = val;
+            return this;
+        }
+
+        /**
+         * Override the maximum number of connections to a single operator endpoint.
+         *
+         * @param endpoint any uri on the operator host, only scheme, host and port are used.
+         * @param max      maximum number of connections to the host.
+         * @return builder to continue further configuration.
+         */
+        public Builder withMaxPerRoute(final URI endpoint, final int max)
+        {
+            this.maxPerRouteOverrides.put(ObjectUtils.requireNonNull(endpoint, "endpoint"), max);
+            return this;
+        }
+
+        public Builder withKeepAlive(final long duration, final TimeUnit unit)
+        {
+            this.keepAliveMs = unit.toMillis(duration);
+            return this;
+        }
+
+        public Builder withMaxIdleTime(final long duration, final TimeUnit unit)
+        {
+            this.maxIdleMs = unit.toMillis(duration);
+            return this;
+        }
+
+        public Builder withConnectionTimeToLive(final long duration, final TimeUnit unit)
+        {
+            this.connectionTtlMs = unit.toMillis(duration);
+            return this;
+        }
+
+        public Builder withEvictExpiredConnections(final boolean val)
+        {
+            this.evictExpiredConnections = val;
+            return this;
+        }
+
+        public Builder withValidateAfterInactivity(final long duration, final TimeUnit unit)
+        {
+            this.validateAfterInactivityMs = (int) unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Specify the cache of TLS sessions, from which a connection to an operator host that was
+         * connected before resumes the session with an abbreviated handshake.
+         *
+         * @param size     maximum number of cached sessions, or 0 for no limit.
+         * @param duration for which a session may be resumed.
+         * @param unit     of the duration.
+         * @return builder to continue further configuration.
+         */
+        public Builder withTlsSessionCache(final int size, final long duration,
+            final TimeUnit unit)
+        {
+            this.tlsSessionCacheSize = size;
+            this.tlsSessionTimeoutMs = unit.toMillis(duration);
+            return this;
+        }
+
+        @Override
+        public ConnectionPoolOptions build()
+        {
+            if (this.maxTotal <= 0 || this.maxPerRoute <= 0)
+            {
+                throw new IllegalArgumentException("maxTotal and maxPerRoute must be positive");
+            }
+            if (this.tlsSessionCacheSize < 0 || this.tlsSessionTimeoutMs < 0)
+            {
+                throw new IllegalArgumentException(
+                    "tlsSessionCacheSize and tlsSessionTimeout must not be negative");
+            }
+            return new ConnectionPoolOptions(this);
+        }
+    }
+}
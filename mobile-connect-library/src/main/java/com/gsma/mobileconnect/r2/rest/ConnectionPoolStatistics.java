@@ -0,0 +1,115 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Point in time snapshot of the usage of a {@link ConnectionPool}.
+ */
+public class ConnectionPoolStatistics
+{
+    private final RouteStatistics total;
+    private final Map<String, RouteStatistics> routes;
+
+    ConnectionPoolStatistics(final RouteStatistics total, final Map<String, RouteStatistics> routes)
+    {
+        this.total = total;
+        this.routes = Collections.unmodifiableMap(routes);
+    }
+
+    /**
+     * @return usage across all routes.
+     */
+    public RouteStatistics getTotal()
+    {
+        return this.total;
+    }
+
+    /**
+     * @return usage per route, keyed by the target host as scheme://host:port.
+     */
+    public Map<String, RouteStatistics> getRoutes()
+    {
+        return this.routes;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ConnectionPoolStatistics(total=" + this.total + ", routes=" + this.routes + ")";
+    }
+
+    /**
+     * Usage of the connections to a single route, or of the whole pool.
+     */
+    public static class RouteStatistics
+    {
+        private final int leased;
+        private final int pending;
+        private final int available;
+        private final int max;
+
+        RouteStatistics(final int leased, final int pending, final int available, final int max)
+        {
+            this.leased = leased;
+            this.pending = pending;
+            this.available = available;
+            this.max = max;
+        }
+
+        /**
+         * @return number of connections currently in use.
+         */
+        public int getLeased()
+        {
+            return this.leased;
+        }
+
+        /**
+         * @return number of requests waiting for a connection.
+         */
+        public int getPending()
+        {
+            return this.pending;
+        }
+
+        /**
+         * @return number of idle connections kept alive in the pool.
+         */
+        public int getAvailable()
+        {
+            return this.available;
+        }
+
+        /**
+         * @return maximum number of connections allowed.
+         */
+        public int getMax()
+        {
+            return this.max;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "RouteStatistics(leased=" + this.leased + ", pending=" + this.pending
+                + ", available=" + this.available + ", max=" + this.max + ")";
+        }
+    }
+}
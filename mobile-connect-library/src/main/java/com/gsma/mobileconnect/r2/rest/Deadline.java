@@ -0,0 +1,179 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import com.gsma.mobileconnect.r2.utils.ObjectUtils;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point in time by which a whole Mobile Connect operation, such as discovery followed by the
+ * provider metadata fetch or the token request followed by the JWKS fetch, must complete.  The
+ * deadline is measured on the monotonic clock so it is unaffected by changes to the wall clock.
+ * <p>
+ * While a deadline is entered on a thread, every request issued by {@link RestClient} on that
+ * thread is given the remaining budget as its timeout, and fails without being issued once the
+ * budget is gone.
+ *
+ * @see com.gsma.mobileconnect.r2.MobileConnectRequestOptions.Builder#withDeadline(Deadline)
+ */
+public final class Deadline
+{
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<Deadline>();
+
+    private final long expiresAtNanos;
+
+    private Deadline(final long expiresAtNanos)
+    {
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    /**
+     * Create a deadline the given duration from now.
+     *
+     * @param duration until the deadline.
+     * @param unit     of the duration.
+     * @return the deadline.
+     */
+    public static Deadline after(final long duration, final TimeUnit unit)
+    {
+        ObjectUtils.requireNonNull(unit, "unit");
+        return new Deadline(System.nanoTime() + unit.toNanos(duration));
+    }
+
+    /**
+     * @param unit of the remaining time.
+     * @return time remaining until the deadline, or 0 if it has passed.
+     */
+    public long remaining(final TimeUnit unit)
+    {
+        return unit.convert(Math.max(0L, this.expiresAtNanos - System.nanoTime()),
+            TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return true if the deadline has passed.
+     */
+    public boolean isExpired()
+    {
+        return this.expiresAtNanos - System.nanoTime() <= 0L;
+    }
+
+    /**
+     * @return the deadline entered on the current thread, or null if there is none.
+     */
+    public static Deadline current()
+    {
+        return CURRENT.get();
+    }
+
+    /**
+     * Enter a deadline on the current thread until the returned scope is closed.  If a deadline is
+     * already entered the earlier of the two applies, so a nested operation can shorten but never
+     * extend the budget of the operation it is part of.
+     *
+     * @param deadline to enter, or null to keep the current deadline.
+     * @return scope to be closed to restore the previous deadline.
+     */
+    public static Scope enter(final Deadline deadline)
+    {
+        final Deadline previous = CURRENT.get();
+        final Deadline effective;
+        if (deadline == null)
+        {
+            effective = previous;
+        }
+        else if (previous == null || deadline.expiresAtNanos - previous.expiresAtNanos < 0L)
+        {
+            effective = deadline;
+        }
+        else
+        {
+            effective = previous;
+        }
+        CURRENT.set(effective);
+        return new Scope(previous);
+    }
+
+    /**
+     * Creates a thread factory whose threads run within the deadline entered on the calling
+     * thread, for executors created to run a single step of an operation asynchronously.
+     *
+     * @return the thread factory.
+     */
+    public static ThreadFactory propagatingThreadFactory()
+    {
+        final Deadline deadline = current();
+        final ThreadFactory threadFactory = Executors.defaultThreadFactory();
+        if (deadline == null)
+        {
+            return threadFactory;
+        }
+        return new ThreadFactory()
+        {
+            @Override
+            public Thread newThread(final Runnable runnable)
+            {
+                return threadFactory.newThread(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        try (final Scope ignored = enter(deadline))
+                        {
+                            runnable.run();
+                        }
+                    }
+                });
+            }
+        };
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Deadline{remaining=" + this.remaining(TimeUnit.MILLISECONDS) + " ms}";
+    }
+
+    /**
+     * Restores the deadline that applied before a deadline was entered.
+     */
+    public static final class Scope implements AutoCloseable
+    {
+        private final Deadline previous;
+
+        private Scope(final Deadline previous)
+        {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close()
+        {
+            if (this.previous == null)
+            {
+                CURRENT.remove();
+            }
+            else
+            {
+                CURRENT.set(this.previous);
+            }
+        }
+    }
+}
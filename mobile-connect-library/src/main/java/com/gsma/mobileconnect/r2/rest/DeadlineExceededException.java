@@ -0,0 +1,39 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import java.net.URI;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Exception given as the cause of a {@link com.gsma.mobileconnect.r2.exceptions.RequestFailedException}
+ * when a request is not issued because the {@link Deadline} of the operation it is part of has
+ * passed.
+ */
+public class DeadlineExceededException extends TimeoutException
+{
+    /**
+     * Create a new deadline exceeded exception.
+     *
+     * @param method of the request that was not issued.
+     * @param uri    of the request that was not issued.
+     */
+    public DeadlineExceededException(final String method, final URI uri)
+    {
+        super(String.format("Deadline passed, HTTP %s request to %s was not issued", method, uri));
+    }
+}
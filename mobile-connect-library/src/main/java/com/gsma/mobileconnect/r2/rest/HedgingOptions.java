@@ -0,0 +1,140 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import com.gsma.mobileconnect.r2.constants.DefaultOptions;
+import com.gsma.mobileconnect.r2.utils.IBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Settings for hedging requests in {@link RestClient}.
+ *
+ * @see RequestHedger
+ */
+public class HedgingOptions
+{
+    private final int percentile;
+    private final int maxHedgePercentage;
+    private final int sampleSize;
+    private final long minDelayMs;
+    private final long initialDelayMs;
+
+    private HedgingOptions(final Builder builder)
+    {
+        this.percentile = builder.percentile;
+        this.maxHedgePercentage = builder.maxHedgePercentage;
+        this.sampleSize = builder.sampleSize;
+        this.minDelayMs = builder.minDelayMs;
+        this.initialDelayMs = builder.initialDelayMs;
+    }
+
+    /**
+     * @return percentile of recent latency after which a hedge is sent.
+     */
+    public int getPercentile()
+    {
+        return this.percentile;
+    }
+
+    /**
+     * @return maximum number of hedges as a percentage of requests.
+     */
+    public int getMaxHedgePercentage()
+    {
+        return this.maxHedgePercentage;
+    }
+
+    /**
+     * @return number of recent latencies the percentile is taken over.
+     */
+    public int getSampleSize()
+    {
+        return this.sampleSize;
+    }
+
+    /**
+     * @return shortest delay before a hedge is sent, whatever the recent latency.
+     */
+    public long getMinDelayMs()
+    {
+        return this.minDelayMs;
+    }
+
+    /**
+     * @return delay before a hedge is sent until enough latencies have been recorded.
+     */
+    public long getInitialDelayMs()
+    {
+        return this.initialDelayMs;
+    }
+
+    public static final class Builder implements IBuilder<HedgingOptions>
+    {
+        private int percentile = DefaultOptions.HEDGE_PERCENTILE;
+        private int maxHedgePercentage = DefaultOptions.HEDGE_MAX_PERCENTAGE;
+        private int sampleSize = DefaultOptions.HEDGE_SAMPLE_SIZE;
+        private long minDelayMs = DefaultOptions.HEDGE_MIN_DELAY_MS;
+        private long initialDelayMs = DefaultOptions.HEDGE_INITIAL_DELAY_MS;
+
+        public Builder withPercentile(final int val)
+        {
+            this.percentile = val;
+            return this;
+        }
+
+        public Builder withMaxHedgePercentage(final int val)
+        {
+            this.maxHedgePercentage = val;
+            return this;
+        }
+
+        public Builder withSampleSize(final int val)
+        {
+            this.sampleSize = val;
+            return this;
+        }
+
+        public Builder withMinDelay(final long duration, final TimeUnit unit)
+        {
+            this.minDelayMs = unit.toMillis(duration);
+            return this;
+        }
+
+        public Builder withInitialDelay(final long duration, final TimeUnit unit)
+        {
+            this.initialDelayMs = unit.toMillis(duration);
+            return this;
+        }
+
+        @Override
+        public HedgingOptions build()
+        {
+            if (this.percentile <= 0 || this.percentile >= 100)
+            {
+                throw new IllegalArgumentException("percentile must be between 1 and 99");
+            }
+            if (this.maxHedgePercentage < 0 || this.maxHedgePercentage > 100
+                || this.sampleSize <= 0 || this.minDelayMs < 0 || this.initialDelayMs < 0)
+            {
+                throw new IllegalArgumentException(
+                    "maxHedgePercentage must be between 0 and 100, sampleSize positive and delays not negative");
+            }
+            return new HedgingOptions(this);
+        }
+    }
+}
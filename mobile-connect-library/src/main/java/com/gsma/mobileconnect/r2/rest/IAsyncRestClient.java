@@ -0,0 +1,118 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
+import com.gsma.mobileconnect.r2.utils.KeyValuePair;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of {@link IRestClient}.  Requests are issued without blocking the
+ * calling thread; the returned future completes with the normalised response, or exceptionally
+ * with a {@link RequestFailedException} if there is a failure issuing the request.
+ */
+public interface IAsyncRestClient
+{
+    /**
+     * Executes a HTTP GET to the supplied uri optional basic auth and optional
+     * cookies.
+     *
+     * @param uri            of the GET.
+     * @param authentication value to be used (if auth required).
+     * @param xRedirect      value of the X-Redirect header (if required).
+     * @param sourceIp       of the request (if identified).
+     * @param queryParams    to be added to the GET request.
+     * @param cookies        to add to the request (if required).
+     * @return future RestResponse.
+     */
+    CompletableFuture<RestResponse> get(final URI uri, final RestAuthentication authentication,
+        final String xRedirect, final String sourceIp, final List<KeyValuePair> queryParams,
+        final Iterable<KeyValuePair> cookies);
+
+    /**
+     * Executes a HTTP GET to the supplied discovery uri optional basic auth and optional
+     * cookies.
+     *
+     * @param uri               of the GET.
+     * @param authentication    value to be used (if auth required).
+     * @param xRedirect         value of the X-Redirect header (if required).
+     * @param sourceIp          of the request (if identified).
+     * @param clientSideVersion of the request (if identified).
+     * @param serverSideVersion of the request (if identified).
+     * @param queryParams       to be added to the GET request.
+     * @param cookies           to add to the request (if required).
+     * @return future RestResponse.
+     */
+    CompletableFuture<RestResponse> getDiscovery(final URI uri,
+        final RestAuthentication authentication, final String xRedirect, final String sourceIp,
+        final String clientSideVersion, final String serverSideVersion,
+        final List<KeyValuePair> queryParams, final Iterable<KeyValuePair> cookies);
+
+    /**
+     * Executes a HTTP POST to the supplied discovery uri with x-www-form-urlencoded content and
+     * optional cookies
+     *
+     * @param uri               of the POST.
+     * @param authentication    value to be used (if auth required).
+     * @param xRedirect         value of the X-Redirect header (if required).
+     * @param formData          to be added to the POST request.
+     * @param sourceIp          of the request (if identified).
+     * @param clientSideVersion of the request (if identified).
+     * @param serverSideVersion of the request (if identified).
+     * @param cookies           to add to the request (if required).
+     * @return future RestResponse.
+     */
+    CompletableFuture<RestResponse> postDiscoveryFormData(final URI uri,
+        final RestAuthentication authentication, final String xRedirect,
+        final List<KeyValuePair> formData, final String sourceIp, final String clientSideVersion,
+        final String serverSideVersion, final Iterable<KeyValuePair> cookies);
+
+    /**
+     * Executes a HTTP POST to the supplied uri with x-www-form-urlencoded content and optional
+     * cookies
+     *
+     * @param uri            of the POST.
+     * @param authentication value to be used (if auth required).
+     * @param xRedirect      value of the X-Redirect header (if required).
+     * @param formData       to be added to the POST request.
+     * @param sourceIp       of the request (if identified).
+     * @param cookies        to add to the request (if required).
+     * @return future RestResponse.
+     */
+    CompletableFuture<RestResponse> postFormData(final URI uri,
+        final RestAuthentication authentication, final String xRedirect,
+        final List<KeyValuePair> formData, final String sourceIp,
+        final Iterable<KeyValuePair> cookies);
+
+    /**
+     * Executes a HTTP POST to the supplied uri with the supplied content serialized to json, with
+     * optional cookies.
+     *
+     * @param uri            of the POST.
+     * @param authentication value to be used (if auth required).
+     * @param content        of the POST request to serialize as json.
+     * @param sourceIp       of the request (if identified).
+     * @param cookies        to add to the request (if required).
+     * @return future RestResponse.
+     */
+    CompletableFuture<RestResponse> postJsonContent(final URI uri,
+        final RestAuthentication authentication, final Object content, final String sourceIp,
+        final Iterable<KeyValuePair> cookies);
+}
@@ -23,6 +23,9 @@ import org.apache.http.entity.ContentType;
 
 import java.net.URI;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
 /**
  * Wrapper for Http requests, returning a simple normalised response object.
@@ -47,6 +50,26 @@ public interface IRestClient
                      final List<KeyValuePair> queryParams, final Iterable<KeyValuePair> cookies)
         throws RequestFailedException;
 
+    /**
+     * Executes a conditional HTTP GET to the supplied uri, revalidating a previously fetched
+     * response with If-None-Match and If-Modified-Since.  If neither validator is supplied this is
+     * an unconditional GET.
+     * <p>
+     * By default the validators are ignored and an unconditional GET is issued, so the full
+     * response is always returned.
+     *
+     * @param uri          of the GET.
+     * @param etag         returned with the previous response (if any).
+     * @param lastModified returned with the previous response (if any).
+     * @return RestResponse, with status 304 if the previous response is still valid.
+     * @throws RequestFailedException if there is a failure issuing the request.
+     */
+    default RestResponse getConditional(final URI uri, final String etag,
+        final String lastModified) throws RequestFailedException
+    {
+        return this.get(uri, null, null, null, null, null);
+    }
+
     /**
      * Executes a HTTP GET to the supplied uri optional basic auth and optional
      * cookies.
@@ -159,4 +182,38 @@ public interface IRestClient
      */
     URI getFinalRedirect(final URI authUrl, final URI redirectUrl,
                          final RestAuthentication authentication) throws RequestFailedException;
+
+    /**
+     * Follows a redirect path in the same way as {@link #getFinalRedirect(URI, URI,
+     * RestAuthentication)} without blocking the calling thread while waiting between polls.
+     *
+     * @param authUrl        Target uri to attempt a HTTP GET
+     * @param redirectUrl    Redirect url expected, if a redirect with this location is hit the
+     *                       absolute uri of the location will be returned
+     * @param authentication value to be used (if auth required).
+     * @return future completed with the final redirected url, or with a {@link
+     * RequestFailedException}; cancelling it stops the polling.
+     */
+    default CompletableFuture<URI> getFinalRedirectAsync(final URI authUrl, final URI redirectUrl,
+                                                         final RestAuthentication authentication)
+    {
+        // By default the blocking variant runs on the common pool, within the deadline entered on
+        // the calling thread; a pool thread is held while polling and cancelling does not stop it
+        final Deadline deadline = Deadline.current();
+        return CompletableFuture.supplyAsync(new Supplier<URI>()
+        {
+            @Override
+            public URI get()
+            {
+                try (final Deadline.Scope ignored = Deadline.enter(deadline))
+                {
+                    return IRestClient.this.getFinalRedirect(authUrl, redirectUrl, authentication);
+                }
+                catch (final RequestFailedException e)
+                {
+                    throw new CompletionException(e);
+                }
+            }
+        });
+    }
 }
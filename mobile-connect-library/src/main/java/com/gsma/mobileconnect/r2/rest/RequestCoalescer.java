@@ -0,0 +1,184 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
+import org.apache.http.Header;
+import org.apache.http.client.methods.HttpUriRequest;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Coalesces identical requests made concurrently by a {@link RestClient}, so that while a request
+ * is in flight any identical request waits for and shares its response instead of being issued
+ * again.  Requests are identical when the key function gives equal keys; by default the key is
+ * made of the method, uri and every header of the request.
+ */
+public class RequestCoalescer
+{
+    private final Function<HttpUriRequest, ?> keyFunction;
+    private final ConcurrentMap<Object, CompletableFuture<RestResponse>> inFlight =
+        new ConcurrentHashMap<Object, CompletableFuture<RestResponse>>();
+    private final AtomicLong issued = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * Create a coalescer using the default key function.
+     */
+    public RequestCoalescer()
+    {
+        this(RequestCoalescer::defaultKey);
+    }
+
+    /**
+     * Create a coalescer using the specified key function.
+     *
+     * @param keyFunction giving equal keys for requests which may share a response.
+     */
+    public RequestCoalescer(final Function<HttpUriRequest, ?> keyFunction)
+    {
+        this.keyFunction = keyFunction;
+    }
+
+    /**
+     * The default key of a request, made of its method, uri and every header.
+     *
+     * @param request to create a key for.
+     * @return the key.
+     */
+    public static String defaultKey(final HttpUriRequest request)
+    {
+        final StringBuilder key = new StringBuilder(request.getMethod())
+            .append(' ')
+            .append(request.getURI());
+        for (final Header header : request.getAllHeaders())
+        {
+            key.append('\n').append(header.getName()).append(": ").append(header.getValue());
+        }
+        return key.toString();
+    }
+
+    /**
+     * Issues the request, unless an identical request is already in flight in which case its
+     * response or failure is shared.  A request sharing the response waits no longer than the
+     * deadline entered on the calling thread.
+     *
+     * @param request   to be run.
+     * @param submitter issuing the request.
+     * @return the response.
+     * @throws RequestFailedException if the request, or the identical request in flight, failed.
+     */
+    RestResponse submit(final HttpUriRequest request, final Submitter submitter)
+        throws RequestFailedException
+    {
+        final Object key = this.keyFunction.apply(request);
+        final CompletableFuture<RestResponse> created = new CompletableFuture<RestResponse>();
+        final CompletableFuture<RestResponse> existing = this.inFlight.putIfAbsent(key, created);
+        if (existing != null)
+        {
+            this.coalesced.incrementAndGet();
+            return await(request, existing);
+        }
+
+        this.issued.incrementAndGet();
+        try
+        {
+            final RestResponse response = submitter.submit(request);
+            created.complete(response);
+            return response;
+        }
+        catch (final Throwable t)
+        {
+            // complete on errors too, otherwise the identical requests would wait forever
+            created.completeExceptionally(t);
+            throw t;
+        }
+        finally
+        {
+            this.inFlight.remove(key, created);
+        }
+    }
+
+    private static RestResponse await(final HttpUriRequest request,
+        final CompletableFuture<RestResponse> future) throws RequestFailedException
+    {
+        final Deadline deadline = Deadline.current();
+        try
+        {
+            return deadline == null
+                   ? future.get()
+                   : future.get(deadline.remaining(TimeUnit.MILLISECONDS), TimeUnit.MILLISECONDS);
+        }
+        catch (final TimeoutException te)
+        {
+            throw new RequestFailedException(request.getMethod(), request.getURI(),
+                new DeadlineExceededException(request.getMethod(), request.getURI()));
+        }
+        catch (final InterruptedException ie)
+        {
+            Thread.currentThread().interrupt();
+            throw new RequestFailedException(request.getMethod(), request.getURI(), ie);
+        }
+        catch (final ExecutionException ee)
+        {
+            if (ee.getCause() instanceof RequestFailedException)
+            {
+                throw (RequestFailedException) ee.getCause();
+            }
+            throw new RequestFailedException(request.getMethod(), request.getURI(), ee.getCause());
+        }
+    }
+
+    /**
+     * @return number of requests issued by this coalescer.
+     */
+    public long getIssuedCount()
+    {
+        return this.issued.get();
+    }
+
+    /**
+     * @return number of requests which shared the response of an identical request in flight.
+     */
+    public long getCoalescedCount()
+    {
+        return this.coalesced.get();
+    }
+
+    /**
+     * @return number of distinct requests currently in flight.
+     */
+    public int getInFlightCount()
+    {
+        return this.inFlight.size();
+    }
+
+    /**
+     * Issues a request on behalf of the coalescer.
+     */
+    interface Submitter
+    {
+        RestResponse submit(HttpUriRequest request) throws RequestFailedException;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import java.util.Arrays;
+
+/**
+ * Decides when to hedge a request, i.e. issue a duplicate of a request which has not completed
+ * within a percentile of recent latency, and keeps the metrics of hedging.
+ * <p>
+ * The hedge delay is the configured percentile of the latencies of the most recent successful
+ * requests, bounded below by the minimum delay; until a tenth of the sample size has been recorded
+ * the initial delay is used.  Hedges are capped to a percentage of requests so that hedging cannot
+ * double the load on a slow operator.
+ */
+public class RequestHedger
+{
+    private final HedgingOptions options;
+    private final long[] latencies;
+    private int next;
+    private int recorded;
+
+    private long requests;
+    private long hedges;
+    private long hedgesWon;
+    private long hedgesDenied;
+
+    RequestHedger(final HedgingOptions options)
+    {
+        this.options = options;
+        this.latencies = new long[options.getSampleSize()];
+    }
+
+    /**
+     * Record a request which may be hedged.
+     */
+    synchronized void onRequest()
+    {
+        this.requests++;
+    }
+
+    /**
+     * Record the latency of a successful request or hedge.
+     *
+     * @param latencyMs time taken.
+     */
+    synchronized void recordLatency(final long latencyMs)
+    {
+        this.latencies[this.next] = latencyMs;
+        this.next = (this.next + 1) % this.latencies.length;
+        this.recorded = Math.min(this.recorded + 1, this.latencies.length);
+    }
+
+    /**
+     * @return delay in milliseconds after which a request which has not completed is hedged.
+     */
+    public synchronized long getHedgeDelayMs()
+    {
+        if (this.recorded < Math.max(1, this.latencies.length / 10))
+        {
+            return Math.max(this.options.getMinDelayMs(), this.options.getInitialDelayMs());
+        }
+
+        final long[] sorted = Arrays.copyOf(this.latencies, this.recorded);
+        Arrays.sort(sorted);
+        final int index = (int) Math.ceil(this.options.getPercentile() / 100.0 * sorted.length) - 1;
+        return Math.max(this.options.getMinDelayMs(), sorted[Math.max(0, index)]);
+    }
+
+    /**
+     * Request permission to send a hedge.
+     *
+     * @return true if a hedge may be sent, false if the hedge rate cap has been reached.
+     */
+    synchronized boolean tryHedge()
+    {
+        if ((this.hedges + 1) * 100 > this.options.getMaxHedgePercentage() * this.requests)
+        {
+            this.hedgesDenied++;
+            return false;
+        }
+        this.hedges++;
+        return true;
+    }
+
+    /**
+     * Record that a hedge completed before the request it duplicated.
+     */
+    synchronized void onHedgeWon()
+    {
+        this.hedgesWon++;
+    }
+
+    /**
+     * @return number of requests which may have been hedged.
+     */
+    public synchronized long getRequestCount()
+    {
+        return this.requests;
+    }
+
+    /**
+     * @return number of hedges sent.
+     */
+    public synchronized long getHedgeCount()
+    {
+        return this.hedges;
+    }
+
+    /**
+     * @return number of hedges which completed before the request they duplicated.
+     */
+    public synchronized long getHedgesWonCount()
+    {
+        return this.hedgesWon;
+    }
+
+    /**
+     * @return number of hedges not sent because of the hedge rate cap.
+     */
+    public synchronized long getHedgesDeniedCount()
+    {
+        return this.hedgesDenied;
+    }
+
+}
@@ -0,0 +1,53 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * Exception thrown when a response body exceeds the maximum size accepted by the rest client.
+ * The exchange is abandoned as soon as the limit is crossed so that a misbehaving operator cannot
+ * exhaust the heap; it is reported as the cause of a
+ * {@link com.gsma.mobileconnect.r2.exceptions.RequestFailedException}.
+ */
+public class ResponseTooLargeException extends IOException
+{
+    private final long maxBodySize;
+
+    /**
+     * Create a new response too large exception.
+     *
+     * @param method      of the request.
+     * @param uri         of the request.
+     * @param maxBodySize maximum number of bytes accepted.
+     */
+    public ResponseTooLargeException(final String method, final URI uri, final long maxBodySize)
+    {
+        super(String.format("Response to HTTP %s to %s exceeded maximum body size of %s bytes",
+            method, uri, maxBodySize));
+        this.maxBodySize = maxBodySize;
+    }
+
+    /**
+     * @return the maximum number of bytes accepted.
+     */
+    public long getMaxBodySize()
+    {
+        return this.maxBodySize;
+    }
+}
@@ -17,9 +17,13 @@
 package com.gsma.mobileconnect.r2.rest;
 
 import com.gsma.mobileconnect.r2.encoding.IMobileConnectEncodeDecoder;
+import com.gsma.mobileconnect.r2.rest.internal.RestAccess;
 import com.gsma.mobileconnect.r2.utils.LogUtils;
 import com.gsma.mobileconnect.r2.utils.ObjectUtils;
 import com.gsma.mobileconnect.r2.utils.StringUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.message.BasicHeader;
 
 import java.io.UnsupportedEncodingException;
 
@@ -31,17 +35,74 @@ import java.io.UnsupportedEncodingException;
  */
 public class RestAuthentication
 {
+    // gives the rest internals access to the credentials and statistics without making them API
+    static
+    {
+        RestAccess.register(new RestAccess()
+        {
+            @Override
+            protected boolean isBasic(final RestAuthentication authentication)
+            {
+                return authentication.isBasic();
+            }
+
+            @Override
+            protected String clientIdOf(final RestAuthentication authentication)
+            {
+                return authentication.getClientId();
+            }
+
+            @Override
+            protected boolean hasSameCredentials(final RestAuthentication authentication,
+                final RestAuthentication other)
+            {
+                return authentication.hasCredentialsOf(other);
+            }
+
+            @Override
+            protected Header headerOf(final RestAuthentication authentication)
+            {
+                return authentication.getHeader();
+            }
+
+            @Override
+            protected void recordResponse(final TransferStatistics statistics, final long wire,
+                final long content, final boolean compressed)
+            {
+                statistics.recordResponse(wire, content, compressed);
+            }
+        });
+    }
+
     private final Scheme scheme;
-    private final String parameter;
+    private final String clientId;
+    private final String secret;
+    private final IMobileConnectEncodeDecoder encoder;
+    private volatile String parameter;
+    private volatile Header header;
 
     private RestAuthentication(final Scheme scheme, final String parameter)
     {
         this.scheme = ObjectUtils.requireNonNull(scheme, "schemeName");
         this.parameter = StringUtils.requireNonEmpty(parameter, "parameter");
+        this.clientId = null;
+        this.secret = null;
+        this.encoder = null;
+    }
+
+    private RestAuthentication(final String clientId, final String secret,
+        final IMobileConnectEncodeDecoder encoder)
+    {
+        this.scheme = Scheme.BASIC;
+        this.clientId = StringUtils.requireNonEmpty(clientId, "key");
+        this.secret = StringUtils.requireNonEmpty(secret, "secret");
+        this.encoder = ObjectUtils.requireNonNull(encoder, "iMobileConnectEncodeDecoder");
     }
 
     /**
-     * Createa a new instance of the RestAuthentication class for basic authentication.
+     * Createa a new instance of the RestAuthentication class for basic authentication.  The
+     * credentials are only encoded when the authorization of a request is first built from them,
+     * which the {@link RestClient} does once per client and endpoint.
      *
      * @param key    key/user value
      * @param secret to be encoded
@@ -50,20 +111,7 @@ public class RestAuthentication
     public static RestAuthentication basic(final String key, final String secret,
         IMobileConnectEncodeDecoder iMobileConnectEncodeDecoder)
     {
-        StringUtils.requireNonEmpty(key, "key");
-        StringUtils.requireNonEmpty(secret, "secret");
-
-        try
-        {
-            final byte[] authentication = String.format("%s:%s", key, secret).getBytes("UTF-8");
-            final String encoded = iMobileConnectEncodeDecoder.encodeToBase64(authentication);
-
-            return new RestAuthentication(Scheme.BASIC, encoded);
-        }
-        catch (final UnsupportedEncodingException uee)
-        {
-            throw new UnsupportedOperationException("Unable to decode UTF-8", uee);
-        }
+        return new RestAuthentication(key, secret, iMobileConnectEncodeDecoder);
     }
 
     /**
@@ -90,14 +138,90 @@ public class RestAuthentication
      */
     public String getParameter()
     {
-        return this.parameter;
+        String encoded = this.parameter;
+        if (encoded == null)
+        {
+            try
+            {
+                encoded = this.encoder.encodeToBase64(
+                    String.format("%s:%s", this.clientId, this.secret).getBytes("UTF-8"));
+            }
+            catch (final UnsupportedEncodingException uee)
+            {
+                throw new UnsupportedOperationException("Unable to decode UTF-8", uee);
+            }
+            this.parameter = encoded;
+        }
+        return encoded;
+    }
+
+    /**
+     * @return the client the basic authentication is for, or null for a bearer token.
+     */
+    String getClientId()
+    {
+        return this.clientId;
+    }
+
+    /**
+     * @param other authentication to compare with.
+     * @return true if both are basic authentications with the same client id and secret.
+     */
+    boolean hasCredentialsOf(final RestAuthentication other)
+    {
+        return other != null && this.clientId != null && this.clientId.equals(other.clientId)
+            && this.secret.equals(other.secret);
+    }
+
+    /**
+     * @return true if this is basic authentication of a client, rather than a bearer token.
+     */
+    boolean isBasic()
+    {
+        return this.scheme == Scheme.BASIC;
+    }
+
+    /**
+     * @return the Authorization header carrying this authentication.
+     */
+    Header getHeader()
+    {
+        Header authorization = this.header;
+        if (authorization == null)
+        {
+            authorization = new BasicHeader(HttpHeaders.AUTHORIZATION,
+                this.scheme.getSchemeName() + " " + this.getParameter());
+            this.header = authorization;
+        }
+        return authorization;
+    }
+
+    @Override
+    public boolean equals(final Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+        if (!(o instanceof RestAuthentication))
+        {
+            return false;
+        }
+        final RestAuthentication that = (RestAuthentication) o;
+        return this.scheme == that.scheme && this.getParameter().equals(that.getParameter());
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return 31 * this.scheme.hashCode() + this.getParameter().hashCode();
     }
 
     @Override
     public String toString()
     {
         return "RestAuthentication(scheme=" + this.scheme + ", parameter=" + LogUtils.mask(
-            this.parameter) + ")";
+            this.getParameter()) + ")";
     }
 
     public enum Scheme
@@ -17,23 +17,22 @@
 package com.gsma.mobileconnect.r2.rest;
 
 import com.gsma.mobileconnect.r2.constants.DefaultOptions;
-import com.gsma.mobileconnect.r2.constants.Headers;
-import com.gsma.mobileconnect.r2.constants.Parameters;
-import com.gsma.mobileconnect.r2.exceptions.HeadlessOperationFailedException;
 import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
 import com.gsma.mobileconnect.r2.json.IJsonService;
 import com.gsma.mobileconnect.r2.json.JsonSerializationException;
+import com.gsma.mobileconnect.r2.rest.internal.HeadlessPoller;
+import com.gsma.mobileconnect.r2.rest.internal.RestRequestFactory;
+import com.gsma.mobileconnect.r2.rest.internal.RestResponseHandler;
+import com.gsma.mobileconnect.r2.rest.internal.RestSupport;
 import com.gsma.mobileconnect.r2.utils.*;
 import org.apache.http.*;
 import org.apache.http.client.HttpClient;
-import org.apache.http.client.ResponseHandler;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.client.methods.RequestBuilder;
-import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
-import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.event.Level;
@@ -43,8 +42,19 @@ import java.io.InterruptedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 /**
  * Concrete implementation of {@link IRestClient}
@@ -59,7 +69,31 @@ public class RestClient implements IRestClient
     private final HttpClient httpClient;
     private final long timeout;
     private final long waitTime;
-    private final RequestConfig requestConfig;
+    private final long maxBodySize;
+    private final RestRequestFactory requestFactory;
+    private final ScheduledExecutorService timeoutScheduler;
+    private final ConnectionPool connectionPool;
+    private final AsyncRestClient asyncRestClient;
+    private final CircuitBreakerOptions circuitBreakerOptions;
+    private final ConcurrentMap<String, CircuitBreaker> circuitBreakers =
+        new ConcurrentHashMap<String, CircuitBreaker>();
+    private final ConcurrencyLimitOptions concurrencyLimitOptions;
+    private final ConcurrentMap<String, ConcurrencyLimiter> concurrencyLimiters =
+        new ConcurrentHashMap<String, ConcurrencyLimiter>();
+    private final Map<String, RetryPolicy> retryPolicies;
+    private final RetryBudget retryBudget;
+    private final Executor workerExecutor;
+    private final RequestHedger discoveryHedger;
+    private final RequestCoalescer requestCoalescer;
+    private final Set<HttpUriRequest> cancelledRequests =
+        Collections.newSetFromMap(new ConcurrentHashMap<HttpUriRequest, Boolean>());
+    private final HeadlessPoller headlessPoller;
+
+    private final AtomicLong abortsScheduled = new AtomicLong();
+    private final AtomicLong abortsFired = new AtomicLong();
+    private final AtomicLong abortsCancelled = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final TransferStatistics transferStatistics = new TransferStatistics();
 
     private RestClient(Builder builder)
     {
@@ -67,18 +101,25 @@ public class RestClient implements IRestClient
         this.httpClient = builder.httpClient;
         this.timeout = builder.timeout;
         this.waitTime = builder.waitTime;
-
-        final int timeoutAsInt = (int) this.timeout;
-
-        this.requestConfig = RequestConfig
-            .custom()
-            .setConnectionRequestTimeout(timeoutAsInt)
-            .setConnectTimeout(timeoutAsInt)
-            .setSocketTimeout(timeoutAsInt)
-            .setRedirectsEnabled(true)
-            .build();
-
-        LOGGER.info("New instance of RestClient created with timeout={} ms", timeoutAsInt);
+        this.maxBodySize = builder.maxBodySize;
+        this.timeoutScheduler = builder.scheduledExecutorService;
+        this.connectionPool = builder.connectionPool;
+        this.asyncRestClient = builder.asyncRestClient;
+        this.circuitBreakerOptions = builder.circuitBreakerOptions;
+        this.concurrencyLimitOptions = builder.concurrencyLimitOptions;
+        this.retryPolicies = new HashMap<String, RetryPolicy>(builder.retryPolicies);
+        this.retryBudget = builder.retryBudget;
+        this.workerExecutor = builder.workerExecutor;
+        this.requestCoalescer = builder.requestCoalescer;
+        this.discoveryHedger = builder.hedgingOptions == null
+                               ? null
+                               : new RequestHedger(builder.hedgingOptions);
+        this.headlessPoller = new HeadlessPoller(this.timeoutScheduler, this.workerExecutor,
+            this.waitTime, builder.maxWaitTime, DefaultOptions.HEADLESS_TIMEOUT_MS);
+
+        this.requestFactory = new RestRequestFactory(this.timeout, builder.compression);
+
+        LOGGER.info("New instance of RestClient created with timeout={} ms", this.timeout);
     }
 
     @Override
@@ -89,20 +130,15 @@ public class RestClient implements IRestClient
         LOGGER.debug("Getting from uri={} for sourceIp={}",
                 LogUtils.maskUri(uri, LOGGER, Level.DEBUG), sourceIp);
 
-        final URIBuilder uriBuilder = new URIBuilder(uri);
-        if (queryParams != null)
-        {
-            uriBuilder.addParameters(new ArrayList<NameValuePair>(queryParams));
-        }
-
         try
         {
-            final HttpUriRequest request = this
-                    .createDiscoveryRequest(HttpUtils.HttpMethod.GET, uriBuilder.build(), xRedirect, authentication,
-                            sourceIp, clientSideVersion, serverSideVersion, cookies)
-                    .build();
+            final RequestBuilder builder = this.requestFactory
+                    .createDiscoveryRequest(HttpUtils.HttpMethod.GET, RestRequestFactory.withQueryParams(uri, queryParams), xRedirect, authentication,
+                            sourceIp, clientSideVersion, serverSideVersion, cookies);
 
-            return this.submitRequest(request, true);
+            return this.discoveryHedger == null
+                    ? this.submitRequest(builder.build(), true)
+                    : this.submitHedgedRequest(builder);
         }
         catch (final URISyntaxException use)
         {
@@ -120,16 +156,10 @@ public class RestClient implements IRestClient
         LOGGER.debug("Getting from uri={} for sourceIp={}",
             LogUtils.maskUri(uri, LOGGER, Level.DEBUG), sourceIp);
 
-        final URIBuilder uriBuilder = new URIBuilder(uri);
-        if (queryParams != null)
-        {
-            uriBuilder.addParameters(new ArrayList<NameValuePair>(queryParams));
-        }
-
         try
         {
-            final HttpUriRequest request = this
-                .createRequest(HttpUtils.HttpMethod.GET, uriBuilder.build(), xRedirect, authentication,
+            final HttpUriRequest request = this.requestFactory
+                .createRequest(HttpUtils.HttpMethod.GET, RestRequestFactory.withQueryParams(uri, queryParams), xRedirect, authentication,
                     sourceIp, cookies)
                 .build();
 
@@ -143,6 +173,27 @@ public class RestClient implements IRestClient
         }
     }
 
+    @Override
+    public RestResponse getConditional(final URI uri, final String etag, final String lastModified)
+        throws RequestFailedException
+    {
+        LOGGER.debug("Revalidating uri={} with etag={}, lastModified={}",
+            LogUtils.maskUri(uri, LOGGER, Level.DEBUG), etag, lastModified);
+
+        final RequestBuilder builder = this.requestFactory
+            .createRequest(HttpUtils.HttpMethod.GET, uri, null, null, null);
+        if (etag != null)
+        {
+            builder.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        }
+        if (lastModified != null)
+        {
+            builder.addHeader(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+        }
+
+        return this.submitRequest(builder.build(), true);
+    }
+
     @Override
     public RestResponse postDiscoveryFormData(final URI uri, final RestAuthentication authentication, final String xRedirect,
                                      final List<KeyValuePair> formData, final String sourceIp, final String clientSideVersion, final String serverSideVersion,
@@ -151,7 +202,7 @@ public class RestClient implements IRestClient
         LOGGER.debug("Posting form data to uri={} for sourceIp={}",
                 LogUtils.maskUri(uri, LOGGER, Level.DEBUG), sourceIp);
 
-        final HttpUriRequest request = this
+        final HttpUriRequest request = this.requestFactory
                 .createDiscoveryRequest(HttpUtils.HttpMethod.POST, uri, xRedirect, authentication, sourceIp, clientSideVersion, serverSideVersion, cookies)
                 .addParameters(
                         ObjectUtils.requireNonNull(formData, "formData").toArray(new NameValuePair[] {}))
@@ -167,7 +218,7 @@ public class RestClient implements IRestClient
         LOGGER.debug("Posting form data to uri={} for sourceIp={}",
             LogUtils.maskUri(uri, LOGGER, Level.DEBUG), sourceIp);
 
-        final HttpUriRequest request = this
+        final HttpUriRequest request = this.requestFactory
             .createRequest(HttpUtils.HttpMethod.POST, uri, xRedirect, authentication, sourceIp, cookies)
             .addParameters(
                 ObjectUtils.requireNonNull(formData, "formData").toArray(new NameValuePair[] {}))
@@ -219,7 +270,7 @@ public class RestClient implements IRestClient
             LogUtils.maskUri(uri, LOGGER, Level.DEBUG), content.getContentLength(),
             content.getContentType(), sourceIp);
 
-        final HttpUriRequest request = this
+        final HttpUriRequest request = this.requestFactory
             .createRequest(HttpUtils.HttpMethod.POST, uri, authentication, sourceIp, cookies)
             .setEntity(ObjectUtils.requireNonNull(content, "content"))
             .build();
@@ -233,234 +284,675 @@ public class RestClient implements IRestClient
     {
         try
         {
-            return followUrls(authUrl, targetUrl, authentication);
+            return this.getFinalRedirectAsync(authUrl, targetUrl, authentication).get();
         }
-        catch (URISyntaxException e)
+        catch (final InterruptedException ie)
         {
-            LOGGER.error("Invalid redirect URL", e);
-            throw new RequestFailedException(HttpUtils.HttpMethod.GET, authUrl, e);
+            Thread.currentThread().interrupt();
+            throw new RequestFailedException(HttpUtils.HttpMethod.GET, authUrl, ie);
         }
-        catch (HeadlessOperationFailedException e)
+        catch (final ExecutionException ee)
         {
-            LOGGER.error("Too many redirects", e);
-            throw new RequestFailedException(HttpUtils.HttpMethod.GET, authUrl, e);
+            if (ee.getCause() instanceof RequestFailedException)
+            {
+                throw (RequestFailedException) ee.getCause();
+            }
+            throw new RequestFailedException(HttpUtils.HttpMethod.GET, authUrl, ee.getCause());
         }
     }
 
-    private URI followUrls(final URI authUrl, final URI targetUrl,
+    @Override
+    public CompletableFuture<URI> getFinalRedirectAsync(final URI authUrl, final URI targetUrl,
         final RestAuthentication authentication)
-        throws HeadlessOperationFailedException, RequestFailedException, URISyntaxException
     {
-        int numRedirects = 0;
-        RestResponse response = null;
-        URI nextUrl = authUrl;
-        URI locationUri = null;
+        ObjectUtils.requireNonNull(authUrl, "authUrl");
+        ObjectUtils.requireNonNull(targetUrl, "targetUrl");
+
+        final Deadline deadline = Deadline.current();
+        return this.headlessPoller.poll(authUrl, targetUrl, uri -> CompletableFuture.supplyAsync(
+            () -> {
+                try (final Deadline.Scope ignored = Deadline.enter(deadline))
+                {
+                    return RestClient.this.submitRequest(RestClient.this.requestFactory
+                        .createRequest(HttpUtils.HttpMethod.GET, uri, authentication, null, null)
+                        .build(), false);
+                }
+                catch (final RequestFailedException rfe)
+                {
+                    throw new CompletionException(rfe);
+                }
+            }, this.workerExecutor));
+    }
 
-        do
+    /**
+     * Opens pooled connections to the hosts of the endpoints ahead of the first request to each,
+     * so that the first user of an operator does not wait for DNS resolution, the TCP connect and
+     * the TLS handshake.  The hosts are warmed up concurrently on the worker executor; endpoints on
+     * the same host are warmed up once.
+     *
+     * @param endpoints   uris on the operator hosts to warm up.
+     * @param connections number of connections to hold open to each host.
+     * @return report of the hosts warmed up and of those that failed.
+     * @throws IllegalStateException if the rest client is not running in pooling mode.
+     */
+    public WarmUpReport warmUp(final Collection<URI> endpoints, final int connections)
+    {
+        ObjectUtils.requireNonNull(endpoints, "endpoints");
+        if (this.connectionPool == null)
         {
-            if (numRedirects > DefaultOptions.MAX_REDIRECTS)
+            throw new IllegalStateException("Warming up connections requires a connection pool");
+        }
+
+        final Map<String, CompletableFuture<Void>> warmUps =
+            new LinkedHashMap<String, CompletableFuture<Void>>();
+        final Map<String, Throwable> failed = new LinkedHashMap<String, Throwable>();
+        for (final URI endpoint : endpoints)
+        {
+            final String host;
+            try
             {
-                throw new HeadlessOperationFailedException(
-                    "Headless operation failed either due to too many redirects or it timed out");
+                host = ConnectionPool.routeFor(endpoint).getTargetHost().toURI();
             }
-            if (response != null)
+            catch (final IllegalArgumentException iae)
             {
-                nextUrl = locationUri == null ? nextUrl : locationUri;
-                numRedirects++;
+                failed.put(String.valueOf(endpoint), iae);
+                continue;
             }
-            RequestBuilder requestBuilder =
-                this.createRequest(HttpUtils.HttpMethod.GET, nextUrl, authentication, null, null);
-            response = this.submitRequest(requestBuilder.build(), false);
-
-            locationUri = this.retrieveLocation(response);
+            if (!warmUps.containsKey(host))
+            {
+                warmUps.put(host, CompletableFuture.runAsync(() -> {
+                    try
+                    {
+                        RestClient.this.connectionPool.warmUp(endpoint, connections,
+                            RestClient.this.timeout);
+                    }
+                    catch (final IOException ioe)
+                    {
+                        throw new CompletionException(ioe);
+                    }
+                }, this.workerExecutor));
+            }
+        }
 
-            if (locationUri != null && locationUri.toString().startsWith(targetUrl.toString()))
+        final List<String> warmed = new ArrayList<String>();
+        for (final Map.Entry<String, CompletableFuture<Void>> warmUp : warmUps.entrySet())
+        {
+            try
             {
-                break;
+                warmUp.getValue().join();
+                warmed.add(warmUp.getKey());
             }
-            waitForSometime();
-        } while (true);
-        return locationUri;
+            catch (final CompletionException ce)
+            {
+                LOGGER.warn("Failed to warm up connections to host={}", warmUp.getKey(),
+                    ce.getCause());
+                failed.put(warmUp.getKey(), ce.getCause());
+            }
+        }
+
+        LOGGER.info("Warmed up connections to hosts={}, failed for hosts={}", warmed,
+            failed.keySet());
+        return new WarmUpReport(warmed, failed);
     }
 
-    private void waitForSometime()
+    /**
+     * Warms up the hosts of the endpoints now and then periodically, renewing the keep-alive of
+     * their pooled connections and reopening those that were closed.
+     *
+     * @param endpoints   uris on the operator hosts to keep warm.
+     * @param connections number of connections to hold open to each host.
+     * @param period      between warm-ups.
+     * @param unit        of the period.
+     * @return future to be cancelled to stop keeping the hosts warm.
+     * @throws IllegalStateException if the rest client is not running in pooling mode.
+     * @see #warmUp(Collection, int)
+     */
+    public Future<?> keepWarm(final Collection<URI> endpoints, final int connections,
+        final long period, final TimeUnit unit)
     {
+        if (this.connectionPool == null)
+        {
+            throw new IllegalStateException("Warming up connections requires a connection pool");
+        }
+        final List<URI> copy = new ArrayList<URI>(ObjectUtils.requireNonNull(endpoints, "endpoints"));
+
+        return this.timeoutScheduler.scheduleWithFixedDelay(
+            () -> RestClient.this.workerExecutor.execute(
+                () -> RestClient.this.warmUp(copy, connections)), 0L, period, unit);
+    }
+
+    /**
+     * Submits a request and, if it has not completed by the hedge delay, a duplicate of it; the
+     * first successful response is returned and the other request is cancelled.  If both fail the
+     * failure of the last is thrown.  With request coalescing enabled the request and its duplicate
+     * are coalesced as a whole, so cancelling the losing request never fails the identical
+     * requests sharing the response.
+     *
+     * @param builder creating the request and its duplicate.
+     * @return the RestResponse.
+     * @throws RequestFailedException if there is a failure issuing the requests.
+     */
+    private RestResponse submitHedgedRequest(final RequestBuilder builder)
+        throws RequestFailedException
+    {
+        final HttpUriRequest primary = builder.build();
+        primary.addHeader(HttpHeaders.ACCEPT, ContentType.APPLICATION_JSON.getMimeType());
+        if (this.requestCoalescer != null
+            && HttpUtils.HttpMethod.GET.name().equals(primary.getMethod()))
+        {
+            return this.requestCoalescer.submit(primary,
+                request -> RestClient.this.hedgeRequest(request, builder));
+        }
+        return this.hedgeRequest(primary, builder);
+    }
+
+    private RestResponse hedgeRequest(final HttpUriRequest primary, final RequestBuilder builder)
+        throws RequestFailedException
+    {
+        final HedgedRequest hedgedRequest = new HedgedRequest();
+        this.discoveryHedger.onRequest();
+        hedgedRequest.issue(primary, false);
+
+        final Future<?> hedgeFuture = this.timeoutScheduler.schedule(() -> {
+            if (!hedgedRequest.result.isDone() && RestClient.this.discoveryHedger.tryHedge())
+            {
+                LOGGER.debug("Hedging httpMethod={} request to uri={}", primary.getMethod(),
+                    LogUtils.maskUri(primary.getURI(), LOGGER, Level.DEBUG));
+                final HttpUriRequest hedge = builder.build();
+                hedge.addHeader(HttpHeaders.ACCEPT, ContentType.APPLICATION_JSON.getMimeType());
+                hedgedRequest.issue(hedge, true);
+            }
+        }, this.discoveryHedger.getHedgeDelayMs(), TimeUnit.MILLISECONDS);
+
         try
         {
-            Thread.sleep(this.waitTime);
+            return hedgedRequest.result.get();
         }
-        catch (InterruptedException e)
+        catch (final InterruptedException ie)
         {
             Thread.currentThread().interrupt();
-            LOGGER.info("Waking up and trying again");
+            hedgedRequest.cancelAllBut(null);
+            throw new RequestFailedException(primary.getMethod(), primary.getURI(), ie);
+        }
+        catch (final ExecutionException ee)
+        {
+            if (ee.getCause() instanceof RequestFailedException)
+            {
+                throw (RequestFailedException) ee.getCause();
+            }
+            throw new RequestFailedException(primary.getMethod(), primary.getURI(), ee.getCause());
+        }
+        finally
+        {
+            hedgeFuture.cancel(false);
         }
     }
 
-    private URI retrieveLocation(RestResponse response) throws URISyntaxException
+    /**
+     * A request and its hedge racing each other on the worker executor.  Neither is coalesced, as
+     * the pair is coalesced as a whole, so either may be cancelled once the other has won.
+     */
+    private final class HedgedRequest
     {
-        URI uri = null;
-        for (KeyValuePair keyValuePair : response.getHeaders())
+        private final CompletableFuture<RestResponse> result = new CompletableFuture<RestResponse>();
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private final Set<HttpUriRequest> pending =
+            Collections.newSetFromMap(new ConcurrentHashMap<HttpUriRequest, Boolean>());
+        private final long start = System.nanoTime();
+        private final Deadline deadline = Deadline.current();
+
+        private void issue(final HttpUriRequest request, final boolean hedge)
         {
-            if ("Location".equalsIgnoreCase(keyValuePair.getKey()))
+            this.outstanding.incrementAndGet();
+            this.pending.add(request);
+            CompletableFuture.supplyAsync(() -> {
+                try (final Deadline.Scope ignored = Deadline.enter(this.deadline))
+                {
+                    return RestClient.this.submitWithRetryPolicy(request);
+                }
+                catch (final RequestFailedException rfe)
+                {
+                    throw new CompletionException(rfe);
+                }
+            }, RestClient.this.workerExecutor).whenComplete((response, throwable) -> {
+                this.pending.remove(request);
+                RestClient.this.cancelledRequests.remove(request);
+                if (throwable == null)
+                {
+                    if (this.completed.compareAndSet(false, true))
+                    {
+                        RestClient.this.discoveryHedger.recordLatency(
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.start));
+                        if (hedge)
+                        {
+                            RestClient.this.discoveryHedger.onHedgeWon();
+                        }
+                        this.result.complete(response);
+                        this.cancelAllBut(request);
+                    }
+                }
+                else if (this.outstanding.decrementAndGet() == 0)
+                {
+                    this.result.completeExceptionally(throwable instanceof CompletionException
+                                                      ? throwable.getCause()
+                                                      : throwable);
+                }
+            });
+        }
+
+        /**
+         * Cancels the requests still pending other than the winner.  A request completing
+         * concurrently has already been removed from the pending requests, and is then removed
+         * from the cancelled requests here rather than being held there forever.
+         */
+        private void cancelAllBut(final HttpUriRequest winner)
+        {
+            for (final HttpUriRequest request : this.pending)
             {
-                uri = new URI(keyValuePair.getValue());
-                break;
+                if (request != winner)
+                {
+                    RestClient.this.cancelledRequests.add(request);
+                    if (this.pending.contains(request))
+                    {
+                        request.abort();
+                    }
+                    else
+                    {
+                        RestClient.this.cancelledRequests.remove(request);
+                    }
+                }
             }
         }
-        return uri;
     }
 
     /**
-     * Create an HTTP request builder.
+     * Submits a request, sharing the response of an identical GET already in flight if request
+     * coalescing is enabled.
      *
-     * @param method         either GET or POST.
-     * @param uri            for request.
-     * @param authentication to apply.
-     * @param sourceIp       if identified.
-     * @param cookies        to proxy.
-     * @return initialised request builder which can be further customised.
+     * @param request   to be run.
+     * @param addHeader boolean flag to specify if headers should be added
+     * @return the RestResponse.
+     * @throws RequestFailedException if there is a failure issuing the request.
      */
-    private RequestBuilder createRequest(final HttpUtils.HttpMethod method, final URI uri,
-        final RestAuthentication authentication, final String sourceIp,
-        final Iterable<KeyValuePair> cookies)
+    private RestResponse submitRequest(final HttpUriRequest request, final boolean addHeader)
+        throws RequestFailedException
     {
-        LOGGER.debug(
-            "Creating request with httpMethod={}, uri={}, authentication={} for sourceIp={}",
-            method, LogUtils.maskUri(uri, LOGGER, Level.DEBUG), authentication, sourceIp);
+        ObjectUtils.requireNonNull(request, "request");
+        if (addHeader)
+        {
+            request.addHeader(HttpHeaders.ACCEPT, ContentType.APPLICATION_JSON.getMimeType());
+        }
 
-        final RequestBuilder builder = RequestBuilder
-            .create(ObjectUtils.requireNonNull(method, "method").name())
-            .setUri(ObjectUtils.requireNonNull(uri, "uri"))
-            .setConfig(this.requestConfig);
+        if (this.requestCoalescer != null
+            && HttpUtils.HttpMethod.GET.name().equals(request.getMethod()))
+        {
+            return this.requestCoalescer.submit(request, this::submitWithRetryPolicy);
+        }
+        return this.submitWithRetryPolicy(request);
+    }
 
-        return prepareRequest(builder, authentication, sourceIp, cookies);
+    /**
+     * Submits a request, retrying it according to the retry policy of its http method if one is
+     * configured.
+     *
+     * @param request to be run.
+     * @return the RestResponse.
+     * @throws RequestFailedException if there is a failure issuing the request.
+     */
+    private RestResponse submitWithRetryPolicy(final HttpUriRequest request)
+        throws RequestFailedException
+    {
+        final Deadline deadline = Deadline.current();
+        if (deadline != null && deadline.isExpired())
+        {
+            throw this.deadlineExceeded(request);
+        }
+
+        final RetryPolicy retryPolicy = this.retryPolicies.get(request.getMethod());
+        return retryPolicy == null
+               ? this.guardRequest(request)
+               : this.retryRequest(request, retryPolicy);
     }
 
-    private RequestBuilder createDiscoveryRequest(final HttpUtils.HttpMethod method, final URI uri, final String xRedirect,
-                                         final RestAuthentication authentication, final String sourceIp, final String clientSideVersion, final String serverSideVersion,
-                                         final Iterable<KeyValuePair> cookies)
+    /**
+     * Rejects a request whose deadline has passed without issuing it.
+     *
+     * @param request that was not issued.
+     * @return the exception to throw.
+     */
+    private RequestFailedException deadlineExceeded(final HttpUriRequest request)
     {
-        LOGGER.debug(
-                "Creating discovery request with httpMethod={}, uri={}, authentication={} for sourceIp={}",
-                method, LogUtils.maskUri(uri, LOGGER, Level.DEBUG), authentication, sourceIp);
+        LOGGER.warn("Rejected httpMethod={} request to uri={}; deadline has passed",
+            request.getMethod(), LogUtils.maskUri(request.getURI(), LOGGER, Level.WARN));
 
-        final RequestBuilder builder = RequestBuilder
-                .create(ObjectUtils.requireNonNull(method, "method").name())
-                .setUri(ObjectUtils.requireNonNull(uri, "uri"))
-                .setConfig(this.requestConfig);
+        return new RequestFailedException(request.getMethod(), request.getURI(),
+            new DeadlineExceededException(request.getMethod(), request.getURI()));
+    }
 
-        builder.addHeader(Headers.VERSION_SDK, Parameters.SDK_VERSION);
-        builder.addHeader(Headers.CLIENT_SIDE_VERSION, clientSideVersion);
-        builder.addHeader(Headers.SERVER_SIDE_VERSION, serverSideVersion);
+    /**
+     * Submits a request until it succeeds or its retry policy gives up.  Once no further attempt
+     * will be made, or the next attempt could not start before the deadline entered on the calling
+     * thread, the last failure or retryable response is returned to the caller.
+     *
+     * @param request     to be run.
+     * @param retryPolicy of the http method of the request.
+     * @return the RestResponse.
+     * @throws RequestFailedException if the last attempt failed.
+     */
+    private RestResponse retryRequest(final HttpUriRequest request, final RetryPolicy retryPolicy)
+        throws RequestFailedException
+    {
+        final long deadline = nowMs() + retryPolicy.getDeadlineMs();
+        final Deadline operationDeadline = Deadline.current();
+        this.retryBudget.onRequest();
+
+        for (int attempt = 1; ; attempt++)
+        {
+            RestResponse response = null;
+            RequestFailedException failure = null;
+            try
+            {
+                response = this.guardRequest(request);
+                if (!retryPolicy.isRetryable(response.getStatusCode()))
+                {
+                    return response;
+                }
+            }
+            catch (final RequestFailedException rfe)
+            {
+                if (!retryPolicy.isRetryable(rfe))
+                {
+                    throw rfe;
+                }
+                failure = rfe;
+            }
 
-        return prepareRequest(builder, xRedirect, authentication, sourceIp, cookies);
+            final long backoff = retryPolicy.backoffMs(attempt);
+            if (this.cancelledRequests.contains(request))
+            {
+                LOGGER.debug("Not retrying cancelled httpMethod={} request to uri={}",
+                    request.getMethod(), LogUtils.maskUri(request.getURI(), LOGGER, Level.DEBUG));
+            }
+            else if (attempt >= retryPolicy.getMaxAttempts() || nowMs() + backoff >= deadline
+                || operationDeadline != null
+                && operationDeadline.remaining(TimeUnit.MILLISECONDS) <= backoff)
+            {
+                LOGGER.warn("Giving up httpMethod={} request to uri={} after attempts={}",
+                    request.getMethod(), LogUtils.maskUri(request.getURI(), LOGGER, Level.WARN),
+                    attempt);
+            }
+            else if (!this.retryBudget.tryAcquire())
+            {
+                LOGGER.warn("Not retrying httpMethod={} request to uri={}; retry budget exhausted",
+                    request.getMethod(), LogUtils.maskUri(request.getURI(), LOGGER, Level.WARN));
+            }
+            else if (this.backoff(backoff))
+            {
+                LOGGER.info("Retrying httpMethod={} request to uri={} after backoff={} ms",
+                    request.getMethod(), LogUtils.maskUri(request.getURI(), LOGGER, Level.INFO),
+                    backoff);
+                this.retries.incrementAndGet();
+                if (request instanceof HttpRequestBase)
+                {
+                    ((HttpRequestBase) request).reset();
+                }
+                continue;
+            }
+
+            if (failure != null)
+            {
+                throw failure;
+            }
+            return response;
+        }
     }
 
-    private RequestBuilder prepareRequest(final RequestBuilder builder, final String xRedirect,
-                                          final RestAuthentication authentication, final String sourceIp,
-                                          final Iterable<KeyValuePair> cookies) {
+    /**
+     * Waits before a retry.
+     *
+     * @param backoff in milliseconds.
+     * @return false if the wait was interrupted.
+     */
+    private boolean backoff(final long backoff)
+    {
+        try
+        {
+            Thread.sleep(backoff);
+            return true;
+        }
+        catch (final InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
 
-        return xRedirect != null ? prepareRequest(builder, authentication, sourceIp, cookies).addHeader(Parameters.X_REDIRECT, xRedirect)
-                : prepareRequest(builder, authentication, sourceIp, cookies);
+    private static long nowMs()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
     }
 
-    private RequestBuilder prepareRequest(final RequestBuilder builder,
-                                          final RestAuthentication authentication, final String sourceIp,
-                                          final Iterable<KeyValuePair> cookies) {
-        if (cookies != null)
+    /**
+     * Submits a request within the concurrency limit for its host, if enabled.  A request waits up
+     * to the maximum wait for a permit and is rejected without being issued if none becomes
+     * available; otherwise its latency, and whether it failed or was refused by an overloaded
+     * operator, adapts the limit.
+     *
+     * @param request to be run.
+     * @return the RestResponse.
+     * @throws RequestFailedException if there is a failure issuing the request or it is rejected.
+     */
+    private RestResponse guardRequest(final HttpUriRequest request) throws RequestFailedException
+    {
+        final ConcurrencyLimiter limiter = this.concurrencyLimiterFor(request.getURI());
+        if (limiter == null)
         {
-            final StringBuilder cookieBuilder = new StringBuilder();
-            for (final KeyValuePair cookie : cookies)
+            return this.breakRequest(request);
+        }
+        if (!limiter.acquire())
+        {
+            LOGGER.warn("Rejected httpMethod={} request to uri={}; concurrency limit={} for host={} reached",
+                request.getMethod(), LogUtils.maskUri(request.getURI(), LOGGER, Level.WARN),
+                limiter.getLimit(), limiter.getHost());
+
+            throw new RequestFailedException(request.getMethod(), request.getURI(),
+                new ConcurrencyLimitExceededException(request.getURI(), limiter));
+        }
+
+        final long start = System.nanoTime();
+        boolean issued = true;
+        boolean dropped = true;
+        try
+        {
+            final RestResponse response = this.breakRequest(request);
+            dropped = response.getStatusCode() == HttpStatus.SC_TOO_MANY_REQUESTS
+                || response.getStatusCode() >= HttpStatus.SC_INTERNAL_SERVER_ERROR;
+            return response;
+        }
+        catch (final RequestFailedException rfe)
+        {
+            issued = !(rfe.getCause() instanceof CircuitOpenException
+                || rfe.getCause() instanceof CancellationException
+                || rfe.getCause() instanceof DeadlineExceededException);
+            throw rfe;
+        }
+        finally
+        {
+            if (issued)
             {
-                cookieBuilder
-                        .append(cookie.getKey())
-                        .append('=')
-                        .append(cookie.getValue())
-                        .append(';');
+                limiter.release(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), dropped);
             }
-            builder.addHeader(Headers.COOKIE, cookieBuilder.toString());
+            else
+            {
+                limiter.release();
+            }
+        }
+    }
+
+    /**
+     * Finds the concurrency limiter for the host of the uri, creating it on first use.
+     *
+     * @param uri of the request.
+     * @return the concurrency limiter, or null if concurrency limiting is disabled.
+     */
+    private ConcurrencyLimiter concurrencyLimiterFor(final URI uri)
+    {
+        if (this.concurrencyLimitOptions == null || uri.getHost() == null)
+        {
+            return null;
         }
 
-        if (!StringUtils.isNullOrEmpty(sourceIp))
+        final String host = RestSupport.hostOf(uri);
+        ConcurrencyLimiter limiter = this.concurrencyLimiters.get(host);
+        if (limiter == null)
         {
-            builder.addHeader(Headers.X_SOURCE_IP, sourceIp);
+            final ConcurrencyLimiter created =
+                new ConcurrencyLimiter(host, this.concurrencyLimitOptions);
+            limiter = this.concurrencyLimiters.putIfAbsent(host, created);
+            if (limiter == null)
+            {
+                limiter = created;
+            }
         }
+        return limiter;
+    }
 
-        if (authentication != null)
+    /**
+     * Submits a request through the circuit breaker for its host, if enabled.  A request to a host
+     * whose circuit is open is rejected without being issued; otherwise its outcome is recorded,
+     * a failure to issue the request or a 5xx response counting as a failure.
+     *
+     * @param request to be run.
+     * @return the RestResponse.
+     * @throws RequestFailedException if there is a failure issuing the request or the circuit for
+     *                                its host is open.
+     */
+    private RestResponse breakRequest(final HttpUriRequest request) throws RequestFailedException
+    {
+        final CircuitBreaker circuitBreaker = this.circuitBreakerFor(request.getURI());
+        if (circuitBreaker == null)
         {
-            builder.addHeader(HttpHeaders.AUTHORIZATION,
-                    authentication.getScheme() + " " + authentication.getParameter());
+            return this.dispatchRequest(request);
         }
+        if (!circuitBreaker.tryAcquire())
+        {
+            LOGGER.warn("Rejected httpMethod={} request to uri={}; circuit for host={} is open",
+                request.getMethod(), LogUtils.maskUri(request.getURI(), LOGGER, Level.WARN),
+                circuitBreaker.getHost());
 
-        return builder;
+            throw new RequestFailedException(request.getMethod(), request.getURI(),
+                new CircuitOpenException(request.getURI(), circuitBreaker));
+        }
+
+        boolean succeeded = false;
+        boolean cancelled = false;
+        try
+        {
+            final RestResponse response = this.dispatchRequest(request);
+            succeeded = response.getStatusCode() < HttpStatus.SC_INTERNAL_SERVER_ERROR;
+            return response;
+        }
+        catch (final RequestFailedException rfe)
+        {
+            cancelled = rfe.getCause() instanceof CancellationException
+                || rfe.getCause() instanceof DeadlineExceededException;
+            throw rfe;
+        }
+        finally
+        {
+            if (succeeded)
+            {
+                circuitBreaker.onSuccess();
+            }
+            else if (cancelled)
+            {
+                circuitBreaker.onIgnored();
+            }
+            else
+            {
+                circuitBreaker.onFailure();
+            }
+        }
     }
-    private RequestBuilder createRequest(final HttpUtils.HttpMethod method, final URI uri, final String xRedirect,
-                                         final RestAuthentication authentication, final String sourceIp,
-                                         final Iterable<KeyValuePair> cookies)
-    {
-        LOGGER.debug(
-                "Creating request with httpMethod={}, uri={}, authentication={} for sourceIp={}",
-                method, LogUtils.maskUri(uri, LOGGER, Level.DEBUG), authentication, sourceIp);
 
-        final RequestBuilder builder = RequestBuilder
-                .create(ObjectUtils.requireNonNull(method, "method").name())
-                .setUri(ObjectUtils.requireNonNull(uri, "uri"))
-                .setConfig(this.requestConfig);
+    /**
+     * Finds the circuit breaker for the host of the uri, creating it on first use.
+     *
+     * @param uri of the request.
+     * @return the circuit breaker, or null if circuit breaking is disabled.
+     */
+    private CircuitBreaker circuitBreakerFor(final URI uri)
+    {
+        if (this.circuitBreakerOptions == null || uri.getHost() == null)
+        {
+            return null;
+        }
 
-        return prepareRequest(builder, xRedirect, authentication, sourceIp, cookies);
+        final String host = RestSupport.hostOf(uri);
+        CircuitBreaker circuitBreaker = this.circuitBreakers.get(host);
+        if (circuitBreaker == null)
+        {
+            final CircuitBreaker created = new CircuitBreaker(host, this.circuitBreakerOptions);
+            circuitBreaker = this.circuitBreakers.putIfAbsent(host, created);
+            if (circuitBreaker == null)
+            {
+                circuitBreaker = created;
+            }
+        }
+        return circuitBreaker;
     }
+
     /**
-     * Submits a request to the executor.  When the request runs, an additional task is scheduled in
-     * the future which will abort the request after the configured timeout period.
+     * Submits a request to the http client.  Before the request runs, an abort task is scheduled on
+     * the shared timeout scheduler which will abort the request after the configured timeout
+     * period; the task is cancelled as soon as the request completes.  If a deadline is entered on
+     * the calling thread and less than the configured timeout remains, the remaining time is used
+     * as the connect, socket and abort timeout instead.
      *
-     * @param request   to be run.
-     * @param addHeader boolean flag to specify if headers should be added
+     * @param request to be run.
      * @return the RestResponse.
      * @throws RequestFailedException if there is a failure issuing the request.
      */
-    private RestResponse submitRequest(final HttpUriRequest request, final boolean addHeader)
+    private RestResponse dispatchRequest(final HttpUriRequest request)
         throws RequestFailedException
     {
-        ObjectUtils.requireNonNull(request, "request");
-        ScheduledExecutorService executorService = Executors.newScheduledThreadPool(1);
-        final Future<?> abortFuture = executorService.schedule(new Runnable()
+        final long timeout = this.timeoutFor(request);
+        if (this.asyncRestClient != null)
         {
-            @Override
-            public void run()
-            {
-                LOGGER.debug(
-                    "Aborting httpMethod={} request to uri={} as request timed out, timeout={} ms",
-                    request.getMethod(), LogUtils.maskUri(request.getURI(), LOGGER, Level.DEBUG),
-                    RestClient.this.timeout);
-
-                request.abort();
-            }
-        }, this.timeout, TimeUnit.MILLISECONDS);
+            return this.submitAsyncRequest(request, timeout);
+        }
+        final Future<?> abortFuture = this.scheduleAbort(request, timeout);
 
         try
         {
-            if (addHeader)
-            {
-                request.addHeader(HttpHeaders.ACCEPT, ContentType.APPLICATION_JSON.getMimeType());
-            }
             LOGGER.debug("Issuing httpMethod={} request to uri={}", request.getMethod(),
                 LogUtils.maskUri(request.getURI(), LOGGER, Level.DEBUG));
-            executorService.shutdownNow();
 
             return this.httpClient.execute(request,
-                new RestResponseHandler(request.getMethod(), request.getURI(), abortFuture));
+                new RestResponseHandler(request.getMethod(), request.getURI(), abortFuture,
+                    this.maxBodySize, this.transferStatistics));
         }
         catch (final InterruptedIOException ioe)
         {
-            if (request.isAborted())
+            if (request.isAborted() && this.cancelledRequests.contains(request))
+            {
+                LOGGER.debug("Cancelled httpMethod={} request to uri={}", request.getMethod(),
+                    LogUtils.maskUri(request.getURI(), LOGGER, Level.DEBUG));
+
+                throw new RequestFailedException(request.getMethod(), request.getURI(),
+                    new CancellationException(String.format("HTTP %s request was cancelled",
+                        request.getMethod())));
+            }
+            else if (request.isAborted())
             {
                 LOGGER.warn("Failed to perform httpMethod={} to uri={}; timed out, timeout={} ms",
                     request.getMethod(), LogUtils.maskUri(request.getURI(), LOGGER, Level.WARN),
-                    this.timeout, ioe);
+                    timeout, ioe);
 
                 throw new RequestFailedException(request.getMethod(), request.getURI(),
                     new TimeoutException(String.format("HTTP %s request was aborted after %s ms",
-                        request.getMethod(), this.timeout)));
+                        request.getMethod(), timeout)));
             }
             else
             {
@@ -477,47 +969,284 @@ public class RestClient implements IRestClient
                 LogUtils.maskUri(request.getURI(), LOGGER, Level.WARN), e);
             throw new RequestFailedException(request.getMethod(), request.getURI(), e);
         }
+        finally
+        {
+            this.releaseAbort(abortFuture);
+        }
     }
 
-    static class RestResponseHandler implements ResponseHandler<RestResponse>
+    /**
+     * Works out the timeout of a request from the configured timeout and the time remaining until
+     * the deadline entered on the calling thread, if any.  Where the deadline is sooner the
+     * connect and socket timeouts of the request are shortened to match.
+     *
+     * @param request to be run.
+     * @return the timeout in milliseconds.
+     * @throws RequestFailedException if the deadline has passed.
+     */
+    private long timeoutFor(final HttpUriRequest request) throws RequestFailedException
     {
-        private final String method;
-        private final URI uri;
-        private final Future<?> abortFuture;
-
-        RestResponseHandler(final String method, final URI uri, final Future<?> abortFuture)
+        final Deadline deadline = Deadline.current();
+        if (deadline == null)
         {
-            this.method = method;
-            this.uri = uri;
-            this.abortFuture = abortFuture;
+            return this.timeout;
         }
 
-        @Override
-        public RestResponse handleResponse(final HttpResponse httpResponse) throws IOException
+        final long remaining = deadline.remaining(TimeUnit.MILLISECONDS);
+        if (remaining <= 0L)
+        {
+            throw this.deadlineExceeded(request);
+        }
+        if (remaining >= this.timeout)
         {
-            LOGGER.debug("Received response statusCode={} for httpMethod={} request to uri={}",
-                httpResponse.getStatusLine().getStatusCode(), this.method,
-                LogUtils.maskUri(this.uri, LOGGER, Level.DEBUG));
+            return this.timeout;
+        }
 
-            this.abortFuture.cancel(false);
+        if (request instanceof HttpRequestBase)
+        {
+            final HttpRequestBase requestBase = (HttpRequestBase) request;
+            final RequestConfig config = requestBase.getConfig();
+            final RequestConfig.Builder builder =
+                config == null ? RequestConfig.custom() : RequestConfig.copy(config);
+            requestBase.setConfig(builder
+                .setConnectionRequestTimeout((int) remaining)
+                .setConnectTimeout((int) remaining)
+                .setSocketTimeout((int) remaining)
+                .build());
+        }
+        return remaining;
+    }
 
-            final KeyValuePair.ListBuilder headersBuilder = new KeyValuePair.ListBuilder();
+    /**
+     * Submits a request to the async client and waits for it to complete.  The async client
+     * enforces the configured timeout itself, so no abort is scheduled; the wait is bounded by the
+     * timeout of the request, shortened to the deadline entered on the calling thread, and the
+     * exchange is cancelled once it is exceeded.
+     *
+     * @param request to be run.
+     * @param timeout of the request in milliseconds.
+     * @return the RestResponse.
+     * @throws RequestFailedException if there is a failure issuing the request.
+     */
+    private RestResponse submitAsyncRequest(final HttpUriRequest request, final long timeout)
+        throws RequestFailedException
+    {
+        final CompletableFuture<RestResponse> exchange = this.asyncRestClient.execute(request);
+        try
+        {
+            return exchange.get(timeout, TimeUnit.MILLISECONDS);
+        }
+        catch (final TimeoutException te)
+        {
+            exchange.cancel(true);
+            LOGGER.warn("Failed to perform httpMethod={} to uri={}; timed out, timeout={} ms",
+                request.getMethod(), LogUtils.maskUri(request.getURI(), LOGGER, Level.WARN),
+                timeout);
+
+            throw new RequestFailedException(request.getMethod(), request.getURI(),
+                new TimeoutException(String.format("HTTP %s request was cancelled after %s ms",
+                    request.getMethod(), timeout)));
+        }
+        catch (final InterruptedException ie)
+        {
+            exchange.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RequestFailedException(request.getMethod(), request.getURI(), ie);
+        }
+        catch (final ExecutionException ee)
+        {
+            if (ee.getCause() instanceof RequestFailedException)
+            {
+                throw (RequestFailedException) ee.getCause();
+            }
+            throw new RequestFailedException(request.getMethod(), request.getURI(), ee.getCause());
+        }
+    }
 
-            for (final Header header : httpResponse.getAllHeaders())
+    /**
+     * Schedules a task on the timeout scheduler that will abort the request once the timeout has
+     * elapsed.
+     *
+     * @param request to abort on timeout.
+     * @param timeout of the request in milliseconds.
+     * @return future of the abort task, to be cancelled on completion of the request.
+     */
+    private Future<?> scheduleAbort(final HttpUriRequest request, final long timeout)
+    {
+        final Future<?> abortFuture = this.timeoutScheduler.schedule(new Runnable()
+        {
+            @Override
+            public void run()
             {
-                headersBuilder.add(header.getName(), header.getValue());
+                LOGGER.debug(
+                    "Aborting httpMethod={} request to uri={} as request timed out, timeout={} ms",
+                    request.getMethod(), LogUtils.maskUri(request.getURI(), LOGGER, Level.DEBUG),
+                    timeout);
+
+                RestClient.this.abortsFired.incrementAndGet();
+                request.abort();
             }
+        }, timeout, TimeUnit.MILLISECONDS);
 
-            return new RestResponse.Builder()
-                .withMethod(this.method)
-                .withUri(this.uri)
-                .withStatusCode(httpResponse.getStatusLine().getStatusCode())
-                .withHeaders(headersBuilder.build())
-                .withContent(EntityUtils.toString(httpResponse.getEntity()))
-                .build();
+        this.abortsScheduled.incrementAndGet();
+        return abortFuture;
+    }
+
+    /**
+     * Cancels the abort task if it is still pending.  The response handler cancels the task as soon
+     * as a response is received, so the task is counted as cancelled if either did so.
+     *
+     * @param abortFuture future of the abort task.
+     */
+    private void releaseAbort(final Future<?> abortFuture)
+    {
+        if (abortFuture.cancel(false) || abortFuture.isCancelled())
+        {
+            this.abortsCancelled.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return number of request aborts scheduled on the timeout scheduler.
+     */
+    public long getScheduledAbortCount()
+    {
+        return this.abortsScheduled.get();
+    }
+
+    /**
+     * @return number of request aborts that fired because a request timed out.
+     */
+    public long getFiredAbortCount()
+    {
+        return this.abortsFired.get();
+    }
+
+    /**
+     * @return number of request aborts cancelled because the request completed in time.
+     */
+    public long getCancelledAbortCount()
+    {
+        return this.abortsCancelled.get();
+    }
+
+    /**
+     * @return number of headless authentications currently being polled.
+     */
+    public int getHeadlessPollCount()
+    {
+        return this.headlessPoller.getActiveCount();
+    }
+
+    /**
+     * @return the hedger of discovery requests, holding the hedging metrics, or null if discovery
+     * requests are not hedged.
+     */
+    public RequestHedger getDiscoveryHedger()
+    {
+        return this.discoveryHedger;
+    }
+
+    /**
+     * @return the coalescer of identical GET requests, holding the coalescing counters, or null if
+     * requests are not coalesced.
+     */
+    public RequestCoalescer getRequestCoalescer()
+    {
+        return this.requestCoalescer;
+    }
+
+    /**
+     * @return number of requests retried under a retry policy.
+     */
+    public long getRetryCount()
+    {
+        return this.retries.get();
+    }
+
+    /**
+     * @return the budget capping the retries of this client, or null if no retry policy is
+     * configured.
+     */
+    public RetryBudget getRetryBudget()
+    {
+        return this.retryBudget;
+    }
+
+    /**
+     * @return the connection pool used by this client, or null if it was built with an externally
+     * configured http client.
+     */
+    public ConnectionPool getConnectionPool()
+    {
+        return this.connectionPool;
+    }
+
+    /**
+     * @return counters of the response bytes received on the wire and after decoding.
+     */
+    public TransferStatistics getTransferStatistics()
+    {
+        return this.asyncRestClient == null
+               ? this.transferStatistics
+               : this.asyncRestClient.getTransferStatistics();
+    }
+
+    /**
+     * @return current state of the circuit breaker of every host this client has issued requests
+     * to, keyed by host and port; empty if circuit breaking is disabled.
+     */
+    public Map<String, CircuitBreaker.State> getCircuitBreakerStates()
+    {
+        final Map<String, CircuitBreaker.State> states = new TreeMap<String, CircuitBreaker.State>();
+        for (final CircuitBreaker circuitBreaker : this.circuitBreakers.values())
+        {
+            states.put(circuitBreaker.getHost(), circuitBreaker.getState());
         }
+        return Collections.unmodifiableMap(states);
+    }
+
+    /**
+     * Find the circuit breaker guarding the specified host.
+     *
+     * @param host of the form host:port.
+     * @return the circuit breaker, or null if no request has been issued to the host or circuit
+     * breaking is disabled.
+     */
+    public CircuitBreaker getCircuitBreaker(final String host)
+    {
+        return host == null ? null : this.circuitBreakers.get(host.toLowerCase());
+    }
+
+    /**
+     * Current concurrency limit and number of requests in flight of every host this client has
+     * issued requests to.
+     *
+     * @return concurrency limiters keyed by host and port; empty if concurrency limiting is
+     * disabled.
+     */
+    public Map<String, ConcurrencyLimiter> getConcurrencyLimiters()
+    {
+        return Collections.unmodifiableMap(
+            new TreeMap<String, ConcurrencyLimiter>(this.concurrencyLimiters));
+    }
+
+    /**
+     * @return the async client this client issues its requests through, or null if it issues them
+     * through a blocking http client.
+     */
+    public AsyncRestClient getAsyncRestClient()
+    {
+        return this.asyncRestClient;
     }
 
+    /**
+     * @return snapshot of the connection pool usage, or null if this client is not pooling.
+     */
+    public ConnectionPoolStatistics getConnectionPoolStatistics()
+    {
+        return this.connectionPool == null ? null : this.connectionPool.getStatistics();
+    }
 
     public static final class Builder implements IBuilder<RestClient>
     {
@@ -525,6 +1254,20 @@ public class RestClient implements IRestClient
         private HttpClient httpClient;
         private long timeout = DefaultOptions.TIMEOUT_MS;
         private long waitTime = DefaultOptions.WAIT_TIME;
+        private Long maxWaitTime;
+        private Executor workerExecutor;
+        private long maxBodySize = DefaultOptions.MAX_RESPONSE_BODY_BYTES;
+        private boolean compression = true;
+        private ScheduledExecutorService scheduledExecutorService;
+        private ConnectionPoolOptions connectionPoolOptions;
+        private ConnectionPool connectionPool;
+        private AsyncRestClient asyncRestClient;
+        private CircuitBreakerOptions circuitBreakerOptions;
+        private ConcurrencyLimitOptions concurrencyLimitOptions;
+        private HedgingOptions hedgingOptions;
+        private RequestCoalescer requestCoalescer;
+        private final Map<String, RetryPolicy> retryPolicies = new HashMap<String, RetryPolicy>();
+        private RetryBudget retryBudget;
 
         public Builder withJsonService(final IJsonService val)
         {
@@ -550,11 +1293,241 @@ public class RestClient implements IRestClient
             return this;
         }
 
+        /**
+         * Specify the longest wait between two polls of a headless authentication which is making
+         * no progress; the wait grows from the wait time up to this value.  Defaults to {@value
+         * DefaultOptions#HEADLESS_MAX_BACKOFF_FACTOR} times the wait time.
+         *
+         * @param val maximum wait in milliseconds.
+         * @return builder to continue further configuration.
+         */
+        public Builder withMaxWaitTime(final long val)
+        {
+            this.maxWaitTime = val;
+            return this;
+        }
+
+        /**
+         * Specify the executor on which the polls of headless authentications and hedged requests
+         * are issued.  If not specified a pool shared by all rest clients is used.
+         *
+         * @param val executor to be used.
+         * @return builder to continue further configuration.
+         */
+        public Builder withWorkerExecutor(final Executor val)
+        {
+            this.workerExecutor = val;
+            return this;
+        }
+
+        /**
+         * Specify whether to request gzip compressed responses with Accept-Encoding; compressed
+         * responses are inflated by the rest client.  Enabled by default.
+         *
+         * @param val true to request compressed responses.
+         * @return builder to continue further configuration.
+         */
+        public Builder withCompression(final boolean val)
+        {
+            this.compression = val;
+            return this;
+        }
+
+        /**
+         * Specify the maximum size of a response body; a larger response fails with a {@link
+         * ResponseTooLargeException}.  Defaults to {@link DefaultOptions#MAX_RESPONSE_BODY_BYTES}.
+         *
+         * @param val maximum number of bytes.
+         * @return builder to continue further configuration.
+         */
+        public Builder withMaxResponseBodySize(final long val)
+        {
+            this.maxBodySize = val;
+            return this;
+        }
+
+        /**
+         * Specify the scheduler used to enforce request timeouts.  If not specified a single
+         * daemon thread shared by all rest clients is used.
+         *
+         * @param val scheduler to be used.
+         * @return builder to continue further configuration.
+         */
+        public Builder withScheduledExecutorService(final ScheduledExecutorService val)
+        {
+            this.scheduledExecutorService = val;
+            return this;
+        }
+
+        /**
+         * Run in pooling mode, issuing requests through a {@link ConnectionPool} created with the
+         * specified options.  Ignored if a http client is specified.
+         *
+         * @param val pool settings.
+         * @return builder to continue further configuration.
+         */
+        public Builder withConnectionPool(final ConnectionPoolOptions val)
+        {
+            this.connectionPoolOptions = val;
+            return this;
+        }
+
+        /**
+         * Run as a blocking adapter over the specified {@link AsyncRestClient}; every request is
+         * issued through the async client and the calling thread waits for its completion.  The
+         * async client enforces its own timeout, so the http client, connection pool and timeout
+         * scheduler settings are ignored.
+         *
+         * @param val async client to issue requests through.
+         * @return builder to continue further configuration.
+         */
+        public Builder withAsyncRestClient(final AsyncRestClient val)
+        {
+            this.asyncRestClient = val;
+            return this;
+        }
+
+        /**
+         * Guard the requests to each operator host with a {@link CircuitBreaker} created with the
+         * specified options.  Disabled by default.
+         *
+         * @param val circuit breaker settings, or null to disable circuit breaking.
+         * @return builder to continue further configuration.
+         */
+        public Builder withCircuitBreaker(final CircuitBreakerOptions val)
+        {
+            this.circuitBreakerOptions = val;
+            return this;
+        }
+
+        /**
+         * Limit the concurrent requests to each operator host with a {@link ConcurrencyLimiter}
+         * created with the specified options.  Disabled by default.
+         *
+         * @param val concurrency limit settings, or null to disable concurrency limiting.
+         * @return builder to continue further configuration.
+         */
+        public Builder withConcurrencyLimit(final ConcurrencyLimitOptions val)
+        {
+            this.concurrencyLimitOptions = val;
+            return this;
+        }
+
+        /**
+         * Hedge discovery requests: if a discovery GET has not completed within a percentile of
+         * recent discovery latency a duplicate is sent, and whichever response arrives first is
+         * used.  Disabled by default.
+         *
+         * @param val hedging settings, or null to disable hedging.
+         * @return builder to continue further configuration.
+         */
+        public Builder withDiscoveryHedging(final HedgingOptions val)
+        {
+            this.hedgingOptions = val;
+            return this;
+        }
+
+        /**
+         * Coalesce identical GET requests made concurrently, so that they share a single request
+         * and response.  Disabled by default.
+         *
+         * @param val true to coalesce requests with the default key of {@link
+         *            RequestCoalescer#defaultKey(HttpUriRequest)}.
+         * @return builder to continue further configuration.
+         */
+        public Builder withRequestCoalescing(final boolean val)
+        {
+            this.requestCoalescer = val ? new RequestCoalescer() : null;
+            return this;
+        }
+
+        /**
+         * Coalesce GET requests made concurrently for which the key function gives equal keys, so
+         * that they share a single request and response.
+         *
+         * @param keyFunction giving the key of a request.
+         * @return builder to continue further configuration.
+         */
+        public Builder withRequestCoalescing(final Function<HttpUriRequest, ?> keyFunction)
+        {
+            this.requestCoalescer = new RequestCoalescer(
+                ObjectUtils.requireNonNull(keyFunction, "keyFunction"));
+            return this;
+        }
+
+        /**
+         * Retry the failed requests of the specified http method according to the policy.  No
+         * requests are retried by default; only idempotent requests should be.
+         *
+         * @param method http method the policy applies to.
+         * @param val    retry settings, or null to disable retries for the method.
+         * @return builder to continue further configuration.
+         */
+        public Builder withRetryPolicy(final HttpUtils.HttpMethod method, final RetryPolicy val)
+        {
+            ObjectUtils.requireNonNull(method, "method");
+            if (val == null)
+            {
+                this.retryPolicies.remove(method.name());
+            }
+            else
+            {
+                this.retryPolicies.put(method.name(), val);
+            }
+            return this;
+        }
+
+        /**
+         * Specify the budget shared by the retries of all http methods.  If not specified and a
+         * retry policy is configured, a budget with the default settings is used.
+         *
+         * @param val retry budget.
+         * @return builder to continue further configuration.
+         */
+        public Builder withRetryBudget(final RetryBudget val)
+        {
+            this.retryBudget = val;
+            return this;
+        }
+
         @Override
         public RestClient build()
         {
             ObjectUtils.requireNonNull(this.jsonService, "jsonService");
-            ObjectUtils.requireNonNull(this.httpClient, "httpClient");
+            if (this.retryPolicies.isEmpty())
+            {
+                this.retryBudget = null;
+            }
+            else if (this.retryBudget == null)
+            {
+                this.retryBudget = new RetryBudget.Builder().build();
+            }
+            if (this.asyncRestClient != null)
+            {
+                this.httpClient = null;
+                this.connectionPoolOptions = null;
+            }
+            if (this.httpClient == null && this.connectionPoolOptions != null)
+            {
+                this.connectionPool = new ConnectionPool(this.connectionPoolOptions);
+                this.httpClient = this.connectionPool.getHttpClient();
+            }
+            if (this.asyncRestClient == null)
+            {
+                ObjectUtils.requireNonNull(this.httpClient, "httpClient");
+            }
+            if (this.scheduledExecutorService == null)
+            {
+                this.scheduledExecutorService = RestSupport.defaultTimeoutScheduler();
+            }
+            if (this.workerExecutor == null)
+            {
+                this.workerExecutor = RestSupport.defaultWorkerExecutor();
+            }
+            if (this.maxWaitTime == null)
+            {
+                this.maxWaitTime = this.waitTime * DefaultOptions.HEADLESS_MAX_BACKOFF_FACTOR;
+            }
 
             return new RestClient(this);
         }
@@ -20,7 +20,13 @@ import com.gsma.mobileconnect.r2.utils.IBuilder;
 import com.gsma.mobileconnect.r2.utils.KeyValuePair;
 import com.gsma.mobileconnect.r2.utils.ListUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
 import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
@@ -35,6 +41,8 @@ public class RestResponse
     private final int statusCode;
     private final List<KeyValuePair> headers;
     private final String content;
+    private final byte[] body;
+    private final Charset charset;
 
     private RestResponse(final Builder builder)
     {
@@ -43,6 +51,8 @@ public class RestResponse
         this.statusCode = builder.statusCode;
         this.headers = builder.headers;
         this.content = builder.content;
+        this.body = builder.body;
+        this.charset = builder.charset;
     }
 
     /**
@@ -61,6 +71,27 @@ public class RestResponse
         return this.headers;
     }
 
+    /**
+     * Find the value of the first header with the specified name, ignoring case.
+     *
+     * @param name of the header.
+     * @return value of the header, or null if not present.
+     */
+    public String getHeader(final String name)
+    {
+        if (this.headers != null)
+        {
+            for (final KeyValuePair header : this.headers)
+            {
+                if (header.getKey().equalsIgnoreCase(name))
+                {
+                    return header.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
     /**
      * @return HTTP method used to fetch this response.
      */
@@ -78,11 +109,41 @@ public class RestResponse
     }
 
     /**
+     * Content returned by the http response.  Where the response was received as raw bytes they are
+     * decoded on each call, so parsers should prefer {@link #getContentReader()}.
+     *
      * @return Content returned by the http response.
      */
     public String getContent()
     {
-        return this.content;
+        return this.body == null ? this.content : new String(this.body, this.charset);
+    }
+
+    /**
+     * @return size in bytes of the content returned by the http response.
+     */
+    public long getContentLength()
+    {
+        if (this.body != null)
+        {
+            return this.body.length;
+        }
+        return this.content == null ? 0L : this.content.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    /**
+     * Reads the content returned by the http response, decoding the raw bytes with the charset
+     * they were received in without first copying them to a String.
+     *
+     * @return reader over the content, or null if there is no content.
+     */
+    public Reader getContentReader()
+    {
+        if (this.body != null)
+        {
+            return new InputStreamReader(new ByteArrayInputStream(this.body), this.charset);
+        }
+        return this.content == null ? null : new StringReader(this.content);
     }
 
 
@@ -93,6 +154,8 @@ public class RestResponse
         private int statusCode;
         private List<KeyValuePair> headers;
         private String content;
+        private byte[] body;
+        private Charset charset;
 
         public Builder withMethod(final String method)
         {
@@ -121,6 +184,23 @@ public class RestResponse
         public Builder withContent(String val)
         {
             this.content = val;
+            this.body = null;
+            return this;
+        }
+
+        /**
+         * Specify the content as the raw bytes received, which are only decoded to a String if
+         * {@link RestResponse#getContent()} is called.
+         *
+         * @param val     raw content.
+         * @param charset of the content.
+         * @return builder to continue further configuration.
+         */
+        public Builder withContent(final byte[] val, final Charset charset)
+        {
+            this.body = val;
+            this.charset = charset;
+            this.content = null;
             return this;
         }
 
@@ -0,0 +1,131 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import com.gsma.mobileconnect.r2.constants.DefaultOptions;
+import com.gsma.mobileconnect.r2.utils.IBuilder;
+
+/**
+ * Token bucket capping the retries issued by a {@link RestClient} to a percentage of its traffic,
+ * so that retries cannot multiply the load on an operator which is already failing.
+ * <p>
+ * Every request subject to a {@link RetryPolicy} deposits a fraction of a token, up to the
+ * capacity of the bucket, and every retry withdraws a whole token.  When the bucket is empty the
+ * failure of the attempt is returned to the caller instead of being retried.
+ */
+public class RetryBudget
+{
+    private final int percentage;
+    private final int capacity;
+    private final double deposit;
+
+    private double tokens;
+    private long exhausted;
+
+    private RetryBudget(final Builder builder)
+    {
+        this.percentage = builder.percentage;
+        this.capacity = builder.capacity;
+        this.deposit = builder.percentage / 100.0;
+        this.tokens = builder.capacity;
+    }
+
+    /**
+     * Record a request which may be retried.
+     */
+    synchronized void onRequest()
+    {
+        this.tokens = Math.min(this.capacity, this.tokens + this.deposit);
+    }
+
+    /**
+     * Request permission to retry.
+     *
+     * @return true if a token was withdrawn, false if the budget is exhausted.
+     */
+    synchronized boolean tryAcquire()
+    {
+        if (this.tokens >= 1.0)
+        {
+            this.tokens -= 1.0;
+            return true;
+        }
+        this.exhausted++;
+        return false;
+    }
+
+    /**
+     * @return retries permitted as a percentage of requests.
+     */
+    public int getPercentage()
+    {
+        return this.percentage;
+    }
+
+    /**
+     * @return maximum number of retries that can be made in a burst.
+     */
+    public int getCapacity()
+    {
+        return this.capacity;
+    }
+
+    /**
+     * @return number of retries currently available.
+     */
+    public synchronized double getAvailableTokens()
+    {
+        return this.tokens;
+    }
+
+    /**
+     * @return number of retries denied because the budget was exhausted.
+     */
+    public synchronized long getExhaustedCount()
+    {
+        return this.exhausted;
+    }
+
+    public static final class Builder implements IBuilder<RetryBudget>
+    {
+        private int percentage = DefaultOptions.RETRY_BUDGET_PERCENTAGE;
+        private int capacity = DefaultOptions.RETRY_BUDGET_CAPACITY;
+
+        public Builder withPercentage(final int val)
+        {
+            this.percentage = val;
+            return this;
+        }
+
+        public Builder withCapacity(final int val)
+        {
+            this.capacity = val;
+            return this;
+        }
+
+        @Override
+        public RetryBudget build()
+        {
+            if (this.percentage < 0 || this.percentage > 100 || this.capacity < 0)
+            {
+                throw new IllegalArgumentException(
+                    "percentage must be between 0 and 100 and capacity must not be negative");
+            }
+            return new RetryBudget(this);
+        }
+    }
+}
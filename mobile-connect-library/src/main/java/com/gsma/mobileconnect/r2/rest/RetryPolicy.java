@@ -0,0 +1,197 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import com.gsma.mobileconnect.r2.constants.DefaultOptions;
+import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
+import com.gsma.mobileconnect.r2.utils.IBuilder;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Settings for retrying the requests of a http method in {@link RestClient}.
+ * <p>
+ * A failed attempt is retried after an exponentially increasing backoff with full jitter, i.e. a
+ * random delay between zero and the capped exponential backoff, until the maximum number of
+ * attempts is reached or the next attempt could not start before the per-call deadline.  Attempts
+ * that failed with an IO error or timed out are retried, as are responses with one of the
+ * retryable status codes; rejections by an open circuit and oversized responses are not.  Every
+ * retry must also be granted by the {@link RetryBudget} of the rest client.
+ * <p>
+ * Only idempotent requests should be retried.
+ */
+public class RetryPolicy
+{
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final double multiplier;
+    private final long deadlineMs;
+    private final Set<Integer> retryableStatusCodes;
+
+    private RetryPolicy(final Builder builder)
+    {
+        this.maxAttempts = builder.maxAttempts;
+        this.initialBackoffMs = builder.initialBackoffMs;
+        this.maxBackoffMs = builder.maxBackoffMs;
+        this.multiplier = builder.multiplier;
+        this.deadlineMs = builder.deadlineMs;
+        this.retryableStatusCodes = Collections.unmodifiableSet(builder.retryableStatusCodes);
+    }
+
+    /**
+     * @return maximum number of attempts, including the first.
+     */
+    public int getMaxAttempts()
+    {
+        return this.maxAttempts;
+    }
+
+    /**
+     * @return upper bound of the backoff before the first retry.
+     */
+    public long getInitialBackoffMs()
+    {
+        return this.initialBackoffMs;
+    }
+
+    /**
+     * @return upper bound of the backoff before any retry.
+     */
+    public long getMaxBackoffMs()
+    {
+        return this.maxBackoffMs;
+    }
+
+    /**
+     * @return factor the backoff grows by with each retry.
+     */
+    public double getMultiplier()
+    {
+        return this.multiplier;
+    }
+
+    /**
+     * @return time from the first attempt after which no further attempt is started.
+     */
+    public long getDeadlineMs()
+    {
+        return this.deadlineMs;
+    }
+
+    /**
+     * @return response status codes which are retried.
+     */
+    public Set<Integer> getRetryableStatusCodes()
+    {
+        return this.retryableStatusCodes;
+    }
+
+    /**
+     * Calculates the backoff before a retry.
+     *
+     * @param retry number of the retry, starting at 1.
+     * @return random delay between zero and the capped exponential backoff.
+     */
+    long backoffMs(final int retry)
+    {
+        final double exponential = this.initialBackoffMs * Math.pow(this.multiplier, retry - 1);
+        final long cap = (long) Math.min(this.maxBackoffMs, exponential);
+        return cap <= 0 ? 0L : ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    boolean isRetryable(final int statusCode)
+    {
+        return this.retryableStatusCodes.contains(statusCode);
+    }
+
+    boolean isRetryable(final RequestFailedException rfe)
+    {
+        final Throwable cause = rfe.getCause();
+        return !(cause instanceof ResponseTooLargeException
+            || cause instanceof DeadlineExceededException)
+            && (cause instanceof IOException || cause instanceof TimeoutException);
+    }
+
+    public static final class Builder implements IBuilder<RetryPolicy>
+    {
+        private int maxAttempts = DefaultOptions.RETRY_MAX_ATTEMPTS;
+        private long initialBackoffMs = DefaultOptions.RETRY_INITIAL_BACKOFF_MS;
+        private long maxBackoffMs = DefaultOptions.RETRY_MAX_BACKOFF_MS;
+        private double multiplier = DefaultOptions.RETRY_BACKOFF_MULTIPLIER;
+        private long deadlineMs = DefaultOptions.RETRY_DEADLINE_MS;
+        private Set<Integer> retryableStatusCodes = new HashSet<Integer>(Arrays.asList(502, 503, 504));
+
+        public Builder withMaxAttempts(final int val)
+        {
+            this.maxAttempts = val;
+            return this;
+        }
+
+        public Builder withInitialBackoff(final long duration, final TimeUnit unit)
+        {
+            this.initialBackoffMs = unit.toMillis(duration);
+            return this;
+        }
+
+        public Builder withMaxBackoff(final long duration, final TimeUnit unit)
+        {
+            this.maxBackoffMs = unit.toMillis(duration);
+            return this;
+        }
+
+        public Builder withMultiplier(final double val)
+        {
+            this.multiplier = val;
+            return this;
+        }
+
+        public Builder withDeadline(final long duration, final TimeUnit unit)
+        {
+            this.deadlineMs = unit.toMillis(duration);
+            return this;
+        }
+
+        public Builder withRetryableStatusCodes(final Integer... val)
+        {
+            this.retryableStatusCodes = new HashSet<Integer>(Arrays.asList(val));
+            return this;
+        }
+
+        @Override
+        public RetryPolicy build()
+        {
+            if (this.maxAttempts <= 0 || this.deadlineMs <= 0)
+            {
+                throw new IllegalArgumentException("maxAttempts and deadline must be positive");
+            }
+            if (this.initialBackoffMs < 0 || this.maxBackoffMs < 0 || this.multiplier < 1.0)
+            {
+                throw new IllegalArgumentException(
+                    "backoffs must not be negative and multiplier must be at least 1");
+            }
+            return new RetryPolicy(this);
+        }
+    }
+}
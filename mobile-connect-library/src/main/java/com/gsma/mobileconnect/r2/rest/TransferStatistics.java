@@ -0,0 +1,89 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the bytes transferred by a rest client, distinguishing the bytes received on the
+ * wire from the decoded content so the saving from compressed responses can be reported.
+ */
+public class TransferStatistics
+{
+    private final AtomicLong responses = new AtomicLong();
+    private final AtomicLong compressedResponses = new AtomicLong();
+    private final AtomicLong wireBytes = new AtomicLong();
+    private final AtomicLong contentBytes = new AtomicLong();
+
+    /**
+     * Record a response body.
+     *
+     * @param wire       number of bytes received on the wire.
+     * @param content    number of bytes after decoding.
+     * @param compressed true if the body was compressed.
+     */
+    void recordResponse(final long wire, final long content, final boolean compressed)
+    {
+        this.responses.incrementAndGet();
+        if (compressed)
+        {
+            this.compressedResponses.incrementAndGet();
+        }
+        this.wireBytes.addAndGet(wire);
+        this.contentBytes.addAndGet(content);
+    }
+
+    /**
+     * @return number of response bodies received.
+     */
+    public long getResponseCount()
+    {
+        return this.responses.get();
+    }
+
+    /**
+     * @return number of response bodies received compressed.
+     */
+    public long getCompressedResponseCount()
+    {
+        return this.compressedResponses.get();
+    }
+
+    /**
+     * @return number of response body bytes received on the wire.
+     */
+    public long getWireBytes()
+    {
+        return this.wireBytes.get();
+    }
+
+    /**
+     * @return number of response body bytes after decoding.
+     */
+    public long getContentBytes()
+    {
+        return this.contentBytes.get();
+    }
+
+    /**
+     * @return number of bytes not transferred due to compression.
+     */
+    public long getCompressionBytesSaved()
+    {
+        return Math.max(0L, this.contentBytes.get() - this.wireBytes.get());
+    }
+}
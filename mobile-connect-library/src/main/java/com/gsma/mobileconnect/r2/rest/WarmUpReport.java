@@ -0,0 +1,72 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of warming up the pooled connections to a set of operator hosts.
+ *
+ * @see RestClient#warmUp(java.util.Collection, int)
+ */
+public class WarmUpReport
+{
+    private final List<String> warmedHosts;
+    private final Map<String, Throwable> failedHosts;
+
+    WarmUpReport(final List<String> warmedHosts, final Map<String, Throwable> failedHosts)
+    {
+        this.warmedHosts = Collections.unmodifiableList(warmedHosts);
+        this.failedHosts =
+            Collections.unmodifiableMap(new LinkedHashMap<String, Throwable>(failedHosts));
+    }
+
+    /**
+     * @return hosts to which connections were established, as scheme, host and port.
+     */
+    public List<String> getWarmedHosts()
+    {
+        return this.warmedHosts;
+    }
+
+    /**
+     * @return hosts to which connections could not be established, as scheme, host and port,
+     * with the cause of the failure.
+     */
+    public Map<String, Throwable> getFailedHosts()
+    {
+        return this.failedHosts;
+    }
+
+    /**
+     * @return true if connections were established to every host.
+     */
+    public boolean isSuccessful()
+    {
+        return this.failedHosts.isEmpty();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "WarmUpReport{warmedHosts=" + this.warmedHosts + ", failedHosts="
+            + this.failedHosts.keySet() + "}";
+    }
+}
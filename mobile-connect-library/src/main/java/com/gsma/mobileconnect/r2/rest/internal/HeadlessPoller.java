@@ -0,0 +1,282 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest.internal;
+
+import com.gsma.mobileconnect.r2.constants.DefaultOptions;
+import com.gsma.mobileconnect.r2.exceptions.HeadlessOperationFailedException;
+import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
+import com.gsma.mobileconnect.r2.rest.RestResponse;
+import com.gsma.mobileconnect.r2.utils.HttpUtils;
+import com.gsma.mobileconnect.r2.utils.KeyValuePair;
+import com.gsma.mobileconnect.r2.utils.LogUtils;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.utils.DateUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Date;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Follows the redirects of a headless authentication until the expected redirect url is reached,
+ * without blocking a thread while waiting for the user to respond.
+ * <p>
+ * Each authentication is a small session object whose next poll is scheduled on a single timer
+ * thread, so that thousands of pending authentications share that one thread; a worker thread is
+ * only used for the duration of each poll.  The wait between polls grows while the authentication
+ * makes no progress and is reset when it is redirected to a new location; a Retry-After header
+ * overrides the wait for the next poll, up to the maximum wait and the time left before the
+ * timeout.  Cancelling the returned future stops the polling.
+ */
+public class HeadlessPoller
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(HeadlessPoller.class);
+
+    private final ScheduledExecutorService scheduler;
+    private final Executor executor;
+    private final long waitTime;
+    private final long maxWaitTime;
+    private final long timeout;
+    private final AtomicInteger activeSessions = new AtomicInteger();
+
+    public HeadlessPoller(final ScheduledExecutorService scheduler, final Executor executor,
+        final long waitTime, final long maxWaitTime, final long timeout)
+    {
+        this.scheduler = scheduler;
+        this.executor = executor;
+        this.waitTime = waitTime;
+        this.maxWaitTime = Math.max(waitTime, maxWaitTime);
+        this.timeout = timeout;
+    }
+
+    /**
+     * Starts polling.
+     *
+     * @param authUrl   url to poll first.
+     * @param targetUrl prefix of the redirect location at which polling completes.
+     * @param requester issues a GET to the url, completing with its response.
+     * @return future completed with the redirect location matching the target url, or with a
+     * {@link RequestFailedException} if polling fails or does not complete in time.
+     */
+    public CompletableFuture<URI> poll(final URI authUrl, final URI targetUrl,
+        final Function<URI, CompletableFuture<RestResponse>> requester)
+    {
+        final Session session = new Session(authUrl, targetUrl, requester);
+        this.activeSessions.incrementAndGet();
+        session.result.whenComplete((uri, throwable) -> {
+            HeadlessPoller.this.activeSessions.decrementAndGet();
+            session.cancel();
+        });
+        this.executor.execute(session);
+        return session.result;
+    }
+
+    /**
+     * @return number of authentications currently being polled.
+     */
+    public int getActiveCount()
+    {
+        return this.activeSessions.get();
+    }
+
+    /**
+     * Determines the wait requested by a Retry-After header, given either in seconds or as a date.
+     *
+     * @param response to inspect.
+     * @return wait in milliseconds, or -1 if no valid header is present.
+     */
+    static long retryAfterMs(final RestResponse response)
+    {
+        final String retryAfter = response.getHeader(HttpHeaders.RETRY_AFTER);
+        if (retryAfter == null)
+        {
+            return -1L;
+        }
+        try
+        {
+            return Math.max(0L, TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim())));
+        }
+        catch (final NumberFormatException nfe)
+        {
+            final Date date = DateUtils.parseDate(retryAfter.trim());
+            return date == null ? -1L : Math.max(0L, date.getTime() - System.currentTimeMillis());
+        }
+    }
+
+    private static URI locationOf(final RestResponse response) throws URISyntaxException
+    {
+        if (response.getHeaders() != null)
+        {
+            for (final KeyValuePair header : response.getHeaders())
+            {
+                if (HttpHeaders.LOCATION.equalsIgnoreCase(header.getKey()))
+                {
+                    return new URI(header.getValue());
+                }
+            }
+        }
+        return null;
+    }
+
+    private static long nowMs()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    /**
+     * State of a single headless authentication.  Polls are never concurrent, each being started
+     * only once the previous has completed, so the fields are only touched by one thread at a time.
+     */
+    private final class Session implements Runnable
+    {
+        private final URI authUrl;
+        private final URI targetUrl;
+        private final Function<URI, CompletableFuture<RestResponse>> requester;
+        private final CompletableFuture<URI> result = new CompletableFuture<URI>();
+        private final long deadline;
+
+        private volatile URI nextUrl;
+        private volatile long wait;
+        private volatile int polls;
+        private volatile Future<?> pending;
+
+        Session(final URI authUrl, final URI targetUrl,
+            final Function<URI, CompletableFuture<RestResponse>> requester)
+        {
+            this.authUrl = authUrl;
+            this.targetUrl = targetUrl;
+            this.requester = requester;
+            this.nextUrl = authUrl;
+            this.wait = HeadlessPoller.this.waitTime;
+            this.deadline = nowMs() + HeadlessPoller.this.timeout;
+        }
+
+        @Override
+        public void run()
+        {
+            if (this.result.isDone())
+            {
+                return;
+            }
+            if (this.polls > DefaultOptions.MAX_REDIRECTS || nowMs() >= this.deadline)
+            {
+                this.failTimedOut();
+                return;
+            }
+
+            this.polls++;
+            final CompletableFuture<RestResponse> request = this.requester.apply(this.nextUrl);
+            this.pending = request;
+            request.whenComplete((response, throwable) -> {
+                if (throwable == null)
+                {
+                    Session.this.onResponse(response);
+                }
+                else
+                {
+                    Session.this.fail(throwable instanceof CompletionException
+                                      ? throwable.getCause()
+                                      : throwable);
+                }
+            });
+        }
+
+        private void onResponse(final RestResponse response)
+        {
+            final URI location;
+            try
+            {
+                location = locationOf(response);
+            }
+            catch (final URISyntaxException use)
+            {
+                LOGGER.error("Invalid redirect URL", use);
+                this.fail(use);
+                return;
+            }
+
+            if (location != null && location.toString().startsWith(this.targetUrl.toString()))
+            {
+                this.result.complete(location);
+                return;
+            }
+
+            if (location != null && !location.equals(this.nextUrl))
+            {
+                this.nextUrl = location;
+                this.wait = HeadlessPoller.this.waitTime;
+            }
+            else if (this.polls > 1)
+            {
+                this.wait = Math.min(HeadlessPoller.this.maxWaitTime,
+                    (long) (this.wait * DefaultOptions.HEADLESS_BACKOFF_MULTIPLIER));
+            }
+
+            // a Retry-After is bounded like any other wait, and never past the deadline
+            final long remaining = this.deadline - nowMs();
+            if (remaining <= 0L)
+            {
+                this.failTimedOut();
+                return;
+            }
+            final long retryAfter = retryAfterMs(response);
+            final long delay = Math.min(Math.min(retryAfter >= 0 ? retryAfter : this.wait,
+                HeadlessPoller.this.maxWaitTime), remaining);
+            LOGGER.debug("Polling headless authentication at uri={} again in {} ms",
+                LogUtils.maskUri(this.nextUrl, LOGGER, Level.DEBUG), delay);
+
+            try
+            {
+                this.pending = HeadlessPoller.this.scheduler.schedule(() ->
+                    HeadlessPoller.this.executor.execute(Session.this), delay,
+                    TimeUnit.MILLISECONDS);
+            }
+            catch (final RejectedExecutionException ree)
+            {
+                this.fail(ree);
+            }
+        }
+
+        private void failTimedOut()
+        {
+            this.fail(new HeadlessOperationFailedException(
+                "Headless operation failed either due to too many redirects or it timed out"));
+        }
+
+        private void fail(final Throwable cause)
+        {
+            this.result.completeExceptionally(cause instanceof RequestFailedException
+                                              ? cause
+                                              : new RequestFailedException(HttpUtils.HttpMethod.GET,
+                                                  this.authUrl, cause));
+        }
+
+        private void cancel()
+        {
+            final Future<?> future = this.pending;
+            if (future != null)
+            {
+                future.cancel(false);
+            }
+        }
+    }
+}
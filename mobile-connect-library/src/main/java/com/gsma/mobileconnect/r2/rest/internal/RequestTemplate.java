@@ -0,0 +1,114 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest.internal;
+
+import com.gsma.mobileconnect.r2.rest.RestAuthentication;
+import com.gsma.mobileconnect.r2.utils.HttpUtils;
+import org.apache.http.Header;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.RequestBuilder;
+
+import java.net.URI;
+import java.util.Arrays;
+
+/**
+ * The parts of a request which are the same for every call of a client to an endpoint: the
+ * method, the request configuration and the static headers, including the encoded authorization
+ * of the client.  Creating a request from the template leaves only the uri, cookies, source ip and
+ * content to be set per call.
+ *
+ * @see RestRequestFactory
+ */
+final class RequestTemplate
+{
+    private final String method;
+    private final RequestConfig requestConfig;
+    private final RestAuthentication authentication;
+    private final Header[] headers;
+
+    RequestTemplate(final HttpUtils.HttpMethod method, final RequestConfig requestConfig,
+        final RestAuthentication authentication, final Header[] headers)
+    {
+        this.method = method.name();
+        this.requestConfig = requestConfig;
+        this.authentication = authentication;
+        this.headers = headers;
+    }
+
+    /**
+     * @param authentication of the client, or null if there is none.
+     * @return true if the template carries the authorization of these credentials, false if it
+     * was built for other credentials of the client, such as a secret since rotated.
+     */
+    boolean isFor(final RestAuthentication authentication)
+    {
+        return authentication == null
+               ? this.authentication == null
+               : RestAccess.get().hasSameCredentials(authentication, this.authentication);
+    }
+
+    /**
+     * @param uri of the request, including any query parameters.
+     * @return request builder initialised from the template.
+     */
+    RequestBuilder newRequest(final URI uri)
+    {
+        final RequestBuilder builder = RequestBuilder
+            .create(this.method)
+            .setUri(uri)
+            .setConfig(this.requestConfig);
+
+        for (final Header header : this.headers)
+        {
+            builder.addHeader(header);
+        }
+        return builder;
+    }
+
+    /**
+     * Identifies a template by the client, through the client id of its basic authentication, and
+     * the endpoint, through the scheme, authority and path of its uri, together with the values of
+     * the static headers.  The key holds no secret of the client.
+     */
+    static final class Key
+    {
+        private final Object[] values;
+        private final int hashCode;
+
+        Key(final HttpUtils.HttpMethod method, final URI uri,
+            final String clientId, final String xRedirect, final boolean discovery, final String clientSideVersion,
+            final String serverSideVersion)
+        {
+            this.values = new Object[] { method, uri.getScheme(), uri.getRawAuthority(),
+                uri.getRawPath(), clientId, xRedirect, discovery, clientSideVersion,
+                serverSideVersion };
+            this.hashCode = Arrays.hashCode(this.values);
+        }
+
+        @Override
+        public boolean equals(final Object o)
+        {
+            return o instanceof Key && Arrays.equals(this.values, ((Key) o).values);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return this.hashCode;
+        }
+    }
+}
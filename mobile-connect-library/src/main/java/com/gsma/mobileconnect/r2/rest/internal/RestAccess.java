@@ -0,0 +1,100 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest.internal;
+
+import com.gsma.mobileconnect.r2.rest.RestAuthentication;
+import com.gsma.mobileconnect.r2.rest.TransferStatistics;
+import org.apache.http.Header;
+
+/**
+ * Reaches the members of the rest classes which are not part of their API, for requests to be
+ * built and responses to be recorded by the classes of this package.  The single instance is
+ * registered by {@link RestAuthentication} when its class is initialized.
+ */
+public abstract class RestAccess
+{
+    private static volatile RestAccess instance;
+
+    /**
+     * Register the access to the rest classes, once.
+     *
+     * @param access to register.
+     * @throws IllegalStateException if an access is already registered.
+     */
+    public static void register(final RestAccess access)
+    {
+        if (instance != null)
+        {
+            throw new IllegalStateException("Rest access is already registered");
+        }
+        instance = access;
+    }
+
+    static RestAccess get()
+    {
+        if (instance == null)
+        {
+            try
+            {
+                Class.forName(RestAuthentication.class.getName(), true,
+                    RestAuthentication.class.getClassLoader());
+            }
+            catch (final ClassNotFoundException cnfe)
+            {
+                throw new IllegalStateException(cnfe);
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @param authentication to inspect.
+     * @return true if this is basic authentication of a client, rather than a bearer token.
+     */
+    protected abstract boolean isBasic(RestAuthentication authentication);
+
+    /**
+     * @param authentication to inspect.
+     * @return the client the basic authentication is for, or null for a bearer token.
+     */
+    protected abstract String clientIdOf(RestAuthentication authentication);
+
+    /**
+     * @param authentication to compare.
+     * @param other          authentication to compare with.
+     * @return true if both are basic authentications with the same client id and secret.
+     */
+    protected abstract boolean hasSameCredentials(RestAuthentication authentication,
+        RestAuthentication other);
+
+    /**
+     * @param authentication to inspect.
+     * @return the Authorization header carrying the authentication.
+     */
+    protected abstract Header headerOf(RestAuthentication authentication);
+
+    /**
+     * Record a response body in the transfer statistics of a client.
+     *
+     * @param statistics of the client.
+     * @param wire       number of bytes received on the wire.
+     * @param content    number of bytes after decoding.
+     * @param compressed true if the body was compressed.
+     */
+    protected abstract void recordResponse(TransferStatistics statistics, long wire, long content,
+        boolean compressed);
+}
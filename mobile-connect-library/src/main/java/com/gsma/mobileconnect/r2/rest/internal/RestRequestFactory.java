@@ -0,0 +1,266 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest.internal;
+
+import com.gsma.mobileconnect.r2.constants.DefaultOptions;
+import com.gsma.mobileconnect.r2.constants.Headers;
+import com.gsma.mobileconnect.r2.constants.Parameters;
+import com.gsma.mobileconnect.r2.rest.AsyncRestClient;
+import com.gsma.mobileconnect.r2.rest.RestAuthentication;
+import com.gsma.mobileconnect.r2.rest.RestClient;
+import com.gsma.mobileconnect.r2.utils.*;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.message.BasicHeader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Builds the HTTP requests issued by {@link RestClient} and {@link AsyncRestClient} so that both
+ * clients send identical headers, cookies and request configuration.
+ * <p>
+ * The static headers of the requests of a client to an endpoint are built once into a {@link
+ * RequestTemplate}, so that building a request only adds the headers which vary per call.
+ */
+public final class RestRequestFactory
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(RestRequestFactory.class);
+    private static final Header ACCEPT_GZIP = new BasicHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+    private static final Header SDK_VERSION =
+        new BasicHeader(Headers.VERSION_SDK, Parameters.SDK_VERSION);
+
+    private final RequestConfig requestConfig;
+    private final boolean compression;
+    private final ConcurrentMap<RequestTemplate.Key, RequestTemplate> templates =
+        new ConcurrentHashMap<RequestTemplate.Key, RequestTemplate>();
+
+    public RestRequestFactory(final long timeout, final boolean compression)
+    {
+        this.compression = compression;
+        final int timeoutAsInt = (int) timeout;
+
+        this.requestConfig = RequestConfig
+            .custom()
+            .setConnectionRequestTimeout(timeoutAsInt)
+            .setConnectTimeout(timeoutAsInt)
+            .setSocketTimeout(timeoutAsInt)
+            .setRedirectsEnabled(true)
+            .build();
+    }
+
+    /**
+     * Appends the query parameters, if any, to the uri.
+     *
+     * @param uri         base uri.
+     * @param queryParams to append, may be null.
+     * @return the uri including the query parameters.
+     * @throws URISyntaxException if the resulting uri is invalid.
+     */
+    public static URI withQueryParams(final URI uri, final List<KeyValuePair> queryParams)
+        throws URISyntaxException
+    {
+        final URIBuilder uriBuilder = new URIBuilder(uri);
+        if (queryParams != null)
+        {
+            uriBuilder.addParameters(new ArrayList<NameValuePair>(queryParams));
+        }
+        return uriBuilder.build();
+    }
+
+    /**
+     * Create an HTTP request builder.
+     *
+     * @param method         either GET or POST.
+     * @param uri            for request.
+     * @param authentication to apply.
+     * @param sourceIp       if identified.
+     * @param cookies        to proxy.
+     * @return initialised request builder which can be further customised.
+     */
+    public RequestBuilder createRequest(final HttpUtils.HttpMethod method, final URI uri,
+        final RestAuthentication authentication, final String sourceIp,
+        final Iterable<KeyValuePair> cookies)
+    {
+        return this.createRequest(method, uri, null, authentication, sourceIp, cookies);
+    }
+
+    /**
+     * Create an HTTP request builder, adding the X-Redirect header if specified.
+     *
+     * @param method         either GET or POST.
+     * @param uri            for request.
+     * @param xRedirect      value of the X-Redirect header, may be null.
+     * @param authentication to apply.
+     * @param sourceIp       if identified.
+     * @param cookies        to proxy.
+     * @return initialised request builder which can be further customised.
+     */
+    public RequestBuilder createRequest(final HttpUtils.HttpMethod method, final URI uri,
+        final String xRedirect, final RestAuthentication authentication, final String sourceIp,
+        final Iterable<KeyValuePair> cookies)
+    {
+        LOGGER.debug(
+            "Creating request with httpMethod={}, uri={}, authentication={} for sourceIp={}",
+            method, LogUtils.maskUri(uri, LOGGER, Level.DEBUG), authentication, sourceIp);
+
+        return this.prepareRequest(
+            this.templateFor(method, uri, xRedirect, authentication, false, null, null),
+            uri, authentication, sourceIp, cookies);
+    }
+
+    /**
+     * Create an HTTP request builder for a discovery request, which additionally carries the sdk,
+     * client side and server side version headers.
+     *
+     * @param method            either GET or POST.
+     * @param uri               for request.
+     * @param xRedirect         value of the X-Redirect header, may be null.
+     * @param authentication    to apply.
+     * @param sourceIp          if identified.
+     * @param clientSideVersion version of the client side sdk.
+     * @param serverSideVersion version of the server side sdk.
+     * @param cookies           to proxy.
+     * @return initialised request builder which can be further customised.
+     */
+    public RequestBuilder createDiscoveryRequest(final HttpUtils.HttpMethod method, final URI uri,
+        final String xRedirect, final RestAuthentication authentication, final String sourceIp,
+        final String clientSideVersion, final String serverSideVersion,
+        final Iterable<KeyValuePair> cookies)
+    {
+        LOGGER.debug(
+            "Creating discovery request with httpMethod={}, uri={}, authentication={} for sourceIp={}",
+            method, LogUtils.maskUri(uri, LOGGER, Level.DEBUG), authentication, sourceIp);
+
+        return this.prepareRequest(
+            this.templateFor(method, uri, xRedirect, authentication, true, clientSideVersion,
+                serverSideVersion), uri, authentication, sourceIp, cookies);
+    }
+
+    /**
+     * @return number of request templates built.
+     */
+    int getTemplateCount()
+    {
+        return this.templates.size();
+    }
+
+    /**
+     * Finds the template for the requests of the client to the endpoint, building it on first
+     * use and again if the secret of the client has changed.  Only basic authentication is part of
+     * a template, so that its credentials are encoded once per client; bearer tokens are per user
+     * and are added per call.
+     */
+    private RequestTemplate templateFor(final HttpUtils.HttpMethod method, final URI uri,
+        final String xRedirect, final RestAuthentication authentication, final boolean discovery,
+        final String clientSideVersion, final String serverSideVersion)
+    {
+        ObjectUtils.requireNonNull(method, "method");
+        ObjectUtils.requireNonNull(uri, "uri");
+
+        final RestAccess access = RestAccess.get();
+        final RestAuthentication clientAuthentication =
+            authentication != null && access.isBasic(authentication) ? authentication : null;
+        final RequestTemplate.Key key = new RequestTemplate.Key(method, uri,
+            clientAuthentication == null ? null : access.clientIdOf(clientAuthentication),
+            xRedirect, discovery, clientSideVersion, serverSideVersion);
+
+        final RequestTemplate held = this.templates.get(key);
+        RequestTemplate template = held;
+        if (template == null || !template.isFor(clientAuthentication))
+        {
+            final List<Header> headers = new ArrayList<Header>();
+            if (this.compression)
+            {
+                headers.add(ACCEPT_GZIP);
+            }
+            if (discovery)
+            {
+                headers.add(SDK_VERSION);
+                headers.add(new BasicHeader(Headers.CLIENT_SIDE_VERSION, clientSideVersion));
+                headers.add(new BasicHeader(Headers.SERVER_SIDE_VERSION, serverSideVersion));
+            }
+            if (clientAuthentication != null)
+            {
+                headers.add(access.headerOf(clientAuthentication));
+            }
+            if (xRedirect != null)
+            {
+                headers.add(new BasicHeader(Parameters.X_REDIRECT, xRedirect));
+            }
+
+            template = new RequestTemplate(method, this.requestConfig, clientAuthentication,
+                headers.toArray(new Header[headers.size()]));
+            if (held != null)
+            {
+                this.templates.replace(key, held, template);
+            }
+            else if (this.templates.size() < DefaultOptions.REQUEST_TEMPLATE_CACHE_SIZE)
+            {
+                final RequestTemplate existing = this.templates.putIfAbsent(key, template);
+                template = existing == null || !existing.isFor(clientAuthentication)
+                           ? template
+                           : existing;
+            }
+        }
+        return template;
+    }
+
+    private RequestBuilder prepareRequest(final RequestTemplate template, final URI uri,
+        final RestAuthentication authentication, final String sourceIp,
+        final Iterable<KeyValuePair> cookies)
+    {
+        final RequestBuilder builder = template.newRequest(uri);
+
+        if (cookies != null)
+        {
+            final StringBuilder cookieBuilder = new StringBuilder();
+            for (final KeyValuePair cookie : cookies)
+            {
+                cookieBuilder
+                    .append(cookie.getKey())
+                    .append('=')
+                    .append(cookie.getValue())
+                    .append(';');
+            }
+            builder.addHeader(Headers.COOKIE, cookieBuilder.toString());
+        }
+
+        if (!StringUtils.isNullOrEmpty(sourceIp))
+        {
+            builder.addHeader(Headers.X_SOURCE_IP, sourceIp);
+        }
+
+        if (authentication != null && !RestAccess.get().isBasic(authentication))
+        {
+            builder.addHeader(RestAccess.get().headerOf(authentication));
+        }
+
+        return builder;
+    }
+}
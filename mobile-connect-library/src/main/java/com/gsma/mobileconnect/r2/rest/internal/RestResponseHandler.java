@@ -0,0 +1,262 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest.internal;
+
+import com.gsma.mobileconnect.r2.rest.ResponseTooLargeException;
+import com.gsma.mobileconnect.r2.rest.RestResponse;
+import com.gsma.mobileconnect.r2.rest.TransferStatistics;
+import com.gsma.mobileconnect.r2.utils.KeyValuePair;
+import com.gsma.mobileconnect.r2.utils.LogUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.entity.ContentType;
+import org.apache.http.protocol.HTTP;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Decodes a response into a {@link RestResponse}, inflating compressed content and bounding its
+ * size, for the clients to decode responses in the same way.
+ */
+public class RestResponseHandler implements ResponseHandler<RestResponse>
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(RestResponseHandler.class);
+
+    private final String method;
+    private final URI uri;
+    private final Future<?> abortFuture;
+    private final long maxBodySize;
+    private final TransferStatistics transferStatistics;
+
+    public RestResponseHandler(final String method, final URI uri, final long maxBodySize)
+    {
+        this(method, uri, null, maxBodySize, null);
+    }
+
+    /**
+     * @param method             of the request.
+     * @param uri                of the request.
+     * @param abortFuture        task aborting the request on timeout, cancelled once a response
+     *                           arrives, or null.
+     * @param maxBodySize        maximum size of the content of the response.
+     * @param transferStatistics of the client, recording the response, or null.
+     */
+    public RestResponseHandler(final String method, final URI uri, final Future<?> abortFuture,
+        final long maxBodySize, final TransferStatistics transferStatistics)
+    {
+        this.method = method;
+        this.uri = uri;
+        this.abortFuture = abortFuture;
+        this.maxBodySize = maxBodySize;
+        this.transferStatistics = transferStatistics;
+    }
+
+    @Override
+    public RestResponse handleResponse(final HttpResponse httpResponse) throws IOException
+    {
+        LOGGER.debug("Received response statusCode={} for httpMethod={} request to uri={}",
+            httpResponse.getStatusLine().getStatusCode(), this.method,
+            LogUtils.maskUri(this.uri, LOGGER, Level.DEBUG));
+
+        if (this.abortFuture != null)
+        {
+            this.abortFuture.cancel(false);
+        }
+
+        final KeyValuePair.ListBuilder headersBuilder = new KeyValuePair.ListBuilder();
+
+        for (final Header header : httpResponse.getAllHeaders())
+        {
+            headersBuilder.add(header.getName(), header.getValue());
+        }
+
+        final RestResponse.Builder builder = new RestResponse.Builder()
+            .withMethod(this.method)
+            .withUri(this.uri)
+            .withStatusCode(httpResponse.getStatusLine().getStatusCode())
+            .withHeaders(headersBuilder.build());
+
+        final HttpEntity entity = httpResponse.getEntity();
+        if (entity != null)
+        {
+            builder.withContent(this.readBody(entity, isGzipped(httpResponse)),
+                charsetOf(entity));
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * The http client may already have decompressed the entity, in which case it removes the
+     * Content-Encoding header from the response.
+     */
+    private static boolean isGzipped(final HttpResponse httpResponse)
+    {
+        final Header header = httpResponse.getFirstHeader(HttpHeaders.CONTENT_ENCODING);
+        final String encoding = header == null ? null : header.getValue();
+        return encoding != null && ("gzip".equalsIgnoreCase(encoding.trim())
+            || "x-gzip".equalsIgnoreCase(encoding.trim()));
+    }
+
+    /**
+     * Reads the raw bytes of the entity, failing as soon as more than the maximum body size has
+     * been received.  Where the length is declared the buffer is allocated at its exact size.
+     * Gzipped entities are inflated, the limit applying to the inflated size.
+     *
+     * @param entity  to read.
+     * @param gzipped true if the entity is gzip encoded.
+     * @return the raw content.
+     * @throws IOException if the entity cannot be read or exceeds the maximum body size.
+     */
+    private byte[] readBody(final HttpEntity entity, final boolean gzipped) throws IOException
+    {
+        final long contentLength = entity.getContentLength();
+        if (contentLength > this.maxBodySize)
+        {
+            throw new ResponseTooLargeException(this.method, this.uri, this.maxBodySize);
+        }
+
+        final InputStream content = entity.getContent();
+        if (content == null)
+        {
+            return new byte[0];
+        }
+
+        final CountingInputStream wire = new CountingInputStream(content);
+        final InputStream in = gzipped ? new GZIPInputStream(wire) : wire;
+        try
+        {
+            final byte[] body;
+            if (!gzipped && contentLength >= 0)
+            {
+                final byte[] buffer = new byte[(int) contentLength];
+                int offset = 0;
+                int read;
+                while (offset < buffer.length
+                    && (read = in.read(buffer, offset, buffer.length - offset)) != -1)
+                {
+                    offset += read;
+                }
+                body = offset == buffer.length ? buffer : Arrays.copyOf(buffer, offset);
+            }
+            else
+            {
+                final ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+                final byte[] buffer = new byte[4096];
+                long total = 0;
+                int read;
+                while ((read = in.read(buffer)) != -1)
+                {
+                    total += read;
+                    if (total > this.maxBodySize)
+                    {
+                        throw new ResponseTooLargeException(this.method, this.uri,
+                            this.maxBodySize);
+                    }
+                    out.write(buffer, 0, read);
+                }
+                body = out.toByteArray();
+            }
+
+            if (this.transferStatistics != null)
+            {
+                RestAccess.get().recordResponse(this.transferStatistics, wire.getCount(),
+                    body.length, gzipped);
+            }
+            return body;
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    /**
+     * Determines the charset of the entity in the same way as {@link
+     * org.apache.http.util.EntityUtils#toString(HttpEntity)}.
+     */
+    private static Charset charsetOf(final HttpEntity entity)
+    {
+        Charset charset = null;
+        final ContentType contentType = ContentType.get(entity);
+        if (contentType != null)
+        {
+            charset = contentType.getCharset();
+            if (charset == null)
+            {
+                final ContentType defaultContentType =
+                    ContentType.getByMimeType(contentType.getMimeType());
+                charset = defaultContentType == null ? null : defaultContentType.getCharset();
+            }
+        }
+        return charset == null ? HTTP.DEF_CONTENT_CHARSET : charset;
+    }
+
+    /**
+     * Counts the bytes read from the underlying stream.
+     */
+    private static final class CountingInputStream extends FilterInputStream
+    {
+        private long count;
+
+        CountingInputStream(final InputStream in)
+        {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            final int read = super.read();
+            if (read != -1)
+            {
+                this.count++;
+            }
+            return read;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException
+        {
+            final int read = super.read(b, off, len);
+            if (read > 0)
+            {
+                this.count += read;
+            }
+            return read;
+        }
+
+        long getCount()
+        {
+            return this.count;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest.internal;
+
+import com.gsma.mobileconnect.r2.constants.DefaultOptions;
+
+import java.net.URI;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Host keys and default executors shared by the clients.
+ */
+public final class RestSupport
+{
+    private RestSupport()
+    {
+    }
+
+    /**
+     * @return key identifying the host and port of the uri, defaulting the port from the scheme.
+     */
+    public static String hostOf(final URI uri)
+    {
+        int port = uri.getPort();
+        if (port == -1)
+        {
+            port = "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+        }
+        return uri.getHost().toLowerCase() + ":" + port;
+    }
+
+    /**
+     * Returns the timeout scheduler shared by all clients that are not given one explicitly.  It is
+     * backed by a single daemon thread and removes cancelled aborts immediately so that completed
+     * requests do not linger in its queue until their timeout.
+     *
+     * @return the shared timeout scheduler.
+     */
+    public static ScheduledExecutorService defaultTimeoutScheduler()
+    {
+        return DefaultTimeoutScheduler.INSTANCE;
+    }
+
+    /**
+     * Returns the executor shared by all clients that are not given one explicitly, on which
+     * requests are issued when the calling thread must not wait on them: the polls of headless
+     * authentications and hedged requests.  Its daemon threads are only held for the duration of
+     * each request and time out when idle.
+     *
+     * @return the shared worker executor.
+     */
+    public static ExecutorService defaultWorkerExecutor()
+    {
+        return DefaultWorkerExecutor.INSTANCE;
+    }
+
+    private static final class DefaultWorkerExecutor
+    {
+        private static final ExecutorService INSTANCE = create();
+
+        private DefaultWorkerExecutor()
+        {
+        }
+
+        private static ExecutorService create()
+        {
+            final AtomicInteger threadCount = new AtomicInteger();
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                DefaultOptions.THREAD_POOL_SIZE, DefaultOptions.THREAD_POOL_SIZE, 60L,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory()
+            {
+                @Override
+                public Thread newThread(final Runnable runnable)
+                {
+                    final Thread thread = new Thread(runnable,
+                        "mobileconnect-rest-worker-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+
+    private static final class DefaultTimeoutScheduler
+    {
+        private static final ScheduledExecutorService INSTANCE = create();
+
+        private DefaultTimeoutScheduler()
+        {
+        }
+
+        private static ScheduledExecutorService create()
+        {
+            final AtomicInteger threadCount = new AtomicInteger();
+            final ScheduledThreadPoolExecutor executor =
+                new ScheduledThreadPoolExecutor(1, new ThreadFactory()
+                {
+                    @Override
+                    public Thread newThread(final Runnable runnable)
+                    {
+                        final Thread thread = new Thread(runnable,
+                            "mobileconnect-rest-timeout-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+            executor.setRemoveOnCancelPolicy(true);
+            return executor;
+        }
+    }
+}
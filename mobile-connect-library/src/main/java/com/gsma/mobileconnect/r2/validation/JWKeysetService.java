@@ -18,11 +18,15 @@ package com.gsma.mobileconnect.r2.validation;
 
 import com.gsma.mobileconnect.r2.cache.CacheAccessException;
 import com.gsma.mobileconnect.r2.cache.ICache;
+import com.gsma.mobileconnect.r2.cache.RevalidationStatistics;
 import com.gsma.mobileconnect.r2.json.GsonJsonService;
 import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
+import com.gsma.mobileconnect.r2.rest.Deadline;
 import com.gsma.mobileconnect.r2.rest.IRestClient;
 import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
 import com.gsma.mobileconnect.r2.rest.RestResponse;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
 
 import java.net.URI;
 import java.util.concurrent.Callable;
@@ -41,6 +45,7 @@ public class JWKeysetService implements IJWKeysetService
     private final ICache iCache;
 
     private final GsonJsonService gsonJsonService;
+    private final RevalidationStatistics revalidationStatistics = new RevalidationStatistics();
 
     /**
      * Creates an instance of the JWKeysetService with a configured cache
@@ -60,7 +65,7 @@ public class JWKeysetService implements IJWKeysetService
     @Override
     public Future<JWKeyset> retrieveJwksAsync(final String url)
     {
-        ExecutorService executorService = Executors.newCachedThreadPool();
+        ExecutorService executorService = Executors.newCachedThreadPool(Deadline.propagatingThreadFactory());
         Future<JWKeyset> futureJWKeyset = executorService.submit(new Callable<JWKeyset>()
         {
             @Override
@@ -85,22 +90,53 @@ public class JWKeysetService implements IJWKeysetService
         {
             return cachedJWKeyset;
         }
-        final RestResponse response = this.restClient.get(URI.create(url), null, null,null, null, null);
+
+        final boolean revalidation = cachedJWKeyset != null && cachedJWKeyset.hasValidators();
+        final RestResponse response = revalidation
+            ? this.restClient.getConditional(URI.create(url), cachedJWKeyset.getEtag(),
+                cachedJWKeyset.getLastModified())
+            : this.restClient.get(URI.create(url), null, null,null, null, null);
+
+        if (revalidation && response.getStatusCode() == HttpStatus.SC_NOT_MODIFIED)
+        {
+            // extend the time to live of the unchanged keyset
+            this.revalidationStatistics.recordNotModified(cachedJWKeyset.getContentLength());
+            addToCache(url, cachedJWKeyset);
+            return cachedJWKeyset;
+        }
+        if (revalidation)
+        {
+            this.revalidationStatistics.recordModified();
+        }
+
         final JWKeyset jwKeyset =
-            this.gsonJsonService.deserialize(response.getContent(), JWKeyset.class);
+            this.gsonJsonService.deserialize(response.getContentReader(), JWKeyset.class);
+        if (jwKeyset != null)
+        {
+            jwKeyset.setValidators(response.getHeader(HttpHeaders.ETAG),
+                response.getHeader(HttpHeaders.LAST_MODIFIED), response.getContentLength());
+        }
 
         addToCache(url, jwKeyset);
 
         return jwKeyset;
     }
 
+    /**
+     * @return counters of the conditional requests issued to revalidate cached keysets.
+     */
+    public RevalidationStatistics getRevalidationStatistics()
+    {
+        return this.revalidationStatistics;
+    }
+
     private JWKeyset retrieveFromCache(final String url) throws CacheAccessException
     {
         if (this.iCache == null)
         {
             return null;
         }
-        return this.iCache.get(url, JWKeyset.class);
+        return this.iCache.get(url, JWKeyset.class, false);
     }
 
     private void addToCache(final String url, final JWKeyset jwKeyset) throws CacheAccessException
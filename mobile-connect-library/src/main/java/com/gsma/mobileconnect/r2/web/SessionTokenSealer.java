@@ -0,0 +1,391 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.web;
+
+import com.google.gson.annotations.SerializedName;
+import com.gsma.mobileconnect.r2.constants.DefaultOptions;
+import com.gsma.mobileconnect.r2.discovery.SessionData;
+import com.gsma.mobileconnect.r2.json.IJsonService;
+import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
+import com.gsma.mobileconnect.r2.json.JsonSerializationException;
+import com.gsma.mobileconnect.r2.utils.IBuilder;
+import com.gsma.mobileconnect.r2.utils.ObjectUtils;
+import com.gsma.mobileconnect.r2.utils.StringUtils;
+import org.apache.commons.codec.binary.Base64;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Seals the state of a session into a token sent as the state of the authorization, so that the
+ * redirect can be handled by any instance without holding the session in a cache.  The token holds
+ * the key of the shared discovery response of the operator, the mcc and mnc it was discovered for,
+ * the nonce, the subscriber id and an expiry, encrypted and authenticated with AES-GCM.  The mcc and
+ * mnc let an instance which does not hold the shared discovery response discover it again.
+ * <p>
+ * Tokens are sealed with the current key and opened with any of the keys, so that a key can be
+ * rotated by making a new key current while keeping the previous key until the tokens sealed with
+ * it have expired.
+ * </p>
+ * <p>
+ * As the state is taken from the redirect itself, a token is bound to the user agent it was sealed
+ * for, by authenticating a digest of the value of a cookie of the user agent with it, and is
+ * opened once only by an instance, so that a token can neither be replayed into the browser of
+ * another user nor submitted again.  The cookie is the binding cookie if one is specified, and
+ * otherwise the servlet session cookie.
+ * </p>
+ */
+public class SessionTokenSealer
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(SessionTokenSealer.class);
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final Pattern KEY_ID = Pattern.compile("[A-Za-z0-9_-]+");
+    private static final char SEPARATOR = '.';
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH = 128;
+    private static final long PURGE_INTERVAL_MS = 1000L;
+
+    private final IJsonService jsonService;
+    private final String currentKeyId;
+    private final Map<String, SecretKey> keys;
+    private final long timeToLive;
+    private final String bindingCookie;
+    private final SecureRandom random = new SecureRandom();
+    private final ConcurrentMap<String, Long> opened = new ConcurrentHashMap<String, Long>();
+    private final AtomicLong nextPurge = new AtomicLong();
+
+    private SessionTokenSealer(final Builder builder)
+    {
+        this.jsonService = builder.jsonService;
+        this.currentKeyId = builder.currentKeyId;
+        this.keys = new HashMap<String, SecretKey>(builder.keys);
+        this.timeToLive = builder.timeToLive;
+        this.bindingCookie = builder.bindingCookie;
+    }
+
+    /**
+     * The value binding tokens to the user agent of a request: the value of the binding cookie if
+     * one is specified, and otherwise the id of the servlet session of the user agent, which is
+     * created when an authorization starts if the user agent has none.
+     *
+     * @param request of the user agent.
+     * @param start   true when sealing the state of an authorization being started, false when
+     *                opening the state of a redirect.
+     * @return the binding, or null if the user agent presents none.
+     */
+    public String bindingOf(final HttpServletRequest request, final boolean start)
+    {
+        ObjectUtils.requireNonNull(request, "request");
+
+        if (this.bindingCookie != null)
+        {
+            final Cookie[] cookies = request.getCookies();
+            if (cookies != null)
+            {
+                for (final Cookie cookie : cookies)
+                {
+                    if (this.bindingCookie.equals(cookie.getName()))
+                    {
+                        return StringUtils.isNullOrEmpty(cookie.getValue())
+                               ? null
+                               : cookie.getValue();
+                    }
+                }
+            }
+            return null;
+        }
+        if (start)
+        {
+            final HttpSession session = request.getSession(true);
+            return session == null ? null : session.getId();
+        }
+        return request.getRequestedSessionId();
+    }
+
+    /**
+     * Seals a session referring to the shared discovery response of its operator.
+     *
+     * @param session to seal, see {@link SessionData#referencing(String)}.
+     * @param binding of the user agent, see {@link #bindingOf(HttpServletRequest, boolean)}.
+     * @return token holding the session.
+     * @throws GeneralSecurityException if the session could not be encrypted.
+     */
+    public String seal(final SessionData session, final String binding)
+        throws GeneralSecurityException
+    {
+        ObjectUtils.requireNonNull(session, "session");
+        StringUtils.requireNonEmpty(session.getDiscoveryKey(), "discoveryKey");
+        StringUtils.requireNonEmpty(binding, "binding");
+
+        final Payload payload = new Payload();
+        payload.discoveryKey = session.getDiscoveryKey();
+        payload.mcc = session.getMcc();
+        payload.mnc = session.getMnc();
+        payload.nonce = session.getNonce();
+        payload.subscriberId = session.getSubscriberId();
+        payload.expiry = System.currentTimeMillis() + this.timeToLive;
+
+        final byte[] plaintext;
+        try
+        {
+            plaintext = this.jsonService.serialize(payload).getBytes(StandardCharsets.UTF_8);
+        }
+        catch (final JsonSerializationException jse)
+        {
+            throw new GeneralSecurityException("Failed to serialize session", jse);
+        }
+
+        final byte[] iv = new byte[IV_LENGTH];
+        this.random.nextBytes(iv);
+
+        final Cipher cipher = this.cipher(Cipher.ENCRYPT_MODE, this.currentKeyId, iv, binding);
+        final byte[] ciphertext = cipher.doFinal(plaintext);
+
+        final byte[] sealed = Arrays.copyOf(iv, IV_LENGTH + ciphertext.length);
+        System.arraycopy(ciphertext, 0, sealed, IV_LENGTH, ciphertext.length);
+
+        return this.currentKeyId + SEPARATOR + Base64.encodeBase64URLSafeString(sealed);
+    }
+
+    /**
+     * Opens a token sealed by {@link #seal(SessionData, String)} with any of the keys, once only.
+     *
+     * @param token   to open.
+     * @param binding of the user agent, see {@link #bindingOf(HttpServletRequest, boolean)}.
+     * @return session referring to the shared discovery response of its operator and the network
+     * it was discovered for, with the token as its state, or null if the token was not sealed with
+     * a known key for the binding, has been altered, has expired or has already been opened.
+     */
+    public SessionData open(final String token, final String binding)
+    {
+        final int separator = token == null ? -1 : token.indexOf(SEPARATOR);
+        if (separator <= 0 || StringUtils.isNullOrEmpty(binding))
+        {
+            return null;
+        }
+
+        final String keyId = token.substring(0, separator);
+        if (!this.keys.containsKey(keyId))
+        {
+            LOGGER.debug("Session token sealed with unknown keyId={}", keyId);
+            return null;
+        }
+
+        final Payload payload;
+        try
+        {
+            final byte[] sealed = Base64.decodeBase64(token.substring(separator + 1));
+            if (sealed.length <= IV_LENGTH)
+            {
+                return null;
+            }
+            final Cipher cipher = this.cipher(Cipher.DECRYPT_MODE, keyId,
+                Arrays.copyOf(sealed, IV_LENGTH), binding);
+            final byte[] plaintext = cipher.doFinal(sealed, IV_LENGTH, sealed.length - IV_LENGTH);
+
+            payload = this.jsonService.deserialize(new String(plaintext, StandardCharsets.UTF_8),
+                Payload.class);
+        }
+        catch (final GeneralSecurityException gse)
+        {
+            LOGGER.warn("Failed to open session token sealed with keyId={}", keyId, gse);
+            return null;
+        }
+        catch (final JsonDeserializationException jde)
+        {
+            LOGGER.warn("Failed to read session token sealed with keyId={}", keyId, jde);
+            return null;
+        }
+
+        final long now = System.currentTimeMillis();
+        if (payload == null || payload.expiry < now)
+        {
+            LOGGER.debug("Session token sealed with keyId={} has expired", keyId);
+            return null;
+        }
+        this.forgetExpired(now);
+        if (this.opened.putIfAbsent(token, payload.expiry) != null)
+        {
+            LOGGER.info("Session token sealed with keyId={} has already been opened", keyId);
+            return null;
+        }
+        return new SessionData(payload.discoveryKey, payload.mcc, payload.mnc,
+            payload.subscriberId, null, token, payload.nonce);
+    }
+
+    private Cipher cipher(final int mode, final String keyId, final byte[] iv,
+        final String binding) throws GeneralSecurityException
+    {
+        final Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+        cipher.init(mode, this.keys.get(keyId), new GCMParameterSpec(TAG_LENGTH, iv));
+        // binds the key id outside the ciphertext and the user agent to it
+        cipher.updateAAD(keyId.getBytes(StandardCharsets.UTF_8));
+        cipher.updateAAD(MessageDigest.getInstance("SHA-256")
+            .digest(binding.getBytes(StandardCharsets.UTF_8)));
+        return cipher;
+    }
+
+    /**
+     * Drops the tokens opened that have since expired, at most once per purge interval.
+     */
+    private void forgetExpired(final long now)
+    {
+        final long purgeAt = this.nextPurge.get();
+        if (now < purgeAt || !this.nextPurge.compareAndSet(purgeAt, now + PURGE_INTERVAL_MS))
+        {
+            return;
+        }
+        final Iterator<Map.Entry<String, Long>> iterator = this.opened.entrySet().iterator();
+        while (iterator.hasNext())
+        {
+            if (iterator.next().getValue() < now)
+            {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static final class Payload
+    {
+        @SerializedName("k")
+        private String discoveryKey;
+        @SerializedName("c")
+        private String mcc;
+        @SerializedName("m")
+        private String mnc;
+        @SerializedName("n")
+        private String nonce;
+        @SerializedName("s")
+        private String subscriberId;
+        @SerializedName("e")
+        private long expiry;
+    }
+
+    public static final class Builder implements IBuilder<SessionTokenSealer>
+    {
+        private IJsonService jsonService;
+        private String currentKeyId;
+        private final Map<String, SecretKey> keys = new HashMap<String, SecretKey>();
+        private long timeToLive = DefaultOptions.SESSION_TTL_MS;
+        private String bindingCookie = null;
+
+        public Builder withJsonService(final IJsonService val)
+        {
+            this.jsonService = val;
+            return this;
+        }
+
+        /**
+         * Specify the key tokens are sealed with, which also opens them.
+         *
+         * @param keyId identifying the key in the tokens, of letters, digits, '_' and '-'.
+         * @param key   AES key of 16, 24 or 32 bytes.
+         * @return builder to continue further configuration.
+         */
+        public Builder withCurrentKey(final String keyId, final byte[] key)
+        {
+            this.currentKeyId = keyId;
+            return this.withPreviousKey(keyId, key);
+        }
+
+        /**
+         * Specify a key that only opens tokens, such as the key that was current before a
+         * rotation, to keep until the tokens sealed with it have expired.
+         *
+         * @param keyId identifying the key in the tokens, of letters, digits, '_' and '-'.
+         * @param key   AES key of 16, 24 or 32 bytes.
+         * @return builder to continue further configuration.
+         */
+        public Builder withPreviousKey(final String keyId, final byte[] key)
+        {
+            StringUtils.requireNonEmpty(keyId, "keyId");
+            ObjectUtils.requireNonNull(key, "key");
+            if (!KEY_ID.matcher(keyId).matches())
+            {
+                throw new IllegalArgumentException(
+                    "keyId must only hold letters, digits, '_' and '-'");
+            }
+            if (key.length != 16 && key.length != 24 && key.length != 32)
+            {
+                throw new IllegalArgumentException("key must be of 16, 24 or 32 bytes");
+            }
+            this.keys.put(keyId, new SecretKeySpec(key, "AES"));
+            return this;
+        }
+
+        /**
+         * Specify how long tokens can be opened for after they are sealed, which should match the
+         * authorization window.  Defaults to {@link DefaultOptions#SESSION_TTL_MS}.
+         *
+         * @param duration tokens are valid for.
+         * @param unit     of the duration.
+         * @return builder to continue further configuration.
+         */
+        public Builder withTimeToLive(final long duration, final TimeUnit unit)
+        {
+            this.timeToLive = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Specify the cookie binding tokens to the user agent, which the application sets as an
+         * HttpOnly cookie holding a random value before the authorization starts.  By default
+         * tokens are bound to the servlet session cookie.
+         *
+         * @param name of the cookie.
+         * @return builder to continue further configuration.
+         */
+        public Builder withBindingCookie(final String name)
+        {
+            StringUtils.requireNonEmpty(name, "name");
+
+            this.bindingCookie = name;
+            return this;
+        }
+
+        @Override
+        public SessionTokenSealer build()
+        {
+            ObjectUtils.requireNonNull(this.jsonService, "jsonService");
+            if (this.currentKeyId == null)
+            {
+                throw new IllegalArgumentException("currentKey must be specified");
+            }
+            return new SessionTokenSealer(this);
+        }
+    }
+}
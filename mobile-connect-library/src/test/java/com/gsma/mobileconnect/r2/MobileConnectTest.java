@@ -5,12 +5,15 @@ import com.gsma.mobileconnect.r2.cache.DiscoveryCache;
 import com.gsma.mobileconnect.r2.cache.ICache;
 import com.gsma.mobileconnect.r2.constants.DefaultOptions;
 import com.gsma.mobileconnect.r2.discovery.IDiscoveryService;
+import com.gsma.mobileconnect.r2.discovery.OperatorUrls;
 import com.gsma.mobileconnect.r2.encoding.DefaultEncodeDecoder;
 import com.gsma.mobileconnect.r2.encoding.IMobileConnectEncodeDecoder;
 import com.gsma.mobileconnect.r2.identity.IIdentityService;
 import com.gsma.mobileconnect.r2.json.IJsonService;
 import com.gsma.mobileconnect.r2.json.GsonJsonService;
+import com.gsma.mobileconnect.r2.rest.ConnectionPoolOptions;
 import com.gsma.mobileconnect.r2.rest.IRestClient;
+import com.gsma.mobileconnect.r2.rest.WarmUpReport;
 import com.gsma.mobileconnect.r2.validation.IJWKeysetService;
 import org.apache.http.client.HttpClient;
 import org.mockito.Mock;
@@ -19,11 +22,17 @@ import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.net.ServerSocket;
 import java.net.URI;
+import java.util.Collections;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
 
 public class MobileConnectTest
 {
@@ -129,6 +138,52 @@ public class MobileConnectTest
                 new DiscoveryCache.Builder().withJsonService(jsonService).withMaxCacheSize(999999999).build(), new DiscoveryCache.Builder().withJsonService(jsonService).withMaxCacheSize(999999999).build()));
     }
 
+    @Test
+    public void testBuildWithConnectionPool() throws Exception
+    {
+        final MobileConnect pooled = new MobileConnect.Builder(mobileConnectConfig, encodeDecoder,
+                new DiscoveryCache.Builder().withJsonService(jsonService).build(),
+                new DiscoveryCache.Builder().withJsonService(jsonService).build())
+            .withConnectionPool(new ConnectionPoolOptions.Builder().withMaxTotal(10).build())
+            .build();
+
+        assertNotNull(pooled.getConnectionPoolStatistics());
+        assertEquals(pooled.getConnectionPoolStatistics().getTotal().getMax(), 10);
+        assertNull(mobileConnect.getConnectionPoolStatistics());
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testWarmUpRequiresRestClient() throws Exception
+    {
+        mobileConnect.warmUp(Collections.<OperatorUrls>emptyList());
+    }
+
+    @Test
+    public void testWarmUpReportsUnreachableHosts() throws Exception
+    {
+        final ServerSocket socket = new ServerSocket(0);
+        final int closedPort = socket.getLocalPort();
+        socket.close();
+
+        final MobileConnect pooled = new MobileConnect.Builder(mobileConnectConfig, encodeDecoder,
+                new DiscoveryCache.Builder().withJsonService(jsonService).build(),
+                new DiscoveryCache.Builder().withJsonService(jsonService).build())
+            .withConnectionPool(new ConnectionPoolOptions.Builder().build())
+            .withHttpTimeout(2L, TimeUnit.SECONDS)
+            .build();
+
+        final WarmUpReport report = pooled.warmUp(Collections.singletonList(
+            new OperatorUrls.Builder()
+                .withAuthorizationUrl("http://127.0.0.1:" + closedPort + "/authorize")
+                .withRequestTokenUrl("http://127.0.0.1:" + closedPort + "/token")
+                .build()));
+
+        assertFalse(report.isSuccessful());
+        assertTrue(report.getWarmedHosts().isEmpty());
+        assertEquals(report.getFailedHosts().keySet(),
+            Collections.singleton("http://127.0.0.1:" + closedPort));
+    }
+
     @Test
     public void testGetDiscoveryService() throws Exception
     {
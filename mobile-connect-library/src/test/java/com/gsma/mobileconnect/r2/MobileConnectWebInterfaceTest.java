@@ -19,7 +19,9 @@ package com.gsma.mobileconnect.r2;
 import com.gsma.mobileconnect.r2.authentication.AuthenticationOptions;
 import com.gsma.mobileconnect.r2.authentication.AuthenticationService;
 import com.gsma.mobileconnect.r2.cache.CacheAccessException;
+import com.gsma.mobileconnect.r2.cache.ConcurrentCache;
 import com.gsma.mobileconnect.r2.cache.DiscoveryCache;
+import com.gsma.mobileconnect.r2.cache.SessionCache;
 import com.gsma.mobileconnect.r2.constants.Parameters;
 import com.gsma.mobileconnect.r2.constants.Scope;
 import com.gsma.mobileconnect.r2.discovery.*;
@@ -33,6 +35,7 @@ import com.gsma.mobileconnect.r2.rest.*;
 import com.gsma.mobileconnect.r2.utils.HttpUtils;
 import com.gsma.mobileconnect.r2.utils.KeyValuePair;
 import com.gsma.mobileconnect.r2.utils.TestUtils;
+import com.gsma.mobileconnect.r2.web.SessionTokenSealer;
 import junit.framework.Assert;
 import org.mockito.Mockito;
 import org.testng.annotations.AfterMethod;
@@ -40,9 +43,11 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import static org.mockito.Matchers.*;
@@ -66,8 +71,12 @@ public class MobileConnectWebInterfaceTest
         .build();
     private final IJsonService jsonService = new GsonJsonService();
     private final MockRestClient restClient = new MockRestClient();
+    private final ConcurrentCache cache = new DiscoveryCache.Builder()
+        .withJsonService(jsonService)
+        .withMaxCacheSize(999999999)
+        .build();
     private final MobileConnect mobileConnect = MobileConnect
-        .builder(this.config, new DefaultEncodeDecoder(), new DiscoveryCache.Builder().withJsonService(jsonService).withMaxCacheSize(999999999).build(),
+        .builder(this.config, new DefaultEncodeDecoder(), this.cache,
                 new DiscoveryCache.Builder().withJsonService(jsonService).withMaxCacheSize(999999999).build())
         .withRestClient(this.restClient)
         .build();
@@ -93,6 +102,7 @@ public class MobileConnectWebInterfaceTest
     public void beforeMethod() throws CacheAccessException
     {
         this.discoveryService.getCache().clear();
+        this.cache.clear();
     }
 
     @AfterMethod
@@ -148,6 +158,120 @@ public class MobileConnectWebInterfaceTest
         assertEquals(clientName, "test1"); // set in the response under TestUtils
     }
 
+    private SessionTokenSealer.Builder sessionTokenSealer()
+    {
+        return new SessionTokenSealer.Builder()
+            .withJsonService(this.jsonService)
+            .withCurrentKey("k1", "0123456789abcdef".getBytes(StandardCharsets.UTF_8))
+            .withBindingCookie("binding");
+    }
+
+    private static HttpServletRequest browser(final String binding)
+    {
+        final HttpServletRequest browser = mock(HttpServletRequest.class);
+        when(browser.getCookies()).thenReturn(new Cookie[] {new Cookie("binding", binding)});
+        return browser;
+    }
+
+    @Test
+    public void handleUrlRedirectShouldOpenSessionSealedIntoState()
+        throws JsonDeserializationException
+    {
+        final MobileConnectWebInterface statelessInterface = MobileConnect
+            .builder(this.config, new DefaultEncodeDecoder(),
+                new SessionCache.Builder().withJsonService(this.jsonService).build(), this.cache)
+            .withRestClient(this.restClient)
+            .withSessionTokenSealer(this.sessionTokenSealer().build())
+            .build()
+            .getMobileConnectWebInterface();
+        final DiscoveryResponse discoveryResponse =
+            DiscoveryResponse.fromRestResponse(TestUtils.AUTHENTICATION_RESPONSE, this.jsonService);
+        final HttpServletRequest browser = browser("user");
+
+        final MobileConnectStatus started =
+            statelessInterface.startAuthentication(browser, discoveryResponse, null, null,
+                null, null, "mc_v1.1");
+        assertTrue(started.getState().startsWith("k1."));
+
+        final URI redirectedUrl =
+            URI.create("http://redirect/test?error=access_denied&state=" + started.getState());
+        final MobileConnectStatus status = statelessInterface.handleUrlRedirect(browser,
+            redirectedUrl, (String) null, null, null, null, "mc_v1.1", true);
+        assertEquals(status.getErrorCode(), "access_denied");
+
+        final MobileConnectStatus replayed = statelessInterface.handleUrlRedirect(browser,
+            redirectedUrl, (String) null, null, null, null, "mc_v1.1", true);
+        assertEquals(replayed.getErrorCode(), "sdksession_not_found");
+
+        final MobileConnectStatus altered = statelessInterface.handleUrlRedirect(browser,
+            URI.create("http://redirect/test?error=access_denied&state=k1.AAAA"),
+            (String) null, null, null, null, "mc_v1.1", true);
+        assertEquals(altered.getErrorCode(), "sdksession_not_found");
+    }
+
+    @Test
+    public void handleUrlRedirectShouldRejectStateSealedForAnotherUserAgent()
+        throws JsonDeserializationException
+    {
+        final MobileConnectWebInterface statelessInterface = MobileConnect
+            .builder(this.config, new DefaultEncodeDecoder(),
+                new SessionCache.Builder().withJsonService(this.jsonService).build(), this.cache)
+            .withRestClient(this.restClient)
+            .withSessionTokenSealer(this.sessionTokenSealer().build())
+            .build()
+            .getMobileConnectWebInterface();
+        final DiscoveryResponse discoveryResponse =
+            DiscoveryResponse.fromRestResponse(TestUtils.AUTHENTICATION_RESPONSE, this.jsonService);
+
+        final MobileConnectStatus started =
+            statelessInterface.startAuthentication(browser("attacker"), discoveryResponse, null,
+                null, null, null, "mc_v1.1");
+
+        final MobileConnectStatus status = statelessInterface.handleUrlRedirect(browser("victim"),
+            URI.create("http://redirect/test?error=access_denied&state=" + started.getState()),
+            (String) null, null, null, null, "mc_v1.1", true);
+        assertEquals(status.getErrorCode(), "sdksession_not_found");
+    }
+
+    @Test
+    public void handleUrlRedirectShouldDiscoverAgainSessionSealedOnAnotherInstance()
+        throws RequestFailedException, InvalidResponseException
+    {
+        final SessionTokenSealer.Builder sealer = this.sessionTokenSealer();
+        final HttpServletRequest browser = browser("user");
+        final MobileConnectWebInterface sealingInterface = MobileConnect
+            .builder(this.config, new DefaultEncodeDecoder(),
+                new SessionCache.Builder().withJsonService(this.jsonService).build(), this.cache)
+            .withRestClient(this.restClient)
+            .withSessionTokenSealer(sealer.build())
+            .build()
+            .getMobileConnectWebInterface();
+        final MobileConnectWebInterface openingInterface = MobileConnect
+            .builder(this.config, new DefaultEncodeDecoder(),
+                new SessionCache.Builder().withJsonService(this.jsonService).build(),
+                new DiscoveryCache.Builder().withJsonService(this.jsonService).build())
+            .withRestClient(this.restClient)
+            .withSessionTokenSealer(sealer.build())
+            .build()
+            .getMobileConnectWebInterface();
+        final DiscoveryResponse discoveryResponse = this.completeDiscovery();
+        assertEquals(discoveryResponse.getMcc(), "111");
+        assertEquals(discoveryResponse.getMnc(), "11");
+
+        final MobileConnectStatus started =
+            sealingInterface.startAuthentication(browser, discoveryResponse, null, null,
+                null, null, "mc_v1.1");
+        assertTrue(started.getState().startsWith("k1."));
+
+        this.restClient
+            .addResponse(TestUtils.AUTHENTICATION_RESPONSE)
+            .addResponse(TestUtils.PROVIDER_METADATA_RESPONSE);
+        final MobileConnectStatus status = openingInterface.handleUrlRedirect(browser,
+            URI.create("http://redirect/test?error=access_denied&state=" + started.getState()),
+            (String) null, null, null, null, "mc_v1.1", true);
+        assertEquals(status.getErrorCode(), "access_denied");
+    }
+
     @Test
     public void requestUserInfoReturnsUserInfo() throws JsonDeserializationException
     {
@@ -198,6 +322,25 @@ public class MobileConnectWebInterfaceTest
         assertNotNull(status.getIdentityResponse());
     }
 
+    @Test
+    public void requestUserInfoShouldUseDiscoveryResponseHeldInSessionCache()
+        throws JsonDeserializationException, CacheAccessException
+    {
+        this.restClient.addResponse(TestUtils.USERINFO_RESPONSE);
+
+        final DiscoveryResponse discoveryResponse =
+            DiscoveryResponse.fromRestResponse(TestUtils.AUTHENTICATION_RESPONSE, this.jsonService);
+        // the session cache is not partitioned, so the value is held serialized with the others
+        this.cache.add("sessionid", discoveryResponse);
+
+        final MobileConnectStatus status =
+            this.mcWebInterface.requestUserInfo(this.request, "sessionid",
+                "zaqwsxcderfvbgtyhnmjukilop");
+
+        assertEquals(status.getResponseType(), MobileConnectStatus.ResponseType.USER_INFO);
+        assertNotNull(status.getIdentityResponse());
+    }
+
     @Test
     public void requestTokenShouldReturnErrorForInvalidSession()
     {
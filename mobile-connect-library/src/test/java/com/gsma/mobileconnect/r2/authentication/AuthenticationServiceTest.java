@@ -41,6 +41,7 @@ import org.testng.annotations.Test;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 
@@ -280,6 +281,34 @@ public class AuthenticationServiceTest
             "966ad150-16c5-11e6-944f-43079d13e2f3");
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void headlessAuthenticationAsyncTest()
+        throws RequestFailedException, ExecutionException, InterruptedException
+    {
+        // Given
+        when(this.restClient.postFormData(isA(URI.class), isA(RestAuthentication.class), anyString(),
+            anyListOf(KeyValuePair.class), isNull(String.class),
+            isNull(Iterable.class))).thenReturn(TestUtils.TOKEN_RESPONSE);
+
+        when(this.restClient.getFinalRedirectAsync(isA(URI.class), isA(URI.class),
+            isA(RestAuthentication.class))).thenReturn(
+            CompletableFuture.completedFuture(URI.create(REDIRECT_URL + "?code=code")));
+
+        // When
+        final CompletableFuture<RequestTokenResponse> response =
+            this.authentication.requestHeadlessAuthenticationAsync(this.config.getClientId(),
+                this.config.getClientSecret(), null, AUTHORIZE_URL, TOKEN_URL, REDIRECT_URL, "state",
+                "nonce", null, null, "mc_v1.1", true);
+
+        // Then
+        final RequestTokenResponse requestTokenResponse = response.get();
+        assertNotNull(requestTokenResponse);
+        assertEquals(requestTokenResponse.getResponseCode(), HttpStatus.SC_ACCEPTED);
+        assertEquals(requestTokenResponse.getResponseData().getAccessToken(),
+            "966ad150-16c5-11e6-944f-43079d13e2f3");
+    }
+
     @SuppressWarnings("unchecked")
     @Test
     public void headlessAuthorizationTest()
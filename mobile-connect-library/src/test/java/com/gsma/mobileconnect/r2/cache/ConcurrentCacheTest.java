@@ -16,9 +16,12 @@
  */
 package com.gsma.mobileconnect.r2.cache;
 
+import com.gsma.mobileconnect.r2.constants.DefaultOptions;
 import com.gsma.mobileconnect.r2.discovery.DiscoveryResponse;
 import com.gsma.mobileconnect.r2.discovery.ProviderMetadata;
+import com.gsma.mobileconnect.r2.discovery.SessionData;
 import com.gsma.mobileconnect.r2.exceptions.InvalidArgumentException;
+import com.gsma.mobileconnect.r2.json.DiscoveryResponseData;
 import com.gsma.mobileconnect.r2.json.IJsonService;
 import com.gsma.mobileconnect.r2.json.GsonJsonService;
 import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
@@ -29,7 +32,16 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 import static org.testng.Assert.*;
 
@@ -58,6 +70,7 @@ public class ConcurrentCacheTest
         return new DiscoveryCache.Builder()
             .withJsonService(this.jsonService)
             .withCacheExpiryLimits(cacheLimitsMapBuilder.build())
+            .withSweepInterval(0L, TimeUnit.MILLISECONDS)
             .build();
     }
 
@@ -210,4 +223,644 @@ public class ConcurrentCacheTest
             this.cacheWithLimits(TimeUnit.SECONDS.toMillis(200L), TimeUnit.SECONDS.toMillis(400L));
         cacheWithLimits.setCacheExpiryTime(seconds, TimeUnit.SECONDS, ProviderMetadata.class);
     }
+
+    private ConcurrentCache boundedCache(final int entries) throws CacheAccessException
+    {
+        final ConcurrentCache sizing = new DiscoveryCache.Builder()
+            .withJsonService(this.jsonService)
+            .withMaxCacheSize(Long.MAX_VALUE)
+            .build();
+        sizing.add("sizing", new ProviderMetadata.Builder().build());
+        final long weight = sizing.getStatistics().getWeight();
+
+        return new DiscoveryCache.Builder()
+            .withJsonService(this.jsonService)
+            .withCacheExpiryLimits(
+                new ListUtils.HashMapBuilder<Class<? extends AbstractCacheable>, Tuple<Long, Long>>()
+                    .build())
+            .withMaxCacheSize(weight * entries)
+            .build();
+    }
+
+    @Test
+    public void boundedCacheShouldEvictLeastRecentlyUsedWhenFull() throws CacheAccessException
+    {
+        final ConcurrentCache boundedCache = this.boundedCache(2);
+
+        boundedCache.add("first", new ProviderMetadata.Builder().build());
+        boundedCache.add("second", new ProviderMetadata.Builder().build());
+        assertNotNull(boundedCache.get("first", ProviderMetadata.class));
+
+        boundedCache.add("third", new ProviderMetadata.Builder().build());
+
+        assertNotNull(boundedCache.get("first", ProviderMetadata.class));
+        assertNull(boundedCache.get("second", ProviderMetadata.class));
+        assertNotNull(boundedCache.get("third", ProviderMetadata.class));
+
+        final CacheStatistics statistics = boundedCache.getStatistics();
+        assertEquals(statistics.getEntryCount(), 2);
+        assertEquals(statistics.getWeight(), statistics.getMaxWeight());
+        assertEquals(statistics.getEvictionCount(), 1L);
+        assertEquals(statistics.getExpiredEvictionCount(), 0L);
+    }
+
+    @Test
+    public void boundedCacheShouldKeepValueReadMoreOftenThanReadsAreBuffered()
+        throws CacheAccessException
+    {
+        final ConcurrentCache boundedCache = this.boundedCache(2);
+
+        boundedCache.add("first", new ProviderMetadata.Builder().build());
+        boundedCache.add("second", new ProviderMetadata.Builder().build());
+        for (int i = 0; i < DefaultOptions.CACHE_READ_BUFFER_SIZE * 3; i++)
+        {
+            assertNotNull(boundedCache.get("first", ProviderMetadata.class));
+        }
+
+        boundedCache.add("third", new ProviderMetadata.Builder().build());
+
+        assertNotNull(boundedCache.get("first", ProviderMetadata.class));
+        assertNull(boundedCache.get("second", ProviderMetadata.class));
+    }
+
+    @Test
+    public void boundedCacheShouldServeReadsDuringWrites() throws Exception
+    {
+        final ConcurrentCache boundedCache = this.boundedCache(2);
+        boundedCache.add("first", new ProviderMetadata.Builder().build());
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final List<Future<Integer>> readers = new ArrayList<Future<Integer>>();
+        for (int i = 0; i < 4; i++)
+        {
+            readers.add(executor.submit(new Callable<Integer>()
+            {
+                @Override
+                public Integer call() throws Exception
+                {
+                    int hits = 0;
+                    for (int j = 0; j < 10000; j++)
+                    {
+                        if (boundedCache.get("first", ProviderMetadata.class) != null)
+                        {
+                            hits++;
+                        }
+                    }
+                    return hits;
+                }
+            }));
+        }
+        for (int i = 0; i < 100; i++)
+        {
+            boundedCache.add("other" + i, new ProviderMetadata.Builder().build());
+        }
+
+        for (final Future<Integer> reader : readers)
+        {
+            assertNotNull(reader.get(10L, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        assertEquals(boundedCache.getStatistics().getEntryCount(), 2);
+    }
+
+    @Test
+    public void boundedCacheShouldEvictExpiredEntryFirst()
+        throws CacheAccessException, CacheExpiryLimitException, InterruptedException
+    {
+        final ConcurrentCache boundedCache = this.boundedCache(2);
+
+        boundedCache.add("fresh", new ProviderMetadata.Builder().build());
+        boundedCache.setCacheExpiryTime(0L, TimeUnit.SECONDS, ProviderMetadata.class);
+        boundedCache.add("expired", new ProviderMetadata.Builder().build());
+        boundedCache.setCacheExpiryTime(1L, TimeUnit.HOURS, ProviderMetadata.class);
+
+        Thread.sleep(10L);
+
+        boundedCache.add("new", new ProviderMetadata.Builder().build());
+
+        assertNotNull(boundedCache.get("fresh", ProviderMetadata.class, false));
+        assertNull(boundedCache.get("expired", ProviderMetadata.class, false));
+        assertEquals(boundedCache.getStatistics().getExpiredEvictionCount(), 1L);
+    }
+
+    @Test
+    public void boundedCacheShouldRejectEntryHeavierThanMaximum() throws CacheAccessException
+    {
+        final ConcurrentCache boundedCache = this.boundedCache(1);
+
+        boundedCache.add("metadata", new ProviderMetadata.Builder().build());
+        boundedCache.add("discovery", new DiscoveryResponse.Builder()
+            .withResponseData(new DiscoveryResponseData.Builder()
+                .withSubscriberId("subscriber")
+                .build())
+            .build());
+
+        assertNotNull(boundedCache.get("metadata", ProviderMetadata.class));
+        assertNull(boundedCache.get("discovery", DiscoveryResponse.class));
+        assertEquals(boundedCache.getStatistics().getRejectionCount(), 1L);
+        assertEquals(boundedCache.getStatistics().getEvictionCount(), 0L);
+    }
+
+    @Test
+    public void cachesShouldNotShareEntries() throws CacheAccessException
+    {
+        final ICache otherCache = new SessionCache.Builder().withJsonService(this.jsonService).build();
+
+        this.cache.add("shared", new ProviderMetadata.Builder().build());
+        otherCache.clear();
+
+        assertNotNull(this.cache.get("shared", ProviderMetadata.class));
+        assertNull(otherCache.get("shared", ProviderMetadata.class));
+    }
+
+    @Test
+    public void partitionShouldNotEvictOtherPartitions() throws CacheAccessException
+    {
+        final ConcurrentCache partitionedCache = new DiscoveryCache.Builder()
+            .withJsonService(this.jsonService)
+            .withPartition(new CachePartition.Builder()
+                .withName("metadata")
+                .withCachedClasses(ProviderMetadata.class)
+                .withMaxCacheSize(this.boundedCache(1).getStatistics().getMaxWeight())
+                .build())
+            .build();
+        final DiscoveryResponse discoveryResponse = new DiscoveryResponse.Builder()
+            .withResponseData(new DiscoveryResponseData.Builder().build())
+            .build();
+
+        partitionedCache.add("discovery", discoveryResponse);
+        partitionedCache.add("first", new ProviderMetadata.Builder().build());
+        partitionedCache.add("second", new ProviderMetadata.Builder().build());
+
+        assertNotNull(partitionedCache.get("discovery", DiscoveryResponse.class));
+        assertNull(partitionedCache.get("first", ProviderMetadata.class));
+        assertNotNull(partitionedCache.get("second", ProviderMetadata.class));
+        assertEquals(partitionedCache.getStatistics("metadata").getEvictionCount(), 1L);
+        assertEquals(partitionedCache.getStatistics("metadata").getEntryCount(), 1L);
+        assertEquals(partitionedCache.getStatistics().getEntryCount(), 1L);
+        assertEquals(partitionedCache.getStatistics().getEvictionCount(), 0L);
+    }
+
+    @Test
+    public void partitionExpiryTimeShouldExpireEntries()
+        throws CacheAccessException, InterruptedException
+    {
+        final ConcurrentCache partitionedCache = new DiscoveryCache.Builder()
+            .withJsonService(this.jsonService)
+            .withPartition(new CachePartition.Builder()
+                .withName("metadata")
+                .withCachedClasses(ProviderMetadata.class)
+                .withExpiryTime(0L, TimeUnit.MILLISECONDS)
+                .build())
+            .build();
+
+        partitionedCache.add("metadata", new ProviderMetadata.Builder().build());
+
+        Thread.sleep(10L);
+
+        assertNull(partitionedCache.get("metadata", ProviderMetadata.class));
+        assertTrue(partitionedCache.isEmpty());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void classShouldOnlyBeHeldInOnePartition()
+    {
+        new DiscoveryCache.Builder()
+            .withJsonService(this.jsonService)
+            .withPartition(new CachePartition.Builder()
+                .withName("first")
+                .withCachedClasses(ProviderMetadata.class)
+                .build())
+            .withPartition(new CachePartition.Builder()
+                .withName("second")
+                .withCachedClasses(ProviderMetadata.class)
+                .build())
+            .build();
+    }
+
+    @Test
+    public void serializedValueShouldNotBeReadAsAnotherClass()
+        throws CacheAccessException, JsonDeserializationException
+    {
+        this.cache.add("001_01", DiscoveryResponse.fromRestResponse(
+            TestUtils.DISCOVERY_REQUEST_RESPONSE, this.jsonService));
+
+        assertNull(this.cache.get("001_01", SessionData.class));
+        assertNotNull(this.cache.get("001_01", DiscoveryResponse.class));
+    }
+
+    @Test
+    public void objectModeShouldReturnCopiesOfInstanceAdded()
+        throws CacheAccessException, JsonDeserializationException
+    {
+        final ConcurrentCache objectCache = new DiscoveryCache.Builder()
+            .withJsonService(this.jsonService)
+            .withCacheMode(CacheMode.OBJECT)
+            .build();
+        final DiscoveryResponse discoveryResponse =
+            DiscoveryResponse.fromRestResponse(TestUtils.DISCOVERY_REQUEST_RESPONSE,
+                this.jsonService);
+
+        objectCache.add("001_01", discoveryResponse);
+
+        final DiscoveryResponse actual = objectCache.get("001_01", DiscoveryResponse.class);
+        assertNotSame(actual, discoveryResponse);
+        assertSame(actual.getResponseData(), discoveryResponse.getResponseData());
+        assertTrue(actual.isCached());
+        assertFalse(discoveryResponse.isCached());
+        assertNotSame(objectCache.get("001_01", DiscoveryResponse.class), actual);
+        assertNull(objectCache.get("001_01", ProviderMetadata.class));
+    }
+
+    @Test
+    public void objectModeShouldNotShareChangesBetweenConcurrentReaders()
+        throws CacheAccessException, JsonDeserializationException, InterruptedException,
+        ExecutionException
+    {
+        final ConcurrentCache objectCache = new DiscoveryCache.Builder()
+            .withJsonService(this.jsonService)
+            .withCacheMode(CacheMode.OBJECT)
+            .build();
+        final DiscoveryResponse discoveryResponse =
+            DiscoveryResponse.fromRestResponse(TestUtils.DISCOVERY_REQUEST_RESPONSE,
+                this.jsonService);
+        final String authorizationUrl = discoveryResponse.getOperatorUrls().getAuthorizationUrl();
+        objectCache.add("001_01", discoveryResponse);
+
+        final int readers = 8;
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(readers);
+        final List<Future<String>> read = new ArrayList<Future<String>>();
+        try
+        {
+            for (int i = 0; i < readers; i++)
+            {
+                final String endpoint = "https://operator" + i + "/authorize";
+                read.add(executor.submit(new Callable<String>()
+                {
+                    @Override
+                    public String call() throws Exception
+                    {
+                        start.await();
+                        String seen = endpoint;
+                        for (int n = 0; n < 100 && endpoint.equals(seen); n++)
+                        {
+                            final DiscoveryResponse response =
+                                objectCache.get("001_01", DiscoveryResponse.class);
+                            response.setProviderMetadata(new ProviderMetadata.Builder()
+                                .withAuthorizationEndpoint(endpoint)
+                                .build());
+                            seen = response.getOperatorUrls().getAuthorizationUrl();
+                        }
+                        return seen;
+                    }
+                }));
+            }
+            start.countDown();
+
+            for (int i = 0; i < readers; i++)
+            {
+                assertEquals(read.get(i).get(), "https://operator" + i + "/authorize");
+            }
+            final DiscoveryResponse cached = objectCache.get("001_01", DiscoveryResponse.class);
+            assertNull(cached.getProviderMetadata());
+            assertEquals(cached.getOperatorUrls().getAuthorizationUrl(), authorizationUrl);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void objectModeShouldWeighEntriesBySerializedLength() throws CacheAccessException
+    {
+        final ConcurrentCache serializedCache = this.boundedCache(1);
+        final ConcurrentCache objectCache = new DiscoveryCache.Builder()
+            .withJsonService(this.jsonService)
+            .withCacheMode(CacheMode.OBJECT)
+            .withMaxCacheSize(Long.MAX_VALUE)
+            .build();
+
+        serializedCache.add("metadata", new ProviderMetadata.Builder().build());
+        objectCache.add("metadata", new ProviderMetadata.Builder().build());
+
+        assertEquals(objectCache.getStatistics().getWeight(),
+            serializedCache.getStatistics().getWeight());
+    }
+
+    @Test
+    public void objectModeShouldRemoveExpiredInstance()
+        throws CacheAccessException, CacheExpiryLimitException, InterruptedException
+    {
+        final ConcurrentCache objectCache = new DiscoveryCache.Builder()
+            .withJsonService(this.jsonService)
+            .withCacheExpiryLimits(
+                new ListUtils.HashMapBuilder<Class<? extends AbstractCacheable>, Tuple<Long, Long>>()
+                    .build())
+            .withCacheMode(CacheMode.OBJECT)
+            .build();
+        objectCache.setCacheExpiryTime(0L, TimeUnit.SECONDS, ProviderMetadata.class);
+
+        objectCache.add("metadata", new ProviderMetadata.Builder().build());
+
+        Thread.sleep(10L);
+
+        assertNull(objectCache.get("metadata", ProviderMetadata.class));
+        assertTrue(objectCache.isEmpty());
+    }
+
+    @Test
+    public void sessionShouldOnlyBeTakenOnce()
+        throws CacheAccessException, InterruptedException, ExecutionException
+    {
+        final SessionCache sessionCache = (SessionCache) new SessionCache.Builder()
+            .withJsonService(this.jsonService)
+            .build();
+        sessionCache.add("state", new SessionData(null, "nonce"));
+
+        final int callbacks = 8;
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(callbacks);
+        final List<Future<SessionData>> taken = new ArrayList<Future<SessionData>>();
+        try
+        {
+            for (int i = 0; i < callbacks; i++)
+            {
+                taken.add(executor.submit(new Callable<SessionData>()
+                {
+                    @Override
+                    public SessionData call() throws InterruptedException
+                    {
+                        start.await();
+                        return sessionCache.get("state");
+                    }
+                }));
+            }
+            start.countDown();
+
+            int sessions = 0;
+            for (final Future<SessionData> future : taken)
+            {
+                if (future.get() != null)
+                {
+                    assertEquals(future.get().getNonce(), "nonce");
+                    sessions++;
+                }
+            }
+            assertEquals(sessions, 1);
+            assertTrue(sessionCache.isEmpty());
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void sessionStoreShouldEvictOldestSessionWithoutEvictingOtherValues()
+        throws CacheAccessException
+    {
+        final ConcurrentCache sessionCache = new SessionCache.Builder()
+            .withSessionLimits(10L, TimeUnit.MINUTES, 2)
+            .withJsonService(this.jsonService)
+            .build();
+        sessionCache.add("metadata", new ProviderMetadata.Builder().build());
+
+        sessionCache.add("first", new SessionData(null, "first"));
+        sessionCache.add("second", new SessionData(null, "second"));
+        assertNotNull(sessionCache.get("first", SessionData.class));
+        sessionCache.add("third", new SessionData(null, "third"));
+
+        assertNull(sessionCache.get("first", SessionData.class));
+        assertNotNull(sessionCache.get("second", SessionData.class));
+        assertNotNull(sessionCache.get("third", SessionData.class));
+        assertNotNull(sessionCache.get("metadata", ProviderMetadata.class));
+
+        final CacheStatistics statistics = sessionCache.getStatistics(SessionCache.SESSION_PARTITION);
+        assertEquals(statistics.getEntryCount(), 2L);
+        assertEquals(statistics.getMaxEntries(), 2);
+        assertEquals(statistics.getEvictionCount(), 1L);
+        assertEquals(sessionCache.getStatistics().getEvictionCount(), 0L);
+    }
+
+    @Test
+    public void sessionStoreShouldExpireSessionsAfterTimeToLive()
+        throws CacheAccessException, InterruptedException
+    {
+        final ConcurrentCache sessionCache = new SessionCache.Builder()
+            .withSessionLimits(0L, TimeUnit.MILLISECONDS, 10)
+            .withJsonService(this.jsonService)
+            .withSweepInterval(0L, TimeUnit.MILLISECONDS)
+            .build();
+        sessionCache.add("state", new SessionData(null, "nonce"));
+
+        Thread.sleep(10L);
+
+        assertNull(sessionCache.get("state"));
+        assertTrue(sessionCache.isEmpty());
+        assertEquals(
+            sessionCache.getStatistics(SessionCache.SESSION_PARTITION).getExpiredCount(), 1L);
+    }
+
+    @Test
+    public void sessionCacheBuilderShouldBuildMoreThanOnce() throws CacheAccessException
+    {
+        final SessionCache.Builder builder = new SessionCache.Builder();
+        builder.withJsonService(this.jsonService)
+            .withPartition(new CachePartition.Builder()
+                .withName("metadata")
+                .withCachedClasses(ProviderMetadata.class)
+                .build());
+
+        final ConcurrentCache first = builder.build();
+        final ConcurrentCache second = builder.build();
+        first.add("state", new SessionData(null, "nonce"));
+
+        assertNotNull(first.getStatistics(SessionCache.SESSION_PARTITION));
+        assertNotNull(second.getStatistics("metadata"));
+        assertEquals(first.getStatistics(SessionCache.SESSION_PARTITION).getEntryCount(), 1);
+        assertEquals(second.getStatistics(SessionCache.SESSION_PARTITION).getEntryCount(), 0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class,
+        expectedExceptionsMessageRegExp = "Partition discovery must not hold SessionData or DiscoveryResponse.*")
+    public void sessionCacheBuilderShouldRejectPartitionHoldingDiscoveryResponses()
+    {
+        new SessionCache.Builder()
+            .withJsonService(this.jsonService)
+            .withPartition(new CachePartition.Builder()
+                .withName("discovery")
+                .withCachedClasses(DiscoveryResponse.class)
+                .build());
+    }
+
+    @Test
+    public void sessionsShouldShareDiscoveryResponseOfOperator()
+        throws CacheAccessException, JsonDeserializationException
+    {
+        final SessionCache sessionCache = (SessionCache) new SessionCache.Builder()
+            .withJsonService(this.jsonService)
+            .build();
+        final DiscoveryResponse response =
+            DiscoveryResponse.fromRestResponse(TestUtils.AUTHENTICATION_RESPONSE, this.jsonService);
+
+        sessionCache.add("first", new SessionData(response.withSubscriberId("subscriber-1"),
+            "first", "nonce-1"));
+        sessionCache.add("second", new SessionData(response.withSubscriberId("subscriber-2"),
+            "second", "nonce-2"));
+
+        assertEquals(sessionCache.getStatistics(SessionCache.SESSION_PARTITION).getEntryCount(), 2L);
+        assertEquals(
+            sessionCache.getStatistics(SessionCache.SHARED_DISCOVERY_PARTITION).getEntryCount(), 1L);
+
+        final SessionData compact = sessionCache.get("first", SessionData.class);
+        assertNull(compact.getDiscoveryResponse());
+        assertEquals(compact.getDiscoveryKey(), SessionData.sharedKeyOf(response));
+        assertNull(sessionCache.get(compact.getDiscoveryKey(), DiscoveryResponse.class)
+            .getResponseData().getSubscriberId());
+
+        final SessionData first = sessionCache.get("first");
+        assertEquals(first.getNonce(), "nonce-1");
+        assertEquals(first.getState(), "first");
+        assertEquals(first.getDiscoveryResponse().getResponseData().getSubscriberId(),
+            "subscriber-1");
+        assertEquals(first.getDiscoveryResponse().getOperatorUrls().getAuthorizationUrl(),
+            response.getOperatorUrls().getAuthorizationUrl());
+        assertEquals(sessionCache.get("second").getDiscoveryResponse().getResponseData()
+            .getSubscriberId(), "subscriber-2");
+    }
+
+    @Test
+    public void sessionShouldHoldDiscoveryResponseInCacheWithoutSharing()
+        throws CacheAccessException, JsonDeserializationException
+    {
+        final DiscoveryResponse response =
+            DiscoveryResponse.fromRestResponse(TestUtils.AUTHENTICATION_RESPONSE, this.jsonService);
+
+        this.cache.add("session", new SessionData(response.withSubscriberId("subscriber"),
+            "state", "nonce"));
+
+        final SessionData session = this.cache.get("session", SessionData.class);
+        assertNull(session.getDiscoveryKey());
+        assertSame(session.resolve(this.cache), session);
+        assertEquals(session.getDiscoveryResponse().getResponseData().getSubscriberId(),
+            "subscriber");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void partitionShouldNotBeBoundedByWeightAndEntries()
+    {
+        new CachePartition.Builder()
+            .withName("sessions")
+            .withCachedClasses(SessionData.class)
+            .withMaxCacheSize(1000L)
+            .withMaxEntries(10)
+            .build();
+    }
+
+    @Test
+    public void getAndRemoveShouldLeaveValueOfAnotherType() throws CacheAccessException
+    {
+        this.cache.add("metadata", new ProviderMetadata.Builder().build());
+
+        assertNull(this.cache.getAndRemove("metadata", DiscoveryResponse.class));
+        assertNotNull(this.cache.getAndRemove("metadata", ProviderMetadata.class));
+        assertNull(this.cache.getAndRemove("metadata", ProviderMetadata.class));
+        assertTrue(this.cache.isEmpty());
+    }
+
+    @Test
+    public void computeIfPresentShouldReplaceOrRemoveValue() throws CacheAccessException
+    {
+        this.cache.add("session", new SessionData(null, "first"));
+
+        final SessionData computed = this.cache.computeIfPresent("session", SessionData.class,
+            new Function<SessionData, SessionData>()
+            {
+                @Override
+                public SessionData apply(final SessionData current)
+                {
+                    return new SessionData(null, current.getNonce() + "-second");
+                }
+            });
+
+        assertEquals(computed.getNonce(), "first-second");
+        assertEquals(this.cache.get("session", SessionData.class).getNonce(), "first-second");
+
+        assertNull(this.cache.computeIfPresent("session", SessionData.class,
+            new Function<SessionData, SessionData>()
+            {
+                @Override
+                public SessionData apply(final SessionData current)
+                {
+                    return null;
+                }
+            }));
+        assertTrue(this.cache.isEmpty());
+        assertNull(this.cache.computeIfPresent("session", SessionData.class,
+            new Function<SessionData, SessionData>()
+            {
+                @Override
+                public SessionData apply(final SessionData current)
+                {
+                    throw new AssertionError("function applied to absent value");
+                }
+            }));
+    }
+
+    @Test
+    public void sweeperShouldRemoveExpiredEntriesThatAreNotRead()
+        throws CacheAccessException, InterruptedException
+    {
+        final ConcurrentCache sweptCache = new DiscoveryCache.Builder()
+            .withJsonService(this.jsonService)
+            .withPartition(new CachePartition.Builder()
+                .withName("metadata")
+                .withCachedClasses(ProviderMetadata.class)
+                .withExpiryTime(0L, TimeUnit.MILLISECONDS)
+                .build())
+            .withSweepInterval(10L, TimeUnit.MILLISECONDS)
+            .build();
+
+        sweptCache.add("metadata", new ProviderMetadata.Builder().build());
+
+        for (int i = 0; i < 100 && sweptCache.getSweepStatistics().getExpiredCount() == 0; i++)
+        {
+            Thread.sleep(10L);
+        }
+
+        assertEquals(sweptCache.getStatistics("metadata").getEntryCount(), 0L);
+        assertEquals(sweptCache.getSweepStatistics().getExpiredCount(), 1L);
+        assertEquals(sweptCache.getSweepStatistics().getPendingCount(), 0L);
+    }
+
+    @Test
+    public void sweepShouldOnlyRemoveDueEntriesStillHeld()
+    {
+        final ExpirySweeper sweeper = new ExpirySweeper(1L, TimeUnit.SECONDS);
+        final CacheStore store = new UnboundedCacheStore(new CacheStatistics(0L));
+        final CacheEntry replaced = new CacheEntry("{}", ProviderMetadata.class, 0L);
+        final CacheEntry expiring = new CacheEntry("{}", ProviderMetadata.class, 0L);
+        final CacheEntry replacement = new CacheEntry("{}", ProviderMetadata.class);
+        final CacheEntry later = new CacheEntry("{}", ProviderMetadata.class,
+            TimeUnit.MINUTES.toMillis(1L));
+
+        store.put("replaced", replaced);
+        sweeper.schedule(store, "replaced", replaced);
+        store.put("replaced", replacement);
+        store.put("expiring", expiring);
+        sweeper.schedule(store, "expiring", expiring);
+        store.put("later", later);
+        sweeper.schedule(store, "later", later);
+
+        final int expired = sweeper.sweep(CacheEntry.now() + TimeUnit.SECONDS.toNanos(2L));
+
+        assertEquals(expired, 1);
+        assertSame(store.get("replaced"), replacement);
+        assertNull(store.get("expiring"));
+        assertSame(store.get("later"), later);
+        assertEquals(sweeper.getStatistics().getStaleCount(), 1L);
+        assertEquals(sweeper.getStatistics().getPendingCount(), 1L);
+    }
 }
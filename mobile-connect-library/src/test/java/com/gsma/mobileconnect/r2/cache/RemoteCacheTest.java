@@ -0,0 +1,189 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.gsma.mobileconnect.r2.discovery.ProviderMetadata;
+import com.gsma.mobileconnect.r2.discovery.SessionData;
+import com.gsma.mobileconnect.r2.json.GsonJsonService;
+import com.gsma.mobileconnect.r2.json.IJsonService;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests {@link RemoteCache}
+ */
+public class RemoteCacheTest
+{
+    private final IJsonService jsonService = new GsonJsonService();
+
+    private ICacheStorage storage;
+    private RemoteCache first;
+    private RemoteCache second;
+
+    private RemoteCache remoteCache()
+    {
+        return new RemoteCache.Builder()
+            .withJsonService(this.jsonService)
+            .withStorage(this.storage)
+            .build();
+    }
+
+    @BeforeMethod
+    public void beforeMethod()
+    {
+        this.storage = new InMemoryCacheStorage();
+        this.first = this.remoteCache();
+        this.second = this.remoteCache();
+    }
+
+    @Test
+    public void valueAddedByOneInstanceShouldBeReadByAnother() throws CacheAccessException
+    {
+        this.first.add("metadata", new ProviderMetadata.Builder().withIssuer("issuer").build());
+
+        assertEquals(this.second.get("metadata", ProviderMetadata.class).getIssuer(), "issuer");
+        assertEquals(this.second.get("metadata", ProviderMetadata.class).getIssuer(), "issuer");
+
+        assertEquals(this.second.getNearCacheStatistics().getMissCount(), 1L);
+        assertEquals(this.second.getNearCacheStatistics().getHitCount(), 1L);
+        assertFalse(this.second.isEmpty());
+    }
+
+    @Test
+    public void changeShouldInvalidateNearCacheOfOtherInstances() throws CacheAccessException
+    {
+        this.first.add("metadata", new ProviderMetadata.Builder().withIssuer("first").build());
+        assertNotNull(this.second.get("metadata", ProviderMetadata.class));
+
+        this.first.add("metadata", new ProviderMetadata.Builder().withIssuer("second").build());
+        assertEquals(this.second.get("metadata", ProviderMetadata.class).getIssuer(), "second");
+
+        this.first.remove("metadata");
+        assertNull(this.second.get("metadata", ProviderMetadata.class));
+
+        assertEquals(this.second.getNearCacheStatistics().getInvalidationCount(), 3L);
+        assertEquals(this.first.getNearCacheStatistics().getInvalidationCount(), 0L);
+    }
+
+    @Test
+    public void clearShouldInvalidateNearCacheOfOtherInstances() throws CacheAccessException
+    {
+        this.first.add("metadata", new ProviderMetadata.Builder().build());
+        assertNotNull(this.second.get("metadata", ProviderMetadata.class));
+
+        this.first.clear();
+
+        assertNull(this.second.get("metadata", ProviderMetadata.class));
+        assertTrue(this.second.isEmpty());
+    }
+
+    @Test
+    public void valueShouldOnlyBeTakenOnceAcrossInstances() throws CacheAccessException
+    {
+        this.first.add("state", new SessionData(null, "nonce"));
+        assertNotNull(this.second.get("state", SessionData.class));
+
+        assertEquals(this.first.getAndRemove("state", SessionData.class).getNonce(), "nonce");
+        assertNull(this.second.getAndRemove("state", SessionData.class));
+        assertNull(this.first.get("state", SessionData.class));
+    }
+
+    @Test
+    public void nearCacheShouldNotBeReadPastTimeToLive()
+        throws CacheAccessException, InterruptedException
+    {
+        final RemoteCache cache = new RemoteCache.Builder()
+            .withJsonService(this.jsonService)
+            .withStorage(this.storage)
+            .withNearCache(1L, TimeUnit.MILLISECONDS, 10)
+            .build();
+        this.first.add("metadata", new ProviderMetadata.Builder().build());
+
+        assertNotNull(cache.get("metadata", ProviderMetadata.class));
+        Thread.sleep(10L);
+        assertNotNull(cache.get("metadata", ProviderMetadata.class));
+
+        assertEquals(cache.getNearCacheStatistics().getMissCount(), 2L);
+        assertEquals(cache.getNearCacheStatistics().getHitCount(), 0L);
+    }
+
+    @Test
+    public void fullNearCacheShouldDropLeastRecentlyReadValue() throws CacheAccessException
+    {
+        final RemoteCache cache = new RemoteCache.Builder()
+            .withJsonService(this.jsonService)
+            .withStorage(this.storage)
+            .withNearCache(1L, TimeUnit.MINUTES, 2)
+            .build();
+        cache.add("first", new ProviderMetadata.Builder().build());
+        cache.add("second", new ProviderMetadata.Builder().build());
+        assertNotNull(cache.get("first", ProviderMetadata.class));
+
+        cache.add("third", new ProviderMetadata.Builder().build());
+
+        assertNotNull(cache.get("first", ProviderMetadata.class));
+        assertNotNull(cache.get("third", ProviderMetadata.class));
+        assertEquals(cache.getNearCacheStatistics().getHitCount(), 3L);
+        assertNotNull(cache.get("second", ProviderMetadata.class));
+        assertEquals(cache.getNearCacheStatistics().getMissCount(), 1L);
+    }
+
+    @Test
+    public void expiredValueShouldNotBeRead() throws CacheAccessException, IOException
+    {
+        this.storage.put("metadata",
+            (System.currentTimeMillis() - 1L) + ";" + ProviderMetadata.class.getName() + ";{}", 0L);
+
+        assertNull(this.first.get("metadata", ProviderMetadata.class));
+        assertNull(this.storage.get("metadata"));
+    }
+
+    @Test
+    public void malformedRecordShouldNotBeRead() throws CacheAccessException, IOException
+    {
+        this.storage.put("metadata", "not a record", 0L);
+        this.storage.put("unknown", "0;com.example.Unknown;{}", 0L);
+
+        assertNull(this.first.get("metadata", ProviderMetadata.class));
+        assertNull(this.first.get("unknown", ProviderMetadata.class));
+    }
+
+    @Test
+    public void recordOfTypeNotCacheableShouldNotInitializeType()
+        throws CacheAccessException, IOException
+    {
+        this.storage.put("metadata", "0;" + NotCacheable.class.getName() + ";{}", 0L);
+
+        assertNull(this.first.get("metadata", ProviderMetadata.class));
+        assertFalse(initialized);
+    }
+
+    private static boolean initialized = false;
+
+    private static final class NotCacheable
+    {
+        static
+        {
+            initialized = true;
+        }
+    }
+}
@@ -17,24 +17,36 @@
 package com.gsma.mobileconnect.r2.discovery;
 
 import com.gsma.mobileconnect.r2.MobileConnectConfig;
+import com.gsma.mobileconnect.r2.cache.AbstractCacheable;
 import com.gsma.mobileconnect.r2.cache.CacheAccessException;
+import com.gsma.mobileconnect.r2.cache.CacheExpiryLimitException;
 import com.gsma.mobileconnect.r2.cache.ConcurrentCache;
 import com.gsma.mobileconnect.r2.cache.DiscoveryCache;
+import com.gsma.mobileconnect.r2.constants.Parameters;
 import com.gsma.mobileconnect.r2.exceptions.InvalidArgumentException;
 import com.gsma.mobileconnect.r2.exceptions.InvalidResponseException;
 import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
 import com.gsma.mobileconnect.r2.json.IJsonService;
 import com.gsma.mobileconnect.r2.json.GsonJsonService;
+import com.gsma.mobileconnect.r2.rest.IRestClient;
 import com.gsma.mobileconnect.r2.rest.MockRestClient;
+import com.gsma.mobileconnect.r2.rest.RestAuthentication;
 import com.gsma.mobileconnect.r2.rest.RestResponse;
 import com.gsma.mobileconnect.r2.utils.HttpUtils;
+import com.gsma.mobileconnect.r2.utils.KeyValuePair;
 import com.gsma.mobileconnect.r2.utils.TestUtils;
+import com.gsma.mobileconnect.r2.utils.Tuple;
 import org.apache.http.HttpStatus;
+import org.mockito.ArgumentCaptor;
 import org.testng.annotations.*;
 
 import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.concurrent.*;
 
+import static org.mockito.Mockito.*;
 import static org.testng.Assert.*;
 
 /**
@@ -46,6 +58,7 @@ public class DiscoveryServiceTest
 {
     private static final URI DISCOVERY_URL = URI.create("http://localhost:8080/v2/discovery");
     private static final URI REDIRECT_URL = URI.create("http://localhost:8080/");
+    private static final URI METADATA_URL = URI.create("http://localhost:8080/provider-metadata");
     private static final DiscoveryOptions DISCOVERY_OPTIONS =
         new DiscoveryOptions.Builder().withIdentifiedMnc("100").withIdentifiedMcc("10").build();
 
@@ -344,6 +357,196 @@ public class DiscoveryServiceTest
         assertEquals(original.getProviderMetadata(), metadata);
     }
 
+    @Test
+    public void retrieveProviderMetadataShouldReturnStaleMetadataIfRefreshFails()
+        throws InterruptedException, CacheExpiryLimitException
+    {
+        final ConcurrentCache cache = this.staleRetainingCache(0L);
+        final DiscoveryService refreshingService = this.refreshingService(cache,
+            new RefreshOptions.Builder().withStaleWhileRevalidate(0L, TimeUnit.MILLISECONDS).build());
+
+        restClient
+            .addResponse(TestUtils.PROVIDER_METADATA_RESPONSE)
+            .addResponse(new RequestFailedException(HttpUtils.HttpMethod.GET, METADATA_URL, null));
+
+        assertFalse(refreshingService.retrieveProviderMetadata(METADATA_URL, true).isCached());
+        Thread.sleep(10L);
+        final ProviderMetadata stale = refreshingService.retrieveProviderMetadata(METADATA_URL, true);
+
+        assertNotNull(stale);
+        assertTrue(stale.isCached());
+        assertTrue(stale.hasExpired());
+    }
+
+    @Test
+    public void retrieveProviderMetadataShouldReturnStaleMetadataWhileRefreshing()
+        throws InterruptedException, CacheExpiryLimitException
+    {
+        final ConcurrentCache cache = this.staleRetainingCache(0L);
+        final DiscoveryService refreshingService =
+            this.refreshingService(cache, new RefreshOptions.Builder().build());
+
+        restClient
+            .addResponse(TestUtils.PROVIDER_METADATA_RESPONSE)
+            .addResponse(TestUtils.PROVIDER_METADATA_RESPONSE);
+
+        refreshingService.retrieveProviderMetadata(METADATA_URL, true);
+        Thread.sleep(10L);
+        final ProviderMetadata stale = refreshingService.retrieveProviderMetadata(METADATA_URL, true);
+
+        assertNotNull(stale);
+        assertTrue(stale.hasExpired());
+        assertEquals(restClient.reset().size(), 0);
+    }
+
+    @Test
+    public void retrieveProviderMetadataShouldRefreshAheadOfExpiry()
+        throws InterruptedException, CacheExpiryLimitException
+    {
+        final ConcurrentCache cache = this.staleRetainingCache(TimeUnit.SECONDS.toMillis(1L));
+        final DiscoveryService refreshingService = this.refreshingService(cache,
+            new RefreshOptions.Builder().withRefreshAheadPercentage(1).withJitterPercentage(0).build());
+
+        restClient
+            .addResponse(TestUtils.PROVIDER_METADATA_RESPONSE)
+            .addResponse(TestUtils.PROVIDER_METADATA_RESPONSE);
+
+        refreshingService.retrieveProviderMetadata(METADATA_URL, true);
+        Thread.sleep(50L);
+        final ProviderMetadata fresh = refreshingService.retrieveProviderMetadata(METADATA_URL, true);
+
+        assertTrue(fresh.isCached());
+        assertFalse(fresh.hasExpired());
+        assertEquals(restClient.reset().size(), 0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void startAutomatedOperatorDiscoveryShouldRefreshWithNetworkOptionsOnly()
+        throws Exception
+    {
+        final ConcurrentCache cache = this.staleRetainingCache(0L);
+        cache.setCacheExpiryTime(0L, TimeUnit.MILLISECONDS, DiscoveryResponse.class);
+        final IRestClient client = discoveryRestClient();
+        final DiscoveryService refreshingService =
+            this.refreshingService(cache, new RefreshOptions.Builder().build(), client);
+        final DiscoveryOptions options = new DiscoveryOptions.Builder(DISCOVERY_OPTIONS)
+            .withRedirectUrl(REDIRECT_URL)
+            .withClientIp("10.0.0.1")
+            .withLocalClientIp("192.168.0.1")
+            .withXRedirect("APP")
+            .build();
+        final List<KeyValuePair> cookies =
+            Collections.singletonList(new KeyValuePair("Most-Recent-Selected-Operator", "user"));
+
+        refreshingService.startAutomatedOperatorDiscovery(config, REDIRECT_URL, options, cookies);
+        Thread.sleep(10L);
+        final DiscoveryResponse stale =
+            refreshingService.startAutomatedOperatorDiscovery(config, REDIRECT_URL, options, cookies);
+
+        assertTrue(stale.isCached());
+        final ArgumentCaptor<String> xRedirect = ArgumentCaptor.forClass(String.class);
+        final ArgumentCaptor<String> sourceIp = ArgumentCaptor.forClass(String.class);
+        final ArgumentCaptor<List> queryParams = ArgumentCaptor.forClass(List.class);
+        final ArgumentCaptor<Iterable> sentCookies = ArgumentCaptor.forClass(Iterable.class);
+        verify(client, times(2)).getDiscovery(any(URI.class), any(RestAuthentication.class),
+            xRedirect.capture(), sourceIp.capture(), anyString(), anyString(),
+            queryParams.capture(), sentCookies.capture());
+
+        assertEquals(xRedirect.getAllValues().get(1), "APP");
+        assertNull(sourceIp.getAllValues().get(1));
+        assertFalse(sentCookies.getAllValues().get(1).iterator().hasNext());
+        final List<KeyValuePair> refreshParams = queryParams.getAllValues().get(1);
+        assertTrue(refreshParams.contains(new KeyValuePair(Parameters.IDENTIFIED_MCC, "10")));
+        assertFalse(refreshParams.contains(
+            new KeyValuePair(Parameters.LOCAL_CLIENT_IP, "192.168.0.1")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void startAutomatedOperatorDiscoveryShouldNotRefreshDiscoveryForMsisdn()
+        throws Exception
+    {
+        final ConcurrentCache cache = this.staleRetainingCache(0L);
+        cache.setCacheExpiryTime(0L, TimeUnit.MILLISECONDS, DiscoveryResponse.class);
+        final IRestClient client = discoveryRestClient();
+        final DiscoveryService refreshingService =
+            this.refreshingService(cache, new RefreshOptions.Builder().build(), client);
+        final DiscoveryOptions options = new DiscoveryOptions.Builder(DISCOVERY_OPTIONS)
+            .withRedirectUrl(REDIRECT_URL)
+            .withMsisdn("+447700900000")
+            .build();
+
+        refreshingService.startAutomatedOperatorDiscovery(config, REDIRECT_URL, options, null);
+        Thread.sleep(10L);
+        final DiscoveryResponse second =
+            refreshingService.startAutomatedOperatorDiscovery(config, REDIRECT_URL, options, null);
+
+        assertFalse(second.isCached());
+        verify(client, times(2)).postDiscoveryFormData(any(URI.class),
+            any(RestAuthentication.class), anyString(), anyListOf(KeyValuePair.class), anyString(),
+            anyString(), anyString(), any(Iterable.class));
+        verify(client, never()).getDiscovery(any(URI.class), any(RestAuthentication.class),
+            anyString(), anyString(), anyString(), anyString(), anyListOf(KeyValuePair.class),
+            any(Iterable.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static IRestClient discoveryRestClient() throws RequestFailedException
+    {
+        final IRestClient client = mock(IRestClient.class);
+        when(client.getDiscovery(any(URI.class), any(RestAuthentication.class), anyString(),
+            anyString(), anyString(), anyString(), anyListOf(KeyValuePair.class),
+            any(Iterable.class))).thenReturn(TestUtils.AUTHENTICATION_RESPONSE);
+        when(client.postDiscoveryFormData(any(URI.class), any(RestAuthentication.class),
+            anyString(), anyListOf(KeyValuePair.class), anyString(), anyString(), anyString(),
+            any(Iterable.class))).thenReturn(TestUtils.AUTHENTICATION_RESPONSE);
+        when(client.get(any(URI.class), any(RestAuthentication.class), anyString(), anyString(),
+            anyListOf(KeyValuePair.class), any(Iterable.class)))
+            .thenReturn(TestUtils.PROVIDER_METADATA_RESPONSE);
+        when(client.getConditional(any(URI.class), anyString(), anyString()))
+            .thenReturn(TestUtils.PROVIDER_METADATA_RESPONSE);
+        return client;
+    }
+
+    private ConcurrentCache staleRetainingCache(final long expiryMs)
+        throws CacheExpiryLimitException
+    {
+        final ConcurrentCache cache = new DiscoveryCache.Builder()
+            .withJsonService(jsonService)
+            .withCacheExpiryLimits(
+                new HashMap<Class<? extends AbstractCacheable>, Tuple<Long, Long>>())
+            .withStaleRetention(1L, TimeUnit.HOURS)
+            .build();
+        cache.setCacheExpiryTime(expiryMs, TimeUnit.MILLISECONDS, ProviderMetadata.class);
+        return cache;
+    }
+
+    private DiscoveryService refreshingService(final ConcurrentCache cache,
+        final RefreshOptions refreshOptions)
+    {
+        return this.refreshingService(cache, refreshOptions, restClient);
+    }
+
+    private DiscoveryService refreshingService(final ConcurrentCache cache,
+        final RefreshOptions refreshOptions, final IRestClient client)
+    {
+        return new DiscoveryService.Builder()
+            .withJsonService(jsonService)
+            .withCache(cache)
+            .withRestClient(client)
+            .withRefreshOptions(refreshOptions)
+            .withRefreshExecutor(new Executor()
+            {
+                @Override
+                public void execute(final Runnable command)
+                {
+                    command.run();
+                }
+            })
+            .build();
+    }
+
     @DataProvider
     public Object[][] argValidationData()
     {
@@ -0,0 +1,251 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
+import com.gsma.mobileconnect.r2.json.GsonJsonService;
+import com.gsma.mobileconnect.r2.utils.KeyValuePair;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests {@link AsyncRestClient}
+ */
+public class AsyncRestClientTest
+{
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private URI serverUri;
+    private AsyncRestClient asyncRestClient;
+
+    @BeforeMethod
+    public void beforeMethod() throws IOException
+    {
+        this.serverExecutor = Executors.newCachedThreadPool();
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.setExecutor(this.serverExecutor);
+        this.server.createContext("/echo", new HttpHandler()
+        {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException
+            {
+                final String sourceIp = exchange.getRequestHeaders().getFirst("X-Source-IP");
+                final String body = "{\"method\":\"" + exchange.getRequestMethod()
+                    + "\",\"sourceIp\":\"" + sourceIp + "\",\"body\":\""
+                    + read(exchange.getRequestBody()) + "\"}";
+                respond(exchange, body);
+            }
+        });
+        this.server.createContext("/slow", new HttpHandler()
+        {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException
+            {
+                try
+                {
+                    Thread.sleep(2000L);
+                }
+                catch (final InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                respond(exchange, "{}");
+            }
+        });
+        this.server.start();
+        this.serverUri = URI.create("http://127.0.0.1:" + this.server.getAddress().getPort());
+
+        this.asyncRestClient = new AsyncRestClient.Builder()
+            .withJsonService(new GsonJsonService())
+            .withTimeout(500L, TimeUnit.MILLISECONDS)
+            .build();
+    }
+
+    @AfterMethod
+    public void afterMethod() throws IOException
+    {
+        this.asyncRestClient.close();
+        this.server.stop(0);
+        this.serverExecutor.shutdownNow();
+    }
+
+    private static String read(final InputStream in) throws IOException
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) != -1)
+        {
+            out.write(buffer, 0, read);
+        }
+        return out.toString("UTF-8");
+    }
+
+    private static void respond(final HttpExchange exchange, final String content)
+        throws IOException
+    {
+        final byte[] body = content.getBytes("UTF-8");
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        final OutputStream out = exchange.getResponseBody();
+        out.write(body);
+        out.close();
+    }
+
+    @Test
+    public void getShouldCompleteWithResponse() throws Exception
+    {
+        final RestResponse response = this.asyncRestClient
+            .get(this.serverUri.resolve("/echo"), null, null, "10.0.0.1", null, null)
+            .get(5L, TimeUnit.SECONDS);
+
+        assertEquals(response.getStatusCode(), 200);
+        assertEquals(response.getContent(), "{\"method\":\"GET\",\"sourceIp\":\"10.0.0.1\",\"body\":\"\"}");
+        assertEquals(this.asyncRestClient.getInFlightCount(), 0);
+    }
+
+    @Test
+    public void concurrentRequestsShouldAllComplete() throws Exception
+    {
+        final List<CompletableFuture<RestResponse>> futures =
+            new ArrayList<CompletableFuture<RestResponse>>();
+
+        for (int i = 0; i < 50; i++)
+        {
+            futures.add(this.asyncRestClient.postFormData(this.serverUri.resolve("/echo"), null,
+                null, new KeyValuePair.ListBuilder().add("i", String.valueOf(i)).build(), null,
+                null));
+        }
+
+        for (int i = 0; i < futures.size(); i++)
+        {
+            assertTrue(futures.get(i).get(5L, TimeUnit.SECONDS).getContent()
+                .contains("\"body\":\"i=" + i + "\""));
+        }
+    }
+
+    @Test
+    public void timeoutShouldCompleteExceptionally() throws Exception
+    {
+        final CompletableFuture<RestResponse> future = this.asyncRestClient
+            .get(this.serverUri.resolve("/slow"), null, null, null, null, null);
+
+        try
+        {
+            future.get(5L, TimeUnit.SECONDS);
+            fail("expected request to time out");
+        }
+        catch (final ExecutionException ee)
+        {
+            assertTrue(ee.getCause() instanceof RequestFailedException);
+            assertTrue(ee.getCause().getCause() instanceof TimeoutException);
+        }
+        assertEquals(this.asyncRestClient.getTimedOutCount(), 1L);
+    }
+
+    @Test
+    public void bodyOverMaximumShouldCompleteExceptionally() throws Exception
+    {
+        final AsyncRestClient boundedClient = new AsyncRestClient.Builder()
+            .withJsonService(new GsonJsonService())
+            .withMaxResponseBodySize(8L)
+            .build();
+
+        try
+        {
+            boundedClient.get(this.serverUri.resolve("/echo"), null, null, null, null, null)
+                .get(5L, TimeUnit.SECONDS);
+            fail("expected response to be rejected");
+        }
+        catch (final ExecutionException ee)
+        {
+            assertTrue(ee.getCause() instanceof RequestFailedException);
+            assertTrue(ee.getCause().getCause() instanceof ResponseTooLargeException);
+        }
+        finally
+        {
+            boundedClient.close();
+        }
+    }
+
+    @Test
+    public void restClientShouldAdaptAsyncClient() throws RequestFailedException
+    {
+        final RestClient restClient = new RestClient.Builder()
+            .withJsonService(new GsonJsonService())
+            .withAsyncRestClient(this.asyncRestClient)
+            .build();
+
+        final RestResponse response = restClient.postFormData(this.serverUri.resolve("/echo"),
+            null, null, new KeyValuePair.ListBuilder().add("a", "b").build(), null, null);
+
+        assertSame(restClient.getAsyncRestClient(), this.asyncRestClient);
+        assertEquals(response.getContent(), "{\"method\":\"POST\",\"sourceIp\":\"null\",\"body\":\"a=b\"}");
+    }
+
+    @Test(expectedExceptions = RequestFailedException.class)
+    public void restClientShouldRethrowAsyncFailure() throws RequestFailedException
+    {
+        final RestClient restClient = new RestClient.Builder()
+            .withJsonService(new GsonJsonService())
+            .withAsyncRestClient(this.asyncRestClient)
+            .build();
+
+        restClient.get(this.serverUri.resolve("/slow"), null, null, null, null, null);
+    }
+
+    @Test
+    public void restClientShouldCancelAsyncRequestAtDeadline() throws Exception
+    {
+        final RestClient restClient = new RestClient.Builder()
+            .withJsonService(new GsonJsonService())
+            .withAsyncRestClient(this.asyncRestClient)
+            .build();
+
+        final long start = System.nanoTime();
+        try (final Deadline.Scope ignored =
+                 Deadline.enter(Deadline.after(100L, TimeUnit.MILLISECONDS)))
+        {
+            restClient.get(this.serverUri.resolve("/slow"), null, null, null, null, null);
+            fail("expected request to time out");
+        }
+        catch (final RequestFailedException rfe)
+        {
+            assertTrue(rfe.getCause() instanceof TimeoutException);
+        }
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 450L);
+        assertEquals(this.asyncRestClient.getInFlightCount(), 0);
+        assertEquals(this.asyncRestClient.getTimedOutCount(), 0L);
+    }
+}
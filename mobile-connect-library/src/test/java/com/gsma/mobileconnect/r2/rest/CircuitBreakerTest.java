@@ -0,0 +1,128 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests {@link CircuitBreaker}
+ */
+public class CircuitBreakerTest
+{
+    private static CircuitBreaker circuitBreaker(final long openMs)
+    {
+        return new CircuitBreaker("operator:443", new CircuitBreakerOptions.Builder()
+            .withFailureRateThreshold(50)
+            .withMinimumCalls(4)
+            .withOpenDuration(openMs, TimeUnit.MILLISECONDS)
+            .withHalfOpenCalls(2)
+            .build());
+    }
+
+    private static void fail(final CircuitBreaker circuitBreaker, final int calls)
+    {
+        for (int i = 0; i < calls; i++)
+        {
+            assertTrue(circuitBreaker.tryAcquire());
+            circuitBreaker.onFailure();
+        }
+    }
+
+    @Test
+    public void shouldStayClosedBelowMinimumCalls()
+    {
+        final CircuitBreaker circuitBreaker = circuitBreaker(60000L);
+
+        fail(circuitBreaker, 3);
+
+        assertEquals(circuitBreaker.getState(), CircuitBreaker.State.CLOSED);
+        assertEquals(circuitBreaker.getFailureRate(), 100);
+    }
+
+    @Test
+    public void shouldStayClosedBelowFailureRateThreshold()
+    {
+        final CircuitBreaker circuitBreaker = circuitBreaker(60000L);
+
+        for (int i = 0; i < 3; i++)
+        {
+            assertTrue(circuitBreaker.tryAcquire());
+            circuitBreaker.onSuccess();
+        }
+        fail(circuitBreaker, 2);
+
+        assertEquals(circuitBreaker.getState(), CircuitBreaker.State.CLOSED);
+        assertEquals(circuitBreaker.getFailureRate(), 40);
+    }
+
+    @Test
+    public void shouldOpenAndRejectAtFailureRateThreshold()
+    {
+        final CircuitBreaker circuitBreaker = circuitBreaker(60000L);
+
+        fail(circuitBreaker, 4);
+
+        assertEquals(circuitBreaker.getState(), CircuitBreaker.State.OPEN);
+        assertFalse(circuitBreaker.tryAcquire());
+        assertFalse(circuitBreaker.tryAcquire());
+        assertEquals(circuitBreaker.getRejectedCount(), 2L);
+        assertTrue(circuitBreaker.getRemainingOpenMs() > 0L);
+    }
+
+    @Test
+    public void shouldCloseAfterSuccessfulTrialCalls() throws InterruptedException
+    {
+        final CircuitBreaker circuitBreaker = circuitBreaker(1L);
+        fail(circuitBreaker, 4);
+        Thread.sleep(5L);
+
+        assertTrue(circuitBreaker.tryAcquire());
+        assertEquals(circuitBreaker.getState(), CircuitBreaker.State.HALF_OPEN);
+        assertTrue(circuitBreaker.tryAcquire());
+        assertFalse(circuitBreaker.tryAcquire());
+
+        circuitBreaker.onSuccess();
+        circuitBreaker.onSuccess();
+
+        assertEquals(circuitBreaker.getState(), CircuitBreaker.State.CLOSED);
+        assertEquals(circuitBreaker.getFailureRate(), 0);
+    }
+
+    @Test
+    public void shouldReopenWhenTrialCallFails() throws InterruptedException
+    {
+        final CircuitBreaker circuitBreaker = circuitBreaker(20L);
+        fail(circuitBreaker, 4);
+        Thread.sleep(30L);
+
+        assertTrue(circuitBreaker.tryAcquire());
+        circuitBreaker.onFailure();
+
+        assertEquals(circuitBreaker.getState(), CircuitBreaker.State.OPEN);
+        assertFalse(circuitBreaker.tryAcquire());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void buildShouldRejectInvalidThreshold()
+    {
+        new CircuitBreakerOptions.Builder().withFailureRateThreshold(0).build();
+    }
+}
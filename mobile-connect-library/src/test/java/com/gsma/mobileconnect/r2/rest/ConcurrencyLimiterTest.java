@@ -0,0 +1,127 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests {@link ConcurrencyLimiter}
+ */
+public class ConcurrencyLimiterTest
+{
+    private static ConcurrencyLimiter limiter(final int initialLimit, final long maxWaitMs)
+    {
+        return new ConcurrencyLimiter("operator:443", new ConcurrencyLimitOptions.Builder()
+            .withInitialLimit(initialLimit)
+            .withMinLimit(1)
+            .withMaxLimit(10)
+            .withLatencyThreshold(100L, TimeUnit.MILLISECONDS)
+            .withBackoffRatio(0.5)
+            .withMaxWait(maxWaitMs, TimeUnit.MILLISECONDS)
+            .build());
+    }
+
+    @Test
+    public void acquireShouldRejectOverLimitAfterMaxWait()
+    {
+        final ConcurrencyLimiter limiter = limiter(2, 20L);
+
+        assertTrue(limiter.acquire());
+        assertTrue(limiter.acquire());
+        final long start = System.nanoTime();
+        assertFalse(limiter.acquire());
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 15L);
+        assertEquals(limiter.getInFlight(), 2);
+        assertEquals(limiter.getRejectedCount(), 1L);
+    }
+
+    @Test
+    public void acquireShouldWaitForReleasedPermit() throws InterruptedException
+    {
+        final ConcurrencyLimiter limiter = limiter(1, 5000L);
+        assertTrue(limiter.acquire());
+
+        final AtomicBoolean acquired = new AtomicBoolean();
+        final CountDownLatch done = new CountDownLatch(1);
+        new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                acquired.set(limiter.acquire());
+                done.countDown();
+            }
+        }).start();
+
+        Thread.sleep(50L);
+        limiter.release(10L, false);
+
+        assertTrue(done.await(5L, TimeUnit.SECONDS));
+        assertTrue(acquired.get());
+        assertEquals(limiter.getInFlight(), 1);
+    }
+
+    @Test
+    public void limitShouldIncreaseAdditivelyWhenInUse()
+    {
+        final ConcurrencyLimiter limiter = limiter(2, 0L);
+
+        for (int i = 0; i < 4; i++)
+        {
+            assertTrue(limiter.acquire());
+            assertTrue(limiter.acquire());
+            limiter.release(10L, false);
+            limiter.release(10L, false);
+        }
+
+        assertEquals(limiter.getLimit(), 3);
+    }
+
+    @Test
+    public void limitShouldDecreaseMultiplicativelyOnSlowOrDroppedRequests()
+    {
+        final ConcurrencyLimiter limiter = limiter(8, 0L);
+
+        assertTrue(limiter.acquire());
+        limiter.release(500L, false);
+        assertEquals(limiter.getLimit(), 4);
+
+        assertTrue(limiter.acquire());
+        limiter.release(10L, true);
+        assertEquals(limiter.getLimit(), 2);
+
+        for (int i = 0; i < 3; i++)
+        {
+            assertTrue(limiter.acquire());
+            limiter.release(10L, true);
+        }
+        assertEquals(limiter.getLimit(), 1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void buildShouldRejectInitialLimitAboveMax()
+    {
+        new ConcurrencyLimitOptions.Builder().withInitialLimit(20).withMaxLimit(10).build();
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
+import com.gsma.mobileconnect.r2.json.GsonJsonService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests {@link ConnectionPool}
+ */
+public class ConnectionPoolTest
+{
+    private HttpServer server;
+    private URI serverUri;
+
+    @BeforeMethod
+    public void beforeMethod() throws IOException
+    {
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/", new HttpHandler()
+        {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException
+            {
+                final byte[] body = "{}".getBytes("UTF-8");
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                final OutputStream out = exchange.getResponseBody();
+                out.write(body);
+                out.close();
+            }
+        });
+        this.server.start();
+        this.serverUri = URI.create("http://127.0.0.1:" + this.server.getAddress().getPort() + "/");
+    }
+
+    @AfterMethod
+    public void afterMethod()
+    {
+        this.server.stop(0);
+    }
+
+    @Test
+    public void statisticsShouldReflectConfiguredLimits() throws IOException
+    {
+        final URI operator = URI.create("https://operator.example.com/token");
+        final ConnectionPool pool = new ConnectionPool(new ConnectionPoolOptions.Builder()
+            .withMaxTotal(50)
+            .withMaxPerRoute(5)
+            .withMaxPerRoute(operator, 25)
+            .build());
+
+        final ConnectionPoolStatistics statistics = pool.getStatistics();
+
+        assertEquals(statistics.getTotal().getMax(), 50);
+        assertEquals(statistics.getTotal().getLeased(), 0);
+        assertEquals(statistics.getRoutes().get("https://operator.example.com:443").getMax(), 25);
+
+        pool.close();
+    }
+
+    @Test
+    public void restClientShouldReuseReleasedConnection()
+        throws RequestFailedException, IOException
+    {
+        final RestClient restClient = new RestClient.Builder()
+            .withJsonService(new GsonJsonService())
+            .withConnectionPool(new ConnectionPoolOptions.Builder()
+                .withMaxPerRoute(2)
+                .withKeepAlive(10L, TimeUnit.SECONDS)
+                .build())
+            .withTimeout(5L, TimeUnit.SECONDS)
+            .build();
+
+        final RestResponse first = restClient.get(this.serverUri, null, null, null, null, null);
+        final RestResponse second = restClient.get(this.serverUri, null, null, null, null, null);
+
+        assertEquals(first.getStatusCode(), 200);
+        assertEquals(second.getContent(), "{}");
+
+        final ConnectionPoolStatistics.RouteStatistics route = restClient
+            .getConnectionPoolStatistics()
+            .getRoutes()
+            .get("http://127.0.0.1:" + this.server.getAddress().getPort());
+
+        assertNotNull(route);
+        assertEquals(route.getLeased(), 0);
+        assertEquals(route.getAvailable(), 1);
+        assertEquals(route.getMax(), 2);
+
+        restClient.getConnectionPool().close();
+    }
+
+    @Test
+    public void warmUpShouldOpenPooledConnectionsOncePerHost() throws IOException
+    {
+        final RestClient restClient = new RestClient.Builder()
+            .withJsonService(new GsonJsonService())
+            .withConnectionPool(new ConnectionPoolOptions.Builder()
+                .withMaxPerRoute(3)
+                .withKeepAlive(10L, TimeUnit.SECONDS)
+                .build())
+            .withTimeout(5L, TimeUnit.SECONDS)
+            .build();
+        final String host = "http://127.0.0.1:" + this.server.getAddress().getPort();
+
+        final WarmUpReport report = restClient.warmUp(
+            Arrays.asList(this.serverUri.resolve("/authorize"), this.serverUri.resolve("/token")),
+            2);
+
+        assertTrue(report.isSuccessful());
+        assertEquals(report.getWarmedHosts(), Collections.singletonList(host));
+
+        final ConnectionPoolStatistics.RouteStatistics route =
+            restClient.getConnectionPoolStatistics().getRoutes().get(host);
+        assertEquals(route.getLeased(), 0);
+        assertEquals(route.getAvailable(), 2);
+
+        restClient.getConnectionPool().close();
+    }
+
+    @Test
+    public void warmUpShouldReportHostsThatFailed() throws IOException
+    {
+        final ServerSocket socket = new ServerSocket(0);
+        final URI unreachable = URI.create("http://127.0.0.1:" + socket.getLocalPort() + "/");
+        socket.close();
+
+        final RestClient restClient = new RestClient.Builder()
+            .withJsonService(new GsonJsonService())
+            .withConnectionPool(new ConnectionPoolOptions.Builder().build())
+            .withTimeout(5L, TimeUnit.SECONDS)
+            .build();
+
+        final WarmUpReport report =
+            restClient.warmUp(Arrays.asList(this.serverUri, unreachable), 1);
+
+        assertFalse(report.isSuccessful());
+        assertEquals(report.getWarmedHosts().size(), 1);
+        assertTrue(report.getFailedHosts()
+            .containsKey("http://127.0.0.1:" + unreachable.getPort()));
+        assertTrue(report.getFailedHosts().values().iterator().next() instanceof IOException);
+
+        restClient.getConnectionPool().close();
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void warmUpShouldRequireConnectionPool()
+    {
+        new RestClient.Builder()
+            .withJsonService(new GsonJsonService())
+            .withHttpClient(org.apache.http.impl.client.HttpClients.createDefault())
+            .build()
+            .warmUp(Collections.singletonList(this.serverUri), 1);
+    }
+
+    @Test
+    public void poolShouldApplyTlsSessionCacheOptions() throws IOException
+    {
+        final ConnectionPoolOptions options = new ConnectionPoolOptions.Builder()
+            .withTlsSessionCache(50, 1L, TimeUnit.HOURS)
+            .build();
+        final ConnectionPool pool = new ConnectionPool(options);
+
+        assertEquals(options.getTlsSessionCacheSize(), 50);
+        assertEquals(options.getTlsSessionTimeoutMs(), TimeUnit.HOURS.toMillis(1L));
+        assertEquals(pool.getTlsSessionCount(), 0);
+
+        pool.close();
+    }
+
+    @Test
+    public void restClientWithHttpClientShouldNotPool()
+    {
+        final RestClient restClient = new RestClient.Builder()
+            .withJsonService(new GsonJsonService())
+            .withHttpClient(org.apache.http.impl.client.HttpClients.createDefault())
+            .withConnectionPool(new ConnectionPoolOptions.Builder().build())
+            .build();
+
+        assertNull(restClient.getConnectionPool());
+        assertNull(restClient.getConnectionPoolStatistics());
+    }
+}
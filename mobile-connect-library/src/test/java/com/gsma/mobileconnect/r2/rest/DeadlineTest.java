@@ -0,0 +1,89 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests {@link Deadline}
+ */
+public class DeadlineTest
+{
+    @Test
+    public void remainingShouldNotBeNegative()
+    {
+        final Deadline deadline = Deadline.after(-1L, TimeUnit.SECONDS);
+
+        assertTrue(deadline.isExpired());
+        assertEquals(deadline.remaining(TimeUnit.MILLISECONDS), 0L);
+        assertFalse(Deadline.after(1L, TimeUnit.MINUTES).isExpired());
+    }
+
+    @Test
+    public void enterShouldKeepEarlierDeadlineAndRestoreOnClose()
+    {
+        final Deadline outer = Deadline.after(1L, TimeUnit.SECONDS);
+        final Deadline later = Deadline.after(1L, TimeUnit.MINUTES);
+        final Deadline sooner = Deadline.after(10L, TimeUnit.MILLISECONDS);
+
+        assertNull(Deadline.current());
+        try (final Deadline.Scope ignored = Deadline.enter(outer))
+        {
+            try (final Deadline.Scope nested = Deadline.enter(later))
+            {
+                assertSame(Deadline.current(), outer);
+            }
+            try (final Deadline.Scope nested = Deadline.enter(null))
+            {
+                assertSame(Deadline.current(), outer);
+            }
+            try (final Deadline.Scope nested = Deadline.enter(sooner))
+            {
+                assertSame(Deadline.current(), sooner);
+            }
+            assertSame(Deadline.current(), outer);
+        }
+        assertNull(Deadline.current());
+    }
+
+    @Test
+    public void propagatingThreadFactoryShouldRunWithinCallersDeadline() throws Exception
+    {
+        final Deadline deadline = Deadline.after(1L, TimeUnit.MINUTES);
+
+        final ExecutorService executorService;
+        try (final Deadline.Scope ignored = Deadline.enter(deadline))
+        {
+            executorService = Executors.newSingleThreadExecutor(Deadline.propagatingThreadFactory());
+        }
+
+        try
+        {
+            assertSame(executorService.submit(Deadline::current).get(), deadline);
+        }
+        finally
+        {
+            executorService.shutdownNow();
+        }
+    }
+}
@@ -28,6 +28,7 @@ import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 import static org.testng.Assert.assertNotNull;
@@ -107,6 +108,13 @@ public class MockRestClient implements IRestClient
         return this.getNext();
     }
 
+    @Override
+    public RestResponse getConditional(URI uri, String etag, String lastModified)
+        throws RequestFailedException
+    {
+        return this.getNext();
+    }
+
     @Override
     public RestResponse getDiscovery(URI uri, RestAuthentication authentication, String xRedirect, String sourceIp,
                                      String clientSideVersion, String serverSideVersion, List<KeyValuePair> queryParams,
@@ -164,4 +172,20 @@ public class MockRestClient implements IRestClient
             throw new RequestFailedException("GET", redirectUrl, e);
         }
     }
+
+    @Override
+    public CompletableFuture<URI> getFinalRedirectAsync(URI authUrl, URI redirectUrl,
+        RestAuthentication authentication)
+    {
+        final CompletableFuture<URI> future = new CompletableFuture<URI>();
+        try
+        {
+            future.complete(this.getFinalRedirect(authUrl, redirectUrl, authentication));
+        }
+        catch (RequestFailedException e)
+        {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
 }
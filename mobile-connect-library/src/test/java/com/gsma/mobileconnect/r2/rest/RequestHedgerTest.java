@@ -0,0 +1,93 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests {@link RequestHedger}
+ */
+public class RequestHedgerTest
+{
+    private static RequestHedger hedger(final int maxHedgePercentage)
+    {
+        return new RequestHedger(new HedgingOptions.Builder()
+            .withPercentile(90)
+            .withMaxHedgePercentage(maxHedgePercentage)
+            .withSampleSize(20)
+            .withMinDelay(5L, TimeUnit.MILLISECONDS)
+            .withInitialDelay(300L, TimeUnit.MILLISECONDS)
+            .build());
+    }
+
+    @Test
+    public void hedgeDelayShouldBeInitialDelayUntilEnoughSamples()
+    {
+        final RequestHedger hedger = hedger(10);
+        hedger.recordLatency(10L);
+
+        assertEquals(hedger.getHedgeDelayMs(), 300L);
+    }
+
+    @Test
+    public void hedgeDelayShouldFollowPercentileOfRecentLatency()
+    {
+        final RequestHedger hedger = hedger(10);
+        for (int i = 1; i <= 40; i++)
+        {
+            hedger.recordLatency(i);
+        }
+
+        // only the 20 most recent samples, 21..40, are kept
+        assertEquals(hedger.getHedgeDelayMs(), 38L);
+    }
+
+    @Test
+    public void hedgeDelayShouldNotFallBelowMinimum()
+    {
+        final RequestHedger hedger = hedger(10);
+        for (int i = 0; i < 20; i++)
+        {
+            hedger.recordLatency(1L);
+        }
+
+        assertEquals(hedger.getHedgeDelayMs(), 5L);
+    }
+
+    @Test
+    public void tryHedgeShouldCapHedgeRate()
+    {
+        final RequestHedger hedger = hedger(10);
+        for (int i = 0; i < 9; i++)
+        {
+            hedger.onRequest();
+        }
+        assertFalse(hedger.tryHedge());
+
+        hedger.onRequest();
+        assertTrue(hedger.tryHedge());
+        assertFalse(hedger.tryHedge());
+
+        assertEquals(hedger.getRequestCount(), 10L);
+        assertEquals(hedger.getHedgeCount(), 1L);
+        assertEquals(hedger.getHedgesDeniedCount(), 2L);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests {@link RetryPolicy} and {@link RetryBudget}
+ */
+public class RetryPolicyTest
+{
+    private static final URI TEST_URI = URI.create("http://test");
+
+    @Test
+    public void backoffShouldGrowExponentiallyUpToMaximum()
+    {
+        final RetryPolicy retryPolicy = new RetryPolicy.Builder()
+            .withInitialBackoff(100L, TimeUnit.MILLISECONDS)
+            .withMaxBackoff(300L, TimeUnit.MILLISECONDS)
+            .withMultiplier(2.0)
+            .build();
+
+        for (int i = 0; i < 100; i++)
+        {
+            assertTrue(retryPolicy.backoffMs(1) <= 100L);
+            assertTrue(retryPolicy.backoffMs(2) <= 200L);
+            assertTrue(retryPolicy.backoffMs(5) <= 300L);
+            assertTrue(retryPolicy.backoffMs(5) >= 0L);
+        }
+    }
+
+    @Test
+    public void shouldRetryOnlyTransientFailures()
+    {
+        final RetryPolicy retryPolicy = new RetryPolicy.Builder().build();
+
+        assertTrue(retryPolicy.isRetryable(503));
+        assertFalse(retryPolicy.isRetryable(500));
+        assertFalse(retryPolicy.isRetryable(404));
+        assertTrue(retryPolicy.isRetryable(
+            new RequestFailedException("GET", TEST_URI, new IOException())));
+        assertTrue(retryPolicy.isRetryable(
+            new RequestFailedException("GET", TEST_URI, new TimeoutException())));
+        assertFalse(retryPolicy.isRetryable(new RequestFailedException("GET", TEST_URI,
+            new ResponseTooLargeException("GET", TEST_URI, 10L))));
+        assertFalse(retryPolicy.isRetryable(
+            new RequestFailedException("GET", TEST_URI, new IllegalStateException())));
+    }
+
+    @Test
+    public void budgetShouldCapRetriesToPercentageOfRequests()
+    {
+        final RetryBudget retryBudget =
+            new RetryBudget.Builder().withPercentage(20).withCapacity(1).build();
+
+        assertTrue(retryBudget.tryAcquire());
+        assertFalse(retryBudget.tryAcquire());
+
+        for (int i = 0; i < 4; i++)
+        {
+            retryBudget.onRequest();
+        }
+        assertFalse(retryBudget.tryAcquire());
+        retryBudget.onRequest();
+        assertTrue(retryBudget.tryAcquire());
+        assertEquals(retryBudget.getExhaustedCount(), 2L);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void buildShouldRejectMultiplierBelowOne()
+    {
+        new RetryPolicy.Builder().withMultiplier(0.5).build();
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest.internal;
+
+import com.gsma.mobileconnect.r2.exceptions.HeadlessOperationFailedException;
+import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
+import com.gsma.mobileconnect.r2.rest.RestResponse;
+import com.gsma.mobileconnect.r2.utils.KeyValuePair;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests {@link HeadlessPoller}
+ */
+public class HeadlessPollerTest
+{
+    private static final URI AUTH_URI = URI.create("http://operator/authorize");
+    private static final URI PENDING_URI = URI.create("http://operator/pending");
+    private static final URI REDIRECT_URI = URI.create("http://redirect");
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final HeadlessPoller poller =
+        new HeadlessPoller(this.scheduler, this.executor, 1L, 4L, TimeUnit.SECONDS.toMillis(10L));
+
+    @AfterClass
+    public void afterClass()
+    {
+        this.scheduler.shutdownNow();
+        this.executor.shutdownNow();
+    }
+
+    private static RestResponse redirect(final URI location, final String retryAfter)
+    {
+        final KeyValuePair.ListBuilder headers =
+            new KeyValuePair.ListBuilder().add("Location", location.toString());
+        if (retryAfter != null)
+        {
+            headers.add("Retry-After", retryAfter);
+        }
+        return new RestResponse.Builder().withStatusCode(302).withHeaders(headers.build()).build();
+    }
+
+    /**
+     * Redirects to the pending url for the specified number of polls, then to the redirect url.
+     */
+    private static Function<URI, CompletableFuture<RestResponse>> requester(final int pendingPolls,
+        final String retryAfter, final AtomicInteger polls)
+    {
+        return uri -> CompletableFuture.completedFuture(polls.incrementAndGet() > pendingPolls
+                                                        ? redirect(REDIRECT_URI.resolve("/?code=code"), null)
+                                                        : redirect(PENDING_URI, retryAfter));
+    }
+
+    @Test
+    public void pollShouldCompleteWithRedirectLocation() throws Exception
+    {
+        final AtomicInteger polls = new AtomicInteger();
+
+        final URI result =
+            this.poller.poll(AUTH_URI, REDIRECT_URI, requester(5, null, polls)).get(5L, TimeUnit.SECONDS);
+
+        assertEquals(result, URI.create("http://redirect/?code=code"));
+        assertEquals(polls.get(), 6);
+    }
+
+    private HeadlessPoller poller(final long maxWaitTime, final long timeout)
+    {
+        return new HeadlessPoller(this.scheduler, this.executor, 1L, maxWaitTime, timeout);
+    }
+
+    @Test
+    public void pollShouldHonourRetryAfter() throws Exception
+    {
+        final long start = System.nanoTime();
+
+        this.poller(TimeUnit.SECONDS.toMillis(2L), TimeUnit.SECONDS.toMillis(10L))
+            .poll(AUTH_URI, REDIRECT_URI, requester(1, "1", new AtomicInteger()))
+            .get(5L, TimeUnit.SECONDS);
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 1000L);
+    }
+
+    @Test
+    public void pollShouldBoundRetryAfterByMaxWaitTime() throws Exception
+    {
+        final AtomicInteger polls = new AtomicInteger();
+
+        final URI result = this.poller(50L, TimeUnit.SECONDS.toMillis(10L))
+            .poll(AUTH_URI, REDIRECT_URI, requester(1, "86400", polls))
+            .get(2L, TimeUnit.SECONDS);
+
+        assertEquals(result, URI.create("http://redirect/?code=code"));
+        assertEquals(polls.get(), 2);
+    }
+
+    @Test
+    public void pollShouldNotWaitForRetryAfterBeyondTimeout() throws Exception
+    {
+        final long start = System.nanoTime();
+        try
+        {
+            this.poller(TimeUnit.DAYS.toMillis(1L), 300L)
+                .poll(AUTH_URI, REDIRECT_URI, requester(1000, "86400", new AtomicInteger()))
+                .get(2L, TimeUnit.SECONDS);
+            fail("polling should fail");
+        }
+        catch (final ExecutionException ee)
+        {
+            assertTrue(ee.getCause().getCause() instanceof HeadlessOperationFailedException);
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000L);
+    }
+
+    @Test
+    public void pollShouldFailAfterTooManyRedirects() throws Exception
+    {
+        try
+        {
+            this.poller.poll(AUTH_URI, REDIRECT_URI, requester(1000, null, new AtomicInteger()))
+                .get(5L, TimeUnit.SECONDS);
+            fail("polling should fail");
+        }
+        catch (final ExecutionException ee)
+        {
+            assertTrue(ee.getCause() instanceof RequestFailedException);
+            assertTrue(ee.getCause().getCause() instanceof HeadlessOperationFailedException);
+        }
+    }
+
+    @Test
+    public void cancelShouldStopPolling() throws Exception
+    {
+        final AtomicInteger polls = new AtomicInteger();
+        final HeadlessPoller patientPoller =
+            this.poller(TimeUnit.SECONDS.toMillis(60L), TimeUnit.SECONDS.toMillis(10L));
+        final CompletableFuture<URI> future =
+            patientPoller.poll(AUTH_URI, REDIRECT_URI, requester(1000, "60", polls));
+
+        Thread.sleep(100L);
+        assertEquals(patientPoller.getActiveCount(), 1);
+        assertTrue(future.cancel(false));
+        Thread.sleep(100L);
+
+        assertEquals(polls.get(), 1);
+        assertEquals(patientPoller.getActiveCount(), 0);
+    }
+
+    @Test
+    public void retryAfterShouldAcceptSecondsAndDates()
+    {
+        assertEquals(HeadlessPoller.retryAfterMs(redirect(PENDING_URI, "3")), 3000L);
+        assertEquals(HeadlessPoller.retryAfterMs(redirect(PENDING_URI, "Thu, 01 Jan 1970 00:00:00 GMT")), 0L);
+        assertEquals(HeadlessPoller.retryAfterMs(redirect(PENDING_URI, "soon")), -1L);
+        assertEquals(HeadlessPoller.retryAfterMs(redirect(PENDING_URI, null)), -1L);
+    }
+}
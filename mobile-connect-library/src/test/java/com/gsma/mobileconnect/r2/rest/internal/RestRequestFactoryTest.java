@@ -0,0 +1,146 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest.internal;
+
+import com.gsma.mobileconnect.r2.constants.Headers;
+import com.gsma.mobileconnect.r2.constants.Parameters;
+import com.gsma.mobileconnect.r2.encoding.DefaultEncodeDecoder;
+import com.gsma.mobileconnect.r2.rest.RestAuthentication;
+import com.gsma.mobileconnect.r2.utils.HttpUtils;
+import com.gsma.mobileconnect.r2.utils.KeyValuePair;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests {@link RestRequestFactory}
+ */
+public class RestRequestFactoryTest
+{
+    private static final DefaultEncodeDecoder ENCODER = new DefaultEncodeDecoder();
+
+    @Test
+    public void basicAuthenticationShouldBeEncodedOnce()
+    {
+        final RestAuthentication authentication =
+            RestAuthentication.basic("template-client", "secret", ENCODER);
+        final RestAuthentication rotated =
+            RestAuthentication.basic("template-client", "rotated", ENCODER);
+
+        final RestAccess access = RestAccess.get();
+        assertSame(access.headerOf(authentication), access.headerOf(authentication));
+        assertNotEquals(rotated, authentication);
+        assertEquals(authentication.getParameter(), ENCODER.encodeToBase64(
+            "template-client:secret".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void templateShouldBeRebuiltWhenSecretOfClientChanges()
+    {
+        final RestRequestFactory factory = new RestRequestFactory(1000L, false);
+        final URI endpoint = URI.create("https://operator.example.com/token");
+
+        final HttpUriRequest first = factory.createRequest(HttpUtils.HttpMethod.POST, endpoint,
+            RestAuthentication.basic("client", "secret", ENCODER), null, null).build();
+        final HttpUriRequest second = factory.createRequest(HttpUtils.HttpMethod.POST, endpoint,
+            RestAuthentication.basic("client", "secret", ENCODER), null, null).build();
+        final HttpUriRequest rotated = factory.createRequest(HttpUtils.HttpMethod.POST, endpoint,
+            RestAuthentication.basic("client", "rotated", ENCODER), null, null).build();
+
+        assertSame(second.getFirstHeader(HttpHeaders.AUTHORIZATION),
+            first.getFirstHeader(HttpHeaders.AUTHORIZATION));
+        assertEquals(rotated.getFirstHeader(HttpHeaders.AUTHORIZATION).getValue(),
+            "Basic " + ENCODER.encodeToBase64("client:rotated".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(factory.getTemplateCount(), 1);
+    }
+
+    @Test
+    public void discoveryRequestsShouldShareTemplateOfClientAndEndpoint() throws Exception
+    {
+        final RestRequestFactory factory = new RestRequestFactory(1000L, true);
+        final RestAuthentication authentication =
+            RestAuthentication.basic("client", "secret", ENCODER);
+        final URI endpoint = URI.create("https://discovery.example.com/v2/discovery");
+
+        final HttpUriRequest first = factory.createDiscoveryRequest(HttpUtils.HttpMethod.GET,
+            RestRequestFactory.withQueryParams(endpoint,
+                new KeyValuePair.ListBuilder().add("Identified-MCC", "901").build()), "APP",
+            authentication, "10.0.0.1", "1.0", "2.0",
+            new KeyValuePair.ListBuilder().add("Most-Recent-Selected-Operator-Hint", "a").build())
+            .build();
+        final HttpUriRequest second = factory.createDiscoveryRequest(HttpUtils.HttpMethod.GET,
+            RestRequestFactory.withQueryParams(endpoint,
+                new KeyValuePair.ListBuilder().add("Identified-MCC", "234").build()), "APP",
+            authentication, null, "1.0", "2.0", null).build();
+
+        assertEquals(factory.getTemplateCount(), 1);
+        assertEquals(first.getURI().getQuery(), "Identified-MCC=901");
+        assertEquals(second.getURI().getQuery(), "Identified-MCC=234");
+        assertEquals(first.getFirstHeader(HttpHeaders.AUTHORIZATION).getValue(),
+            "Basic " + authentication.getParameter());
+        assertEquals(first.getFirstHeader(Headers.VERSION_SDK).getValue(), Parameters.SDK_VERSION);
+        assertEquals(first.getFirstHeader(Headers.CLIENT_SIDE_VERSION).getValue(), "1.0");
+        assertEquals(first.getFirstHeader(Headers.SERVER_SIDE_VERSION).getValue(), "2.0");
+        assertEquals(first.getFirstHeader(Parameters.X_REDIRECT).getValue(), "APP");
+        assertEquals(first.getFirstHeader(HttpHeaders.ACCEPT_ENCODING).getValue(), "gzip");
+        assertEquals(first.getFirstHeader(Headers.COOKIE).getValue(),
+            "Most-Recent-Selected-Operator-Hint=a;");
+        assertEquals(first.getFirstHeader(Headers.X_SOURCE_IP).getValue(), "10.0.0.1");
+        assertNull(second.getFirstHeader(Headers.COOKIE));
+        assertNull(second.getFirstHeader(Headers.X_SOURCE_IP));
+    }
+
+    @Test
+    public void bearerTokensShouldNotBeTemplated()
+    {
+        final RestRequestFactory factory = new RestRequestFactory(1000L, false);
+        final URI endpoint = URI.create("https://operator.example.com/userinfo");
+
+        final HttpUriRequest first = factory.createRequest(HttpUtils.HttpMethod.GET, endpoint,
+            RestAuthentication.bearer("token-1"), null, null).build();
+        final HttpUriRequest second = factory.createRequest(HttpUtils.HttpMethod.GET, endpoint,
+            RestAuthentication.bearer("token-2"), null, null).build();
+
+        assertEquals(factory.getTemplateCount(), 1);
+        assertEquals(first.getFirstHeader(HttpHeaders.AUTHORIZATION).getValue(), "Bearer token-1");
+        assertEquals(second.getFirstHeader(HttpHeaders.AUTHORIZATION).getValue(),
+            "Bearer token-2");
+        assertNull(first.getFirstHeader(HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    @Test
+    public void templatesShouldBeKeyedByEndpoint()
+    {
+        final RestRequestFactory factory = new RestRequestFactory(1000L, true);
+        final RestAuthentication authentication =
+            RestAuthentication.basic("client", "secret", ENCODER);
+
+        factory.createRequest(HttpUtils.HttpMethod.POST,
+            URI.create("https://operator-a.example.com/token"), authentication, null, null);
+        factory.createRequest(HttpUtils.HttpMethod.POST,
+            URI.create("https://operator-a.example.com/token"), authentication, null, null);
+        factory.createRequest(HttpUtils.HttpMethod.POST,
+            URI.create("https://operator-b.example.com/token"), authentication, null, null);
+
+        assertEquals(factory.getTemplateCount(), 2);
+    }
+}
@@ -18,6 +18,7 @@ package com.gsma.mobileconnect.r2.validation;
 
 import com.google.common.collect.ImmutableMap;
 import com.gsma.mobileconnect.r2.cache.DiscoveryCache;
+import com.gsma.mobileconnect.r2.cache.ICache;
 import com.gsma.mobileconnect.r2.json.GsonJsonService;
 import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
 import com.gsma.mobileconnect.r2.rest.RestAuthentication;
@@ -33,8 +34,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
@@ -154,6 +157,42 @@ public class JWKeysetServiceTest
     }
 
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void retrieveJwksShouldRevalidateExpiredKeyset() throws Exception
+    {
+        final String jwksUrl = "http://jwks.com/revalidated";
+        final String content = responses.get("single").getContent();
+        final ICache cache =
+            new DiscoveryCache.Builder().withJsonService(new GsonJsonService()).build();
+        cache.setCacheExpiryTime(1L, TimeUnit.MILLISECONDS, JWKeyset.class);
+        final JWKeysetService jwKeysetService = new JWKeysetService.Builder()
+            .withRestClient(this.mockRestClient)
+            .withICache(cache)
+            .build();
+
+        when(mockRestClient.get(any(URI.class), any(RestAuthentication.class), anyString(), anyString(),
+            anyListOf(KeyValuePair.class), any(Iterable.class))).thenReturn(
+            new RestResponse.Builder()
+                .withStatusCode(200)
+                .withHeaders(new KeyValuePair.ListBuilder().add("ETag", "\"v1\"").build())
+                .withContent(content)
+                .build());
+        when(mockRestClient.getConditional(URI.create(jwksUrl), "\"v1\"", null)).thenReturn(
+            new RestResponse.Builder().withStatusCode(304).build());
+
+        jwKeysetService.retrieveJwks(jwksUrl);
+        Thread.sleep(10L);
+        final JWKeyset revalidated = jwKeysetService.retrieveJwks(jwksUrl);
+
+        assertEquals(revalidated.getKeys().size(), 1);
+        assertEquals(revalidated.getEtag(), "\"v1\"");
+        assertEquals(jwKeysetService.getRevalidationStatistics().getNotModifiedCount(), 1L);
+        assertEquals(jwKeysetService.getRevalidationStatistics().getBytesSaved(),
+            (long) content.length());
+        verify(mockRestClient).getConditional(URI.create(jwksUrl), "\"v1\"", null);
+    }
+
     @SuppressWarnings("unchecked")
     @Test
     public void retrieveJWKSAsyncWithoutCachee()
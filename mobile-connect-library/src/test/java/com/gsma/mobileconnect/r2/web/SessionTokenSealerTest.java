@@ -0,0 +1,178 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.web;
+
+import com.gsma.mobileconnect.r2.discovery.SessionData;
+import com.gsma.mobileconnect.r2.json.GsonJsonService;
+import com.gsma.mobileconnect.r2.json.IJsonService;
+import org.testng.annotations.Test;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.*;
+
+/**
+ * Tests {@link SessionTokenSealer}
+ */
+public class SessionTokenSealerTest
+{
+    private static final byte[] FIRST_KEY = "0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+    private static final String BINDING = "browser";
+    private static final byte[] SECOND_KEY =
+        "fedcba9876543210fedcba9876543210".getBytes(StandardCharsets.UTF_8);
+
+    private final IJsonService jsonService = new GsonJsonService();
+
+    private final SessionData session =
+        new SessionData("discovery:client_http://operator/authorize", "subscriber", null, null,
+            "nonce");
+
+    private SessionTokenSealer.Builder sealer()
+    {
+        return new SessionTokenSealer.Builder().withJsonService(this.jsonService);
+    }
+
+    @Test
+    public void openShouldReturnSealedSession() throws GeneralSecurityException
+    {
+        final SessionTokenSealer sealer = this.sealer().withCurrentKey("k1", FIRST_KEY).build();
+
+        final String token = sealer.seal(this.session, BINDING);
+        final SessionData opened = sealer.open(token, BINDING);
+
+        assertTrue(token.startsWith("k1."));
+        assertFalse(token.contains("subscriber"));
+        assertEquals(opened.getDiscoveryKey(), this.session.getDiscoveryKey());
+        assertEquals(opened.getSubscriberId(), "subscriber");
+        assertEquals(opened.getNonce(), "nonce");
+        assertEquals(opened.getState(), token);
+    }
+
+    @Test
+    public void openShouldRejectAlteredToken() throws GeneralSecurityException
+    {
+        final SessionTokenSealer sealer = this.sealer().withCurrentKey("k1", FIRST_KEY).build();
+
+        final char[] token = sealer.seal(this.session, BINDING).toCharArray();
+        token[10] = token[10] == 'A' ? 'B' : 'A';
+
+        assertNull(sealer.open(new String(token), BINDING));
+        assertNull(sealer.open("k2" + new String(token).substring(2), BINDING));
+        assertNull(sealer.open("k1.AAAA", BINDING));
+        assertNull(sealer.open("token", BINDING));
+        assertNull(sealer.open(null, BINDING));
+    }
+
+    @Test
+    public void openShouldAcceptPreviousKeyAfterRotation() throws GeneralSecurityException
+    {
+        final String token =
+            this.sealer().withCurrentKey("k1", FIRST_KEY).build().seal(this.session, BINDING);
+
+        final SessionTokenSealer rotated = this.sealer()
+            .withCurrentKey("k2", SECOND_KEY)
+            .withPreviousKey("k1", FIRST_KEY)
+            .build();
+
+        assertEquals(rotated.open(token, BINDING).getNonce(), "nonce");
+        assertTrue(rotated.seal(this.session, BINDING).startsWith("k2."));
+        assertNull(this.sealer().withCurrentKey("k2", SECOND_KEY).build().open(token, BINDING));
+    }
+
+    @Test
+    public void openShouldRejectExpiredToken() throws GeneralSecurityException, InterruptedException
+    {
+        final SessionTokenSealer sealer = this.sealer()
+            .withCurrentKey("k1", FIRST_KEY)
+            .withTimeToLive(0L, TimeUnit.MILLISECONDS)
+            .build();
+
+        final String token = sealer.seal(this.session, BINDING);
+
+        Thread.sleep(10L);
+
+        assertNull(sealer.open(token, BINDING));
+    }
+
+    @Test
+    public void openShouldRejectTokenOfAnotherUserAgent() throws GeneralSecurityException
+    {
+        final SessionTokenSealer sealer = this.sealer().withCurrentKey("k1", FIRST_KEY).build();
+
+        final String token = sealer.seal(this.session, BINDING);
+
+        assertNull(sealer.open(token, "another browser"));
+        assertNull(sealer.open(token, null));
+        assertEquals(sealer.open(token, BINDING).getNonce(), "nonce");
+    }
+
+    @Test
+    public void openShouldOpenTokenOnce() throws GeneralSecurityException
+    {
+        final SessionTokenSealer sealer = this.sealer().withCurrentKey("k1", FIRST_KEY).build();
+
+        final String token = sealer.seal(this.session, BINDING);
+
+        assertNotNull(sealer.open(token, BINDING));
+        assertNull(sealer.open(token, BINDING));
+    }
+
+    @Test
+    public void bindingShouldBeReadFromBindingCookie()
+    {
+        final SessionTokenSealer sealer = this.sealer()
+            .withCurrentKey("k1", FIRST_KEY)
+            .withBindingCookie("binding")
+            .build();
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getCookies()).thenReturn(
+            new Cookie[] {new Cookie("other", "other"), new Cookie("binding", BINDING)});
+
+        assertEquals(sealer.bindingOf(request, true), BINDING);
+        assertEquals(sealer.bindingOf(request, false), BINDING);
+        assertNull(sealer.bindingOf(mock(HttpServletRequest.class), true));
+    }
+
+    @Test
+    public void bindingShouldDefaultToSessionId()
+    {
+        final SessionTokenSealer sealer = this.sealer().withCurrentKey("k1", FIRST_KEY).build();
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        final HttpSession session = mock(HttpSession.class);
+        when(session.getId()).thenReturn("session");
+        when(request.getSession(true)).thenReturn(session);
+        when(request.getRequestedSessionId()).thenReturn("requested");
+
+        assertEquals(sealer.bindingOf(request, true), "session");
+        assertEquals(sealer.bindingOf(request, false), "requested");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void buildShouldRejectKeyOfInvalidLength()
+    {
+        this.sealer().withCurrentKey("k1", Arrays.copyOf(FIRST_KEY, 10)).build();
+    }
+}